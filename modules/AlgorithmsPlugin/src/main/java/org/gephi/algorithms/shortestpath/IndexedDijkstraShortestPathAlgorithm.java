@@ -0,0 +1,228 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.algorithms.shortestpath;
+
+import java.util.Arrays;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+
+/**
+ * Dijkstra shortest path working on dense node indices.
+ * <p>
+ * The graph is copied once into compressed adjacency arrays, nodes being
+ * indexed by store id. Distances and
+ * predecessors are kept in primitive arrays and the next node to settle is
+ * taken from an indexed binary heap, for a total cost of
+ * <code>O((V + E) log V)</code> instead of the quadratic scan done by
+ * {@link DijkstraShortestPathAlgorithm}.
+ * <p>
+ * Edges are traversed in both directions, like in
+ * {@link DijkstraShortestPathAlgorithm}.
+ *
+ * @author Mathieu Bastian
+ */
+public class IndexedDijkstraShortestPathAlgorithm extends AbstractShortestPathAlgorithm {
+
+    protected final Graph graph;
+    //Index
+    private Node[] nodes;
+    //Dense node index by store id, -1 if not in the graph
+    private int[] indices;
+    //Adjacency
+    private int[] offsets;
+    private int[] neighbors;
+    private double[] weights;
+    private Edge[] edges;
+    //Result
+    private double[] dist;
+    private int[] predecessorEdges;
+
+    public IndexedDijkstraShortestPathAlgorithm(Graph graph, Node sourceNode) {
+        super(sourceNode);
+        this.graph = graph;
+    }
+
+    @Override
+    public void compute() {
+        graph.readLock();
+        try {
+            buildAdjacency();
+        } finally {
+            graph.readUnlock();
+        }
+
+        int n = nodes.length;
+        dist = new double[n];
+        predecessorEdges = new int[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessorEdges, -1);
+        boolean[] settled = new boolean[n];
+
+        int sourceIndex = getIndex(sourceNode);
+        if (sourceIndex != -1) {
+            IndexedMinHeap heap = new IndexedMinHeap(dist);
+            dist[sourceIndex] = 0.0;
+            heap.insert(sourceIndex);
+
+            while (!heap.isEmpty()) {
+                int u = heap.poll();
+                settled[u] = true;
+                double du = dist[u];
+                maxDistance = Math.max(maxDistance, du);
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = neighbors[e];
+                    if (!settled[v]) {
+                        double d = du + weights[e];
+                        if (d < dist[v]) {
+                            dist[v] = d;
+                            predecessorEdges[v] = e;
+                            if (heap.contains(v)) {
+                                heap.decreaseKey(v);
+                            } else {
+                                heap.insert(v);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        distances.clear();
+        for (int i = 0; i < n; i++) {
+            distances.put(nodes[i], dist[i]);
+        }
+    }
+
+    private void buildAdjacency() {
+        int n = graph.getNodeCount();
+        nodes = new Node[n];
+        int maxStoreId = -1;
+        int i = 0;
+        for (Node node : graph.getNodes()) {
+            nodes[i++] = node;
+            maxStoreId = Math.max(maxStoreId, node.getStoreId());
+        }
+        indices = new int[maxStoreId + 1];
+        Arrays.fill(indices, -1);
+        for (i = 0; i < n; i++) {
+            indices[nodes[i].getStoreId()] = i;
+        }
+
+        offsets = new int[n + 1];
+        for (i = 0; i < n; i++) {
+            int degree = 0;
+            for (Edge edge : graph.getEdges(nodes[i])) {
+                degree++;
+            }
+            offsets[i + 1] = offsets[i] + degree;
+        }
+
+        int m = offsets[n];
+        neighbors = new int[m];
+        weights = new double[m];
+        edges = new Edge[m];
+        for (i = 0; i < n; i++) {
+            int e = offsets[i];
+            for (Edge edge : graph.getEdges(nodes[i])) {
+                neighbors[e] = indices[graph.getOpposite(nodes[i], edge).getStoreId()];
+                weights[e] = edgeWeight(edge);
+                edges[e] = edge;
+                e++;
+            }
+        }
+    }
+
+    private int getIndex(Node node) {
+        if (indices == null || node == null) {
+            return -1;
+        }
+        int storeId = node.getStoreId();
+        if (storeId < 0 || storeId >= indices.length) {
+            return -1;
+        }
+        int index = indices[storeId];
+        return index != -1 && nodes[index] == node ? index : -1;
+    }
+
+    @Override
+    protected double edgeWeight(Edge edge) {
+        return edge.getWeight();
+    }
+
+    /**
+     * Returns the shortest distance from the source to <code>node</code>, or
+     * <code>Double.POSITIVE_INFINITY</code> if unreachable. Doesn't box.
+     *
+     * @param node the destination node
+     * @return the shortest distance to <code>node</code>
+     */
+    public double getDistance(Node node) {
+        int index = getIndex(node);
+        if (index == -1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return dist[index];
+    }
+
+    @Override
+    public Node getPredecessor(Node node) {
+        Edge edge = getPredecessorIncoming(node);
+        if (edge != null) {
+            if (edge.getSource() != node) {
+                return edge.getSource();
+            } else {
+                return edge.getTarget();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Edge getPredecessorIncoming(Node node) {
+        int index = getIndex(node);
+        if (index == -1 || predecessorEdges[index] == -1) {
+            return null;
+        }
+        return edges[predecessorEdges[index]];
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.algorithms.shortestpath;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over dense <code>int</code> indices, keyed by an external
+ * <code>double[]</code> array and supporting <code>decreaseKey</code>.
+ * <p>
+ * Each index can be present at most once. The position of every index in the
+ * heap is tracked so that a key decrease is a single sift-up.
+ *
+ * @author Mathieu Bastian
+ */
+class IndexedMinHeap {
+
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] keys;
+    private int size;
+
+    public IndexedMinHeap(double[] keys) {
+        this.keys = keys;
+        this.heap = new int[keys.length];
+        this.positions = new int[keys.length];
+        Arrays.fill(positions, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int index) {
+        return positions[index] >= 0;
+    }
+
+    public void insert(int index) {
+        heap[size] = index;
+        positions[index] = size;
+        siftUp(size++);
+    }
+
+    public void decreaseKey(int index) {
+        siftUp(positions[index]);
+    }
+
+    public int poll() {
+        int min = heap[0];
+        positions[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int pos) {
+        int index = heap[pos];
+        double key = keys[index];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parent = heap[parentPos];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[pos] = parent;
+            positions[parent] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = index;
+        positions[index] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int index = heap[pos];
+        double key = keys[index];
+        int half = size >>> 1;
+        while (pos < half) {
+            int childPos = 2 * pos + 1;
+            int child = heap[childPos];
+            int rightPos = childPos + 1;
+            if (rightPos < size && keys[heap[rightPos]] < keys[child]) {
+                childPos = rightPos;
+                child = heap[childPos];
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heap[pos] = child;
+            positions[child] = pos;
+            pos = childPos;
+        }
+        heap[pos] = index;
+        positions[index] = pos;
+    }
+}
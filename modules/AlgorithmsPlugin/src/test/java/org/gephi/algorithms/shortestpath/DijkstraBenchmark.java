@@ -0,0 +1,126 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.algorithms.shortestpath;
+
+import java.util.Map;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.graph.store.GraphModelImpl;
+
+/**
+ * Compares the run times of {@link DijkstraShortestPathAlgorithm} and
+ * {@link IndexedDijkstraShortestPathAlgorithm} from random sources on a random
+ * weighted graph, and checks that both find the same distances.
+ * <p>
+ * Arguments: node count (default 10000), edges per node (default 5) and
+ * iterations (default 5).
+ *
+ * @author Mathieu Bastian
+ */
+public class DijkstraBenchmark {
+
+    public static void main(String[] args) {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Random random = new Random(42);
+        UndirectedGraph graph = randomGraph(nodeCount, degree, random);
+        Node[] nodes = graph.getNodes().toArray();
+        System.out.println(graph.getNodeCount() + " nodes, " + graph.getEdgeCount() + " edges");
+
+        for (int i = 0; i < iterations + 1; i++) {
+            // First iteration is warm-up
+            boolean report = i > 0;
+            Node source = nodes[random.nextInt(nodes.length)];
+
+            long start = System.nanoTime();
+            DijkstraShortestPathAlgorithm dijkstra = new DijkstraShortestPathAlgorithm(graph, source);
+            dijkstra.compute();
+            long dijkstraTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            IndexedDijkstraShortestPathAlgorithm indexed = new IndexedDijkstraShortestPathAlgorithm(graph, source);
+            indexed.compute();
+            long indexedTime = System.nanoTime() - start;
+
+            if (report) {
+                System.out.println(String.format("Dijkstra %6d ms, indexed %6d ms, max difference %g",
+                        dijkstraTime / 1000000, indexedTime / 1000000, maxDifference(dijkstra, indexed)));
+            }
+        }
+    }
+
+    private static double maxDifference(AbstractShortestPathAlgorithm expected, IndexedDijkstraShortestPathAlgorithm actual) {
+        double max = 0;
+        for (Map.Entry<Node, Double> entry : expected.getDistances().entrySet()) {
+            double distance = actual.getDistance(entry.getKey());
+            double expectedDistance = entry.getValue();
+            if (distance != expectedDistance) {
+                max = Math.max(max, Math.abs(distance - expectedDistance));
+            }
+        }
+        return max;
+    }
+
+    private static UndirectedGraph randomGraph(int nodeCount, int degree, Random random) {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int d = 0; d < degree; d++) {
+                Node target = nodes[random.nextInt(nodeCount)];
+                if (target != nodes[i] && graph.getEdge(nodes[i], target) == null) {
+                    Edge edge = graphModel.factory().newEdge(nodes[i], target, 0, 1f + random.nextInt(10), false);
+                    graph.addEdge(edge);
+                }
+            }
+        }
+        return graph;
+    }
+}
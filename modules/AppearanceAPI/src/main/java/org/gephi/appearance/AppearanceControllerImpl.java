@@ -41,12 +41,23 @@
  */
 package org.gephi.appearance;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.appearance.api.AppearanceController;
 import org.gephi.appearance.api.Function;
+import org.gephi.appearance.api.RankingFunction;
+import org.gephi.appearance.spi.BatchTransformer;
+import org.gephi.appearance.spi.TransformBatch;
 import org.gephi.appearance.spi.Transformer;
 import org.gephi.appearance.spi.TransformerUI;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.ElementIterable;
+import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.project.api.ProjectController;
 import org.gephi.project.api.Workspace;
@@ -61,6 +72,9 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = AppearanceController.class)
 public class AppearanceControllerImpl implements AppearanceController {
 
+    //Below this number of elements per thread, batches are computed on the caller's thread
+    private static final int MIN_CHUNK_SIZE = 10000;
+    private final int threadCount = Runtime.getRuntime().availableProcessors();
     private AppearanceModelImpl model;
 
     public AppearanceControllerImpl() {
@@ -110,6 +124,14 @@ public class AppearanceControllerImpl implements AppearanceController {
     public void transform(Function function) {
         if (model != null) {
             GraphModel graphModel = model.getGraphModel();
+            if (function.isRanking()) {
+                //One snapshot of the column values for the whole transform
+                ((RankingFunction) function).getRanking().refresh();
+            }
+            if (function instanceof FunctionImpl && function.getTransformer() instanceof BatchTransformer) {
+                transformBatch(graphModel.getGraphVisible(), (FunctionImpl) function);
+                return;
+            }
             ElementIterable<? extends Element> iterable;
             if (function.getTransformer().isNode()) {
                 iterable = graphModel.getGraphVisible().getNodes();
@@ -122,6 +144,73 @@ public class AppearanceControllerImpl implements AppearanceController {
         }
     }
 
+    /**
+     * Computes the new values of all elements in parallel, under the read
+     * lock, and then applies them in a single write lock.
+     */
+    private void transformBatch(Graph graph, FunctionImpl function) {
+        BatchTransformer transformer = (BatchTransformer) function.getTransformer();
+        TransformBatch<Element> batch;
+        boolean computed;
+        graph.readLock();
+        try {
+            Element[] elements;
+            if (transformer.isNode()) {
+                elements = graph.getNodes().toArray();
+            } else {
+                elements = graph.getEdges().toArray();
+            }
+            batch = new TransformBatch<Element>(elements, function.getColumn(), function.getRanking(), function.getPartition());
+            computed = computeBatch(transformer, batch);
+        } finally {
+            graph.readUnlock();
+        }
+        if (!computed) {
+            return;
+        }
+        graph.writeLock();
+        try {
+            batch.apply();
+        } finally {
+            graph.writeUnlock();
+        }
+    }
+
+    private boolean computeBatch(final BatchTransformer transformer, final TransformBatch<Element> batch) {
+        int size = batch.size();
+        int threads = Math.max(1, Math.min(threadCount, size / MIN_CHUNK_SIZE));
+        if (threads == 1) {
+            transformer.compute(batch, 0, size);
+            return true;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> chunks = new ArrayList<Callable<Void>>(threads);
+            for (int t = 0; t < threads; t++) {
+                final int from = (int) ((long) size * t / threads);
+                final int to = (int) ((long) size * (t + 1) / threads);
+                chunks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        transformer.compute(batch, from, to);
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(chunks)) {
+                future.get();
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Override
     public AppearanceModelImpl getModel() {
         return model;
@@ -45,6 +45,7 @@ import org.gephi.appearance.api.Interpolator;
 import org.gephi.appearance.api.Ranking;
 import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Index;
+import org.gephi.attribute.api.NumericSummary;
 
 /**
  *
@@ -55,6 +56,10 @@ public class RankingImpl implements Ranking {
     private final Index index;
     private final Column column;
     private Interpolator interpolator;
+    //Snapshot of the column values, normalization reads its bounds
+    private NumericSummary summary;
+    private double min;
+    private double max;
 
     public RankingImpl(Column column, Index index, Interpolator interpolator) {
         this.column = column;
@@ -72,6 +77,19 @@ public class RankingImpl implements Ranking {
         return index.getMaxValue(column);
     }
 
+    @Override
+    public NumericSummary getSummary() {
+        checkRefreshed();
+        return summary;
+    }
+
+    @Override
+    public void refresh() {
+        summary = NumericSummary.of(index, column);
+        min = summary.getMin();
+        max = summary.getMax();
+    }
+
     @Override
     public Interpolator getInterpolator() {
         return interpolator;
@@ -84,10 +102,17 @@ public class RankingImpl implements Ranking {
 
     @Override
     public float normalize(Number value) {
-        float normalizedValue = (float) (value.doubleValue() - getMinValue().doubleValue()) / (float) (getMaxValue().doubleValue() - getMinValue().doubleValue());
+        checkRefreshed();
+        float normalizedValue = (float) (value.doubleValue() - min) / (float) (max - min);
         return interpolator.interpolate(normalizedValue);
     }
 
+    private void checkRefreshed() {
+        if (summary == null) {
+            throw new IllegalStateException("The ranking must be refreshed first");
+        }
+    }
+
     @Override
     public int hashCode() {
         int hash = 3;
@@ -42,6 +42,7 @@
 package org.gephi.appearance.api;
 
 import java.awt.geom.Point2D;
+import org.gephi.attribute.api.NumericSummary;
 
 /**
  * Abstract clas that defines the single {@link #interpolate(float)} method.
@@ -87,6 +88,18 @@ public abstract class Interpolator {
         return new BezierInterpolator(px1, py1, px2, py2);
     }
 
+    /**
+     * Builds a quantile interpolator from the distribution of the ranked
+     * values. Elements are spread evenly: a normalized value is mapped to the
+     * fraction of values lower than or equal to it.
+     *
+     * @param summary the summary of the ranked values
+     * @return a new quantile interpolator
+     */
+    public static Interpolator newQuantileInterpolator(NumericSummary summary) {
+        return new QuantileInterpolator(summary);
+    }
+
     /**
      * This function takes an input value between 0 and 1 and returns another
      * value, also between 0 and 1.
@@ -322,4 +335,52 @@ public abstract class Interpolator {
             return t;
         }
     }
+
+    /**
+     * Quantile interpolator, a monotone piecewise linear curve through the
+     * bounds of the equi-depth histogram of a {@link NumericSummary}.
+     */
+    public static class QuantileInterpolator extends Interpolator {
+
+        //Knots, normalized bucket bounds and their ranks
+        private final float[] xs;
+        private final float[] ys;
+
+        public QuantileInterpolator(NumericSummary summary) {
+            double[] bounds = summary.getBounds();
+            int buckets = summary.getBucketCount();
+            double min = summary.getMin();
+            double range = summary.getMax() - min;
+            xs = new float[buckets + 1];
+            ys = new float[buckets + 1];
+            for (int i = 0; i <= buckets; i++) {
+                xs[i] = range > 0 ? (float) ((bounds[i] - min) / range) : 0f;
+                ys[i] = buckets > 0 ? (float) i / buckets : 0f;
+            }
+        }
+
+        @Override
+        public float interpolate(float x) {
+            if (xs.length < 2 || x <= 0) {
+                return 0f;
+            }
+            if (x >= 1) {
+                return 1f;
+            }
+            //Last knot lower than or equal to x
+            int low = 0;
+            int high = xs.length - 1;
+            while (high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if (xs[mid] <= x) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            float width = xs[low + 1] - xs[low];
+            float fraction = width > 0 ? (x - xs[low]) / width : 0f;
+            return ys[low] + fraction * (ys[low + 1] - ys[low]);
+        }
+    }
 }
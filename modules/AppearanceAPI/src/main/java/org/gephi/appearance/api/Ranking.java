@@ -41,19 +41,57 @@
  */
 package org.gephi.appearance.api;
 
+import org.gephi.attribute.api.NumericSummary;
+
 /**
  *
  * @author mbastian
  */
 public interface Ranking {
 
+    /**
+     * Returns the current minimum value, read from the live column index.
+     *
+     * @return the minimum value
+     */
     public Number getMinValue();
 
+    /**
+     * Returns the current maximum value, read from the live column index.
+     *
+     * @return the maximum value
+     */
     public Number getMaxValue();
 
+    /**
+     * Takes a new snapshot of the column values. The snapshot is what
+     * {@link #getSummary()} and {@link #normalize(java.lang.Number)} work on,
+     * so this must be called before using them and again after the values
+     * change.
+     */
+    public void refresh();
+
+    /**
+     * Returns the summary of the values used for normalization, with count,
+     * bounds and an equi-depth histogram to build interpolators from.
+     *
+     * @return the values summary, as of the last {@link #refresh()}
+     * @throws IllegalStateException if the ranking has never been refreshed
+     * @see Interpolator#newQuantileInterpolator(org.gephi.attribute.api.NumericSummary)
+     */
+    public NumericSummary getSummary();
+
     public Interpolator getInterpolator();
 
     public void setInterpolator(Interpolator interpolator);
 
+    /**
+     * Normalizes <code>value</code> between the bounds of the last
+     * {@link #refresh()} snapshot and applies the interpolator.
+     *
+     * @param value the value to normalize
+     * @return the interpolated normalized value
+     * @throws IllegalStateException if the ranking has never been refreshed
+     */
     public float normalize(Number value);
 }
@@ -0,0 +1,167 @@
+/*
+ Copyright 2008-2013 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2013 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2013 Gephi Consortium.
+ */
+package org.gephi.appearance.spi;
+
+import java.awt.Color;
+import org.gephi.appearance.api.Partition;
+import org.gephi.appearance.api.Ranking;
+import org.gephi.attribute.api.Column;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Node;
+
+/**
+ * Elements transformed together by a {@link BatchTransformer}, with the arrays
+ * its results are computed into: packed ARGB colors, label colors and node
+ * sizes. An array is only allocated when a transformer asks for it, and only
+ * the allocated arrays are applied.
+ *
+ * @author Mathieu Bastian
+ */
+public final class TransformBatch<E extends Element> {
+
+    private final E[] elements;
+    private final Column column;
+    private final Ranking ranking;
+    private final Partition partition;
+    //Results
+    private int[] colors;
+    private int[] labelColors;
+    private float[] sizes;
+
+    public TransformBatch(E[] elements, Column column, Ranking ranking, Partition partition) {
+        this.elements = elements;
+        this.column = column;
+        this.ranking = ranking;
+        this.partition = partition;
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    public E getElement(int index) {
+        return elements[index];
+    }
+
+    /**
+     * Returns the attribute value of the element at <code>index</code>, or
+     * <code>null</code> if the transformer has no column.
+     *
+     * @param index the element index
+     * @return the element's value
+     */
+    public Object getValue(int index) {
+        return column != null ? elements[index].getAttribute(column) : null;
+    }
+
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    public Partition getPartition() {
+        return partition;
+    }
+
+    /**
+     * Returns the packed ARGB colors, one per element.
+     *
+     * @return the color array
+     */
+    public synchronized int[] getColors() {
+        if (colors == null) {
+            colors = new int[elements.length];
+        }
+        return colors;
+    }
+
+    /**
+     * Returns the packed ARGB label colors, one per element.
+     *
+     * @return the label color array
+     */
+    public synchronized int[] getLabelColors() {
+        if (labelColors == null) {
+            labelColors = new int[elements.length];
+        }
+        return labelColors;
+    }
+
+    /**
+     * Returns the node sizes, one per element.
+     *
+     * @return the size array
+     */
+    public synchronized float[] getSizes() {
+        if (sizes == null) {
+            sizes = new float[elements.length];
+        }
+        return sizes;
+    }
+
+    /**
+     * Writes the computed results to the elements. The caller holds the
+     * graph's write lock.
+     */
+    public synchronized void apply() {
+        //Consecutive elements often share a color, reuse the instance
+        Color color = null;
+        Color labelColor = null;
+        for (int i = 0; i < elements.length; i++) {
+            E element = elements[i];
+            if (colors != null) {
+                if (color == null || color.getRGB() != colors[i]) {
+                    color = new Color(colors[i], true);
+                }
+                element.setColor(color);
+            }
+            if (labelColors != null) {
+                if (labelColor == null || labelColor.getRGB() != labelColors[i]) {
+                    labelColor = new Color(labelColors[i], true);
+                }
+                element.getTextProperties().setColor(labelColor);
+            }
+            if (sizes != null) {
+                ((Node) element).setSize(sizes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.appearance.api;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.attribute.api.NumericSummary;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class InterpolatorNGTest {
+
+    @Test
+    public void testQuantileEmpty() {
+        Interpolator interpolator = Interpolator.newQuantileInterpolator(new NumericSummary.Builder().build());
+        assertEquals(interpolator.interpolate(0f), 0f);
+        assertEquals(interpolator.interpolate(0.5f), 0f);
+        assertEquals(interpolator.interpolate(1f), 0f);
+    }
+
+    @Test
+    public void testQuantileSingleValue() {
+        NumericSummary.Builder builder = new NumericSummary.Builder();
+        builder.add(3.0, 5);
+        Interpolator interpolator = Interpolator.newQuantileInterpolator(builder.build());
+        assertEquals(interpolator.interpolate(0f), 0f);
+        assertEquals(interpolator.interpolate(1f), 1f);
+        float mid = interpolator.interpolate(0.5f);
+        assertTrue(mid >= 0f && mid <= 1f);
+    }
+
+    @Test
+    public void testQuantileDuplicates() {
+        //Half of the weight on the minimum, half spread up to the maximum
+        NumericSummary.Builder builder = new NumericSummary.Builder(4);
+        builder.add(0.0, 4);
+        builder.add(4.0, 1);
+        builder.add(6.0, 1);
+        builder.add(8.0, 1);
+        builder.add(10.0, 1);
+        Interpolator interpolator = Interpolator.newQuantileInterpolator(builder.build());
+        assertEquals(interpolator.interpolate(0f), 0f);
+        assertEquals(interpolator.interpolate(1f), 1f);
+        float previous = 0f;
+        for (int i = 1; i <= 100; i++) {
+            float y = interpolator.interpolate(i / 100f);
+            assertTrue(y >= previous);
+            previous = y;
+        }
+    }
+
+    @Test
+    public void testQuantileMatchesBruteForce() {
+        Random random = new Random(42);
+        int size = 500;
+        int buckets = 32;
+        double[] values = new double[size];
+        NumericSummary.Builder builder = new NumericSummary.Builder(buckets);
+        for (int i = 0; i < size; i++) {
+            //Skewed values, most of them close to the minimum
+            values[i] = Math.exp(random.nextDouble() * 6.0);
+            builder.add(values[i]);
+        }
+        NumericSummary summary = builder.build();
+        Interpolator interpolator = Interpolator.newQuantileInterpolator(summary);
+        Arrays.sort(values);
+        double min = values[0];
+        double range = values[size - 1] - min;
+        for (int i = 0; i < size; i++) {
+            float x = (float) ((values[i] - min) / range);
+            float expected = (float) i / (size - 1);
+            assertEquals(interpolator.interpolate(x), expected, 1.0f / buckets);
+            assertEquals(interpolator.interpolate(x), (float) summary.getRank(values[i]), 1e-4f);
+        }
+    }
+}
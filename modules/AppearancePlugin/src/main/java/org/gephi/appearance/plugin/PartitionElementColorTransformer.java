@@ -44,7 +44,9 @@ package org.gephi.appearance.plugin;
 import java.awt.Color;
 import org.gephi.appearance.api.Partition;
 import org.gephi.appearance.plugin.palette.PaletteManager;
+import org.gephi.appearance.spi.BatchTransformer;
 import org.gephi.appearance.spi.PartitionTransformer;
+import org.gephi.appearance.spi.TransformBatch;
 import org.gephi.appearance.spi.Transformer;
 import org.gephi.graph.api.Element;
 import org.openide.util.lookup.ServiceProvider;
@@ -54,7 +56,7 @@ import org.openide.util.lookup.ServiceProvider;
  * @author mbastian
  */
 @ServiceProvider(service = Transformer.class)
-public class PartitionElementColorTransformer implements PartitionTransformer<Element> {
+public class PartitionElementColorTransformer implements PartitionTransformer<Element>, BatchTransformer<Element> {
 
     @Override
     public void transform(Element element, Partition partition, Object value) {
@@ -65,6 +67,16 @@ public class PartitionElementColorTransformer implements PartitionTransformer<El
         element.setColor(color);
     }
 
+    @Override
+    public void compute(TransformBatch<Element> batch, int from, int to) {
+        Partition partition = batch.getPartition();
+        int[] colors = batch.getColors();
+        for (int i = from; i < to; i++) {
+            Color color = partition.getColor(batch.getValue(i));
+            colors[i] = color != null ? color.getRGB() : Color.BLACK.getRGB();
+        }
+    }
+
     @Override
     public boolean isNode() {
         return true;
@@ -45,7 +45,9 @@ import java.awt.Color;
 import java.io.Serializable;
 import java.util.Arrays;
 import org.gephi.appearance.api.Ranking;
+import org.gephi.appearance.spi.BatchTransformer;
 import org.gephi.appearance.spi.RankingTransformer;
+import org.gephi.appearance.spi.TransformBatch;
 import org.gephi.appearance.spi.Transformer;
 import org.gephi.graph.api.Element;
 import org.openide.util.lookup.ServiceProvider;
@@ -55,7 +57,7 @@ import org.openide.util.lookup.ServiceProvider;
  * @author mbastian
  */
 @ServiceProvider(service = Transformer.class)
-public class RankingElementColorTransformer implements RankingTransformer<Element> {
+public class RankingElementColorTransformer implements RankingTransformer<Element>, BatchTransformer<Element> {
 
     protected final LinearGradient linearGradient = new LinearGradient(new Color[]{Color.WHITE, Color.BLACK}, new float[]{0f, 1f});
 
@@ -65,6 +67,28 @@ public class RankingElementColorTransformer implements RankingTransformer<Elemen
         element.setColor(color);
     }
 
+    @Override
+    public void compute(TransformBatch<Element> batch, int from, int to) {
+        computeColors(batch, batch.getColors(), from, to);
+    }
+
+    /**
+     * Computes the gradient color of each element of the range into
+     * <code>colors</code>. Elements without a value keep their color.
+     */
+    protected void computeColors(TransformBatch<Element> batch, int[] colors, int from, int to) {
+        Ranking ranking = batch.getRanking();
+        for (int i = from; i < to; i++) {
+            Number value = (Number) batch.getValue(i);
+            Color color = value != null ? linearGradient.getValue(ranking.normalize(value)) : null;
+            colors[i] = color != null ? color.getRGB() : getCurrentColor(batch.getElement(i)).getRGB();
+        }
+    }
+
+    protected Color getCurrentColor(Element element) {
+        return element.getColor();
+    }
+
     @Override
     public boolean isNode() {
         return true;
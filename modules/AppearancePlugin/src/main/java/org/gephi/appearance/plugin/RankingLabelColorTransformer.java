@@ -43,6 +43,7 @@ package org.gephi.appearance.plugin;
 
 import java.awt.Color;
 import org.gephi.appearance.api.Ranking;
+import org.gephi.appearance.spi.TransformBatch;
 import org.gephi.appearance.spi.Transformer;
 import org.gephi.graph.api.Element;
 import org.openide.util.lookup.ServiceProvider;
@@ -60,6 +61,16 @@ public class RankingLabelColorTransformer extends RankingElementColorTransformer
         element.getTextProperties().setColor(color);
     }
 
+    @Override
+    public void compute(TransformBatch<Element> batch, int from, int to) {
+        computeColors(batch, batch.getLabelColors(), from, to);
+    }
+
+    @Override
+    protected Color getCurrentColor(Element element) {
+        return element.getTextProperties().getColor();
+    }
+
     @Override
     public boolean isNode() {
         return true;
@@ -42,7 +42,9 @@
 package org.gephi.appearance.plugin;
 
 import org.gephi.appearance.api.Ranking;
+import org.gephi.appearance.spi.BatchTransformer;
 import org.gephi.appearance.spi.RankingTransformer;
+import org.gephi.appearance.spi.TransformBatch;
 import org.gephi.appearance.spi.Transformer;
 import org.gephi.graph.api.Node;
 import org.openide.util.lookup.ServiceProvider;
@@ -52,7 +54,7 @@ import org.openide.util.lookup.ServiceProvider;
  * @author mbastian
  */
 @ServiceProvider(service = Transformer.class)
-public class RankingNodeSizeTransformer implements RankingTransformer<Node> {
+public class RankingNodeSizeTransformer implements RankingTransformer<Node>, BatchTransformer<Node> {
 
     protected float minSize = 1f;
     protected float maxSize = 4f;
@@ -64,6 +66,20 @@ public class RankingNodeSizeTransformer implements RankingTransformer<Node> {
         node.setSize(size);
     }
 
+    @Override
+    public void compute(TransformBatch<Node> batch, int from, int to) {
+        Ranking ranking = batch.getRanking();
+        float[] sizes = batch.getSizes();
+        for (int i = from; i < to; i++) {
+            Number value = (Number) batch.getValue(i);
+            if (value != null) {
+                sizes[i] = ranking.normalize(value) * (maxSize - minSize) + minSize;
+            } else {
+                sizes[i] = batch.getElement(i).size();
+            }
+        }
+    }
+
     @Override
     public boolean isNode() {
         return true;
@@ -0,0 +1,441 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.clustering.plugin.mcl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Square sparse matrix in compressed sparse column (CSC) format, with
+ * primitive arrays only.
+ * <p>
+ * The entries of column <code>j</code> are at positions
+ * <code>colPointers[j]</code> to <code>colPointers[j + 1] - 1</code> of
+ * <code>rowIndices</code> and <code>values</code>. Row indices are not sorted
+ * within a column. The transposed arrays are the compressed sparse row (CSR)
+ * representation of the transposed matrix, so the operations below are
+ * column-wise: MCL works on column stochastic matrices here, where
+ * {@link SparseMatrix} works on row stochastic ones.
+ * <p>
+ * Unlike {@link SparseMatrix}, operations other than
+ * {@link #multiply(CompressedSparseMatrix, ExecutorService, int)} modify
+ * <tt>this</tt>.
+ */
+public class CompressedSparseMatrix {
+
+    private final int size;
+    private int[] colPointers;
+    private int[] rowIndices;
+    private double[] values;
+
+    private CompressedSparseMatrix(int size, int[] colPointers, int[] rowIndices, double[] values) {
+        this.size = size;
+        this.colPointers = colPointers;
+        this.rowIndices = rowIndices;
+        this.values = values;
+    }
+
+    /**
+     * Creates a matrix from a list of coordinates. Values of duplicated
+     * coordinates are summed.
+     *
+     * @param size number of rows and columns
+     * @param rows row index of each entry
+     * @param cols column index of each entry
+     * @param vals value of each entry
+     * @param count number of entries in the arrays
+     * @return the new matrix
+     */
+    public static CompressedSparseMatrix fromCoordinates(int size, int[] rows, int[] cols, double[] vals, int count) {
+        int[] pointers = new int[size + 1];
+        for (int e = 0; e < count; e++) {
+            pointers[cols[e] + 1]++;
+        }
+        for (int j = 0; j < size; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+        int[] next = Arrays.copyOf(pointers, size);
+        int[] rowIndices = new int[count];
+        double[] values = new double[count];
+        for (int e = 0; e < count; e++) {
+            int p = next[cols[e]]++;
+            rowIndices[p] = rows[e];
+            values[p] = vals[e];
+        }
+
+        //Sum duplicates, compacting in place
+        int[] last = new int[size];
+        Arrays.fill(last, -1);
+        int nnz = 0;
+        int start = 0;
+        for (int j = 0; j < size; j++) {
+            int end = pointers[j + 1];
+            int colStart = nnz;
+            for (int p = start; p < end; p++) {
+                int i = rowIndices[p];
+                if (last[i] >= colStart) {
+                    values[last[i]] += values[p];
+                } else {
+                    last[i] = nnz;
+                    rowIndices[nnz] = i;
+                    values[nnz] = values[p];
+                    nnz++;
+                }
+            }
+            start = end;
+            pointers[j + 1] = nnz;
+        }
+        return new CompressedSparseMatrix(size, pointers, rowIndices, values);
+    }
+
+    /**
+     * Adds <code>value</code> to each diagonal element.
+     *
+     * @param value the value to add
+     */
+    public void addDiagonal(double value) {
+        int nnz = colPointers[size];
+        int[] pointers = new int[size + 1];
+        int[] rows = new int[nnz + size];
+        double[] vals = new double[nnz + size];
+        int q = 0;
+        for (int j = 0; j < size; j++) {
+            boolean found = false;
+            for (int p = colPointers[j]; p < colPointers[j + 1]; p++) {
+                rows[q] = rowIndices[p];
+                vals[q] = values[p];
+                if (rowIndices[p] == j) {
+                    vals[q] += value;
+                    found = true;
+                }
+                q++;
+            }
+            if (!found) {
+                rows[q] = j;
+                vals[q] = value;
+                q++;
+            }
+            pointers[j + 1] = q;
+        }
+        colPointers = pointers;
+        rowIndices = rows;
+        values = vals;
+    }
+
+    /**
+     * Normalises each non-empty column to sum one.
+     */
+    public void normaliseColumns() {
+        for (int j = 0; j < size; j++) {
+            int start = colPointers[j];
+            int end = colPointers[j + 1];
+            double sum = 0;
+            for (int p = start; p < end; p++) {
+                sum += values[p];
+            }
+            double invsum = 1. / sum;
+            for (int p = start; p < end; p++) {
+                values[p] *= invsum;
+            }
+        }
+    }
+
+    /**
+     * Immutable product <code>this * m</code>, computed column by column with
+     * a dense accumulator (Gustavson's algorithm). When <code>pool</code> is
+     * not <code>null</code>, blocks of columns are computed concurrently and
+     * concatenated in order.
+     *
+     * @param m right operand, of the same size
+     * @param pool executor, or <code>null</code> to compute on the calling
+     * thread
+     * @param blocks number of column blocks to submit to <code>pool</code>
+     * @return the product
+     */
+    public CompressedSparseMatrix multiply(final CompressedSparseMatrix m, ExecutorService pool, int blocks) {
+        if (m.size != size) {
+            throw new IllegalArgumentException("Matrices must have the same size");
+        }
+        if (pool == null || blocks <= 1 || size < 2) {
+            return concat(new ProductBlock[]{new ProductBlock(m, 0, size).call()});
+        }
+        blocks = Math.min(blocks, size);
+        List<Future<ProductBlock>> futures = new ArrayList<Future<ProductBlock>>(blocks);
+        try {
+            for (int b = 0; b < blocks; b++) {
+                int from = (int) ((long) size * b / blocks);
+                int to = (int) ((long) size * (b + 1) / blocks);
+                futures.add(pool.submit(new ProductBlock(m, from, to)));
+            }
+            ProductBlock[] results = new ProductBlock[blocks];
+            for (int b = 0; b < blocks; b++) {
+                results[b] = futures.get(b).get();
+            }
+            return concat(results);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            for (Future<ProductBlock> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private CompressedSparseMatrix concat(ProductBlock[] results) {
+        int nnz = 0;
+        for (ProductBlock block : results) {
+            nnz += block.count;
+        }
+        int[] pointers = new int[size + 1];
+        int[] rows = new int[nnz];
+        double[] vals = new double[nnz];
+        int offset = 0;
+        for (ProductBlock block : results) {
+            for (int j = block.from; j < block.to; j++) {
+                pointers[j + 1] = offset + block.pointers[j - block.from + 1];
+            }
+            System.arraycopy(block.rows, 0, rows, offset, block.count);
+            System.arraycopy(block.vals, 0, vals, offset, block.count);
+            offset += block.count;
+        }
+        return new CompressedSparseMatrix(size, pointers, rows, vals);
+    }
+
+    /**
+     * Inflates the matrix in place: raises each element to the power
+     * <code>p</code>, removes the elements below <code>threshold</code>, keeps
+     * at most <code>maxEntries</code> largest elements per column and
+     * normalises the columns.
+     * <p>
+     * Returns the residual, the largest difference between the maximum and the
+     * sum of squares of a column. It is zero when each column has a single
+     * element, i.e. when the process has converged.
+     *
+     * @param p inflation exponent
+     * @param threshold elements below which are pruned
+     * @param maxEntries maximum number of elements per column, or zero to keep
+     * all elements above <code>threshold</code>
+     * @return the residual
+     */
+    public double inflate(double p, double threshold, int maxEntries) {
+        double residual = 0.;
+        double[] scratch = null;
+        int nnz = 0;
+        int start = 0;
+        for (int j = 0; j < size; j++) {
+            int end = colPointers[j + 1];
+            int colStart = nnz;
+            for (int q = start; q < end; q++) {
+                double v = p == 2. ? values[q] * values[q] : Math.pow(values[q], p);
+                if (Math.abs(v) >= threshold) {
+                    rowIndices[nnz] = rowIndices[q];
+                    values[nnz] = v;
+                    nnz++;
+                }
+            }
+            start = end;
+
+            int count = nnz - colStart;
+            if (maxEntries > 0 && count > maxEntries) {
+                if (scratch == null || scratch.length < count) {
+                    scratch = new double[count];
+                }
+                System.arraycopy(values, colStart, scratch, 0, count);
+                Arrays.sort(scratch, 0, count);
+                double min = scratch[count - maxEntries];
+                //Keep ties at the cutoff only until maxEntries are kept
+                int above = 0;
+                for (int q = count - maxEntries; q < count; q++) {
+                    if (scratch[q] > min) {
+                        above++;
+                    }
+                }
+                int ties = maxEntries - above;
+                int kept = colStart;
+                for (int q = colStart; q < nnz; q++) {
+                    double v = values[q];
+                    if (v > min || (v == min && ties-- > 0)) {
+                        rowIndices[kept] = rowIndices[q];
+                        values[kept] = v;
+                        kept++;
+                    }
+                }
+                nnz = kept;
+            }
+
+            double sum = 0.;
+            for (int q = colStart; q < nnz; q++) {
+                sum += values[q];
+            }
+            double invsum = 1. / sum;
+            double max = 0.;
+            double sumsq = 0.;
+            for (int q = colStart; q < nnz; q++) {
+                double v = values[q] * invsum;
+                values[q] = v;
+                max = Math.max(max, v);
+                sumsq += v * v;
+            }
+            residual = Math.max(residual, max - sumsq);
+            colPointers[j + 1] = nnz;
+        }
+        return residual;
+    }
+
+    /**
+     * Returns the number of rows and columns.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of stored elements.
+     *
+     * @return the number of non-zeros
+     */
+    public int nonZeros() {
+        return colPointers[size];
+    }
+
+    /**
+     * Returns the column pointers, of length <code>size() + 1</code>.
+     *
+     * @return the column pointers, not copied
+     */
+    public int[] getColPointers() {
+        return colPointers;
+    }
+
+    /**
+     * Returns the row index of each stored element.
+     *
+     * @return the row indices, not copied
+     */
+    public int[] getRowIndices() {
+        return rowIndices;
+    }
+
+    /**
+     * Returns the value of each stored element.
+     *
+     * @return the values, not copied
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    private class ProductBlock implements Callable<ProductBlock> {
+
+        private final CompressedSparseMatrix m;
+        private final int from;
+        private final int to;
+        private int[] pointers;
+        private int[] rows;
+        private double[] vals;
+        private int count;
+
+        public ProductBlock(CompressedSparseMatrix m, int from, int to) {
+            this.m = m;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public ProductBlock call() {
+            double[] accumulator = new double[size];
+            int[] marker = new int[size];
+            Arrays.fill(marker, -1);
+            int[] pattern = new int[size];
+
+            pointers = new int[to - from + 1];
+            int capacity = Math.max(16, m.colPointers[to] - m.colPointers[from]);
+            rows = new int[capacity];
+            vals = new double[capacity];
+            count = 0;
+            for (int j = from; j < to; j++) {
+                //C(:, j) = sum over k of A(:, k) * M(k, j)
+                int nz = 0;
+                for (int q = m.colPointers[j]; q < m.colPointers[j + 1]; q++) {
+                    int k = m.rowIndices[q];
+                    double b = m.values[q];
+                    for (int p = colPointers[k]; p < colPointers[k + 1]; p++) {
+                        int i = rowIndices[p];
+                        if (marker[i] != j) {
+                            marker[i] = j;
+                            pattern[nz++] = i;
+                            accumulator[i] = values[p] * b;
+                        } else {
+                            accumulator[i] += values[p] * b;
+                        }
+                    }
+                }
+                if (count + nz > rows.length) {
+                    int newCapacity = Math.max(count + nz, rows.length + (rows.length >> 1));
+                    rows = Arrays.copyOf(rows, newCapacity);
+                    vals = Arrays.copyOf(vals, newCapacity);
+                }
+                for (int t = 0; t < nz; t++) {
+                    int i = pattern[t];
+                    rows[count] = i;
+                    vals[count] = accumulator[i];
+                    count++;
+                }
+                pointers[j - from + 1] = count;
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+            return this;
+        }
+    }
+}
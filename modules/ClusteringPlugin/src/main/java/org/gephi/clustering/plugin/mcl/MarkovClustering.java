@@ -42,11 +42,14 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.clustering.plugin.mcl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.gephi.clustering.api.Cluster;
 import org.gephi.clustering.spi.Clusterer;
 import org.gephi.graph.api.Edge;
@@ -100,6 +103,12 @@ import org.gephi.utils.progress.ProgressTicket;
  * Description is based on the introduction of Stijn van Dongen's thesis Graph
  * Clustering by Flow Simulation (2000); for a mathematical treatment of the
  * algorithm and the associated MCL process, see there.
+ * <p>
+ * By default the process runs on a {@link CompressedSparseMatrix}, with the
+ * expansion computed on <code>threadCount</code> threads and an optional
+ * limit of elements kept per column at each inflation. The original
+ * HashMap-based {@link SparseMatrix} implementation is used when
+ * <code>compressed</code> is false.
  */
 //Original author Gregor Heinrich
 public class MarkovClustering implements Clusterer, LongTask {
@@ -108,6 +117,9 @@ public class MarkovClustering implements Clusterer, LongTask {
     private double gammaExp = 2.0;
     private double loopGain = 0.;
     private double zeroMax = 0.001;
+    private int maxEntries = 0;
+    private boolean compressed = true;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
     private Cluster[] clusters;
     //LongTask
     private ProgressTicket progressTicket;
@@ -124,6 +136,11 @@ public class MarkovClustering implements Clusterer, LongTask {
         Graph graph = graphModel.getGraphVisible();
         graph.readLock();
 
+        if (compressed) {
+            executeCompressed(graph);
+            return;
+        }
+
         //Load matrix
         SparseMatrix matrix = new SparseMatrix();
         int nodeId = 0;
@@ -191,6 +208,117 @@ public class MarkovClustering implements Clusterer, LongTask {
         Progress.finish(progressTicket);
     }
 
+    private void executeCompressed(Graph graph) {
+        //Load matrix, columns are normalised so entry (source, target) is the
+        //same as entry (target, source) of the transposed row-major matrix
+        HashMap<Node, Integer> intMap = new HashMap<Node, Integer>();
+        List<Node> nodeList = new ArrayList<Node>();
+        int edgeCount = graph.getEdgeCount();
+        int[] rows = new int[edgeCount];
+        int[] cols = new int[edgeCount];
+        double[] vals = new double[edgeCount];
+        int count = 0;
+        for (Edge e : graph.getEdges()) {
+            Node source = e.getSource();
+            Node target = e.getTarget();
+            Integer sourceId;
+            Integer targetId;
+            if ((sourceId = intMap.get(source)) == null) {
+                sourceId = nodeList.size();
+                intMap.put(source, sourceId);
+                nodeList.add(source);
+            }
+            if ((targetId = intMap.get(target)) == null) {
+                targetId = nodeList.size();
+                intMap.put(target, targetId);
+                nodeList.add(target);
+            }
+            if (count == rows.length) {
+                int capacity = Math.max(16, count + (count >> 1));
+                rows = Arrays.copyOf(rows, capacity);
+                cols = Arrays.copyOf(cols, capacity);
+                vals = Arrays.copyOf(vals, capacity);
+            }
+            rows[count] = sourceId;
+            cols[count] = targetId;
+            vals[count] = e.getWeight();
+            count++;
+
+            if (cancelled) {
+                graph.readUnlockAll();
+                return;
+            }
+        }
+
+        graph.readUnlock();
+
+        CompressedSparseMatrix matrix = CompressedSparseMatrix.fromCoordinates(nodeList.size(), rows, cols, vals, count);
+        rows = null;
+        cols = null;
+        vals = null;
+        matrix = run(matrix, maxResidual, gammaExp, loopGain, zeroMax, maxEntries);
+
+        if (cancelled) {
+            return;
+        }
+
+        //Nodes linked by a non-zero off-diagonal element are in the same cluster
+        int n = matrix.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        boolean[] clustered = new boolean[n];
+        int[] pointers = matrix.getColPointers();
+        int[] rowIndices = matrix.getRowIndices();
+        double[] values = matrix.getValues();
+        for (int j = 0; j < n; j++) {
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                int i = rowIndices[p];
+                if (i != j && values[p] != 0.0) {
+                    clustered[i] = true;
+                    clustered[j] = true;
+                    int ri = find(parent, i);
+                    int rj = find(parent, j);
+                    if (ri != rj) {
+                        parent[Math.max(ri, rj)] = Math.min(ri, rj);
+                    }
+                }
+            }
+        }
+
+        //Roots are the smallest index of their cluster, so clusters are
+        //numbered in order of their first node
+        int[] clusterIndex = new int[n];
+        List<List<Node>> clusterNodes = new ArrayList<List<Node>>();
+        for (int i = 0; i < n; i++) {
+            if (!clustered[i]) {
+                continue;
+            }
+            int root = find(parent, i);
+            if (root == i) {
+                clusterIndex[i] = clusterNodes.size();
+                clusterNodes.add(new ArrayList<Node>());
+            }
+            clusterNodes.get(clusterIndex[root]).add(nodeList.get(i));
+        }
+
+        clusters = new Cluster[clusterNodes.size()];
+        for (int c = 0; c < clusters.length; c++) {
+            clusters[c] = new MCLCluster(clusterNodes.get(c).toArray(new Node[0]), c + 1);
+        }
+
+        Progress.finish(progressTicket);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
     public Cluster[] getClusters() {
         return clusters;
     }
@@ -278,6 +406,50 @@ public class MarkovClustering implements Clusterer, LongTask {
         return a;
     }
 
+    /**
+     * run the MCL process on a column-major matrix, with the expansion
+     * computed on <code>threadCount</code> threads.
+     *
+     * @param a matrix (mutable)
+     * @param maxResidual maximum difference between column elements and column
+     *        square sum (measure of idempotence)
+     * @param pGamma inflation exponent for Gamma operator
+     * @param loopGain values for cycles
+     * @param maxZero maximum value considered zero for pruning operations
+     * @param maxEntries maximum number of elements kept per column, or zero
+     *        for no limit
+     * @return the resulting matrix
+     */
+    public CompressedSparseMatrix run(CompressedSparseMatrix a, double maxResidual, double pGamma, double loopGain, double maxZero, int maxEntries) {
+        // add cycles
+        if (loopGain > 0) {
+            a.addDiagonal(loopGain);
+        }
+
+        // make stochastic
+        a.normaliseColumns();
+
+        int threads = Math.max(1, Math.min(threadCount, a.size()));
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            double residual = 1.;
+            while (residual > maxResidual && !cancelled) {
+                // expand
+                a = a.multiply(a, pool, threads * 4);
+                if (cancelled) {
+                    return a;
+                }
+                // inflate, prune, normalise
+                residual = a.inflate(pGamma, maxZero, maxEntries);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+        return a;
+    }
+
     /**
      * inflate stochastic matrix by Hadamard (elementwise) exponentiation,
      * pruning and normalisation :
@@ -391,6 +563,43 @@ public class MarkovClustering implements Clusterer, LongTask {
         this.zeroMax = zeroMax;
     }
 
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the maximum number of elements kept per column at each inflation,
+     * only the largest are kept. Only used by the compressed matrix. Default is
+     * 0, no limit
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Set whether the process runs on a compressed sparse column matrix
+     * instead of the HashMap-based sparse matrix. Default is true
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Set the number of threads computing the expansion with the compressed
+     * matrix. Default is the number of available processors
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
     private Map<Integer, ArrayList<Integer>> getClusters(SparseMatrix matrix) {
 
         Map<Integer, ArrayList<Integer>> clusters = new HashMap<Integer, ArrayList<Integer>>();
@@ -42,7 +42,6 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.clustering.plugin.mcl;
 
 import java.util.ArrayList;
-import java.util.Collections;
 
 /**
  * SparseMatrix is a sparse matrix with row-major format.
@@ -182,7 +181,12 @@ public class SparseMatrix extends ArrayList<SparseVector> {
      * @param i
      */
     private void increase(int i) {
-        addAll(Collections.nCopies(i - size() + 1, new SparseVector()));
+        //One vector per row, nCopies would share a single instance
+        while (size() <= i) {
+            SparseVector v = new SparseVector();
+            v.setLength(maxVLength);
+            add(v);
+        }
     }
 
     /**
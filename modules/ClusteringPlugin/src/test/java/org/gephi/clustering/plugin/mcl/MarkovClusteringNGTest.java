@@ -0,0 +1,231 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.clustering.plugin.mcl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.gephi.clustering.api.Cluster;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class MarkovClusteringNGTest {
+
+    private ProjectController pc;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testIncreaseCreatesOneVectorPerRow() {
+        SparseMatrix matrix = new SparseMatrix();
+        matrix.set(2, 1, 1.0);
+
+        assertEquals(matrix.size(), 3);
+        assertNotSame(matrix.get(0), matrix.get(1));
+        assertNotSame(matrix.get(1), matrix.get(2));
+        assertTrue(matrix.get(0).isEmpty());
+        assertTrue(matrix.get(1).isEmpty());
+        assertEquals(matrix.get(2, 1), 1.0);
+        assertEquals(matrix.get(0, 1), 0.0);
+        assertEquals(matrix.get(0).getLength(), 2);
+
+        matrix.add(0, 0, 2.0);
+        assertEquals(matrix.get(0, 0), 2.0);
+        assertEquals(matrix.get(1, 0), 0.0);
+        assertEquals(matrix.get(2, 0), 0.0);
+    }
+
+    @Test
+    public void testFromCoordinatesSumsDuplicates() {
+        int[] rows = new int[]{0, 1, 0, 2, 1};
+        int[] cols = new int[]{0, 0, 0, 2, 0};
+        double[] vals = new double[]{1.0, 2.0, 3.0, 4.0, 5.0};
+        CompressedSparseMatrix matrix = CompressedSparseMatrix.fromCoordinates(3, rows, cols, vals, rows.length);
+
+        assertEquals(matrix.nonZeros(), 3);
+        double[][] dense = toDense(matrix);
+        assertEquals(dense[0][0], 4.0);
+        assertEquals(dense[1][0], 7.0);
+        assertEquals(dense[2][2], 4.0);
+    }
+
+    @Test
+    public void testMultiply() {
+        Random random = new Random(42);
+        int size = 12;
+        double[][] a = randomDense(size, random);
+        double[][] b = randomDense(size, random);
+        double[][] expected = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                for (int k = 0; k < size; k++) {
+                    expected[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+
+        CompressedSparseMatrix ma = toCompressed(a);
+        CompressedSparseMatrix mb = toCompressed(b);
+        assertDenseEquals(toDense(ma.multiply(mb, null, 1)), expected);
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            for (int blocks = 2; blocks <= size + 1; blocks++) {
+                assertDenseEquals(toDense(ma.multiply(mb, pool, blocks)), expected);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        //Operands are not modified
+        assertDenseEquals(toDense(ma), a);
+        assertDenseEquals(toDense(mb), b);
+    }
+
+    @Test
+    public void testCompressedSameClustersAsSparseMatrix() {
+        GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+
+        //Two 4-cliques and a triangle, linked by single edges
+        Node[] nodes = new Node[11];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+        }
+        int[][] groups = new int[][]{{0, 1, 2, 3}, {4, 5, 6, 7}, {8, 9, 10}};
+        for (int[] group : groups) {
+            for (int i = 0; i < group.length; i++) {
+                for (int j = i + 1; j < group.length; j++) {
+                    addEdges(graphModel, graph, nodes[group[i]], nodes[group[j]]);
+                }
+            }
+        }
+        addEdges(graphModel, graph, nodes[3], nodes[4]);
+        addEdges(graphModel, graph, nodes[7], nodes[8]);
+
+        MarkovClustering sparse = new MarkovClustering();
+        sparse.setCompressed(false);
+        sparse.execute(graphModel);
+
+        MarkovClustering compressed = new MarkovClustering();
+        compressed.setThreadCount(3);
+        compressed.execute(graphModel);
+
+        List<String> expected = getClusters(sparse);
+        assertEquals(expected, Arrays.asList("0 1 2 3", "10 8 9", "4 5 6 7"));
+        assertEquals(getClusters(compressed), expected);
+    }
+
+    private static void addEdges(GraphModel graphModel, DirectedGraph graph, Node source, Node target) {
+        graph.addEdge(graphModel.factory().newEdge(source, target));
+        graph.addEdge(graphModel.factory().newEdge(target, source));
+    }
+
+    private static List<String> getClusters(MarkovClustering clustering) {
+        List<String> clusters = new ArrayList<String>();
+        for (Cluster cluster : clustering.getClusters()) {
+            List<String> ids = new ArrayList<String>();
+            for (Node node : cluster.getNodes()) {
+                ids.add((String) node.getId());
+            }
+            Collections.sort(ids);
+            StringBuilder builder = new StringBuilder();
+            for (String id : ids) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(id);
+            }
+            clusters.add(builder.toString());
+        }
+        Collections.sort(clusters);
+        return clusters;
+    }
+
+    private static double[][] randomDense(int size, Random random) {
+        double[][] dense = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (random.nextDouble() < 0.3) {
+                    dense[i][j] = random.nextDouble();
+                }
+            }
+        }
+        return dense;
+    }
+
+    private static CompressedSparseMatrix toCompressed(double[][] dense) {
+        int size = dense.length;
+        int[] rows = new int[size * size];
+        int[] cols = new int[size * size];
+        double[] vals = new double[size * size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (dense[i][j] != 0.0) {
+                    rows[count] = i;
+                    cols[count] = j;
+                    vals[count] = dense[i][j];
+                    count++;
+                }
+            }
+        }
+        return CompressedSparseMatrix.fromCoordinates(size, rows, cols, vals, count);
+    }
+
+    private static double[][] toDense(CompressedSparseMatrix matrix) {
+        int size = matrix.size();
+        double[][] dense = new double[size][size];
+        int[] pointers = matrix.getColPointers();
+        int[] rowIndices = matrix.getRowIndices();
+        double[] values = matrix.getValues();
+        for (int j = 0; j < size; j++) {
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                dense[rowIndices[p]][j] += values[p];
+            }
+        }
+        return dense;
+    }
+
+    private static void assertDenseEquals(double[][] actual, double[][] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(actual[i][j], expected[i][j], 1e-12, i + "," + j);
+            }
+        }
+    }
+}
@@ -169,6 +169,9 @@ public class DesktopImportControllerUI implements ImportControllerUI {
             fileObject = getArchivedFile(fileObject);
             final String containerSource = fileObject.getNameExt();
             final InputStream stream = fileObject.getInputStream();
+            if (importer instanceof FileImporter.FileAware) {
+                ((FileImporter.FileAware) importer).setFile(FileUtil.toFile(fileObject));
+            }
             String taskName = NbBundle.getMessage(DesktopImportControllerUI.class, "DesktopImportControllerUI.taskName", containerSource);
             executor.execute(task, new Runnable() {
                 @Override
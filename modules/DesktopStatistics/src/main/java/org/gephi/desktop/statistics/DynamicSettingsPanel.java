@@ -49,7 +49,10 @@ import java.awt.event.MouseEvent;
 import java.util.concurrent.TimeUnit;
 import javax.swing.ComboBoxModel;
 import javax.swing.DefaultComboBoxModel;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.TimeFormat;
 import org.gephi.attribute.time.Interval;
@@ -60,6 +63,7 @@ import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.lib.validation.PositiveNumberValidator;
 import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.ParallelDynamicStatistics;
 import org.gephi.ui.components.richtooltip.RichTooltip;
 import org.netbeans.validation.api.Problems;
 import org.netbeans.validation.api.Validator;
@@ -80,10 +84,26 @@ public class DynamicSettingsPanel extends javax.swing.JPanel {
     private TimeUnit windowTimeUnit = TimeUnit.DAYS;
     private TimeUnit tickTimeUnit = TimeUnit.DAYS;
     private Interval bounds = null;
+    private final JPanel threadPanel;
+    private final JSpinner threadSpinner;
 
     public DynamicSettingsPanel() {
         initComponents();
 
+        //Thread count, only for statistics computing windows concurrently
+        int processors = Runtime.getRuntime().availableProcessors();
+        threadSpinner = new JSpinner(new SpinnerNumberModel(1, 1, processors, 1));
+        threadPanel = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+        threadPanel.add(new JLabel(NbBundle.getMessage(DynamicSettingsPanel.class, "DynamicSettingsPanel.threadLabel.text")));
+        threadPanel.add(threadSpinner);
+        threadPanel.setVisible(false);
+        java.awt.GridBagConstraints gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 1;
+        gridBagConstraints.fill = java.awt.GridBagConstraints.HORIZONTAL;
+        gridBagConstraints.insets = new java.awt.Insets(0, 8, 8, 8);
+        add(threadPanel, gridBagConstraints);
+
         //Load timeunit's combo
         windowTimeUnitCombo.setModel(getTimeUnitModel());
         tickTimeUnitCombo.setModel(getTimeUnitModel());
@@ -150,6 +170,14 @@ public class DynamicSettingsPanel extends javax.swing.JPanel {
             tickTextField.setText("" + tickTimeUnit.convert((long) initValue, TimeUnit.MILLISECONDS));
         }
 
+        //Threads
+        if (dynamicStatistics instanceof ParallelDynamicStatistics) {
+            int threadCount = NbPreferences.forModule(DynamicSettingsPanel.class).getInt("DynamicSettingsPanel_thread_count", 1);
+            SpinnerNumberModel threadModel = (SpinnerNumberModel) threadSpinner.getModel();
+            threadSpinner.setValue(Math.min(threadCount, (Integer) threadModel.getMaximum()));
+            threadPanel.setVisible(true);
+        }
+
         //Add listeners
         windowTimeUnitCombo.addItemListener(new ItemListener() {
 
@@ -199,6 +227,13 @@ public class DynamicSettingsPanel extends javax.swing.JPanel {
         }
         dynamicStatistics.setTick(tick);
 
+        //Threads
+        if (dynamicStatistics instanceof ParallelDynamicStatistics) {
+            int threadCount = (Integer) threadSpinner.getValue();
+            ((ParallelDynamicStatistics) dynamicStatistics).setThreadCount(threadCount);
+            NbPreferences.forModule(DynamicSettingsPanel.class).putInt("DynamicSettingsPanel_thread_count", threadCount);
+        }
+
         //Save latest selected item
         if (!model.getTimeFormat().equals(DynamicModel.TimeFormat.DOUBLE)) {
             saveDefaultTimeUnits();
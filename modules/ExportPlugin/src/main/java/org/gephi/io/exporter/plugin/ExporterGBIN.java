@@ -0,0 +1,493 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.exporter.plugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.gephi.attribute.api.AttributeModel;
+import org.gephi.attribute.api.AttributeUtils;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.time.TimestampValueSet;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.io.exporter.spi.ByteExporter;
+import org.gephi.io.exporter.spi.GraphExporter;
+import org.gephi.project.api.Workspace;
+import org.gephi.utils.longtask.spi.LongTask;
+import org.gephi.utils.progress.Progress;
+import org.gephi.utils.progress.ProgressTicket;
+import org.openide.util.Lookup;
+
+/**
+ * Exporter for the GBIN binary graph format, read back by the GBIN importer.
+ * The layout of the file is described in {@link GBINFormat}.
+ * <p>
+ * Values are written to a direct buffer flushed to the output stream's
+ * channel. When cancelled, the export stops without writing the end marker,
+ * so the partial file is rejected by the importer.
+ *
+ * @author Mathieu Bastian
+ */
+public class ExporterGBIN implements GraphExporter, ByteExporter, LongTask {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    //Settings
+    private boolean exportWeights = true;
+    private boolean exportViz = true;
+    private boolean exportAttributes = true;
+    //Architecture
+    private Workspace workspace;
+    private OutputStream stream;
+    private boolean exportVisible;
+    private boolean cancel = false;
+    private ProgressTicket progressTicket;
+    private WritableByteChannel channel;
+    private ByteBuffer buffer;
+
+    @Override
+    public boolean execute() {
+        GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
+        GraphModel graphModel = graphController.getGraphModel(workspace);
+        AttributeModel attributeModel = graphController.getAttributeModel(workspace);
+        Graph graph;
+        if (exportVisible) {
+            graph = graphModel.getGraphVisible();
+        } else {
+            graph = graphModel.getGraph();
+        }
+        try {
+            exportData(graphModel, attributeModel, graph);
+        } catch (Exception e) {
+            graph.readUnlockAll();
+            throw new RuntimeException(e);
+        }
+
+        return !cancel;
+    }
+
+    private void exportData(GraphModel graphModel, AttributeModel attributeModel, Graph graph) throws IOException {
+        graph.readLock();
+
+        Node[] nodes = graph.getNodes().toArray();
+        Edge[] edges = graph.getEdges().toArray();
+        Progress.start(progressTicket, nodes.length + edges.length);
+
+        //Node index by store id, edges refer to nodes by index
+        int maxStoreId = -1;
+        for (Node n : nodes) {
+            maxStoreId = Math.max(maxStoreId, n.getStoreId());
+        }
+        int[] nodeIndex = new int[maxStoreId + 1];
+        for (int i = 0; i < nodes.length; i++) {
+            nodeIndex[nodes[i].getStoreId()] = i;
+        }
+
+        int flags = 0;
+        if (graphModel.isDirected()) {
+            flags |= GBINFormat.FLAG_DIRECTED;
+        } else if (graphModel.isUndirected()) {
+            flags |= GBINFormat.FLAG_UNDIRECTED;
+        }
+        if (exportWeights) {
+            flags |= GBINFormat.FLAG_WEIGHTS;
+        }
+        if (exportViz) {
+            flags |= GBINFormat.FLAG_VIZ;
+        }
+        if (hasLabel(nodes)) {
+            flags |= GBINFormat.FLAG_NODE_LABELS;
+        }
+        if (hasLabel(edges)) {
+            flags |= GBINFormat.FLAG_EDGE_LABELS;
+        }
+        Column[] nodeColumns = getColumns(attributeModel != null && exportAttributes ? attributeModel.getNodeTable() : null);
+        Column[] edgeColumns = getColumns(attributeModel != null && exportAttributes ? attributeModel.getEdgeTable() : null);
+
+        channel = Channels.newChannel(stream);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        //Header
+        buffer.putInt(GBINFormat.MAGIC);
+        buffer.putInt(GBINFormat.VERSION);
+        buffer.putInt(flags);
+        buffer.putInt(nodes.length);
+        buffer.putInt(edges.length);
+        buffer.putInt(nodeColumns.length);
+        buffer.putInt(edgeColumns.length);
+
+        //Nodes
+        String[] strings = new String[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            strings[i] = nodes[i].getId().toString();
+        }
+        writeStrings(strings);
+        if ((flags & GBINFormat.FLAG_NODE_LABELS) != 0) {
+            for (int i = 0; i < nodes.length; i++) {
+                strings[i] = nodes[i].getLabel();
+            }
+            writeStrings(strings);
+        }
+        if (exportViz) {
+            for (Node n : nodes) {
+                ensure(4);
+                buffer.putFloat(n.x());
+            }
+            for (Node n : nodes) {
+                ensure(4);
+                buffer.putFloat(n.y());
+            }
+            for (Node n : nodes) {
+                ensure(4);
+                buffer.putFloat(n.z());
+            }
+            for (Node n : nodes) {
+                ensure(4);
+                buffer.putFloat(n.size());
+            }
+            for (Node n : nodes) {
+                ensure(4);
+                buffer.putInt(toARGB(n.alpha(), n.r(), n.g(), n.b()));
+            }
+        }
+        Progress.progress(progressTicket, nodes.length);
+
+        //Edges
+        strings = new String[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            strings[i] = edges[i].getId().toString();
+        }
+        writeStrings(strings);
+        for (Edge e : edges) {
+            ensure(4);
+            buffer.putInt(nodeIndex[e.getSource().getStoreId()]);
+        }
+        for (Edge e : edges) {
+            ensure(4);
+            buffer.putInt(nodeIndex[e.getTarget().getStoreId()]);
+        }
+        if ((flags & (GBINFormat.FLAG_DIRECTED | GBINFormat.FLAG_UNDIRECTED)) == 0) {
+            for (Edge e : edges) {
+                ensure(1);
+                buffer.put(e.isDirected() ? (byte) 1 : (byte) 0);
+            }
+        }
+        if (exportWeights) {
+            for (Edge e : edges) {
+                ensure(8);
+                buffer.putDouble(e.getWeight());
+            }
+        }
+        if ((flags & GBINFormat.FLAG_EDGE_LABELS) != 0) {
+            for (int i = 0; i < edges.length; i++) {
+                strings[i] = edges[i].getLabel();
+            }
+            writeStrings(strings);
+        }
+        Progress.progress(progressTicket, nodes.length + edges.length);
+
+        //Attributes
+        for (int i = 0; i < nodeColumns.length && !cancel; i++) {
+            writeColumn(graph, nodeColumns[i], nodes);
+        }
+        for (int i = 0; i < edgeColumns.length && !cancel; i++) {
+            writeColumn(graph, edgeColumns[i], edges);
+        }
+
+        //A cancelled export has no end marker and is rejected on import
+        if (!cancel) {
+            ensure(4);
+            buffer.putInt(GBINFormat.END);
+            flush();
+        }
+        stream.flush();
+        buffer = null;
+        channel = null;
+
+        graph.readUnlockAll();
+
+        Progress.finish(progressTicket);
+    }
+
+    private Column[] getColumns(Iterable<Column> table) {
+        List<Column> columns = new ArrayList<Column>();
+        if (table != null) {
+            for (Column column : table) {
+                if (!column.isProperty()) {
+                    columns.add(column);
+                }
+            }
+        }
+        return columns.toArray(new Column[0]);
+    }
+
+    private boolean hasLabel(Element[] elements) {
+        for (Element element : elements) {
+            if (element.getLabel() != null && !element.getLabel().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int toARGB(float a, float r, float g, float b) {
+        return Math.round(a * 255f) << 24 | Math.round(r * 255f) << 16 | Math.round(g * 255f) << 8 | Math.round(b * 255f);
+    }
+
+    private void writeColumn(Graph graph, Column column, Element[] elements) throws IOException {
+        Class type = column.getTypeClass();
+        boolean dynamic = AttributeUtils.isDynamicType(type);
+        if (dynamic) {
+            type = AttributeUtils.getStaticType((Class<? extends TimestampValueSet>) type);
+        }
+        byte typeCode = GBINFormat.getTypeCode(type);
+        writeString(column.getId());
+        writeString(column.getTitle());
+        ensure(2);
+        buffer.put(typeCode);
+        buffer.put(dynamic ? (byte) 1 : (byte) 0);
+
+        if (!dynamic) {
+            Object[] values = new Object[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                values[i] = elements[i].getAttribute(column, graph.getView());
+            }
+            writeValues(typeCode, values);
+            return;
+        }
+
+        //Timestamp count of each element, then all timestamps and values
+        TimestampValueSet[] valueSets = new TimestampValueSet[elements.length];
+        int total = 0;
+        for (int i = 0; i < elements.length; i++) {
+            valueSets[i] = (TimestampValueSet) elements[i].getAttribute(column);
+            int count = valueSets[i] != null ? valueSets[i].getTimestamps().length : 0;
+            ensure(4);
+            buffer.putInt(count);
+            total += count;
+        }
+        Object[] values = new Object[total];
+        int index = 0;
+        for (TimestampValueSet valueSet : valueSets) {
+            if (valueSet != null) {
+                double[] timestamps = valueSet.getTimestamps();
+                Object[] setValues = valueSet.toArray();
+                for (int j = 0; j < timestamps.length; j++) {
+                    ensure(8);
+                    buffer.putDouble(timestamps[j]);
+                    values[index++] = setValues[j];
+                }
+            }
+        }
+        writeValues(typeCode, values);
+    }
+
+    private void writeValues(byte typeCode, Object[] values) throws IOException {
+        if (typeCode == GBINFormat.TYPE_STRING) {
+            String[] strings = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                strings[i] = values[i] != null ? values[i].toString() : null;
+            }
+            writeStrings(strings);
+            return;
+        }
+
+        //Bitmap of the values that are set
+        for (int i = 0; i < values.length; i += 8) {
+            int bits = 0;
+            for (int j = i; j < Math.min(i + 8, values.length); j++) {
+                if (values[j] != null) {
+                    bits |= 1 << (j - i);
+                }
+            }
+            ensure(1);
+            buffer.put((byte) bits);
+        }
+        int size = GBINFormat.getSize(typeCode);
+        for (Object value : values) {
+            ensure(size);
+            switch (typeCode) {
+                case GBINFormat.TYPE_INT:
+                    buffer.putInt(value != null ? (Integer) value : 0);
+                    break;
+                case GBINFormat.TYPE_LONG:
+                    buffer.putLong(value != null ? (Long) value : 0L);
+                    break;
+                case GBINFormat.TYPE_FLOAT:
+                    buffer.putFloat(value != null ? (Float) value : 0f);
+                    break;
+                case GBINFormat.TYPE_DOUBLE:
+                    buffer.putDouble(value != null ? (Double) value : 0.0);
+                    break;
+                case GBINFormat.TYPE_SHORT:
+                    buffer.putShort(value != null ? (Short) value : 0);
+                    break;
+                case GBINFormat.TYPE_BYTE:
+                    buffer.put(value != null ? (Byte) value : 0);
+                    break;
+                case GBINFormat.TYPE_CHAR:
+                    buffer.putChar(value != null ? (Character) value : 0);
+                    break;
+                default:
+                    buffer.put(value != null && (Boolean) value ? (byte) 1 : (byte) 0);
+                    break;
+            }
+        }
+    }
+
+    private void writeString(String string) throws IOException {
+        writeStrings(new String[]{string});
+    }
+
+    private void writeStrings(String[] strings) throws IOException {
+        byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            ensure(4);
+            if (strings[i] == null) {
+                buffer.putInt(-1);
+            } else {
+                bytes[i] = strings[i].getBytes(UTF8);
+                buffer.putInt(bytes[i].length);
+            }
+        }
+        for (byte[] b : bytes) {
+            if (b != null) {
+                int offset = 0;
+                while (offset < b.length) {
+                    ensure(1);
+                    int length = Math.min(buffer.remaining(), b.length - offset);
+                    buffer.put(b, offset, length);
+                    offset += length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes the buffer to the channel if it has less than
+     * <code>bytes</code> remaining.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public boolean cancel() {
+        cancel = true;
+        return true;
+    }
+
+    @Override
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        this.progressTicket = progressTicket;
+    }
+
+    public void setExportWeights(boolean exportWeights) {
+        this.exportWeights = exportWeights;
+    }
+
+    public void setExportViz(boolean exportViz) {
+        this.exportViz = exportViz;
+    }
+
+    public void setExportAttributes(boolean exportAttributes) {
+        this.exportAttributes = exportAttributes;
+    }
+
+    public boolean isExportWeights() {
+        return exportWeights;
+    }
+
+    public boolean isExportViz() {
+        return exportViz;
+    }
+
+    public boolean isExportAttributes() {
+        return exportAttributes;
+    }
+
+    @Override
+    public boolean isExportVisible() {
+        return exportVisible;
+    }
+
+    @Override
+    public void setExportVisible(boolean exportVisible) {
+        this.exportVisible = exportVisible;
+    }
+
+    @Override
+    public void setOutputStream(OutputStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public Workspace getWorkspace() {
+        return workspace;
+    }
+
+    @Override
+    public void setWorkspace(Workspace workspace) {
+        this.workspace = workspace;
+    }
+}
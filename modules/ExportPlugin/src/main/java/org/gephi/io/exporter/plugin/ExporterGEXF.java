@@ -41,16 +41,47 @@
  */
 package org.gephi.io.exporter.plugin;
 
+import java.io.BufferedWriter;
 import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.gephi.attribute.api.AttributeModel;
+import org.gephi.attribute.api.AttributeUtils;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.api.TimestampIndex;
+import org.gephi.attribute.time.TimestampValueSet;
+import org.gephi.dynamic.api.DynamicController;
 import org.gephi.dynamic.api.DynamicModel;
-import org.gephi.graph.api.*;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
 import org.gephi.io.exporter.spi.CharacterExporter;
 import org.gephi.io.exporter.spi.GraphExporter;
 import org.gephi.project.api.Workspace;
 import org.gephi.utils.longtask.spi.LongTask;
+import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
+import org.openide.util.Lookup;
 
 /**
+ * GEXF 1.3 exporter. Attribute declarations, nodes and edges are streamed to
+ * the writer in a single pass over the node and edge arrays, through a large
+ * buffer, so the export runs at the speed of the underlying writer.
+ * <p>
+ * Time is written with the <code>timestamp</code> representation: element
+ * timestamps become a <code>timestamp</code> attribute, or spells when there
+ * are several, and dynamic attribute values become one
+ * <code>attvalue</code> per timestamp. Dynamic edge weights are written the
+ * same way, as the dynamic <code>weight</code> edge attribute.
  *
  * @author Mathieu Bastian, Sébastien Heymann
  */
@@ -58,10 +89,11 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
 
     //GEXF
     private static final String GEXF = "gexf";
-    private static final String GEXF_NAMESPACE = "http://www.gexf.net/1.2draft";
-    private static final String GEXF_NAMESPACE_LOCATION = "http://www.gexf.net/1.2draft http://www.gexf.net/1.2draft/gexf.xsd";
+    private static final String GEXF_NAMESPACE = "http://www.gexf.net/1.3";
+    private static final String GEXF_NAMESPACE_LOCATION = "http://www.gexf.net/1.3 http://www.gexf.net/1.3/gexf.xsd";
+    private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
     private static final String VIZ = "viz";
-    private static final String VIZ_NAMESPACE = "http://www.gexf.net/1.2draft/viz";
+    private static final String VIZ_NAMESPACE = "http://www.gexf.net/1.3/viz";
     private static final String GEXF_VERSION = "version";
     private static final String GRAPH = "graph";
     private static final String GRAPH_MODE = "mode";
@@ -69,6 +101,7 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     private static final String GRAPH_START = "start";
     private static final String GRAPH_END = "end";
     private static final String GRAPH_TIMEFORMAT = "timeformat";
+    private static final String GRAPH_TIMEREPRESENTATION = "timerepresentation";
     private static final String META = "meta";
     private static final String META_LASTMODIFIEDDATE = "lastmodifieddate";
     private static final String META_CREATOR = "creator";
@@ -77,7 +110,6 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     private static final String NODE = "node";
     private static final String NODE_ID = "id";
     private static final String NODE_LABEL = "label";
-    private static final String NODE_PID = "pid";
     private static final String NODE_POSITION = "position";
     private static final String NODE_COLOR = "color";
     private static final String NODE_SIZE = "size";
@@ -90,10 +122,7 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     private static final String EDGE_TYPE = "type";
     private static final String EDGE_WEIGHT = "weight";
     private static final String EDGE_COLOR = "color";
-    private static final String START = "start";
-    private static final String END = "end";
-    private static final String START_OPEN = "startopen";
-    private static final String END_OPEN = "endopen";
+    private static final String TIMESTAMP = "timestamp";
     private static final String SPELLS = "spells";
     private static final String SPELL = "spell";
     private static final String ATTRIBUTE = "attribute";
@@ -108,6 +137,8 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     private static final String ATTVALUE = "attvalue";
     private static final String ATTVALUE_FOR = "for";
     private static final String ATTVALUE_VALUE = "value";
+    //Size of the buffer between the XML writer and the output
+    private static final int BUFFER_SIZE = 1 << 20;
     //Architecture
     private boolean cancel = false;
     private ProgressTicket progress;
@@ -115,13 +146,15 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     private boolean exportVisible;
     private Writer writer;
     private GraphModel graphModel;
-    private DynamicModel dynamicModel;
+    private DynamicModel.TimeFormat timeFormat = DynamicModel.TimeFormat.DOUBLE;
+    private DateFormat dateFormat;
     //Settings
     private boolean normalize = false;
     private boolean exportColors = true;
     private boolean exportPosition = true;
     private boolean exportSize = true;
     private boolean exportAttributes = true;
+    //Hierarchy isn't supported by the graph store, the setting is ignored
     private boolean exportHierarchy = false;
     private boolean exportDynamic = true;
     //Settings Helper
@@ -133,516 +166,468 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     private float maxY;
     private float minZ;
     private float maxZ;
+    //Attribute columns, without properties
+    private Column[] nodeColumns;
+    private Column[] edgeColumns;
+    //Whether the columns hold dynamic values written as such
+    private boolean[] nodeDynamicColumns;
+    private boolean[] edgeDynamicColumns;
+    //Whether element timestamps are written
+    private boolean dynamicElements;
+    //Whether edge weights are written as a dynamic attribute
+    private boolean dynamicWeight;
 
     @Override
     public boolean execute() {
-//        attributeModel = workspace.getLookup().lookup(AttributeModel.class);
-//        graphModel = workspace.getLookup().lookup(GraphModel.class);
-//        dynamicModel = Lookup.getDefault().lookup(DynamicController.class).getModel(workspace);
-//        HierarchicalGraph graph;
-//        if (exportVisible) {
-//            graph = graphModel.getHierarchicalGraphVisible();
-//        } else {
-//            graph = graphModel.getHierarchicalGraph();
-//        }
-//        Progress.start(progress);
-//        graph.readLock();
-//
-//        //Is it a dynamic graph?
-//        exportDynamic = exportDynamic && dynamicModel.isDynamicGraph();
-//
-//        //Options
-//        if (normalize) {
-//            calculateMinMax(graph);
-//        }
-//
-//        //Calculate progress units count
-//        int max = 0;
-//        if (exportHierarchy) {
-//            for (Node n : graph.getNodesTree()) {
-//                max++;
-//            }
-//            for (Edge e : graph.getEdgesTree()) {
-//                max++;
-//            }
-//        } else {
-//            max = graph.getNodeCount();
-//            for (Edge e : graph.getEdgesAndMetaEdges()) {
-//                max++;
-//            }
-//        }
-//        Progress.switchToDeterminate(progress, max);
-//
-//        try {
-//            XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-//            outputFactory.setProperty("javax.xml.stream.isRepairingNamespaces", Boolean.FALSE);
-//
-//            XMLStreamWriter xmlWriter = outputFactory.createXMLStreamWriter(writer);
-//            xmlWriter = new IndentingXMLStreamWriter(xmlWriter);
-//
-//            xmlWriter.writeStartDocument("UTF-8", "1.0");
-//            xmlWriter.setPrefix("", GEXF_NAMESPACE);
-//            xmlWriter.writeStartElement(GEXF_NAMESPACE, GEXF);
-//            xmlWriter.writeNamespace("", GEXF_NAMESPACE);
-//            xmlWriter.writeAttribute(GEXF_VERSION, "1.2");
-//
-//            if (exportColors || exportPosition || exportSize) {
-//                xmlWriter.writeNamespace(VIZ, VIZ_NAMESPACE);
-//            }
-//            xmlWriter.writeAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
-//            xmlWriter.writeAttribute("xsi:schemaLocation", GEXF_NAMESPACE_LOCATION);
-//
-//            if (exportDynamic) {
-//                DynamicController dynamicController = Lookup.getDefault().lookup(DynamicController.class);
-//                dynamicModel = dynamicController != null ? dynamicController.getModel(workspace) : null;
-//                visibleInterval = dynamicModel == null ? null : exportVisible ? dynamicModel.getVisibleInterval() : new TimeInterval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
-//            }
-//
-//            writeMeta(xmlWriter);
-//            writeGraph(xmlWriter, graph);
-//
-//            xmlWriter.writeEndElement();
-//            xmlWriter.writeEndDocument();
-//            xmlWriter.close();
-//
-//        } catch (Exception e) {
-//            graph.readUnlockAll();
-//            if (e instanceof RuntimeException) {
-//                throw (RuntimeException) e;
-//            }
-//            throw new RuntimeException(e);
-//        }
-//
-//        graph.readUnlock();
-//
-//        Progress.finish(progress);
+        GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
+        GraphModel model = graphController.getGraphModel(workspace);
+        AttributeModel attributeModel = graphController.getAttributeModel(workspace);
+        DynamicController dynamicController = Lookup.getDefault().lookup(DynamicController.class);
+        DynamicModel dynamicModel = dynamicController != null ? dynamicController.getModel(workspace) : null;
+        if (dynamicModel != null) {
+            timeFormat = dynamicModel.getTimeFormat();
+        }
+        Graph graph;
+        if (exportVisible) {
+            graph = model.getGraphVisible();
+        } else {
+            graph = model.getGraph();
+        }
+        try {
+            exportData(model, attributeModel, graph);
+        } catch (Exception e) {
+            graph.readUnlockAll();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new RuntimeException(e);
+        }
+
         return !cancel;
     }
 
-//    private void writeGraph(XMLStreamWriter xmlWriter, HierarchicalGraph graph) throws Exception {
-//        xmlWriter.writeStartElement(GRAPH);
-//        if (!(graph instanceof MixedGraph)) {
-//            xmlWriter.writeAttribute(GRAPH_DEFAULT_EDGETYPE, graph instanceof DirectedGraph ? "directed" : "undirected");
-//        }
-//
-//        if (exportDynamic) {
-//            if (!Double.isInfinite(visibleInterval.getLow())) {
-//                String intervalLow = formatTime(visibleInterval.getLow());
-//                xmlWriter.writeAttribute(GRAPH_START, intervalLow);
-//            }
-//            if (!Double.isInfinite(visibleInterval.getHigh())) {
-//                String intervalHigh = formatTime(visibleInterval.getHigh());
-//                xmlWriter.writeAttribute(GRAPH_END, intervalHigh);
-//            }
-//            String timeFormat = dynamicModel.getTimeFormat().equals(DynamicModel.TimeFormat.DATE) ? "date"
-//                    : dynamicModel.getTimeFormat().equals(DynamicModel.TimeFormat.DATETIME) ? "datetime" : "double";
-//            xmlWriter.writeAttribute(GRAPH_TIMEFORMAT, timeFormat);
-//        }
-//        xmlWriter.writeAttribute(GRAPH_MODE, exportDynamic ? "dynamic" : "static");
-//
-//        writeAttributes(xmlWriter, attributeModel.getNodeTable());
-//        writeAttributes(xmlWriter, attributeModel.getEdgeTable());
-//        writeNodes(xmlWriter, graph);
-//        writeEdges(xmlWriter, graph);
-//
-//        xmlWriter.writeEndElement();
-//    }
-//
-//    private void writeMeta(XMLStreamWriter xmlWriter) throws Exception {
-//        xmlWriter.writeStartElement(META);
-//        xmlWriter.writeAttribute(META_LASTMODIFIEDDATE, getDateTime());
-//
-//        xmlWriter.writeStartElement(META_CREATOR);
-//        xmlWriter.writeCharacters("Gephi 0.8.1");
-//        xmlWriter.writeEndElement();
-//
-//        xmlWriter.writeStartElement(META_DESCRIPTION);
-//        xmlWriter.writeCharacters("");
-//        xmlWriter.writeEndElement();
-//
-//        xmlWriter.writeEndElement();
-//    }
-//
-//    private void writeAttributes(XMLStreamWriter xmlWriter, AttributeTable table) throws Exception {
-//        List<AttributeColumn> staticCols = new ArrayList<AttributeColumn>();
-//        List<AttributeColumn> dynamicCols = new ArrayList<AttributeColumn>();
-//        String attClass = table == attributeModel.getNodeTable() ? "node" : "edge";
-//
-//        for (AttributeColumn col : table.getColumns()) {
-//
-//            if (!col.getOrigin().equals(AttributeOrigin.PROPERTY)) {
-//                if (exportDynamic && col.getType().isDynamicType()) {
-//                    dynamicCols.add(col);
-//                } else {
-//                    staticCols.add(col);
-//                }
-//            } else if (exportDynamic && col.getType().isDynamicType() && col.getType() != AttributeType.TIME_INTERVAL
-//                    && col.getOrigin().equals(AttributeOrigin.PROPERTY) && col.getIndex() == PropertiesColumn.EDGE_WEIGHT.getIndex()) {
-//                dynamicCols.add(col);
-//            }
-//        }
-//
-//        if (!staticCols.isEmpty()) {
-//            writeAttributes(xmlWriter, staticCols.toArray(new AttributeColumn[0]), "static", attClass);
-//        }
-//        if (!dynamicCols.isEmpty()) {
-//            writeAttributes(xmlWriter, dynamicCols.toArray(new AttributeColumn[0]), "dynamic", attClass);
-//        }
-//    }
-//
-//    private void writeAttributes(XMLStreamWriter xmlWriter, AttributeColumn[] cols, String mode, String attClass) throws Exception {
-//        if (exportAttributes && cols.length != 0) {
-//            xmlWriter.writeStartElement(ATTRIBUTES);
-//            xmlWriter.writeAttribute(ATTRIBUTES_CLASS, attClass);
-//            xmlWriter.writeAttribute(ATTRIBUTES_MODE, mode);
-//
-//            for (AttributeColumn col : cols) {
-//                if (!col.getOrigin().equals(AttributeOrigin.PROPERTY)
-//                        || (exportDynamic && col.getOrigin().equals(AttributeOrigin.PROPERTY) && col.getIndex() == PropertiesColumn.EDGE_WEIGHT.getIndex())) {
-//                    xmlWriter.writeStartElement(ATTRIBUTE);
-//                    xmlWriter.writeAttribute(ATTRIBUTE_ID, col.getId());
-//                    xmlWriter.writeAttribute(ATTRIBUTE_TITLE, col.getTitle());
-//                    if (col.getType().equals(AttributeType.INT)) {
-//                        xmlWriter.writeAttribute(ATTRIBUTE_TYPE, "integer");
-//                    } else if (col.getType().isListType()) {
-//                        if (col.getType().equals(AttributeType.LIST_INTEGER)) {
-//                            xmlWriter.writeAttribute(ATTRIBUTE_TYPE, "listint");
-//                        } else if (col.getType().equals(AttributeType.LIST_CHARACTER)) {
-//                            xmlWriter.writeAttribute(ATTRIBUTE_TYPE, "listchar");
-//                        } else {
-//                            xmlWriter.writeAttribute(ATTRIBUTE_TYPE, col.getType().getTypeString().toLowerCase().replace("_", ""));
-//                        }
-//                    } else if (col.getType().isDynamicType()) {
-//                        AttributeType staticType = TypeConvertor.getStaticType(col.getType());
-//                        if (staticType.equals(AttributeType.INT)) {
-//                            xmlWriter.writeAttribute(ATTRIBUTE_TYPE, "integer");
-//                        } else {
-//                            xmlWriter.writeAttribute(ATTRIBUTE_TYPE, staticType.getTypeString().toLowerCase());
-//                        }
-//                    } else {
-//                        xmlWriter.writeAttribute(ATTRIBUTE_TYPE, col.getType().getTypeString().toLowerCase());
-//                    }
-//                    if (col.getDefaultValue() != null) {
-//                        xmlWriter.writeStartElement(ATTRIBUTE_DEFAULT);
-//                        xmlWriter.writeCharacters(col.getDefaultValue().toString());
-//                        xmlWriter.writeEndElement();
-//                    }
-//                    xmlWriter.writeEndElement();
-//                }
-//            }
-//
-//            xmlWriter.writeEndElement();
-//        }
-//    }
-//
-//    private void writeNodes(XMLStreamWriter xmlWriter, HierarchicalGraph graph) throws Exception {
-//        if (cancel) {
-//            return;
-//        }
-//        xmlWriter.writeStartElement(NODES);
-//
-//        AttributeColumn dynamicCol = attributeModel.getNodeTable().getColumn(DynamicModel.TIMEINTERVAL_COLUMN);
-//
-//        NodeIterable nodeIterable = exportHierarchy ? graph.getNodesTree() : graph.getNodes();
-//        for (Node node : nodeIterable) {
-//            xmlWriter.writeStartElement(NODE);
-//
-//            String id = node.getNodeData().getId();
-//            xmlWriter.writeAttribute(NODE_ID, id);
-//            if (node.getNodeData().getLabel() != null && !node.getNodeData().getLabel().isEmpty()) {
-//                xmlWriter.writeAttribute(NODE_LABEL, node.getNodeData().getLabel());
-//            }
-//
-//            if (exportHierarchy) {
-//                Node parent = graph.getParent(node);
-//                if (parent != null) {
-//                    xmlWriter.writeAttribute(NODE_PID, parent.getNodeData().getId());
-//                }
-//            }
-//
-//            if (exportDynamic && dynamicCol != null && visibleInterval != null) {
-//                TimeInterval timeInterval = (TimeInterval) node.getNodeData().getAttributes().getValue(dynamicCol.getIndex());
-//                if (timeInterval != null) {
-//                    writeTimeInterval(xmlWriter, timeInterval);
-//                }
-//            }
-//
-//            if (exportAttributes && node.getNodeData().getAttributes() != null) {
-//                AttributeRow attributeRow = (AttributeRow) node.getNodeData().getAttributes();
-//                writeAttValues(xmlWriter, attributeRow, visibleInterval);
-//            }
-//
-//            if (exportSize) {
-//                writeNodeSize(xmlWriter, node);
-//            }
-//
-//            if (exportPosition) {
-//                writeNodePosition(xmlWriter, node);
-//            }
-//
-//            if (exportColors) {
-//                writeNodeColor(xmlWriter, node);
-//            }
-//
-//            xmlWriter.writeEndElement();
-//            Progress.progress(progress);
-//            if (cancel) {
-//                break;
-//            }
-//        }
-//
-//        xmlWriter.writeEndElement();
-//    }
-//
-//    private void writeAttValues(XMLStreamWriter xmlWriter, AttributeRow row, TimeInterval visibleInterval) throws Exception {
-//        xmlWriter.writeStartElement(ATTVALUES);
-//        for (AttributeValue val : row.getValues()) {
-//            AttributeColumn col = val.getColumn();
-//            if (!col.getOrigin().equals(AttributeOrigin.PROPERTY)
-//                    || (exportDynamic && col.getType().isDynamicType()
-//                    && col.getOrigin().equals(AttributeOrigin.PROPERTY)
-//                    && col.getIndex() == PropertiesColumn.EDGE_WEIGHT.getIndex())) {
-//                AttributeType type = col.getType();
-//                if (type.isDynamicType()) {
-//                    DynamicType dynamicValue = (DynamicType) val.getValue();
-//                    if (dynamicValue != null && visibleInterval != null && exportDynamic) {
-//                        List<Interval<?>> intervals = dynamicValue.getIntervals(visibleInterval.getLow(), visibleInterval.getHigh());
-//                        for (Interval<?> interval : intervals) {
-//                            Object value = interval.getValue();
-//                            if (value != null) {
-//                                xmlWriter.writeStartElement(ATTVALUE);
-//                                xmlWriter.writeAttribute(ATTVALUE_FOR, col.getId());
-//                                xmlWriter.writeAttribute(ATTVALUE_VALUE, value.toString());
-//                                if (!Double.isInfinite(interval.getLow())) {
-//                                    String intervalLow = formatTime(interval.getLow());
-//                                    xmlWriter.writeAttribute(interval.isLowExcluded() ? START_OPEN : START, intervalLow);
-//                                }
-//                                if (!Double.isInfinite(interval.getHigh())) {
-//                                    String intervalHigh = formatTime(interval.getHigh());
-//                                    xmlWriter.writeAttribute(interval.isHighExcluded() ? END_OPEN : END, intervalHigh);
-//                                }
-//                                xmlWriter.writeEndElement();
-//                            }
-//                        }
-//                    } else if (dynamicValue != null) {
-//                        TimeInterval interval = visibleInterval;
-//                        if (interval == null) {
-//                            interval = new TimeInterval();
-//                        }
-//                        Object value = DynamicUtilities.getDynamicValue(dynamicValue, interval.getLow(), interval.getHigh());
-//                        if (value != null) {
-//                            xmlWriter.writeStartElement(ATTVALUE);
-//                            xmlWriter.writeAttribute(ATTVALUE_FOR, val.getColumn().getId());
-//                            xmlWriter.writeAttribute(ATTVALUE_VALUE, value.toString());
-//                            xmlWriter.writeEndElement();
-//                        }
-//                    }
-//                } else {
-//                    if (val.getValue() != null) {
-//                        xmlWriter.writeStartElement(ATTVALUE);
-//                        xmlWriter.writeAttribute(ATTVALUE_FOR, col.getId());
-//                        xmlWriter.writeAttribute(ATTVALUE_VALUE, val.getValue().toString());
-//                        xmlWriter.writeEndElement();
-//                    }
-//                }
-//            }
-//        }
-//        xmlWriter.writeEndElement();
-//    }
-//
-//    private void writeNodePosition(XMLStreamWriter xmlWriter, Node node) throws Exception {
-//        float x = node.getNodeData().x();
-//        if (normalize && x != 0.0) {
-//            x = (x - minX) / (maxX - minX);
-//        }
-//        float y = node.getNodeData().y();
-//        if (normalize && y != 0.0) {
-//            y = (y - minY) / (maxY - minY);
-//        }
-//        float z = node.getNodeData().z();
-//        if (normalize && z != 0.0) {
-//            z = (z - minZ) / (maxZ - minZ);
-//        }
-//        if (!(x == 0 && y == 0 && z == 0)) {
-//            xmlWriter.writeStartElement(VIZ, NODE_POSITION, VIZ_NAMESPACE);
-//            xmlWriter.writeAttribute("x", "" + x);
-//            xmlWriter.writeAttribute("y", "" + y);
-//            xmlWriter.writeAttribute("z", "" + z);
-//            xmlWriter.writeEndElement();
-//        }
-//    }
-//
-//    private void writeNodeSize(XMLStreamWriter xmlWriter, Node node) throws Exception {
-//        xmlWriter.writeStartElement(VIZ, NODE_SIZE, VIZ_NAMESPACE);
-//        float size = node.getNodeData().getSize();
-//        if (normalize) {
-//            size = (size - minSize) / (maxSize - minSize);
-//        }
-//        xmlWriter.writeAttribute("value", "" + size);
-//        xmlWriter.writeEndElement();
-//    }
-//
-//    private void writeNodeColor(XMLStreamWriter xmlWriter, Node node) throws Exception {
-//        int r = Math.round(node.getNodeData().r() * 255f);
-//        int g = Math.round(node.getNodeData().g() * 255f);
-//        int b = Math.round(node.getNodeData().b() * 255f);
-//        if (r != 0 || g != 0 || b != 0) {
-//            xmlWriter.writeStartElement(VIZ, NODE_COLOR, VIZ_NAMESPACE);
-//            xmlWriter.writeAttribute("r", "" + r);
-//            xmlWriter.writeAttribute("g", "" + g);
-//            xmlWriter.writeAttribute("b", "" + b);
-//            xmlWriter.writeEndElement();
-//        }
-//    }
-//
-//    private void writeTimeInterval(XMLStreamWriter xmlWriter, TimeInterval timeInterval) throws Exception {
-//        List<Interval<Double[]>> intervals = timeInterval.getIntervals(visibleInterval.getLow(), visibleInterval.getHigh());
-//        if (intervals.size() > 1) {
-//            xmlWriter.writeStartElement(SPELLS);
-//            for (Interval<Double[]> interval : intervals) {
-//                xmlWriter.writeStartElement(SPELL);
-//                if (!Double.isInfinite(interval.getLow())) {
-//                    String intervalLow = formatTime(interval.getLow());
-//                    xmlWriter.writeAttribute(interval.isLowExcluded() ? START_OPEN : START, intervalLow);
-//                }
-//                if (!Double.isInfinite(interval.getHigh())) {
-//                    String intervalHigh = formatTime(interval.getHigh());
-//                    xmlWriter.writeAttribute(interval.isHighExcluded() ? END_OPEN : END, intervalHigh);
-//                }
-//                xmlWriter.writeEndElement();
-//            }
-//            xmlWriter.writeEndElement();
-//        } else if (intervals.size() == 1) {
-//            Interval<Double[]> interval = intervals.get(0);
-//            if (!Double.isInfinite(interval.getLow())) {
-//                String intervalLow = formatTime(interval.getLow());
-//                xmlWriter.writeAttribute(interval.isLowExcluded() ? START_OPEN : START, intervalLow);
-//            }
-//            if (!Double.isInfinite(interval.getHigh())) {
-//                String intervalHigh = formatTime(interval.getHigh());
-//                xmlWriter.writeAttribute(interval.isHighExcluded() ? END_OPEN : END, intervalHigh);
-//            }
-//        }
-//    }
-//
-//    private void writeEdges(XMLStreamWriter xmlWriter, HierarchicalGraph graph) throws Exception {
-//        if (cancel) {
-//            return;
-//        }
-//        xmlWriter.writeStartElement(EDGES);
-//
-//        AttributeColumn dynamicCol = attributeModel.getEdgeTable().getColumn(DynamicModel.TIMEINTERVAL_COLUMN);
-//
-//        EdgeIterable edgeIterable = exportHierarchy ? graph.getEdgesTree() : graph.getEdgesAndMetaEdges();
-//        for (Edge edge : edgeIterable) {
-//            xmlWriter.writeStartElement(EDGE);
-//
-//            if (edge.getEdgeData().getId() != null && !edge.getEdgeData().getId().equals(Integer.toString(edge.getId()))) {
-//                xmlWriter.writeAttribute(EDGE_ID, edge.getEdgeData().getId());
-//            }
-//            xmlWriter.writeAttribute(EDGE_SOURCE, edge.getSource().getNodeData().getId());
-//            xmlWriter.writeAttribute(EDGE_TARGET, edge.getTarget().getNodeData().getId());
-//
-//            if (edge.isDirected() && graphModel.isMixed()) {
-//                xmlWriter.writeAttribute(EDGE_TYPE, "directed");
-//            } else if (!edge.isDirected() && graphModel.isMixed()) {
-//                xmlWriter.writeAttribute(EDGE_TYPE, "undirected");
-//            }
-//
-//            String label = edge.getEdgeData().getLabel();
-//            if (label != null && !label.isEmpty()) {
-//                xmlWriter.writeAttribute(EDGE_LABEL, label);
-//            }
-//
-//            AttributeColumn weightCol = attributeModel.getEdgeTable().getColumn(EDGE_WEIGHT);
-//            if(weightCol != null && !weightCol.getType().isDynamicType()) {
-//                float weight = edge.getWeight();
-//                if (weight != 1f) {
-//                    xmlWriter.writeAttribute(EDGE_WEIGHT, "" + weight);
-//                }
-//            }
-//
-//            if (exportDynamic && dynamicCol != null && visibleInterval != null) {
-//                TimeInterval timeInterval = (TimeInterval) edge.getEdgeData().getAttributes().getValue(dynamicCol.getIndex());
-//                if (timeInterval != null) {
-//                    writeTimeInterval(xmlWriter, timeInterval);
-//                }
-//            }
-//
-//            if (exportColors) {
-//                writeEdgeColor(xmlWriter, edge);
-//            }
-//
-//            if (exportAttributes && edge.getEdgeData().getAttributes() != null) {
-//                AttributeRow attributeRow = (AttributeRow) edge.getEdgeData().getAttributes();
-//                writeAttValues(xmlWriter, attributeRow, visibleInterval);
-//            }
-//
-//            xmlWriter.writeEndElement();
-//            Progress.progress(progress);
-//            if (cancel) {
-//                break;
-//            }
-//        }
-//
-//        xmlWriter.writeEndElement();
-//    }
-//
-//    private void writeEdgeColor(XMLStreamWriter xmlWriter, Edge edge) throws Exception {
-//        if (edge.getEdgeData().r() != -1) { //Edge has custom color
-//            int r = Math.round(edge.getEdgeData().r() * 255f);
-//            int g = Math.round(edge.getEdgeData().g() * 255f);
-//            int b = Math.round(edge.getEdgeData().b() * 255f);
-//            if (r != 0 || g != 0 || b != 0) {
-//                xmlWriter.writeStartElement(VIZ, EDGE_COLOR, VIZ_NAMESPACE);
-//                xmlWriter.writeAttribute("r", "" + r);
-//                xmlWriter.writeAttribute("g", "" + g);
-//                xmlWriter.writeAttribute("b", "" + b);
-//                if (edge.getEdgeData().alpha() != 1f) {
-//                    xmlWriter.writeAttribute("a", "" + b);
-//                }
-//                xmlWriter.writeEndElement();
-//            }
-//        }
-//    }
-//
-//    private void calculateMinMax(Graph graph) {
-//        minX = Float.POSITIVE_INFINITY;
-//        maxX = Float.NEGATIVE_INFINITY;
-//        minY = Float.POSITIVE_INFINITY;
-//        maxY = Float.NEGATIVE_INFINITY;
-//        minZ = Float.POSITIVE_INFINITY;
-//        maxZ = Float.NEGATIVE_INFINITY;
-//        minSize = Float.POSITIVE_INFINITY;
-//        maxSize = Float.NEGATIVE_INFINITY;
-//
-//        for (Node node : graph.getNodes()) {
-//            NodeData nodeData = node.getNodeData();
-//            minX = Math.min(minX, nodeData.x());
-//            maxX = Math.max(maxX, nodeData.x());
-//            minY = Math.min(minY, nodeData.y());
-//            maxY = Math.max(maxY, nodeData.y());
-//            minZ = Math.min(minZ, nodeData.z());
-//            maxZ = Math.max(maxZ, nodeData.z());
-//            minSize = Math.min(minSize, nodeData.getSize());
-//            maxSize = Math.max(maxSize, nodeData.getSize());
-//        }
-//    }
-//
-//    private String formatTime(double time) {
-//        if (dynamicModel.getTimeFormat().equals(DynamicModel.TimeFormat.DATE)) {
-//            String t = DynamicUtilities.getXMLDateStringFromDouble(time);
-//            if (t.endsWith("T00:00:00.000")) {
-//                t = t.substring(0, t.length() - 13);
-//            }
-//            return t;
-//        } else if (dynamicModel.getTimeFormat().equals(DynamicModel.TimeFormat.DATETIME)) {
-//            return DynamicUtilities.getXMLDateStringFromDouble(time);
-//        } else {
-//            return Double.toString(time);
-//        }
-//    }
-//
+    boolean exportData(GraphModel graphModel, AttributeModel attributeModel, Graph graph) throws Exception {
+        this.graphModel = graphModel;
+        Progress.start(progress);
+
+        graph.readLock();
+
+        //Time
+        TimestampIndex<Node> nodeIndex = graphModel.getNodeTimestampIndex(graph.getView());
+        TimestampIndex<Edge> edgeIndex = graphModel.getEdgeTimestampIndex(graph.getView());
+        double min = Math.min(nodeIndex.getMinTimestamp(), edgeIndex.getMinTimestamp());
+        double max = Math.max(nodeIndex.getMaxTimestamp(), edgeIndex.getMaxTimestamp());
+        dynamicElements = exportDynamic && !Double.isInfinite(min) && !Double.isInfinite(max);
+        if (timeFormat.equals(DynamicModel.TimeFormat.DATE)) {
+            dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        } else if (timeFormat.equals(DynamicModel.TimeFormat.DATETIME)) {
+            dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        }
+
+        //Options
+        if (normalize) {
+            calculateMinMax(graph);
+        }
+        Column weightColumn = attributeModel != null ? attributeModel.getEdgeTable().getColumn(EDGE_WEIGHT) : null;
+        dynamicWeight = exportDynamic && weightColumn != null && AttributeUtils.isDynamicType(weightColumn.getTypeClass());
+        nodeColumns = getColumns(attributeModel != null && exportAttributes ? attributeModel.getNodeTable() : null, null);
+        edgeColumns = getColumns(attributeModel != null && exportAttributes ? attributeModel.getEdgeTable() : null, dynamicWeight ? weightColumn : null);
+        nodeDynamicColumns = getDynamicColumns(nodeColumns);
+        edgeDynamicColumns = getDynamicColumns(edgeColumns);
+        boolean dynamic = dynamicElements || contains(nodeDynamicColumns) || contains(edgeDynamicColumns);
+
+        Node[] nodes = graph.getNodes().toArray();
+        Edge[] edges = graph.getEdges().toArray();
+        Progress.switchToDeterminate(progress, nodes.length + edges.length);
+
+        BufferedWriter bufferedWriter = new BufferedWriter(writer, BUFFER_SIZE);
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        outputFactory.setProperty("javax.xml.stream.isRepairingNamespaces", Boolean.FALSE);
+        XMLStreamWriter xmlWriter = outputFactory.createXMLStreamWriter(bufferedWriter);
+
+        xmlWriter.writeStartDocument("UTF-8", "1.0");
+        newLine(xmlWriter);
+        xmlWriter.setDefaultNamespace(GEXF_NAMESPACE);
+        xmlWriter.writeStartElement(GEXF_NAMESPACE, GEXF);
+        xmlWriter.writeDefaultNamespace(GEXF_NAMESPACE);
+        if (exportColors || exportPosition || exportSize) {
+            xmlWriter.writeNamespace(VIZ, VIZ_NAMESPACE);
+        }
+        xmlWriter.writeNamespace("xsi", XSI_NAMESPACE);
+        xmlWriter.writeAttribute("xsi", XSI_NAMESPACE, "schemaLocation", GEXF_NAMESPACE_LOCATION);
+        xmlWriter.writeAttribute(GEXF_VERSION, "1.3");
+        newLine(xmlWriter);
+
+        writeMeta(xmlWriter);
+
+        xmlWriter.writeStartElement(GRAPH);
+        if (graphModel.isDirected()) {
+            xmlWriter.writeAttribute(GRAPH_DEFAULT_EDGETYPE, "directed");
+        } else if (graphModel.isUndirected()) {
+            xmlWriter.writeAttribute(GRAPH_DEFAULT_EDGETYPE, "undirected");
+        }
+        if (dynamic) {
+            xmlWriter.writeAttribute(GRAPH_MODE, "dynamic");
+            xmlWriter.writeAttribute(GRAPH_TIMEFORMAT, timeFormat.equals(DynamicModel.TimeFormat.DATE) ? "date"
+                    : timeFormat.equals(DynamicModel.TimeFormat.DATETIME) ? "datetime" : "double");
+            xmlWriter.writeAttribute(GRAPH_TIMEREPRESENTATION, TIMESTAMP);
+            if (dynamicElements) {
+                xmlWriter.writeAttribute(GRAPH_START, formatTime(min));
+                xmlWriter.writeAttribute(GRAPH_END, formatTime(max));
+            }
+        } else {
+            xmlWriter.writeAttribute(GRAPH_MODE, "static");
+        }
+        newLine(xmlWriter);
+
+        writeAttributes(xmlWriter, nodeColumns, nodeDynamicColumns, "node");
+        writeAttributes(xmlWriter, edgeColumns, edgeDynamicColumns, "edge");
+
+        //Nodes
+        xmlWriter.writeStartElement(NODES);
+        newLine(xmlWriter);
+        for (Node n : nodes) {
+            if (cancel) {
+                break;
+            }
+            writeNode(xmlWriter, graph, n);
+        }
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        //Edges
+        xmlWriter.writeStartElement(EDGES);
+        newLine(xmlWriter);
+        for (Edge e : edges) {
+            if (cancel) {
+                break;
+            }
+            writeEdge(xmlWriter, graph, e);
+        }
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+        xmlWriter.writeEndDocument();
+        xmlWriter.flush();
+        xmlWriter.close();
+        bufferedWriter.flush();
+
+        graph.readUnlockAll();
+
+        Progress.finish(progress);
+        return !cancel;
+    }
+
+    private Column[] getColumns(Iterable<Column> table, Column property) {
+        List<Column> columns = new ArrayList<Column>();
+        if (property != null) {
+            columns.add(property);
+        }
+        if (table != null) {
+            for (Column column : table) {
+                if (!column.isProperty()) {
+                    columns.add(column);
+                }
+            }
+        }
+        return columns.toArray(new Column[0]);
+    }
+
+    private boolean[] getDynamicColumns(Column[] columns) {
+        boolean[] dynamicColumns = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            dynamicColumns[i] = exportDynamic && AttributeUtils.isDynamicType(columns[i].getTypeClass());
+        }
+        return dynamicColumns;
+    }
+
+    private boolean contains(boolean[] dynamicColumns) {
+        for (boolean b : dynamicColumns) {
+            if (b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void newLine(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeCharacters("\n");
+    }
+
+    private void writeMeta(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeStartElement(META);
+        xmlWriter.writeAttribute(META_LASTMODIFIEDDATE, new SimpleDateFormat("yyyy-MM-dd").format(new Date()));
+        newLine(xmlWriter);
+
+        xmlWriter.writeStartElement(META_CREATOR);
+        xmlWriter.writeCharacters("Gephi 0.9");
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        xmlWriter.writeStartElement(META_DESCRIPTION);
+        xmlWriter.writeCharacters("");
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+    }
+
+    private void writeAttributes(XMLStreamWriter xmlWriter, Column[] columns, boolean[] dynamicColumns, String attClass) throws XMLStreamException {
+        for (int pass = 0; pass < 2; pass++) {
+            boolean dynamicMode = pass == 1;
+            boolean started = false;
+            for (int i = 0; i < columns.length; i++) {
+                if (dynamicColumns[i] != dynamicMode) {
+                    continue;
+                }
+                if (!started) {
+                    xmlWriter.writeStartElement(ATTRIBUTES);
+                    xmlWriter.writeAttribute(ATTRIBUTES_CLASS, attClass);
+                    xmlWriter.writeAttribute(ATTRIBUTES_MODE, dynamicMode ? "dynamic" : "static");
+                    newLine(xmlWriter);
+                    started = true;
+                }
+                writeAttribute(xmlWriter, columns[i]);
+            }
+            if (started) {
+                xmlWriter.writeEndElement();
+                newLine(xmlWriter);
+            }
+        }
+    }
+
+    private void writeAttribute(XMLStreamWriter xmlWriter, Column column) throws XMLStreamException {
+        Class type = column.getTypeClass();
+        if (AttributeUtils.isDynamicType(type)) {
+            type = AttributeUtils.getStaticType((Class<? extends TimestampValueSet>) type);
+        }
+        String typeName;
+        if (type.equals(Integer.class) || type.equals(Short.class) || type.equals(Byte.class)) {
+            typeName = "integer";
+        } else {
+            typeName = AttributeUtils.getTypeName(type);
+        }
+
+        xmlWriter.writeStartElement(ATTRIBUTE);
+        xmlWriter.writeAttribute(ATTRIBUTE_ID, column.getId());
+        xmlWriter.writeAttribute(ATTRIBUTE_TITLE, column.getTitle());
+        xmlWriter.writeAttribute(ATTRIBUTE_TYPE, typeName);
+        if (column.getDefaultValue() != null) {
+            xmlWriter.writeStartElement(ATTRIBUTE_DEFAULT);
+            xmlWriter.writeCharacters(column.getDefaultValue().toString());
+            xmlWriter.writeEndElement();
+        }
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+    }
+
+    private void writeNode(XMLStreamWriter xmlWriter, Graph graph, Node n) throws XMLStreamException {
+        xmlWriter.writeStartElement(NODE);
+        xmlWriter.writeAttribute(NODE_ID, n.getId().toString());
+        if (n.getLabel() != null && !n.getLabel().isEmpty()) {
+            xmlWriter.writeAttribute(NODE_LABEL, n.getLabel());
+        }
+        double[] timestamps = dynamicElements ? n.getTimestamps() : null;
+        if (timestamps != null && timestamps.length == 1) {
+            xmlWriter.writeAttribute(TIMESTAMP, formatTime(timestamps[0]));
+        }
+        newLine(xmlWriter);
+
+        if (timestamps != null && timestamps.length > 1) {
+            writeSpells(xmlWriter, timestamps);
+        }
+
+        writeAttValues(xmlWriter, graph, n, nodeColumns, nodeDynamicColumns);
+
+        if (exportSize) {
+            float size = n.size();
+            if (normalize) {
+                size = (size - minSize) / (maxSize - minSize);
+            }
+            xmlWriter.writeEmptyElement(VIZ, NODE_SIZE, VIZ_NAMESPACE);
+            xmlWriter.writeAttribute("value", String.valueOf(size));
+            newLine(xmlWriter);
+        }
+        if (exportPosition) {
+            float x = n.x();
+            if (normalize && x != 0.0) {
+                x = (x - minX) / (maxX - minX);
+            }
+            float y = n.y();
+            if (normalize && y != 0.0) {
+                y = (y - minY) / (maxY - minY);
+            }
+            float z = n.z();
+            if (normalize && z != 0.0) {
+                z = (z - minZ) / (maxZ - minZ);
+            }
+            if (!(x == 0 && y == 0 && z == 0)) {
+                xmlWriter.writeEmptyElement(VIZ, NODE_POSITION, VIZ_NAMESPACE);
+                xmlWriter.writeAttribute("x", String.valueOf(x));
+                xmlWriter.writeAttribute("y", String.valueOf(y));
+                xmlWriter.writeAttribute("z", String.valueOf(z));
+                newLine(xmlWriter);
+            }
+        }
+        if (exportColors) {
+            writeColor(xmlWriter, NODE_COLOR, n.r(), n.g(), n.b(), n.alpha());
+        }
+
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        Progress.progress(progress);
+    }
+
+    private void writeEdge(XMLStreamWriter xmlWriter, Graph graph, Edge e) throws XMLStreamException {
+        xmlWriter.writeStartElement(EDGE);
+        xmlWriter.writeAttribute(EDGE_ID, e.getId().toString());
+        xmlWriter.writeAttribute(EDGE_SOURCE, e.getSource().getId().toString());
+        xmlWriter.writeAttribute(EDGE_TARGET, e.getTarget().getId().toString());
+        if (e.isDirected() && !graphModel.isDirected()) {
+            xmlWriter.writeAttribute(EDGE_TYPE, "directed");
+        } else if (!e.isDirected() && !graphModel.isUndirected()) {
+            xmlWriter.writeAttribute(EDGE_TYPE, "undirected");
+        }
+        if (e.getLabel() != null && !e.getLabel().isEmpty()) {
+            xmlWriter.writeAttribute(EDGE_LABEL, e.getLabel());
+        }
+        if (!dynamicWeight) {
+            double weight = e.getWeight(graph.getView());
+            if (weight != 1.0) {
+                xmlWriter.writeAttribute(EDGE_WEIGHT, String.valueOf(weight));
+            }
+        }
+        double[] timestamps = dynamicElements ? e.getTimestamps() : null;
+        if (timestamps != null && timestamps.length == 1) {
+            xmlWriter.writeAttribute(TIMESTAMP, formatTime(timestamps[0]));
+        }
+        newLine(xmlWriter);
+
+        if (timestamps != null && timestamps.length > 1) {
+            writeSpells(xmlWriter, timestamps);
+        }
+
+        writeAttValues(xmlWriter, graph, e, edgeColumns, edgeDynamicColumns);
+
+        //Edges with an alpha of zero have the default color
+        if (exportColors && e.alpha() != 0f) {
+            writeColor(xmlWriter, EDGE_COLOR, e.r(), e.g(), e.b(), e.alpha());
+        }
+
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        Progress.progress(progress);
+    }
+
+    private void writeSpells(XMLStreamWriter xmlWriter, double[] timestamps) throws XMLStreamException {
+        xmlWriter.writeStartElement(SPELLS);
+        newLine(xmlWriter);
+        for (double timestamp : timestamps) {
+            xmlWriter.writeEmptyElement(SPELL);
+            xmlWriter.writeAttribute(TIMESTAMP, formatTime(timestamp));
+            newLine(xmlWriter);
+        }
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+    }
+
+    private void writeAttValues(XMLStreamWriter xmlWriter, Graph graph, Element element, Column[] columns, boolean[] dynamicColumns) throws XMLStreamException {
+        boolean started = false;
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            if (dynamicColumns[i]) {
+                TimestampValueSet valueSet = (TimestampValueSet) element.getAttribute(column);
+                if (valueSet == null) {
+                    continue;
+                }
+                double[] timestamps = valueSet.getTimestamps();
+                if (timestamps.length == 0) {
+                    continue;
+                }
+                if (!started) {
+                    started = startAttValues(xmlWriter);
+                }
+                Object[] values = valueSet.toArray();
+                for (int j = 0; j < timestamps.length; j++) {
+                    xmlWriter.writeEmptyElement(ATTVALUE);
+                    xmlWriter.writeAttribute(ATTVALUE_FOR, column.getId());
+                    xmlWriter.writeAttribute(ATTVALUE_VALUE, values[j].toString());
+                    xmlWriter.writeAttribute(TIMESTAMP, formatTime(timestamps[j]));
+                    newLine(xmlWriter);
+                }
+            } else {
+                Object val = element.getAttribute(column, graph.getView());
+                if (val == null) {
+                    continue;
+                }
+                if (!started) {
+                    started = startAttValues(xmlWriter);
+                }
+                xmlWriter.writeEmptyElement(ATTVALUE);
+                xmlWriter.writeAttribute(ATTVALUE_FOR, column.getId());
+                xmlWriter.writeAttribute(ATTVALUE_VALUE, val.toString());
+                newLine(xmlWriter);
+            }
+        }
+        if (started) {
+            xmlWriter.writeEndElement();
+            newLine(xmlWriter);
+        }
+    }
+
+    private boolean startAttValues(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeStartElement(ATTVALUES);
+        newLine(xmlWriter);
+        return true;
+    }
+
+    private void writeColor(XMLStreamWriter xmlWriter, String element, float r, float g, float b, float alpha) throws XMLStreamException {
+        xmlWriter.writeEmptyElement(VIZ, element, VIZ_NAMESPACE);
+        xmlWriter.writeAttribute("r", String.valueOf(Math.round(r * 255f)));
+        xmlWriter.writeAttribute("g", String.valueOf(Math.round(g * 255f)));
+        xmlWriter.writeAttribute("b", String.valueOf(Math.round(b * 255f)));
+        if (alpha != 1f) {
+            xmlWriter.writeAttribute("a", String.valueOf(alpha));
+        }
+        newLine(xmlWriter);
+    }
+
+    private void calculateMinMax(Graph graph) {
+        minX = Float.POSITIVE_INFINITY;
+        maxX = Float.NEGATIVE_INFINITY;
+        minY = Float.POSITIVE_INFINITY;
+        maxY = Float.NEGATIVE_INFINITY;
+        minZ = Float.POSITIVE_INFINITY;
+        maxZ = Float.NEGATIVE_INFINITY;
+        minSize = Float.POSITIVE_INFINITY;
+        maxSize = Float.NEGATIVE_INFINITY;
+
+        for (Node node : graph.getNodes()) {
+            minX = Math.min(minX, node.x());
+            maxX = Math.max(maxX, node.x());
+            minY = Math.min(minY, node.y());
+            maxY = Math.max(maxY, node.y());
+            minZ = Math.min(minZ, node.z());
+            maxZ = Math.max(maxZ, node.z());
+            minSize = Math.min(minSize, node.size());
+            maxSize = Math.max(maxSize, node.size());
+        }
+    }
+
+    private String formatTime(double time) {
+        if (dateFormat != null) {
+            return dateFormat.format(new Date((long) time));
+        }
+        return Double.toString(time);
+    }
+
     @Override
     public boolean cancel() {
         cancel = true;
@@ -653,21 +638,6 @@ public class ExporterGEXF implements GraphExporter, CharacterExporter, LongTask
     public void setProgressTicket(ProgressTicket progressTicket) {
         this.progress = progressTicket;
     }
-//
-//    public String getName() {
-//        return NbBundle.getMessage(getClass(), "ExporterGEXF_name");
-//    }
-//
-//    public FileType[] getFileTypes() {
-//        FileType ft = new FileType(".gexf", NbBundle.getMessage(getClass(), "fileType_GEXF_Name"));
-//        return new FileType[]{ft};
-//    }
-//
-//    private String getDateTime() {
-//        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-//        Date date = new Date();
-//        return dateFormat.format(date);
-//    }
 
     public void setExportAttributes(boolean exportAttributes) {
         this.exportAttributes = exportAttributes;
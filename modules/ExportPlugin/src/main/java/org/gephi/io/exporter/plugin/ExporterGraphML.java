@@ -43,18 +43,11 @@
 package org.gephi.io.exporter.plugin;
 
 import java.io.Writer;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.AttributeUtils;
 import org.gephi.attribute.api.Column;
@@ -72,17 +65,17 @@ import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Text;
 
 /**
+ * GraphML exporter. Keys, nodes and edges are streamed to the writer as they
+ * are visited, so memory doesn't grow with the size of the graph.
  *
  * @author Sebastien Heymann
  * @author Mathieu Bastian
  */
 public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTask {
 
+    private static final String GRAPHML_NAMESPACE = "http://graphml.graphdrawing.org/xmlns";
     private boolean cancel = false;
     private ProgressTicket progressTicket;
     private Workspace workspace;
@@ -106,11 +99,15 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
     private float maxY;
     private float minZ;
     private float maxZ;
+    //Attribute columns, without properties
+    private Column[] nodeColumns;
+    private Column[] edgeColumns;
 
     @Override
     public boolean execute() {
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
         graphModel = graphController.getGraphModel(workspace);
+        attributeModel = graphController.getAttributeModel(workspace);
         Graph graph = null;
         if (exportVisible) {
             graph = graphModel.getGraphVisible();
@@ -118,7 +115,7 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
             graph = graphModel.getGraph();
         }
         try {
-            exportData(createDocument(), graph, attributeModel);
+            exportData(graph);
         } catch (Exception e) {
             graph.readUnlockAll();
             throw new RuntimeException(e);
@@ -127,466 +124,267 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
         return !cancel;
     }
 
-    public Document createDocument() throws ParserConfigurationException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = factory.newDocumentBuilder();
-        final Document document = documentBuilder.newDocument();
-        document.setXmlVersion("1.0");
-        document.setXmlStandalone(true);
-        return document;
-    }
-
-    private void transform(Document document) throws TransformerConfigurationException, TransformerException {
-        Source source = new DOMSource(document);
-        Result result = new StreamResult(writer);
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        transformer.transform(source, result);
-    }
-
-    /*
-     public Schema getSchema() {
-     try {
-     SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-     return sf.newSchema(new URL("http://www.gexf.net/1.1draft/gexf.xsd"));
-     } catch (MalformedURLException ex) {
-     Exceptions.printStackTrace(ex);
-     } catch (SAXException ex) {
-     Exceptions.printStackTrace(ex);
-     }
-     return null;
-     }
-     */
-    public boolean exportData(Document document, Graph graph, AttributeModel model) throws Exception {
+    public boolean exportData(Graph graph) throws Exception {
         Progress.start(progressTicket);
 
         graph.readLock();
 
         //Options
         calculateMinMax(graph);
+        nodeColumns = getColumns(attributeModel != null && exportAttributes ? attributeModel.getNodeTable() : null);
+        edgeColumns = getColumns(attributeModel != null && exportAttributes ? attributeModel.getEdgeTable() : null);
 
         //Calculate progress units count
         int max = graph.getNodeCount() + graph.getEdgeCount();
 
         Progress.switchToDeterminate(progressTicket, max);
 
-        Element root = document.createElementNS("http://graphml.graphdrawing.org/xmlns", "graphml");
-        document.appendChild(root);
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        outputFactory.setProperty("javax.xml.stream.isRepairingNamespaces", Boolean.FALSE);
+        XMLStreamWriter xmlWriter = outputFactory.createXMLStreamWriter(writer);
 
-        createKeys(document, root);
+        xmlWriter.writeStartDocument("UTF-8", "1.0");
+        newLine(xmlWriter);
+        xmlWriter.setDefaultNamespace(GRAPHML_NAMESPACE);
+        xmlWriter.writeStartElement(GRAPHML_NAMESPACE, "graphml");
+        xmlWriter.writeDefaultNamespace(GRAPHML_NAMESPACE);
+        newLine(xmlWriter);
 
-        Element graphE = createGraph(document, graph);
-        root.appendChild(graphE);
+        writeKeys(xmlWriter);
 
-        graph.readUnlockAll();
+        writeGraph(xmlWriter, graph);
 
-        if (!cancel) {
-            transform(document);
-        }
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+        xmlWriter.writeEndDocument();
+        xmlWriter.flush();
+        xmlWriter.close();
+
+        graph.readUnlockAll();
 
         Progress.finish(progressTicket);
         return !cancel;
     }
 
-    private void createKeys(Document document, Element root) {
-        Element nodeLabelKeyE = document.createElement("key");
-        nodeLabelKeyE.setAttribute("id", "label");
-        nodeLabelKeyE.setAttribute("attr.name", "label");
-        nodeLabelKeyE.setAttribute("attr.type", "string");
-        nodeLabelKeyE.setAttribute("for", "node");
-        root.appendChild(nodeLabelKeyE);
-
-        Element edgeLabelKeyE = document.createElement("key");
-        edgeLabelKeyE.setAttribute("id", "edgelabel");
-        edgeLabelKeyE.setAttribute("attr.name", "Edge Label");
-        edgeLabelKeyE.setAttribute("attr.type", "string");
-        edgeLabelKeyE.setAttribute("for", "edge");
-        root.appendChild(edgeLabelKeyE);
-
-        Element weightKeyE = document.createElement("key");
-        weightKeyE.setAttribute("id", "weight");
-        weightKeyE.setAttribute("attr.name", "weight");
-        weightKeyE.setAttribute("attr.type", "double");
-        weightKeyE.setAttribute("for", "edge");
-        root.appendChild(weightKeyE);
-
-        Element edgeIdKeyE = document.createElement("key");
-        edgeIdKeyE.setAttribute("id", "edgeid");
-        edgeIdKeyE.setAttribute("attr.name", "Edge Id");
-        edgeIdKeyE.setAttribute("attr.type", "string");
-        edgeIdKeyE.setAttribute("for", "edge");
-        root.appendChild(edgeIdKeyE);
+    private Column[] getColumns(Iterable<Column> table) {
+        List<Column> columns = new ArrayList<Column>();
+        if (table != null) {
+            for (Column column : table) {
+                if (!column.isProperty()) {
+                    columns.add(column);
+                }
+            }
+        }
+        return columns.toArray(new Column[0]);
+    }
+
+    private void newLine(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeCharacters("\n");
+    }
+
+    private void writeKeys(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        writeKey(xmlWriter, "label", "label", "string", "node");
+        writeKey(xmlWriter, "edgelabel", "Edge Label", "string", "edge");
+        writeKey(xmlWriter, "weight", "weight", "double", "edge");
+        writeKey(xmlWriter, "edgeid", "Edge Id", "string", "edge");
 
         if (exportColors) {
-            Element colorRKeyE = document.createElement("key");
-            colorRKeyE.setAttribute("id", "r");
-            colorRKeyE.setAttribute("attr.name", "r");
-            colorRKeyE.setAttribute("attr.type", "int");
-            colorRKeyE.setAttribute("for", "node");
-            root.appendChild(colorRKeyE);
-
-            Element colorGKeyE = document.createElement("key");
-            colorGKeyE.setAttribute("id", "g");
-            colorGKeyE.setAttribute("attr.name", "g");
-            colorGKeyE.setAttribute("attr.type", "int");
-            colorGKeyE.setAttribute("for", "node");
-            root.appendChild(colorGKeyE);
-
-            Element colorBKeyE = document.createElement("key");
-            colorBKeyE.setAttribute("id", "b");
-            colorBKeyE.setAttribute("attr.name", "b");
-            colorBKeyE.setAttribute("attr.type", "int");
-            colorBKeyE.setAttribute("for", "node");
-            root.appendChild(colorBKeyE);
+            writeKey(xmlWriter, "r", "r", "int", "node");
+            writeKey(xmlWriter, "g", "g", "int", "node");
+            writeKey(xmlWriter, "b", "b", "int", "node");
         }
 
         if (exportPosition) {
-            Element positionKeyE = document.createElement("key");
-            positionKeyE.setAttribute("id", "x");
-            positionKeyE.setAttribute("attr.name", "x");
-            positionKeyE.setAttribute("attr.type", "float");
-            positionKeyE.setAttribute("for", "node");
-            root.appendChild(positionKeyE);
-
-            Element positionKey2E = document.createElement("key");
-            positionKey2E.setAttribute("id", "y");
-            positionKey2E.setAttribute("attr.name", "y");
-            positionKey2E.setAttribute("attr.type", "float");
-            positionKey2E.setAttribute("for", "node");
-            root.appendChild(positionKey2E);
-
+            writeKey(xmlWriter, "x", "x", "float", "node");
+            writeKey(xmlWriter, "y", "y", "float", "node");
             if (minZ != 0f || maxZ != 0f) {
-                Element positionKey3E = document.createElement("key");
-                positionKey3E.setAttribute("id", "z");
-                positionKey3E.setAttribute("attr.name", "z");
-                positionKey3E.setAttribute("attr.type", "float");
-                positionKey3E.setAttribute("for", "node");
-                root.appendChild(positionKey3E);
+                writeKey(xmlWriter, "z", "z", "float", "node");
             }
         }
 
         if (exportSize) {
-            Element sizeKeyE = document.createElement("key");
-            sizeKeyE.setAttribute("id", "size");
-            sizeKeyE.setAttribute("attr.name", "size");
-            sizeKeyE.setAttribute("attr.type", "float");
-            sizeKeyE.setAttribute("for", "node");
-            root.appendChild(sizeKeyE);
+            writeKey(xmlWriter, "size", "size", "float", "node");
         }
 
         //Attributes
-        if (attributeModel != null && exportAttributes) {
-            //Node attributes
-            for (Column column : attributeModel.getNodeTable()) {
-                if (!column.isProperty()) {
-                    Element attributeE = createAttribute(document, column);
-                    attributeE.setAttribute("for", "node");
-                    root.appendChild(attributeE);
-                }
-            }
-
-            for (Column column : attributeModel.getEdgeTable()) {
-                if (!column.isProperty()) {
-                    //Data or computed
-                    Element attributeE = createAttribute(document, column);
-                    attributeE.setAttribute("for", "edge");
-                    root.appendChild(attributeE);
-                }
-            }
+        for (Column column : nodeColumns) {
+            writeAttributeKey(xmlWriter, column, "node");
         }
-    }
-
-    private Element createGraph(Document document, Graph graph) throws Exception {
-        Element graphE = document.createElement("graph");
-
-        if (graphModel.isDirected() || graphModel.isMixed()) {
-            graphE.setAttribute("edgedefault", "directed");
-        } else {
-            graphE.setAttribute("edgedefault", "undirected"); // defaultValue
+        for (Column column : edgeColumns) {
+            writeAttributeKey(xmlWriter, column, "edge");
         }
+    }
 
-        //Nodes
-        createNodes(document, graphE, graph);
-
-        //Edges
-        createEdges(document, graphE, graph);
-
-        return graphE;
+    private void writeKey(XMLStreamWriter xmlWriter, String id, String name, String type, String keyFor) throws XMLStreamException {
+        xmlWriter.writeEmptyElement("key");
+        xmlWriter.writeAttribute("id", id);
+        xmlWriter.writeAttribute("attr.name", name);
+        xmlWriter.writeAttribute("attr.type", type);
+        xmlWriter.writeAttribute("for", keyFor);
+        newLine(xmlWriter);
     }
 
-    private Element createAttribute(Document document, Column column) {
-        Element attributeE = document.createElement("key");
-        attributeE.setAttribute("id", column.getId());
-        attributeE.setAttribute("attr.name", column.getTitle());
+    private void writeAttributeKey(XMLStreamWriter xmlWriter, Column column, String keyFor) throws XMLStreamException {
+        String type;
         if (column.getTypeClass().equals(Integer.class)
                 || column.getTypeClass().equals(Short.class)
                 || column.getTypeClass().equals(Byte.class)) {
-            attributeE.setAttribute("attr.type", "int");
+            type = "int";
         } else {
-            attributeE.setAttribute("attr.type", AttributeUtils.getTypeName(column.getTypeClass()));
+            type = AttributeUtils.getTypeName(column.getTypeClass());
         }
-        if (column.getDefaultValue() != null) {
-            Element defaultE = document.createElement("default");
-            Text defaultTextE = document.createTextNode(column.getDefaultValue().toString());
-            defaultE.appendChild(defaultTextE);
+        if (column.getDefaultValue() == null) {
+            writeKey(xmlWriter, column.getId(), column.getTitle(), type, keyFor);
+        } else {
+            xmlWriter.writeStartElement("key");
+            xmlWriter.writeAttribute("id", column.getId());
+            xmlWriter.writeAttribute("attr.name", column.getTitle());
+            xmlWriter.writeAttribute("attr.type", type);
+            xmlWriter.writeAttribute("for", keyFor);
+            xmlWriter.writeStartElement("default");
+            xmlWriter.writeCharacters(column.getDefaultValue().toString());
+            xmlWriter.writeEndElement();
+            xmlWriter.writeEndElement();
+            newLine(xmlWriter);
         }
-        return attributeE;
     }
 
-    private Element createNodeAttvalue(Document document, Column column, Graph graph, Node n) throws Exception {
-        Object val = n.getAttribute(column, graph.getView());
-        if (val != null) {
-            String value = val.toString();
-            String id = column.getId();
-
-            Element attvalueE = document.createElement("data");
-            attvalueE.setAttribute("key", id);
-            attvalueE.setTextContent(value);
-            return attvalueE;
+    private void writeGraph(XMLStreamWriter xmlWriter, Graph graph) throws XMLStreamException {
+        xmlWriter.writeStartElement("graph");
+        if (graphModel.isDirected() || graphModel.isMixed()) {
+            xmlWriter.writeAttribute("edgedefault", "directed");
+        } else {
+            xmlWriter.writeAttribute("edgedefault", "undirected"); // defaultValue
         }
-        return null;
-    }
-
-    private Element createEdgeAttvalue(Document document, Column column, Graph graph, Edge e) throws Exception {
-        Object val = e.getAttribute(column, graph.getView());
-        if (val != null) {
-            String value = val.toString();
-            String id = column.getId();
+        newLine(xmlWriter);
 
-            Element attvalueE = document.createElement("data");
-            attvalueE.setAttribute("key", id);
-            attvalueE.setTextContent(value);
-            return attvalueE;
+        //Nodes
+        for (Node n : graph.getNodes()) {
+            if (cancel) {
+                break;
+            }
+            writeNode(xmlWriter, graph, n);
         }
-        return null;
-    }
 
-    private void createNodes(Document document, Element parentE, Graph graph) throws Exception {
-        // there is no tree
-        for (Node n : graph.getNodes()) {
+        //Edges
+        for (Edge e : graph.getEdges()) {
             if (cancel) {
                 break;
             }
-            Element nodeE = createNode(document, graph, n);
-            parentE.appendChild(nodeE);
+            writeEdge(xmlWriter, graph, e);
         }
+
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
     }
 
-    private Element createNode(Document document, Graph graph, Node n) throws Exception {
-        Element nodeE = document.createElement("node");
-        nodeE.setAttribute("id", n.getId().toString());
+    private void writeNode(XMLStreamWriter xmlWriter, Graph graph, Node n) throws XMLStreamException {
+        xmlWriter.writeStartElement("node");
+        xmlWriter.writeAttribute("id", n.getId().toString());
+        newLine(xmlWriter);
 
         //Label
         if (n.getLabel() != null && !n.getLabel().isEmpty()) {
-            Element labelE = createNodeLabel(document, n);
-            nodeE.appendChild(labelE);
+            writeData(xmlWriter, "label", n.getLabel());
         }
 
         //Attribute values
-        if (attributeModel != null && exportAttributes) {
-            for (Column column : attributeModel.getNodeTable()) {
-                if (!column.isProperty()) {
-                    //Data or computed
-                    Element attvalueE = createNodeAttvalue(document, column, graph, n);
-                    if (attvalueE != null) {
-                        nodeE.appendChild(attvalueE);
-                    }
-                }
+        for (Column column : nodeColumns) {
+            Object val = n.getAttribute(column, graph.getView());
+            if (val != null) {
+                writeData(xmlWriter, column.getId(), val.toString());
             }
         }
 
         //Viz
         if (exportSize) {
-            Element sizeE = createNodeSize(document, n);
-            nodeE.appendChild(sizeE);
+            float size = n.size();
+            if (normalize) {
+                size = (size - minSize) / (maxSize - minSize);
+            }
+            writeData(xmlWriter, "size", String.valueOf(size));
         }
         if (exportColors) {
-            Element colorE = createNodeColorR(document, n);
-            nodeE.appendChild(colorE);
-
-            colorE = createNodeColorG(document, n);
-            nodeE.appendChild(colorE);
-
-            colorE = createNodeColorB(document, n);
-            nodeE.appendChild(colorE);
+            writeData(xmlWriter, "r", String.valueOf(Math.round(n.r() * 255f)));
+            writeData(xmlWriter, "g", String.valueOf(Math.round(n.g() * 255f)));
+            writeData(xmlWriter, "b", String.valueOf(Math.round(n.b() * 255f)));
         }
         if (exportPosition) {
-            Element positionXE = createNodePositionX(document, n);
-            nodeE.appendChild(positionXE);
-            Element positionYE = createNodePositionY(document, n);
-            nodeE.appendChild(positionYE);
-            if (minZ != 0f || maxZ != 0f) {
-                Element positionZE = createNodePositionZ(document, n);
-                nodeE.appendChild(positionZE);
+            float x = n.x();
+            if (normalize && x != 0.0) {
+                x = (x - minX) / (maxX - minX);
             }
-        }
-
-        Progress.progress(progressTicket);
+            writeData(xmlWriter, "x", String.valueOf(x));
 
-        return nodeE;
-    }
-
-    private void createEdges(Document document, Element edgesE, Graph graph) throws Exception {
-        for (Edge e : graph.getEdges()) {
-            if (cancel) {
-                break;
+            float y = n.y();
+            if (normalize && y != 0.0) {
+                y = (y - minY) / (maxY - minY);
             }
-            Element edgeE = createEdge(document, e, graph);
-            edgesE.appendChild(edgeE);
-        }
-    }
-
-    private Element createEdge(Document document, Edge e, Graph graph) throws Exception {
-        Element edgeE = document.createElement("edge");
+            writeData(xmlWriter, "y", String.valueOf(y));
 
-        edgeE.setAttribute("source", e.getSource().getId().toString());
-        edgeE.setAttribute("target", e.getTarget().getId().toString());
-
-        if (e.getId() != null && !e.getId().toString().isEmpty() && !String.valueOf(e.getId()).equals(e.getId())) {
-            Element idE = createEdgeId(document, e);
-            edgeE.appendChild(idE);
-        }
-
-        //Label
-        if (e.getLabel() != null && !e.getLabel().isEmpty()) {
-            Element labelE = createEdgeLabel(document, e);
-            edgeE.appendChild(labelE);
-        }
-
-        Element weightE = createEdgeWeight(document, e, graph);
-        edgeE.appendChild(weightE);
-
-        if (e.isDirected() && !graphModel.isDirected()) {
-            edgeE.setAttribute("type", "directed");
-        } else if (!e.isDirected() && graphModel.isDirected()) {
-            edgeE.setAttribute("type", "undirected");
-        }
-
-        //Attribute values
-        if (attributeModel != null) {
-            for (Column column : attributeModel.getEdgeTable()) {
-                if (!column.isProperty()) {
-                    //Data or computed
-                    Element attvalueE = createEdgeAttvalue(document, column, graph, e);
-                    if (attvalueE != null) {
-                        edgeE.appendChild(attvalueE);
-                    }
+            if (minZ != 0f || maxZ != 0f) {
+                float z = n.z();
+                if (normalize && z != 0.0) {
+                    z = (z - minZ) / (maxZ - minZ);
                 }
+                writeData(xmlWriter, "z", String.valueOf(z));
             }
         }
-        Progress.progress(progressTicket);
-
-        return edgeE;
-    }
-
-    private Element createNodeSize(Document document, Node n) throws Exception {
-        Element sizeE = document.createElement("data");
-        float size = n.size();
-        if (normalize) {
-            size = (size - minSize) / (maxSize - minSize);
-        }
-        sizeE.setAttribute("key", "size");
-        sizeE.setTextContent("" + size);
 
-        return sizeE;
-    }
-
-    private Element createNodeColorR(Document document, Node n) throws Exception {
-        int r = Math.round(n.r() * 255f);
-        Element colorE = document.createElement("data");
-        colorE.setAttribute("key", "r");
-        colorE.setTextContent("" + r);
-        return colorE;
-    }
-
-    private Element createNodeColorG(Document document, Node n) throws Exception {
-        int g = Math.round(n.g() * 255f);
-        Element colorE = document.createElement("data");
-        colorE.setAttribute("key", "g");
-        colorE.setTextContent("" + g);
-        return colorE;
-    }
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
 
-    private Element createNodeColorB(Document document, Node n) throws Exception {
-        int b = Math.round(n.b() * 255f);
-        Element colorE = document.createElement("data");
-        colorE.setAttribute("key", "b");
-        colorE.setTextContent("" + b);
-        return colorE;
+        Progress.progress(progressTicket);
     }
 
-    private Element createNodePositionX(Document document, Node n) throws Exception {
-        Element positionXE = document.createElement("data");
-        float x = n.x();
-        if (normalize && x != 0.0) {
-            x = (x - minX) / (maxX - minX);
+    private void writeEdge(XMLStreamWriter xmlWriter, Graph graph, Edge e) throws XMLStreamException {
+        xmlWriter.writeStartElement("edge");
+        xmlWriter.writeAttribute("source", e.getSource().getId().toString());
+        xmlWriter.writeAttribute("target", e.getTarget().getId().toString());
+        if (e.isDirected() && !graphModel.isDirected()) {
+            xmlWriter.writeAttribute("type", "directed");
+        } else if (!e.isDirected() && graphModel.isDirected()) {
+            xmlWriter.writeAttribute("type", "undirected");
         }
-        positionXE.setAttribute("key", "x");
-        positionXE.setTextContent("" + x);
-        return positionXE;
-    }
+        newLine(xmlWriter);
 
-    private Element createNodePositionY(Document document, Node n) throws Exception {
-        Element positionYE = document.createElement("data");
-        float y = n.y();
-        if (normalize && y != 0.0) {
-            y = (y - minY) / (maxY - minY);
+        if (e.getId() != null && !e.getId().toString().isEmpty() && !String.valueOf(e.getId()).equals(e.getId())) {
+            writeData(xmlWriter, "edgeid", e.getId().toString());
         }
-        positionYE.setAttribute("key", "y");
-        positionYE.setTextContent("" + y);
-
-        return positionYE;
-    }
 
-    private Element createNodePositionZ(Document document, Node n) throws Exception {
-        Element positionZE = document.createElement("data");
-        float z = n.z();
-        if (normalize && z != 0.0) {
-            z = (z - minZ) / (maxZ - minZ);
+        //Label
+        if (e.getLabel() != null && !e.getLabel().isEmpty()) {
+            writeData(xmlWriter, "edgelabel", e.getLabel());
         }
-        positionZE.setAttribute("key", "z");
-        positionZE.setTextContent("" + z);
 
-        return positionZE;
-    }
-
-    private Element createNodeLabel(Document document, Node n) throws Exception {
-        Element labelE = document.createElement("data");
-        labelE.setAttribute("key", "label");
-        labelE.setTextContent(n.getLabel());
-
-        return labelE;
-    }
-
-    private Element createEdgeId(Document document, Edge e) throws Exception {
-        Element idE = document.createElement("data");
-        idE.setAttribute("key", "edgeid");
-        idE.setTextContent(e.getId().toString());
-
-        return idE;
-    }
-
-    private Element createEdgeWeight(Document document, Edge e, Graph graph) throws Exception {
-        Element weightE = document.createElement("data");
-        weightE.setAttribute("key", "weight");
         Double weight;
         if (exportDynamicWeight) {
             weight = e.getWeight(graph.getView());
         } else {
             weight = e.getWeight();
         }
-        weightE.setTextContent(weight.toString());
+        writeData(xmlWriter, "weight", weight.toString());
 
-        return weightE;
-    }
+        //Attribute values
+        for (Column column : edgeColumns) {
+            Object val = e.getAttribute(column, graph.getView());
+            if (val != null) {
+                writeData(xmlWriter, column.getId(), val.toString());
+            }
+        }
 
-    private Element createEdgeLabel(Document document, Edge e) throws Exception {
-        Element labelE = document.createElement("data");
-        labelE.setAttribute("key", "edgelabel");
-        labelE.setTextContent(e.getLabel());
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
+
+        Progress.progress(progressTicket);
+    }
 
-        return labelE;
+    private void writeData(XMLStreamWriter xmlWriter, String key, String value) throws XMLStreamException {
+        xmlWriter.writeStartElement("data");
+        xmlWriter.writeAttribute("key", key);
+        xmlWriter.writeCharacters(value);
+        xmlWriter.writeEndElement();
+        newLine(xmlWriter);
     }
 
     private void calculateMinMax(Graph graph) {
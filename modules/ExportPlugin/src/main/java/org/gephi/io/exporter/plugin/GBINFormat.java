@@ -0,0 +1,183 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.exporter.plugin;
+
+/**
+ * Constants of the GBIN binary graph format, written by {@link ExporterGBIN}
+ * and read by the GBIN importer.
+ * <p>
+ * The file is little-endian. After a header holding the magic number, the
+ * version, flags and counts, it contains in this order:
+ * <ul>
+ * <li>the node id string table and, with {@link #FLAG_NODE_LABELS}, the node
+ * label table</li>
+ * <li>with {@link #FLAG_VIZ}, the node x, y, z and size as floats and the
+ * colors as ARGB ints</li>
+ * <li>the edge id string table, the edge source and target node indices as
+ * ints, the edge directions as bytes for mixed graphs, with
+ * {@link #FLAG_WEIGHTS} the weights as doubles and, with
+ * {@link #FLAG_EDGE_LABELS}, the edge label table</li>
+ * <li>the node then the edge attribute columns: id, title, type code, a
+ * dynamic byte and the values</li>
+ * <li>{@link #END}, only written when the export completes, so a cancelled
+ * export is rejected when imported</li>
+ * </ul>
+ * A string table is an int length per string, -1 for <code>null</code>,
+ * followed by the UTF-8 bytes of all the strings. A value array of a
+ * primitive type is a bitmap of the values that are set, followed by one
+ * value per element. Other types are written as string tables. A static
+ * column is one value array. A dynamic column is the number of timestamps
+ * of each element as ints, all the timestamps as doubles and the value array
+ * of all the timestamps.
+ *
+ * @author Mathieu Bastian
+ */
+public final class GBINFormat {
+
+    public static final int MAGIC = 0x4E494247; //"GBIN"
+    public static final int END = 0x444E4547; //"GEND"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 28;
+    //Flags
+    public static final int FLAG_DIRECTED = 1;
+    public static final int FLAG_UNDIRECTED = 2;
+    public static final int FLAG_WEIGHTS = 4;
+    public static final int FLAG_VIZ = 8;
+    public static final int FLAG_NODE_LABELS = 16;
+    public static final int FLAG_EDGE_LABELS = 32;
+    //Column types
+    public static final byte TYPE_INT = 1;
+    public static final byte TYPE_LONG = 2;
+    public static final byte TYPE_FLOAT = 3;
+    public static final byte TYPE_DOUBLE = 4;
+    public static final byte TYPE_BOOLEAN = 5;
+    public static final byte TYPE_STRING = 6;
+    public static final byte TYPE_SHORT = 7;
+    public static final byte TYPE_BYTE = 8;
+    public static final byte TYPE_CHAR = 9;
+
+    private GBINFormat() {
+    }
+
+    /**
+     * Returns the type code of values of class <code>type</code>, strings for
+     * the types that have no code.
+     *
+     * @param type a static attribute type
+     * @return the type code
+     */
+    public static byte getTypeCode(Class type) {
+        if (type.equals(Integer.class)) {
+            return TYPE_INT;
+        } else if (type.equals(Long.class)) {
+            return TYPE_LONG;
+        } else if (type.equals(Float.class)) {
+            return TYPE_FLOAT;
+        } else if (type.equals(Double.class)) {
+            return TYPE_DOUBLE;
+        } else if (type.equals(Boolean.class)) {
+            return TYPE_BOOLEAN;
+        } else if (type.equals(Short.class)) {
+            return TYPE_SHORT;
+        } else if (type.equals(Byte.class)) {
+            return TYPE_BYTE;
+        } else if (type.equals(Character.class)) {
+            return TYPE_CHAR;
+        }
+        return TYPE_STRING;
+    }
+
+    /**
+     * Returns the class of values of type <code>typeCode</code>.
+     *
+     * @param typeCode a type code
+     * @return the static attribute type
+     */
+    public static Class getType(byte typeCode) {
+        switch (typeCode) {
+            case TYPE_INT:
+                return Integer.class;
+            case TYPE_LONG:
+                return Long.class;
+            case TYPE_FLOAT:
+                return Float.class;
+            case TYPE_DOUBLE:
+                return Double.class;
+            case TYPE_BOOLEAN:
+                return Boolean.class;
+            case TYPE_SHORT:
+                return Short.class;
+            case TYPE_BYTE:
+                return Byte.class;
+            case TYPE_CHAR:
+                return Character.class;
+            default:
+                return String.class;
+        }
+    }
+
+    /**
+     * Returns the size in bytes of a value of type <code>typeCode</code>,
+     * zero for strings.
+     *
+     * @param typeCode a type code
+     * @return the value size
+     */
+    public static int getSize(byte typeCode) {
+        switch (typeCode) {
+            case TYPE_LONG:
+            case TYPE_DOUBLE:
+                return 8;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                return 4;
+            case TYPE_SHORT:
+            case TYPE_CHAR:
+                return 2;
+            case TYPE_BOOLEAN:
+            case TYPE_BYTE:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.io.exporter.plugin;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.time.TimestampDoubleSet;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.store.GraphModelImpl;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class ExporterGEXFNGTest {
+
+    private static final String GEXF_NAMESPACE = "http://www.gexf.net/1.3";
+
+    @Test
+    public void testStaticGraph() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Column column = graphModel.getNodeTable().addColumn("score", Double.class);
+        Node n0 = newNode(graphModel, "0", "Zero");
+        Node n1 = newNode(graphModel, "1", "One");
+        Node n2 = newNode(graphModel, "2", null);
+        n0.setAttribute(column, 0.5);
+        Edge e0 = graphModel.factory().newEdge(n0, n1);
+        Edge e1 = graphModel.factory().newEdge(n1, n2);
+        e1.setWeight(2.0);
+        graph.addEdge(e0);
+        graph.addEdge(e1);
+
+        Document document = export(graphModel);
+
+        Element graphElement = getElements(document, "graph").get(0);
+        assertEquals(graphElement.getAttribute("mode"), "static");
+        assertEquals(graphElement.getAttribute("defaultedgetype"), "directed");
+
+        List<Element> attributes = getElements(document, "attributes");
+        assertEquals(attributes.size(), 1);
+        assertEquals(attributes.get(0).getAttribute("class"), "node");
+        assertEquals(attributes.get(0).getAttribute("mode"), "static");
+        Element attribute = getElements(document, "attribute").get(0);
+        assertEquals(attribute.getAttribute("id"), column.getId());
+        assertEquals(attribute.getAttribute("type"), "double");
+
+        List<Element> nodes = getElements(document, "node");
+        assertEquals(nodes.size(), 3);
+        Element node0 = getById(nodes, "0");
+        assertEquals(node0.getAttribute("label"), "Zero");
+        assertFalse(getById(nodes, "2").hasAttribute("label"));
+        List<Element> attValues = getElements(node0, "attvalue");
+        assertEquals(attValues.size(), 1);
+        assertEquals(attValues.get(0).getAttribute("for"), column.getId());
+        assertEquals(attValues.get(0).getAttribute("value"), "0.5");
+        assertTrue(getElements(getById(nodes, "1"), "attvalue").isEmpty());
+
+        List<Element> edges = getElements(document, "edge");
+        assertEquals(edges.size(), 2);
+        Element edge0 = getById(edges, e0.getId().toString());
+        assertEquals(edge0.getAttribute("source"), "0");
+        assertEquals(edge0.getAttribute("target"), "1");
+        assertFalse(edge0.hasAttribute("weight"));
+        Element edge1 = getById(edges, e1.getId().toString());
+        assertEquals(edge1.getAttribute("source"), "1");
+        assertEquals(edge1.getAttribute("target"), "2");
+        assertEquals(edge1.getAttribute("weight"), "2.0");
+
+        assertTrue(getElements(document, "spells").isEmpty());
+        assertFalse(node0.hasAttribute("timestamp"));
+    }
+
+    @Test
+    public void testDynamicGraph() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setEdgeWeightType(TimestampDoubleSet.class);
+        GraphModelImpl graphModel = new GraphModelImpl(configuration);
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Column column = graphModel.getNodeTable().addColumn("score", TimestampDoubleSet.class);
+        Node n0 = newNode(graphModel, "0", "Zero");
+        Node n1 = newNode(graphModel, "1", "One");
+        n0.addTimestamp(2000);
+        n1.addTimestamp(2000);
+        n1.addTimestamp(2001);
+        n1.setAttribute(column, 0.25, 2000);
+        n1.setAttribute(column, 0.75, 2001);
+        Edge edge = graphModel.factory().newEdge(n0, n1);
+        edge.addTimestamp(2000);
+        edge.addTimestamp(2001);
+        edge.setWeight(2.0, 2000);
+        edge.setWeight(3.0, 2001);
+        graph.addEdge(edge);
+
+        Document document = export(graphModel);
+
+        Element graphElement = getElements(document, "graph").get(0);
+        assertEquals(graphElement.getAttribute("mode"), "dynamic");
+        assertEquals(graphElement.getAttribute("timeformat"), "double");
+        assertEquals(graphElement.getAttribute("timerepresentation"), "timestamp");
+        assertEquals(graphElement.getAttribute("start"), "2000.0");
+        assertEquals(graphElement.getAttribute("end"), "2001.0");
+
+        //Dynamic node score and dynamic edge weight
+        List<Element> attributes = getElements(document, "attributes");
+        assertEquals(attributes.size(), 2);
+        for (Element element : attributes) {
+            assertEquals(element.getAttribute("mode"), "dynamic");
+            List<Element> declared = getElements(element, "attribute");
+            assertEquals(declared.size(), 1);
+            assertEquals(declared.get(0).getAttribute("type"), "double");
+            if (element.getAttribute("class").equals("edge")) {
+                assertEquals(declared.get(0).getAttribute("id"), "weight");
+            } else {
+                assertEquals(declared.get(0).getAttribute("id"), column.getId());
+            }
+        }
+
+        //A single timestamp is an attribute, several are spells
+        List<Element> nodes = getElements(document, "node");
+        assertEquals(nodes.size(), 2);
+        Element node0 = getById(nodes, "0");
+        assertEquals(node0.getAttribute("timestamp"), "2000.0");
+        assertTrue(getElements(node0, "spells").isEmpty());
+        Element node1 = getById(nodes, "1");
+        assertFalse(node1.hasAttribute("timestamp"));
+        assertEquals(getTimestamps(getElements(node1, "spell")), new String[]{"2000.0", "2001.0"});
+        List<Element> attValues = getElements(node1, "attvalue");
+        assertEquals(getTimestamps(attValues), new String[]{"2000.0", "2001.0"});
+        assertEquals(attValues.get(0).getAttribute("for"), column.getId());
+        assertEquals(attValues.get(0).getAttribute("value"), "0.25");
+        assertEquals(attValues.get(1).getAttribute("value"), "0.75");
+
+        Element edgeElement = getElements(document, "edge").get(0);
+        assertFalse(edgeElement.hasAttribute("weight"));
+        assertEquals(getTimestamps(getElements(edgeElement, "spell")), new String[]{"2000.0", "2001.0"});
+        List<Element> weights = getElements(edgeElement, "attvalue");
+        assertEquals(getTimestamps(weights), new String[]{"2000.0", "2001.0"});
+        assertEquals(weights.get(0).getAttribute("for"), "weight");
+        assertEquals(weights.get(0).getAttribute("value"), "2.0");
+        assertEquals(weights.get(1).getAttribute("value"), "3.0");
+    }
+
+    private static Node newNode(GraphModelImpl graphModel, String id, String label) {
+        Node node = graphModel.factory().newNode(id);
+        node.setLabel(label);
+        graphModel.getDirectedGraph().addNode(node);
+        return node;
+    }
+
+    private static Document export(GraphModelImpl graphModel) throws Exception {
+        ExporterGEXF exporter = new ExporterGEXF();
+        StringWriter writer = new StringWriter();
+        exporter.setWriter(writer);
+        assertTrue(exporter.exportData(graphModel, graphModel, graphModel.getDirectedGraph()));
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(writer.toString())));
+    }
+
+    private static List<Element> getElements(Document document, String name) {
+        return toList(document.getElementsByTagNameNS(GEXF_NAMESPACE, name));
+    }
+
+    private static List<Element> getElements(Element element, String name) {
+        return toList(element.getElementsByTagNameNS(GEXF_NAMESPACE, name));
+    }
+
+    private static List<Element> toList(NodeList nodeList) {
+        List<Element> elements = new ArrayList<Element>();
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            elements.add((Element) nodeList.item(i));
+        }
+        return elements;
+    }
+
+    private static Element getById(List<Element> elements, String id) {
+        for (Element element : elements) {
+            if (element.getAttribute("id").equals(id)) {
+                return element;
+            }
+        }
+        fail("No element " + id);
+        return null;
+    }
+
+    private static String[] getTimestamps(List<Element> elements) {
+        String[] timestamps = new String[elements.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = elements.get(i).getAttribute("timestamp");
+        }
+        return timestamps;
+    }
+}
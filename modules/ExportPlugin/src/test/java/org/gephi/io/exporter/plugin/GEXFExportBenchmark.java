@@ -0,0 +1,136 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>,
+ Sebastien Heymann <sebastien.heymann@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.exporter.plugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.time.TimestampDoubleSet;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.store.GraphModelImpl;
+
+/**
+ * Measures the throughput of {@link ExporterGEXF} on a random dynamic graph,
+ * where every node and edge has timestamps and every node a dynamic
+ * attribute value per timestamp. The export is written to a temporary file.
+ * <p>
+ * Arguments: node count (default 100000), edges per node (default 5),
+ * timestamps per element (default 3) and iterations (default 3).
+ *
+ * @author Mathieu Bastian
+ */
+public class GEXFExportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int timestamps = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        GraphModelImpl graphModel = randomGraph(nodeCount, degree, timestamps, new Random(42));
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        System.out.println(graph.getNodeCount() + " nodes, " + graph.getEdgeCount() + " edges, " + timestamps + " timestamps");
+
+        File file = File.createTempFile("benchmark", ".gexf");
+        file.deleteOnExit();
+        for (int i = 0; i < iterations + 1; i++) {
+            // First iteration is warm-up
+            boolean report = i > 0;
+
+            ExporterGEXF exporter = new ExporterGEXF();
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            long start = System.nanoTime();
+            try {
+                exporter.setWriter(writer);
+                exporter.exportData(graphModel, graphModel, graph);
+            } finally {
+                writer.close();
+            }
+            long duration = System.nanoTime() - start;
+
+            if (report) {
+                double megabytes = file.length() / (1024.0 * 1024.0);
+                System.out.println(String.format("%8.1f MB in %6d ms, %6.1f MB/s", megabytes, duration / 1000000, megabytes / (duration / 1e9)));
+            }
+        }
+    }
+
+    private static GraphModelImpl randomGraph(int nodeCount, int degree, int timestamps, Random random) {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Column column = graphModel.getNodeTable().addColumn("score", TimestampDoubleSet.class);
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = graphModel.factory().newNode(String.valueOf(i));
+            node.setLabel("Node " + i);
+            node.setX(random.nextFloat() * 1000f);
+            node.setY(random.nextFloat() * 1000f);
+            node.setSize(1f + random.nextFloat() * 10f);
+            for (int t = 0; t < timestamps; t++) {
+                node.addTimestamp(2000 + t);
+                node.setAttribute(column, random.nextDouble(), 2000 + t);
+            }
+            graph.addNode(node);
+            nodes[i] = node;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int d = 0; d < degree; d++) {
+                Node target = nodes[random.nextInt(nodeCount)];
+                if (graph.getEdge(nodes[i], target) == null) {
+                    Edge edge = graphModel.factory().newEdge(nodes[i], target);
+                    for (int t = 0; t < timestamps; t++) {
+                        edge.addTimestamp(2000 + t);
+                    }
+                    graph.addEdge(edge);
+                }
+            }
+        }
+        return graphModel;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+
+package org.gephi.filters.spi;
+
+import java.util.BitSet;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+
+/**
+ * Subset of the nodes and edges of a graph, as two bit sets indexed by store
+ * id. Used by {@link SetOperator} to combine filter results with word-wise
+ * boolean operations instead of building a graph view for each of them.
+ * <p>
+ * An edge should only be in the subset if its source and target are, see
+ * {@link #retainEdgesOfNodes(org.gephi.graph.api.Graph)}.
+ *
+ * @author Mathieu Bastian
+ */
+public final class GraphSubset {
+
+    private final BitSet nodes;
+    private final BitSet edges;
+
+    public GraphSubset() {
+        this(new BitSet(), new BitSet());
+    }
+
+    public GraphSubset(BitSet nodes, BitSet edges) {
+        this.nodes = nodes;
+        this.edges = edges;
+    }
+
+    /**
+     * Creates the subset of all nodes and edges of <code>graph</code>.
+     *
+     * @param graph a graph
+     * @return a new subset with the elements of <code>graph</code>
+     */
+    public static GraphSubset of(Graph graph) {
+        GraphSubset subset = new GraphSubset();
+        for (Node n : graph.getNodes()) {
+            subset.nodes.set(n.getStoreId());
+        }
+        for (Edge e : graph.getEdges()) {
+            subset.edges.set(e.getStoreId());
+        }
+        return subset;
+    }
+
+    /**
+     * Returns the nodes of this subset, can be modified.
+     *
+     * @return node store ids
+     */
+    public BitSet getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the edges of this subset, can be modified.
+     *
+     * @return edge store ids
+     */
+    public BitSet getEdges() {
+        return edges;
+    }
+
+    public boolean contains(Node node) {
+        return nodes.get(node.getStoreId());
+    }
+
+    public boolean contains(Edge edge) {
+        return edges.get(edge.getStoreId());
+    }
+
+    /**
+     * Removes the edges whose source or target is not in the subset, as
+     * removing nodes from a graph does.
+     *
+     * @param graph the graph the subset is taken from
+     */
+    public void retainEdgesOfNodes(Graph graph) {
+        for (Edge e : graph.getEdges()) {
+            if (!contains(e.getSource()) || !contains(e.getTarget())) {
+                edges.clear(e.getStoreId());
+            }
+        }
+    }
+
+    public GraphSubset copy() {
+        return new GraphSubset((BitSet) nodes.clone(), (BitSet) edges.clone());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+
+package org.gephi.filters.spi;
+
+import org.gephi.graph.api.Graph;
+
+/**
+ * Operator which can also work on {@link GraphSubset}, bit sets of nodes and
+ * edges of the complete graph. When all operators of a query implement this
+ * interface, the filter processor evaluates the query without creating a
+ * graph view for each sub-query, and only builds a view for the final result.
+ * <p>
+ * Both methods must give the same result as their <code>Graph</code>
+ * counterparts in {@link Operator}.
+ *
+ * @author Mathieu Bastian
+ */
+public interface SetOperator extends Operator {
+
+    /**
+     * Combines the results of the sub-queries, as
+     * {@link Operator#filter(org.gephi.graph.api.Graph[])} does.
+     *
+     * @param graph the complete graph, subsets are taken from it
+     * @param subsets the results of the sub-queries, may be modified
+     * @return the result, can be one of <code>subsets</code>
+     */
+    public GraphSubset filter(Graph graph, GraphSubset[] subsets);
+
+    /**
+     * Applies the filters with this operator on <code>subset</code>, as
+     * {@link Operator#filter(org.gephi.graph.api.Graph, org.gephi.filters.spi.Filter[])}
+     * does. Filters are evaluated with <code>graph</code>.
+     *
+     * @param graph the complete graph, <code>subset</code> is taken from it
+     * @param subset the elements to filter, may be modified
+     * @param filters the filters
+     * @return the result, can be <code>subset</code>
+     */
+    public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters);
+}
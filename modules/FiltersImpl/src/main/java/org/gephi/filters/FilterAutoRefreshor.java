@@ -41,71 +41,50 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.filters;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-import org.gephi.graph.api.GraphEvent;
-import org.gephi.graph.api.GraphListener;
-import org.gephi.graph.api.GraphModel;
-import org.openide.util.Exceptions;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphChangeNotifier;
+import org.gephi.graph.api.GraphController;
+import org.gephi.project.api.Workspace;
+import org.openide.util.Lookup;
 
 /**
+ * Runs the current query again when nodes or edges of the main graph change.
+ * Changes come from the workspace's {@link GraphChangeNotifier}, already
+ * coalesced, so a burst of modifications leads to a single refresh.
  *
  * @author Mathieu Bastian
  */
-public class FilterAutoRefreshor extends Thread implements GraphListener {
+public class FilterAutoRefreshor implements GraphChangeListener {
 
-    private static final int TIMER = 1000;
-    private final GraphModel graphModel;
+    private final GraphChangeNotifier notifier;
     private final FilterModelImpl filterModel;
     private boolean running = true;
-    private AtomicBoolean refresh = new AtomicBoolean(false);
 
-    public FilterAutoRefreshor(FilterModelImpl filterModel, GraphModel graphModel) {
-        super("Filter Auto-Refresh");
-        setDaemon(true);
-        this.graphModel = graphModel;
+    public FilterAutoRefreshor(FilterModelImpl filterModel, Workspace workspace) {
+        this.notifier = Lookup.getDefault().lookup(GraphController.class).getChangeNotifier(workspace);
         this.filterModel = filterModel;
     }
 
-    @Override
-    public void run() {
-        while (running) {
-            try {
-                if (refresh.compareAndSet(true, false)) {
-                    manualRefresh();
-                }
-                Thread.sleep(TIMER);
-            } catch (InterruptedException ex) {
-                Exceptions.printStackTrace(ex);
-            }
-        }
-    }
-
     public void setEnable(boolean enable) {
-        if (enable) {
-            graphModel.addGraphListener(this);
+        if (enable && running) {
+            notifier.addChangeListener(this);
         } else {
-            graphModel.removeGraphListener(this);
-            refresh.set(false);
-        }
-        if (!isAlive()) {
-            start();
+            notifier.removeChangeListener(this);
         }
     }
 
-    public void graphChanged(GraphEvent event) {
-        if (event.getSource().isMainView() && event.is(GraphEvent.EventType.ADD_NODES_AND_EDGES,
-                GraphEvent.EventType.REMOVE_NODES_AND_EDGES,
-                GraphEvent.EventType.MOVE_NODES)) {
-            refresh.set(true);
-            //System.out.println("set refresh true");
+    @Override
+    public void graphChanged(GraphChangeEvent event) {
+        if (event.is(GraphChangeEvent.EventType.GRAPH)) {
+            manualRefresh();
         }
     }
 
     public void setRunning(boolean running) {
         this.running = running;
         if (!running) {
-            graphModel.removeGraphListener(this);
-            refresh.set(false);
+            notifier.removeChangeListener(this);
         }
     }
 
@@ -83,7 +83,7 @@ public class FilterModelImpl implements FilterModel {
         autoRefresh = true;
 
         graphModel = Lookup.getDefault().lookup(GraphController.class).getModel(workspace);
-        autoRefreshor = new FilterAutoRefreshor(this, graphModel);
+        autoRefreshor = new FilterAutoRefreshor(this, workspace);
     }
 
     public FilterLibrary getLibrary() {
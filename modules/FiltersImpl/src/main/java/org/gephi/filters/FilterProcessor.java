@@ -42,8 +42,11 @@
 package org.gephi.filters;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.gephi.filters.api.Range;
 import org.gephi.filters.spi.*;
 import org.gephi.graph.api.*;
@@ -56,33 +59,44 @@ public class FilterProcessor {
 
     public Graph process(AbstractQueryImpl query, GraphModel graphModel) {
         List<GraphView> views = new ArrayList<GraphView>();
+        //Results kept as subsets of the complete graph, no view is created for them
+        Map<AbstractQueryImpl, GraphSubset> subsets = new HashMap<AbstractQueryImpl, GraphSubset>();
+        Graph mainGraph = graphModel.getGraph();
         query = simplifyQuery(query);
         AbstractQueryImpl[] tree = getTree(query, true);
         for (int i = 0; i < tree.length; i++) {
             AbstractQueryImpl q = tree[tree.length - i - 1];
-            Graph[] input = new Graph[0];
-            if (q.getChildrenCount() > 0) {
-                input = new Graph[q.getChildrenCount()];
-                for (int j = 0; j < input.length; j++) {
-                    input[j] = q.getChildAt(j).getResult();
-                }
-            } else {
-                //Leaves
-                GraphView newView = graphModel.newView();
-                views.add(newView);
-                input = new Graph[]{graphModel.getGraph(newView)};    //duplicate root
-            }
             //PROCESS
             if (q instanceof OperatorQueryImpl && !((OperatorQueryImpl) q).isSimple()) {
                 OperatorQueryImpl operatorQuery = (OperatorQueryImpl) q;
                 Operator op = (Operator) operatorQuery.getFilter();
-                q.setResult(op.filter(input));
+                if (op instanceof SetOperator) {
+                    GraphSubset[] input = new GraphSubset[q.getChildrenCount()];
+                    for (int j = 0; j < input.length; j++) {
+                        input[j] = getSubset(q.getChildAt(j), subsets);
+                    }
+                    subsets.put(q, ((SetOperator) op).filter(mainGraph, input));
+                } else {
+                    Graph[] input = new Graph[q.getChildrenCount()];
+                    for (int j = 0; j < input.length; j++) {
+                        input[j] = getGraph(q.getChildAt(j), subsets, graphModel, views);
+                    }
+                    q.setResult(op.filter(input));
+                }
             } else if (q instanceof OperatorQueryImpl && ((OperatorQueryImpl) q).isSimple()) {
                 OperatorQueryImpl operatorQuery = (OperatorQueryImpl) q;
                 Operator op = (Operator) operatorQuery.getFilter();
-                GraphView newView = graphModel.newView();
-                views.add(newView);
-                Graph newGraph = graphModel.getGraph(newView);
+                //Set variants evaluate edge filters on the complete graph, mixed
+                //node and edge filters need the graph left after node removal
+                boolean useSets = op instanceof SetOperator && !hasNodeAndEdgeFilters(operatorQuery);
+                Graph newGraph;
+                if (useSets) {
+                    newGraph = mainGraph;
+                } else {
+                    GraphView newView = graphModel.newView();
+                    views.add(newView);
+                    newGraph = graphModel.getGraph(newView);
+                }
                 List<Filter> filters = new ArrayList<Filter>();
                 for (int k = 0; k < operatorQuery.getChildrenCount(); k++) {
                     Filter filter = operatorQuery.getChildAt(k).getFilter();
@@ -90,32 +104,53 @@ public class FilterProcessor {
                         filters.add(filter);
                     }
                 }
-                q.setResult(op.filter(newGraph, filters.toArray(new Filter[0])));
+                if (useSets) {
+                    subsets.put(q, ((SetOperator) op).filter(mainGraph, GraphSubset.of(mainGraph), filters.toArray(new Filter[0])));
+                } else {
+                    q.setResult(op.filter(newGraph, filters.toArray(new Filter[0])));
+                }
             } else {
                 FilterQueryImpl filterQuery = (FilterQueryImpl) q;
                 Filter filter = filterQuery.getFilter();
-                if (filter instanceof NodeFilter && filter instanceof EdgeFilter) {
-                    processNodeFilter((NodeFilter) filter, input[0]);
-                    processEdgeFilter((EdgeFilter) filter, input[0]);
-                    q.setResult(input[0]);
+                boolean nodeAndEdgeFilter = filter instanceof NodeFilter && filter instanceof EdgeFilter;
+                if (q.getChildrenCount() == 0 && !nodeAndEdgeFilter
+                        && (filter instanceof NodeFilter || filter instanceof EdgeFilter || filter instanceof AttributableFilter)) {
+                    //Leaf predicate, evaluated on the complete graph
+                    subsets.put(q, evaluateFilter(filter, mainGraph));
+                    continue;
+                }
+                Graph input;
+                if (q.getChildrenCount() > 0) {
+                    input = getGraph(q.getChildAt(0), subsets, graphModel, views);
+                } else {
+                    //Leaves
+                    GraphView newView = graphModel.newView();
+                    views.add(newView);
+                    input = graphModel.getGraph(newView);    //duplicate root
+                }
+                if (nodeAndEdgeFilter) {
+                    //Edges are evaluated on the graph left after node removal
+                    processNodeFilter((NodeFilter) filter, input);
+                    processEdgeFilter((EdgeFilter) filter, input);
+                    q.setResult(input);
                 } else if (filter instanceof NodeFilter) {
-                    processNodeFilter((NodeFilter) filter, input[0]);
-                    q.setResult(input[0]);
+                    processNodeFilter((NodeFilter) filter, input);
+                    q.setResult(input);
                 } else if (filter instanceof EdgeFilter) {
-                    processEdgeFilter((EdgeFilter) filter, input[0]);
-                    q.setResult(input[0]);
+                    processEdgeFilter((EdgeFilter) filter, input);
+                    q.setResult(input);
                 } else if (filter instanceof AttributableFilter) {
-                    processAttributableFilter((AttributableFilter) filter, input[0]);
-                    q.setResult(input[0]);
+                    processAttributableFilter((AttributableFilter) filter, input);
+                    q.setResult(input);
                 } else if (filter instanceof ComplexFilter) {
                     ComplexFilter cf = (ComplexFilter) filter;
-                    q.setResult(cf.filter(input[0]));
+                    q.setResult(cf.filter(input));
                 } else {
-                    q.setResult(input[0]);  //Put input as result, the filter don't do anything
+                    q.setResult(input);  //Put input as result, the filter don't do anything
                 }
             }
         }
-        Graph finalResult = tree[0].result;
+        Graph finalResult = getGraph(tree[0], subsets, graphModel, views);
 
         //Destroy intermediate views
         GraphView finalView = finalResult.getView();
@@ -127,6 +162,137 @@ public class FilterProcessor {
         return finalResult;
     }
 
+    /**
+     * Returns the result of <code>query</code> as a subset of the complete
+     * graph.
+     */
+    private GraphSubset getSubset(AbstractQueryImpl query, Map<AbstractQueryImpl, GraphSubset> subsets) {
+        GraphSubset subset = subsets.get(query);
+        if (subset == null) {
+            subset = GraphSubset.of(query.getResult());
+        }
+        return subset;
+    }
+
+    /**
+     * Returns the result of <code>query</code> as a graph, creating its view
+     * if the result is a subset.
+     */
+    private Graph getGraph(AbstractQueryImpl query, Map<AbstractQueryImpl, GraphSubset> subsets, GraphModel graphModel, List<GraphView> views) {
+        GraphSubset subset = subsets.remove(query);
+        if (subset != null) {
+            GraphView newView = graphModel.newView();
+            views.add(newView);
+            Graph graph = graphModel.getGraph(newView);
+            fill(graph, graphModel.getGraph(), subset);
+            query.setResult(graph);
+        }
+        return query.getResult();
+    }
+
+    /**
+     * Makes the view of <code>graph</code>, a copy of the complete graph,
+     * contain exactly the elements of <code>subset</code>. Elements are added
+     * to a cleared view or removed from the copy, whichever is fewer, with one
+     * bulk call for nodes and one for edges.
+     */
+    private void fill(Graph graph, Graph mainGraph, GraphSubset subset) {
+        int nodeCount = mainGraph.getNodeCount();
+        int edgeCount = mainGraph.getEdgeCount();
+        int keptNodes = subset.getNodes().cardinality();
+        int keptEdges = subset.getEdges().cardinality();
+        if (keptNodes + keptEdges < (nodeCount - keptNodes) + (edgeCount - keptEdges)) {
+            List<Node> nodes = new ArrayList<Node>(keptNodes);
+            for (Node n : mainGraph.getNodes()) {
+                if (subset.contains(n)) {
+                    nodes.add(n);
+                }
+            }
+            List<Edge> edges = new ArrayList<Edge>(keptEdges);
+            for (Edge e : mainGraph.getEdges()) {
+                if (subset.contains(e)) {
+                    edges.add(e);
+                }
+            }
+            graph.clear();
+            graph.addAllNodes(nodes);
+            graph.addAllEdges(edges);
+        } else {
+            List<Edge> edges = new ArrayList<Edge>(edgeCount - keptEdges);
+            for (Edge e : mainGraph.getEdges()) {
+                if (!subset.contains(e)) {
+                    edges.add(e);
+                }
+            }
+            List<Node> nodes = new ArrayList<Node>(nodeCount - keptNodes);
+            for (Node n : mainGraph.getNodes()) {
+                if (!subset.contains(n)) {
+                    nodes.add(n);
+                }
+            }
+            graph.removeAllEdges(edges);
+            graph.removeAllNodes(nodes);
+        }
+    }
+
+    private boolean hasNodeAndEdgeFilters(OperatorQueryImpl query) {
+        boolean nodeFilters = false;
+        boolean edgeFilters = false;
+        for (int k = 0; k < query.getChildrenCount(); k++) {
+            Filter filter = query.getChildAt(k).getFilter();
+            if (filter instanceof NodeFilter || (filter instanceof AttributableFilter && ((AttributableFilter) filter).getType() == AttributableFilter.Type.NODE)) {
+                nodeFilters = true;
+            }
+            if (filter instanceof EdgeFilter || (filter instanceof AttributableFilter && ((AttributableFilter) filter).getType() == AttributableFilter.Type.EDGE)) {
+                edgeFilters = true;
+            }
+        }
+        return nodeFilters && edgeFilters;
+    }
+
+    /**
+     * Evaluates a node, edge or attributable filter on all elements of
+     * <code>graph</code>. Same result as the <code>process*Filter</code>
+     * methods on a copy of the graph.
+     */
+    private GraphSubset evaluateFilter(Filter filter, Graph graph) {
+        GraphSubset subset = GraphSubset.of(graph);
+        if (!init(filter, graph)) {
+            return subset;
+        }
+        boolean attributable = filter instanceof AttributableFilter;
+        AttributableFilter.Type type = attributable ? ((AttributableFilter) filter).getType() : null;
+        if (filter instanceof NodeFilter || type == AttributableFilter.Type.NODE) {
+            BitSet nodes = subset.getNodes();
+            for (Node n : graph.getNodes()) {
+                boolean keep = attributable ? ((AttributableFilter) filter).evaluate(graph, n) : ((NodeFilter) filter).evaluate(graph, n);
+                if (!keep) {
+                    nodes.clear(n.getStoreId());
+                }
+            }
+            subset.retainEdgesOfNodes(graph);
+        }
+        if (filter instanceof EdgeFilter || type == AttributableFilter.Type.EDGE) {
+            BitSet edges = subset.getEdges();
+            for (Edge e : graph.getEdges()) {
+                if (edges.get(e.getStoreId())) {
+                    boolean keep = attributable ? ((AttributableFilter) filter).evaluate(graph, e) : ((EdgeFilter) filter).evaluate(graph, e);
+                    if (!keep) {
+                        edges.clear(e.getStoreId());
+                    }
+                }
+            }
+        }
+        if (filter instanceof NodeFilter) {
+            ((NodeFilter) filter).finish();
+        } else if (filter instanceof EdgeFilter) {
+            ((EdgeFilter) filter).finish();
+        } else {
+            ((AttributableFilter) filter).finish();
+        }
+        return subset;
+    }
+
     private void processAttributableFilter(AttributableFilter attributableFilter, Graph graph) {
         if (((AttributableFilter) attributableFilter).getType().equals(AttributableFilter.Type.NODE)) {
             if (init(attributableFilter, graph)) {
@@ -189,7 +355,10 @@ public class FilterProcessor {
 
     private void processEdgeFilter(EdgeFilter edgeFilter, Graph graph) {
         HierarchicalGraph hgraph = (HierarchicalGraph) graph;
-        if (init(edgeFilter, graph)) {
+        //Not init(), which initializes filters that are also node filters as node filters
+        boolean res = edgeFilter.init(graph);
+        initRange(edgeFilter, graph);
+        if (res) {
             List<Edge> edgesToRemove = new ArrayList<Edge>();
             for (Edge e : hgraph.getEdges()) {
                 if (!edgeFilter.evaluate(hgraph, e)) {
@@ -260,7 +429,11 @@ public class FilterProcessor {
             res = ((AttributableFilter) filter).init(graph);
         }
 
-        //Range
+        initRange(filter, graph);
+        return res;
+    }
+
+    private void initRange(Filter filter, Graph graph) {
         if (filter instanceof RangeFilter) {
             RangeFilter rangeFilter = (RangeFilter) filter;
             Number[] values = rangeFilter.getValues(graph);
@@ -321,8 +494,6 @@ public class FilterProcessor {
                 }
             }
         }
-
-        return res;
     }
 
     private static class NumberComparator implements Comparator<Number> {
@@ -0,0 +1,463 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.filters;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.gephi.filters.spi.EdgeFilter;
+import org.gephi.filters.spi.Filter;
+import org.gephi.filters.spi.FilterProperty;
+import org.gephi.filters.spi.GraphSubset;
+import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.SetOperator;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class FilterProcessorNGTest {
+
+    private ProjectController pc;
+    private GraphModel graphModel;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+        graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Random random = new Random(42);
+        int n = 60;
+        Node[] nodes = new Node[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+        }
+        Set<String> pairs = new HashSet<String>();
+        while (graph.getEdgeCount() < 150) {
+            int s = random.nextInt(n);
+            int t = random.nextInt(n);
+            if (s != t && pairs.add(s + "-" + t)) {
+                Edge edge = graphModel.factory().newEdge(nodes[s], nodes[t]);
+                edge.setWeight(1 + random.nextInt(10));
+                graph.addEdge(edge);
+            }
+        }
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testNodeFilter() {
+        assertSameResult(leaf(new DegreeFilter(5)));
+    }
+
+    @Test
+    public void testEdgeFilter() {
+        assertSameResult(leaf(new WeightFilter(6)));
+    }
+
+    @Test
+    public void testNodeAndEdgeFilter() {
+        CombinedFilter filter = new CombinedFilter();
+        Graph result = new FilterProcessor().process(leaf(filter), graphModel);
+        assertEquals(filter.nodeInit, 1);
+        assertEquals(filter.nodeFinish, 1);
+        assertEquals(filter.edgeInit, 1);
+        assertEquals(filter.edgeFinish, 1);
+        //Edges are evaluated on the graph without the removed nodes
+        assertEquals(filter.edgeInitNodeCount, result.getNodeCount());
+        assertTrue(filter.edgeInitNodeCount < graphModel.getGraph().getNodeCount());
+
+        assertSameResult(leaf(new CombinedFilter()));
+    }
+
+    @Test
+    public void testSimpleUnion() {
+        assertSameResult(operator(new UnionOperator(), leaf(new DegreeFilter(6)), leaf(new IdFilter(4))));
+    }
+
+    @Test
+    public void testSimpleIntersection() {
+        assertSameResult(operator(new IntersectionOperator(), leaf(new DegreeFilter(4)), leaf(new IdFilter(2))));
+    }
+
+    @Test
+    public void testSimpleOperatorWithNodeAndEdgeFilters() {
+        assertSameResult(operator(new IntersectionOperator(), leaf(new DegreeFilter(4)), leaf(new SourceDegreeFilter(5))));
+        assertSameResult(operator(new UnionOperator(), leaf(new IdFilter(3)), leaf(new WeightFilter(8))));
+    }
+
+    @Test
+    public void testNestedOperators() {
+        AbstractQueryImpl intersection = operator(new IntersectionOperator(), leaf(new DegreeFilter(4)), leaf(new IdFilter(2)));
+        assertSameResult(operator(new UnionOperator(), intersection, leaf(new IdFilter(5))));
+
+        AbstractQueryImpl left = operator(new UnionOperator(), leaf(new DegreeFilter(7)), leaf(new IdFilter(3)));
+        AbstractQueryImpl right = operator(new UnionOperator(), leaf(new DegreeFilter(3)), leaf(new WeightFilter(5)));
+        assertSameResult(operator(new IntersectionOperator(), left, right));
+    }
+
+    @Test
+    public void testFilterOnOperatorResult() {
+        AbstractQueryImpl union = operator(new UnionOperator(), leaf(new DegreeFilter(6)), leaf(new IdFilter(3)));
+        AbstractQueryImpl degree = leaf(new DegreeFilter(2));
+        degree.addSubQuery(union);
+        assertSameResult(degree);
+    }
+
+    private void assertSameResult(AbstractQueryImpl query) {
+        Graph expected = new LegacyFilterProcessor().process(query, graphModel);
+        Graph actual = new FilterProcessor().process(query, graphModel);
+        assertEquals(ids(actual.getNodes().toArray()), ids(expected.getNodes().toArray()));
+        assertEquals(ids(actual.getEdges().toArray()), ids(expected.getEdges().toArray()));
+    }
+
+    private static Set<Object> ids(Object[] elements) {
+        Set<Object> ids = new HashSet<Object>();
+        for (Object element : elements) {
+            ids.add(element instanceof Node ? ((Node) element).getId() : ((Edge) element).getId());
+        }
+        return ids;
+    }
+
+    private static AbstractQueryImpl leaf(Filter filter) {
+        return new FilterQueryImpl(filter);
+    }
+
+    private static AbstractQueryImpl operator(SetOperator operator, AbstractQueryImpl... children) {
+        OperatorQueryImpl query = new OperatorQueryImpl(operator);
+        for (AbstractQueryImpl child : children) {
+            query.addSubQuery(child);
+        }
+        return query;
+    }
+
+    private static int id(Node node) {
+        return Integer.parseInt((String) node.getId());
+    }
+
+    private static abstract class TestFilter implements Filter {
+
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public FilterProperty[] getProperties() {
+            return null;
+        }
+    }
+
+    private static class DegreeFilter extends TestFilter implements NodeFilter {
+
+        private final int min;
+
+        public DegreeFilter(int min) {
+            this.min = min;
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Node node) {
+            return graph.getDegree(node) >= min;
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    private static class IdFilter extends TestFilter implements NodeFilter {
+
+        private final int modulo;
+
+        public IdFilter(int modulo) {
+            this.modulo = modulo;
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Node node) {
+            return id(node) % modulo != 0;
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    private static class WeightFilter extends TestFilter implements EdgeFilter {
+
+        private final double min;
+
+        public WeightFilter(double min) {
+            this.min = min;
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Edge edge) {
+            return edge.getWeight() >= min;
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    private static class SourceDegreeFilter extends TestFilter implements EdgeFilter {
+
+        private final int min;
+
+        public SourceDegreeFilter(int min) {
+            this.min = min;
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Edge edge) {
+            return graph.getDegree(edge.getSource()) >= min;
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    private static class CombinedFilter extends TestFilter implements NodeFilter, EdgeFilter {
+
+        private int nodeInit;
+        private int nodeFinish;
+        private int edgeInit;
+        private int edgeFinish;
+        private int edgeInitNodeCount;
+        private boolean nodePhase = true;
+
+        @Override
+        public boolean init(Graph graph) {
+            if (nodePhase) {
+                nodeInit++;
+            } else {
+                edgeInit++;
+                edgeInitNodeCount = graph.getNodeCount();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Node node) {
+            return id(node) % 3 != 0;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Edge edge) {
+            return graph.getDegree(edge.getSource()) >= 3;
+        }
+
+        @Override
+        public void finish() {
+            if (nodePhase) {
+                nodeFinish++;
+                nodePhase = false;
+            } else {
+                edgeFinish++;
+                nodePhase = true;
+            }
+        }
+    }
+
+    private static class UnionOperator extends TestFilter implements SetOperator {
+
+        @Override
+        public int getInputCount() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public Graph filter(Graph[] graphs) {
+            for (int i = 1; i < graphs.length; i++) {
+                for (Node n : graphs[i].getNodes().toArray()) {
+                    if (!graphs[0].contains(n)) {
+                        graphs[0].addNode(n);
+                    }
+                }
+                for (Edge e : graphs[i].getEdges().toArray()) {
+                    if (!graphs[0].contains(e)) {
+                        graphs[0].addEdge(e);
+                    }
+                }
+            }
+            return graphs[0];
+        }
+
+        @Override
+        public Graph filter(Graph graph, Filter[] filters) {
+            return OperatorSupport.filter(graph, filters, false);
+        }
+
+        @Override
+        public GraphSubset filter(Graph graph, GraphSubset[] subsets) {
+            for (int i = 1; i < subsets.length; i++) {
+                subsets[0].getNodes().or(subsets[i].getNodes());
+                subsets[0].getEdges().or(subsets[i].getEdges());
+            }
+            return subsets[0];
+        }
+
+        @Override
+        public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters) {
+            return OperatorSupport.filter(graph, subset, filters, false);
+        }
+    }
+
+    private static class IntersectionOperator extends TestFilter implements SetOperator {
+
+        @Override
+        public int getInputCount() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public Graph filter(Graph[] graphs) {
+            for (int i = 1; i < graphs.length; i++) {
+                for (Node n : graphs[0].getNodes().toArray()) {
+                    if (!graphs[i].contains(n)) {
+                        graphs[0].removeNode(n);
+                    }
+                }
+                for (Edge e : graphs[0].getEdges().toArray()) {
+                    if (!graphs[i].contains(e)) {
+                        graphs[0].removeEdge(e);
+                    }
+                }
+            }
+            return graphs[0];
+        }
+
+        @Override
+        public Graph filter(Graph graph, Filter[] filters) {
+            return OperatorSupport.filter(graph, filters, true);
+        }
+
+        @Override
+        public GraphSubset filter(Graph graph, GraphSubset[] subsets) {
+            for (int i = 1; i < subsets.length; i++) {
+                subsets[0].getNodes().and(subsets[i].getNodes());
+                subsets[0].getEdges().and(subsets[i].getEdges());
+            }
+            return subsets[0];
+        }
+
+        @Override
+        public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters) {
+            return OperatorSupport.filter(graph, subset, filters, true);
+        }
+    }
+
+    /**
+     * Simple mode of the operators: a node or edge is kept if all
+     * (intersection) or any (union) of the filters of its kind keep it.
+     */
+    private static class OperatorSupport {
+
+        static Graph filter(Graph graph, Filter[] filters, boolean all) {
+            List<Node> nodes = new ArrayList<Node>();
+            for (Node n : graph.getNodes()) {
+                if (!keep(graph, n, filters, all)) {
+                    nodes.add(n);
+                }
+            }
+            for (Node n : nodes) {
+                graph.removeNode(n);
+            }
+            List<Edge> edges = new ArrayList<Edge>();
+            for (Edge e : graph.getEdges()) {
+                if (!keep(graph, e, filters, all)) {
+                    edges.add(e);
+                }
+            }
+            for (Edge e : edges) {
+                graph.removeEdge(e);
+            }
+            return graph;
+        }
+
+        static GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters, boolean all) {
+            for (Node n : graph.getNodes()) {
+                if (!keep(graph, n, filters, all)) {
+                    subset.getNodes().clear(n.getStoreId());
+                }
+            }
+            subset.retainEdgesOfNodes(graph);
+            for (Edge e : graph.getEdges()) {
+                if (subset.contains(e) && !keep(graph, e, filters, all)) {
+                    subset.getEdges().clear(e.getStoreId());
+                }
+            }
+            return subset;
+        }
+
+        private static boolean keep(Graph graph, Object element, Filter[] filters, boolean all) {
+            boolean found = false;
+            for (Filter f : filters) {
+                Boolean keep = null;
+                if (element instanceof Node && f instanceof NodeFilter) {
+                    keep = ((NodeFilter) f).evaluate(graph, (Node) element);
+                } else if (element instanceof Edge && f instanceof EdgeFilter) {
+                    keep = ((EdgeFilter) f).evaluate(graph, (Edge) element);
+                }
+                if (keep != null) {
+                    if (keep != all) {
+                        return keep;
+                    }
+                    found = true;
+                }
+            }
+            return !found || all;
+        }
+    }
+}
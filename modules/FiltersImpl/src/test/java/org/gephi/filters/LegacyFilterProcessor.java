@@ -0,0 +1,132 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.filters;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gephi.filters.spi.EdgeFilter;
+import org.gephi.filters.spi.Filter;
+import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.Operator;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+
+/**
+ * The view-per-query processor that {@link FilterProcessor} replaced, for node
+ * and edge filters, used as a reference by the tests. Every sub-query result
+ * is a copy of the graph from which elements are removed one by one.
+ *
+ * @author Mathieu Bastian
+ */
+public class LegacyFilterProcessor {
+
+    public Graph process(AbstractQueryImpl query, GraphModel graphModel) {
+        List<GraphView> views = new ArrayList<GraphView>();
+        query = query.copy();
+        markSimple(query);
+        List<AbstractQueryImpl> tree = new ArrayList<AbstractQueryImpl>();
+        tree.add(query);
+        for (int pointer = 0; pointer < tree.size(); pointer++) {
+            AbstractQueryImpl q = tree.get(pointer);
+            if (!(q instanceof OperatorQueryImpl && ((OperatorQueryImpl) q).isSimple())) {
+                tree.addAll(q.children);
+            }
+        }
+        for (int i = tree.size() - 1; i >= 0; i--) {
+            AbstractQueryImpl q = tree.get(i);
+            Graph[] input;
+            if (q.getChildrenCount() > 0) {
+                input = new Graph[q.getChildrenCount()];
+                for (int j = 0; j < input.length; j++) {
+                    input[j] = q.getChildAt(j).getResult();
+                }
+            } else {
+                GraphView newView = graphModel.newView();
+                views.add(newView);
+                input = new Graph[]{graphModel.getGraph(newView)};
+            }
+            if (q instanceof OperatorQueryImpl && !((OperatorQueryImpl) q).isSimple()) {
+                q.setResult(((Operator) q.getFilter()).filter(input));
+            } else if (q instanceof OperatorQueryImpl) {
+                GraphView newView = graphModel.newView();
+                views.add(newView);
+                Graph newGraph = graphModel.getGraph(newView);
+                List<Filter> filters = new ArrayList<Filter>();
+                for (int k = 0; k < q.getChildrenCount(); k++) {
+                    Filter filter = q.getChildAt(k).getFilter();
+                    boolean res = filter instanceof NodeFilter ? ((NodeFilter) filter).init(newGraph) : ((EdgeFilter) filter).init(newGraph);
+                    if (res) {
+                        filters.add(filter);
+                    }
+                }
+                q.setResult(((Operator) q.getFilter()).filter(newGraph, filters.toArray(new Filter[0])));
+            } else {
+                Filter filter = q.getFilter();
+                if (filter instanceof NodeFilter) {
+                    processNodeFilter((NodeFilter) filter, input[0]);
+                }
+                if (filter instanceof EdgeFilter) {
+                    processEdgeFilter((EdgeFilter) filter, input[0]);
+                }
+                q.setResult(input[0]);
+            }
+        }
+        Graph finalResult = query.getResult();
+        for (GraphView v : views) {
+            if (v != finalResult.getView()) {
+                graphModel.destroyView(v);
+            }
+        }
+        return finalResult;
+    }
+
+    private void markSimple(AbstractQueryImpl query) {
+        if (query instanceof OperatorQueryImpl && query.getChildrenCount() > 0) {
+            boolean simple = true;
+            for (AbstractQueryImpl child : query.children) {
+                if (child.getChildrenCount() > 0 || !(child.getFilter() instanceof NodeFilter || child.getFilter() instanceof EdgeFilter)) {
+                    simple = false;
+                }
+            }
+            ((OperatorQueryImpl) query).setSimple(simple);
+        }
+        for (AbstractQueryImpl child : query.children) {
+            markSimple(child);
+        }
+    }
+
+    private void processNodeFilter(NodeFilter nodeFilter, Graph graph) {
+        if (nodeFilter.init(graph)) {
+            List<Node> nodesToRemove = new ArrayList<Node>();
+            for (Node n : graph.getNodes()) {
+                if (!nodeFilter.evaluate(graph, n)) {
+                    nodesToRemove.add(n);
+                }
+            }
+            for (Node n : nodesToRemove) {
+                graph.removeNode(n);
+            }
+            nodeFilter.finish();
+        }
+    }
+
+    private void processEdgeFilter(EdgeFilter edgeFilter, Graph graph) {
+        if (edgeFilter.init(graph)) {
+            List<Edge> edgesToRemove = new ArrayList<Edge>();
+            for (Edge e : graph.getEdges()) {
+                if (!edgeFilter.evaluate(graph, e)) {
+                    edgesToRemove.add(e);
+                }
+            }
+            for (Edge e : edgesToRemove) {
+                graph.removeEdge(e);
+            }
+            edgeFilter.finish();
+        }
+    }
+}
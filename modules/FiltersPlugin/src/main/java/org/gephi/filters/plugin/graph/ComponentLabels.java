@@ -0,0 +1,234 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.filters.plugin.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+
+/**
+ * Weakly connected components of a graph, as a union-find over node store
+ * ids. Kept from one update to the next: if the graph only gained nodes and
+ * edges since the last update, only the new edges are merged, otherwise the
+ * components are rebuilt.
+ * <p>
+ * The root of a component is always its smallest store id, so the result
+ * does not depend on the order edges are merged in. The giant component is
+ * the largest one, the one with the smallest root on ties.
+ *
+ * @author Mathieu Bastian
+ */
+class ComponentLabels {
+
+    private int[] parent = new int[0];
+    private int[] size = new int[0];
+    private final BitSet nodes = new BitSet();
+    //Endpoints of the merged edges by edge store id, -1 if absent
+    private int[] edgeSource = new int[0];
+    private int[] edgeTarget = new int[0];
+    private int edgeCount;
+    private int giant = -1;
+
+    /**
+     * Brings the components up to date with <code>graph</code>.
+     *
+     * @param graph the graph, read-locked by the caller
+     */
+    public void update(Graph graph) {
+        BitSet inputNodes = new BitSet();
+        for (Node n : graph.getNodes()) {
+            inputNodes.set(n.getStoreId());
+        }
+        BitSet removedNodes = (BitSet) nodes.clone();
+        removedNodes.andNot(inputNodes);
+
+        //Collect the new edges, any removed or rewired edge forces a rebuild
+        boolean rebuild = !removedNodes.isEmpty();
+        int[] added = new int[0];
+        int addedCount = 0;
+        int kept = 0;
+        if (!rebuild) {
+            added = new int[graph.getEdgeCount()];
+            for (Edge e : graph.getEdges()) {
+                int id = e.getStoreId();
+                if (id < edgeSource.length && edgeSource[id] != -1) {
+                    if (edgeSource[id] != e.getSource().getStoreId() || edgeTarget[id] != e.getTarget().getStoreId()) {
+                        rebuild = true;
+                        break;
+                    }
+                    kept++;
+                } else if (addedCount < added.length) {
+                    added[addedCount++] = id;
+                }
+            }
+            rebuild |= kept < edgeCount;
+        }
+
+        if (rebuild) {
+            clear();
+            for (int i = inputNodes.nextSetBit(0); i >= 0; i = inputNodes.nextSetBit(i + 1)) {
+                addNode(i);
+            }
+            for (Edge e : graph.getEdges()) {
+                addEdge(e);
+            }
+            return;
+        }
+
+        BitSet newNodes = (BitSet) inputNodes.clone();
+        newNodes.andNot(nodes);
+        for (int i = newNodes.nextSetBit(0); i >= 0; i = newNodes.nextSetBit(i + 1)) {
+            addNode(i);
+        }
+        if (addedCount > 0) {
+            //Edges are iterated again to get their endpoints
+            BitSet addedIds = new BitSet();
+            for (int i = 0; i < addedCount; i++) {
+                addedIds.set(added[i]);
+            }
+            for (Edge e : graph.getEdges()) {
+                if (addedIds.get(e.getStoreId())) {
+                    addEdge(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if <code>node</code> belongs to the giant
+     * component.
+     *
+     * @param node a node of the last updated graph
+     * @return <code>true</code> if in the giant component
+     */
+    public boolean isInGiantComponent(Node node) {
+        int id = node.getStoreId();
+        return giant != -1 && nodes.get(id) && find(id) == giant;
+    }
+
+    /**
+     * Returns the root of the giant component, or <code>-1</code> if the graph
+     * is empty.
+     *
+     * @return the store id of the giant component root
+     */
+    public int getGiantComponent() {
+        return giant;
+    }
+
+    private void clear() {
+        Arrays.fill(parent, 0);
+        Arrays.fill(size, 0);
+        Arrays.fill(edgeSource, -1);
+        Arrays.fill(edgeTarget, -1);
+        nodes.clear();
+        edgeCount = 0;
+        giant = -1;
+    }
+
+    private void addNode(int id) {
+        if (id >= parent.length) {
+            int capacity = Math.max(id + 1, parent.length + (parent.length >> 1));
+            parent = Arrays.copyOf(parent, capacity);
+            size = Arrays.copyOf(size, capacity);
+        }
+        parent[id] = id;
+        size[id] = 1;
+        nodes.set(id);
+        updateGiant(id);
+    }
+
+    private void addEdge(Edge edge) {
+        int id = edge.getStoreId();
+        if (id >= edgeSource.length) {
+            int length = edgeSource.length;
+            int capacity = Math.max(id + 1, length + (length >> 1));
+            edgeSource = Arrays.copyOf(edgeSource, capacity);
+            edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+            Arrays.fill(edgeSource, length, capacity, -1);
+            Arrays.fill(edgeTarget, length, capacity, -1);
+        }
+        int source = edge.getSource().getStoreId();
+        int target = edge.getTarget().getStoreId();
+        edgeSource[id] = source;
+        edgeTarget[id] = target;
+        edgeCount++;
+        union(source, target);
+    }
+
+    /**
+     * Find with path halving.
+     */
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) {
+            return;
+        }
+        //Link the larger root under the smaller one
+        if (a < b) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[a] = b;
+        size[b] += size[a];
+        updateGiant(b);
+    }
+
+    private void updateGiant(int root) {
+        if (giant == -1 || size[root] > size[giant]
+                || (size[root] == size[giant] && root < giant)) {
+            giant = root;
+        }
+    }
+}
@@ -43,9 +43,6 @@ package org.gephi.filters.plugin.graph;
 
 import javax.swing.Icon;
 import javax.swing.JPanel;
-import org.gephi.data.attributes.api.AttributeColumn;
-import org.gephi.data.attributes.api.AttributeController;
-import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.filters.api.FilterLibrary;
 import org.gephi.filters.spi.Category;
 import org.gephi.filters.spi.Filter;
@@ -53,11 +50,7 @@ import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
 import org.gephi.graph.api.Graph;
-import org.gephi.graph.api.HierarchicalUndirectedGraph;
 import org.gephi.graph.api.Node;
-import org.gephi.graph.api.UndirectedGraph;
-import org.gephi.statistics.plugin.ConnectedComponents;
-import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -95,38 +88,25 @@ public class GiantComponentBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
+    /**
+     * Keeps the nodes of the largest weakly connected component. Components
+     * are kept by the filter between runs and never written to the node
+     * table.
+     */
     public static class GiantComponentFilter implements NodeFilter {
 
-        private AttributeModel attributeModel;
-        private int componentId;
-        private AttributeColumn column;
+        private final ComponentLabels components = new ComponentLabels();
 
         public GiantComponentFilter() {
         }
 
         public boolean init(Graph graph) {
-            ConnectedComponents cc = new ConnectedComponents();
-            HierarchicalUndirectedGraph undirectedGraph = null;
-            if (cc instanceof UndirectedGraph) {
-                undirectedGraph = (HierarchicalUndirectedGraph) graph;
-            } else {
-                undirectedGraph = graph.getView().getGraphModel().getHierarchicalUndirectedGraph(graph.getView());
-            }
-
-            attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel(graph.getGraphModel().getWorkspace());
-            cc.weaklyConnected(undirectedGraph, attributeModel);
-            componentId = cc.getGiantComponent();
-            column = attributeModel.getNodeTable().getColumn(ConnectedComponents.WEAKLY);
-
-            return column != null && componentId != -1;
+            components.update(graph);
+            return components.getGiantComponent() != -1;
         }
 
         public boolean evaluate(Graph graph, Node node) {
-            Integer component = (Integer) node.getNodeData().getAttributes().getValue(column.getIndex());
-            if (component != null) {
-                return component.equals(componentId);
-            }
-            return false;
+            return components.isInGiantComponent(node);
         }
 
         public void finish() {
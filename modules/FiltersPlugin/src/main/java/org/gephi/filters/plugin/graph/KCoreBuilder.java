@@ -50,7 +50,10 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphObserver;
 import org.gephi.graph.api.Node;
+import org.gephi.statistics.plugin.Coreness;
+import org.gephi.statistics.plugin.GraphAdjacency;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
@@ -92,27 +95,77 @@ public class KCoreBuilder implements FilterBuilder {
     }
 
     public void destroy(Filter filter) {
+        ((KCoreFilter) filter).destroy();
     }
 
+    /**
+     * Keeps the nodes of the k-core, the maximal subgraph where all nodes have
+     * a degree of at least <code>k</code>.
+     * <p>
+     * The coreness of all nodes is computed once with {@link Coreness} and
+     * kept until the graph changes, so changing <code>k</code> only compares
+     * it with the threshold. The cache is only used when the filter gets the
+     * whole graph: the coreness of a subgraph coming from another filter is
+     * computed at each run, in linear time.
+     */
     public static class KCoreFilter implements ComplexFilter {
 
         private FilterProperty[] filterProperties;
         private Integer k = 1;
+        //Coreness of the whole graph by node store id, valid while the
+        //observer reports no change
+        private int[] coreness;
+        private GraphObserver graphObserver;
 
         public Graph filter(Graph graph) {
-            int removed = 0;
-            do {
-                removed = 0;
-                for (Node n : graph.getNodes().toArray()) {
-                    if (graph.getDegree(n) < k) {
-                        graph.removeNode(n);
-                        removed++;
-                    }
+            int[] cores = getCoreness(graph);
+            for (Node n : graph.getNodes().toArray()) {
+                if (cores[n.getStoreId()] < k) {
+                    graph.removeNode(n);
                 }
-            } while (removed > 0);
+            }
             return graph;
         }
 
+        private int[] getCoreness(Graph graph) {
+            //Views are subsets of the main graph, equal counts mean same graph
+            Graph mainGraph = graph.getModel().getGraph();
+            if (graph.getNodeCount() != mainGraph.getNodeCount()
+                    || graph.getEdgeCount() != mainGraph.getEdgeCount()) {
+                return computeCoreness(graph);
+            }
+            if (graphObserver == null || graphObserver.isDestroyed()) {
+                graphObserver = graph.getModel().createGraphObserver(mainGraph, false);
+                coreness = null;
+            }
+            if (graphObserver.hasGraphChanged() || coreness == null) {
+                coreness = computeCoreness(graph);
+            }
+            return coreness;
+        }
+
+        private int[] computeCoreness(Graph graph) {
+            GraphAdjacency adjacency = GraphAdjacency.build(graph, false, false);
+            int[] cores = Coreness.computeCoreness(adjacency);
+            int maxStoreId = -1;
+            for (int i = 0; i < cores.length; i++) {
+                maxStoreId = Math.max(maxStoreId, adjacency.getNode(i).getStoreId());
+            }
+            int[] result = new int[maxStoreId + 1];
+            for (int i = 0; i < cores.length; i++) {
+                result[adjacency.getNode(i).getStoreId()] = cores[i];
+            }
+            return result;
+        }
+
+        public void destroy() {
+            if (graphObserver != null) {
+                graphObserver.destroy();
+                graphObserver = null;
+            }
+            coreness = null;
+        }
+
         public String getName() {
             return NbBundle.getMessage(KCoreBuilder.class, "KCoreBuilder.name");
         }
@@ -51,8 +51,9 @@ import org.gephi.filters.spi.EdgeFilter;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
+import org.gephi.filters.spi.GraphSubset;
 import org.gephi.filters.spi.NodeFilter;
-import org.gephi.filters.spi.Operator;
+import org.gephi.filters.spi.SetOperator;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalGraph;
@@ -94,7 +95,7 @@ public class INTERSECTIONBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class IntersectionOperator implements Operator {
+    public static class IntersectionOperator implements SetOperator {
 
         public int getInputCount() {
             return Integer.MAX_VALUE;
@@ -204,5 +205,78 @@ public class INTERSECTIONBuilder implements FilterBuilder {
             }
             return hgraph;
         }
+
+        public GraphSubset filter(Graph graph, GraphSubset[] subsets) {
+            GraphSubset result = subsets[0];
+            for (int i = 1; i < subsets.length; i++) {
+                result.getNodes().and(subsets[i].getNodes());
+                result.getEdges().and(subsets[i].getEdges());
+            }
+            return result;
+        }
+
+        public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters) {
+            List<NodeFilter> nodeFilters = new ArrayList<NodeFilter>();
+            List<EdgeFilter> edgeFilters = new ArrayList<EdgeFilter>();
+            for (Filter f : filters) {
+                if (f instanceof NodeFilter) {
+                    nodeFilters.add((NodeFilter) f);
+                } else if (f instanceof EdgeFilter) {
+                    edgeFilters.add((EdgeFilter) f);
+                }
+            }
+            if (nodeFilters.size() > 0) {
+                for (Iterator<NodeFilter> itr = nodeFilters.iterator(); itr.hasNext();) {
+                    NodeFilter nf = itr.next();
+                    if (!nf.init(graph)) {
+                        itr.remove();
+                    }
+                }
+                for (Node n : graph.getNodes()) {
+                    if (subset.contains(n)) {
+                        boolean remove = false;
+                        for (NodeFilter nf : nodeFilters) {
+                            if (!nf.evaluate(graph, n)) {
+                                remove = true;
+                                break;
+                            }
+                        }
+                        if (remove) {
+                            subset.getNodes().clear(n.getStoreId());
+                        }
+                    }
+                }
+                subset.retainEdgesOfNodes(graph);
+                for (NodeFilter nf : nodeFilters) {
+                    nf.finish();
+                }
+            }
+            if (edgeFilters.size() > 0) {
+                for (Iterator<EdgeFilter> itr = edgeFilters.iterator(); itr.hasNext();) {
+                    EdgeFilter ef = itr.next();
+                    if (!ef.init(graph)) {
+                        itr.remove();
+                    }
+                }
+                for (Edge e : graph.getEdges()) {
+                    if (subset.contains(e)) {
+                        boolean remove = false;
+                        for (EdgeFilter ef : edgeFilters) {
+                            if (!ef.evaluate(graph, e)) {
+                                remove = true;
+                                break;
+                            }
+                        }
+                        if (remove) {
+                            subset.getEdges().clear(e.getStoreId());
+                        }
+                    }
+                }
+                for (EdgeFilter ef : edgeFilters) {
+                    ef.finish();
+                }
+            }
+            return subset;
+        }
     }
 }
@@ -42,6 +42,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.filters.plugin.operator;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import javax.swing.Icon;
 import javax.swing.JPanel;
@@ -49,8 +50,9 @@ import org.gephi.filters.spi.Category;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
+import org.gephi.filters.spi.GraphSubset;
 import org.gephi.filters.spi.NodeFilter;
-import org.gephi.filters.spi.Operator;
+import org.gephi.filters.spi.SetOperator;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
@@ -99,7 +101,7 @@ public class MASKBuilderEdge implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class MaskEdgeOperator implements Operator {
+    public static class MaskEdgeOperator implements SetOperator {
 
         public enum EdgesOptions {
 
@@ -213,6 +215,53 @@ public class MASKBuilderEdge implements FilterBuilder {
             return hgraph;
         }
 
+        public GraphSubset filter(Graph graph, GraphSubset[] subsets) {
+            if (subsets.length > 1) {
+                throw new IllegalArgumentException("Filter accepts a single graph in parameter");
+            }
+            GraphSubset subset = subsets[0];
+            BitSet edges = new BitSet();
+            for (Edge e : graph.getEdges()) {
+                if (keep(subset.contains(e.getSource()), subset.contains(e.getTarget()))) {
+                    edges.set(e.getStoreId());
+                }
+            }
+            BitSet nodes = subset.getNodes();
+            for (Node n : graph.getNodes()) {
+                nodes.set(n.getStoreId());
+            }
+            return new GraphSubset(nodes, edges);
+        }
+
+        public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters) {
+            if (filters.length > 1) {
+                throw new IllegalArgumentException("Filter accepts a single filter in parameter");
+            }
+            if (filters[0] instanceof NodeFilter && ((NodeFilter) filters[0]).init(graph)) {
+                NodeFilter filter = (NodeFilter) filters[0];
+                for (Edge e : graph.getEdges()) {
+                    if (subset.contains(e) && !keep(filter.evaluate(graph, e.getSource()), filter.evaluate(graph, e.getTarget()))) {
+                        subset.getEdges().clear(e.getStoreId());
+                    }
+                }
+                filter.finish();
+            }
+            return subset;
+        }
+
+        private boolean keep(boolean source, boolean target) {
+            switch (option) {
+                case SOURCE:
+                    return source;
+                case TARGET:
+                    return target;
+                case BOTH:
+                    return source && target;
+                default:
+                    return source || target;
+            }
+        }
+
         public String getOption() {
             return option.toString();
         }
@@ -42,6 +42,7 @@
 package org.gephi.filters.plugin.operator;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import javax.swing.Icon;
 import javax.swing.JPanel;
@@ -50,7 +51,8 @@ import org.gephi.filters.spi.EdgeFilter;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
-import org.gephi.filters.spi.Operator;
+import org.gephi.filters.spi.GraphSubset;
+import org.gephi.filters.spi.SetOperator;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
@@ -93,7 +95,7 @@ public class NOTBuilderEdge implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class NotOperatorEdge implements Operator {
+    public static class NotOperatorEdge implements SetOperator {
 
         public int getInputCount() {
             return 1;
@@ -154,5 +156,37 @@ public class NOTBuilderEdge implements FilterBuilder {
 
             return hgraph;
         }
+
+        public GraphSubset filter(Graph graph, GraphSubset[] subsets) {
+            if (subsets.length > 1) {
+                throw new IllegalArgumentException("Not Filter accepts a single graph in parameter");
+            }
+            GraphSubset subset = subsets[0];
+            BitSet edges = subset.getEdges();
+            for (Edge e : graph.getEdges()) {
+                if (subset.contains(e.getSource()) && subset.contains(e.getTarget())) {
+                    edges.flip(e.getStoreId());
+                }
+            }
+            return subset;
+        }
+
+        public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters) {
+            if (filters.length > 1) {
+                throw new IllegalArgumentException("Not Filter accepts a single filter in parameter");
+            }
+            Filter filter = filters[0];
+            if (filter instanceof EdgeFilter && ((EdgeFilter) filter).init(graph)) {
+                EdgeFilter edgeFilter = (EdgeFilter) filter;
+                for (Edge e : graph.getEdges()) {
+                    if (subset.contains(e) && edgeFilter.evaluate(graph, e)) {
+                        subset.getEdges().clear(e.getStoreId());
+                    }
+                }
+                edgeFilter.finish();
+            }
+
+            return subset;
+        }
     }
 }
@@ -42,6 +42,7 @@
 package org.gephi.filters.plugin.operator;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import javax.swing.Icon;
 import javax.swing.JPanel;
@@ -50,8 +51,9 @@ import org.gephi.filters.spi.Category;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
+import org.gephi.filters.spi.GraphSubset;
 import org.gephi.filters.spi.NodeFilter;
-import org.gephi.filters.spi.Operator;
+import org.gephi.filters.spi.SetOperator;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
@@ -94,7 +96,7 @@ public class NOTBuilderNode implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class NOTOperatorNode implements Operator {
+    public static class NOTOperatorNode implements SetOperator {
 
         public int getInputCount() {
             return 1;
@@ -175,5 +177,53 @@ public class NOTBuilderNode implements FilterBuilder {
 
             return hgraph;
         }
+
+        public GraphSubset filter(Graph graph, GraphSubset[] subsets) {
+            if (subsets.length > 1) {
+                throw new IllegalArgumentException("Not Filter accepts a single graph in parameter");
+            }
+            GraphSubset subset = subsets[0];
+            BitSet nodes = subset.getNodes();
+            BitSet edges = subset.getEdges();
+            for (Node n : graph.getNodes()) {
+                nodes.flip(n.getStoreId());
+            }
+            edges.clear();
+            for (Edge e : graph.getEdges()) {
+                if (subset.contains(e.getSource()) && subset.contains(e.getTarget())) {
+                    edges.set(e.getStoreId());
+                }
+            }
+            return subset;
+        }
+
+        public GraphSubset filter(Graph graph, GraphSubset subset, Filter[] filters) {
+            if (filters.length > 1) {
+                throw new IllegalArgumentException("Not Filter accepts a single filter in parameter");
+            }
+            Filter filter = filters[0];
+            if (filter instanceof NodeFilter && ((NodeFilter) filter).init(graph)) {
+                NodeFilter nodeFilter = (NodeFilter) filter;
+                for (Node n : graph.getNodes()) {
+                    if (subset.contains(n) && nodeFilter.evaluate(graph, n)) {
+                        subset.getNodes().clear(n.getStoreId());
+                    }
+                }
+                nodeFilter.finish();
+            }
+
+            if (filter instanceof AttributableFilter && ((AttributableFilter) filter).getType() == AttributableFilter.Type.NODE && ((AttributableFilter) filter).init(graph)) {
+                AttributableFilter attributableFilter = (AttributableFilter) filter;
+                for (Node n : graph.getNodes()) {
+                    if (subset.contains(n) && attributableFilter.evaluate(graph, n)) {
+                        subset.getNodes().clear(n.getStoreId());
+                    }
+                }
+                attributableFilter.finish();
+            }
+            subset.retainEdgesOfNodes(graph);
+
+            return subset;
+        }
     }
 }
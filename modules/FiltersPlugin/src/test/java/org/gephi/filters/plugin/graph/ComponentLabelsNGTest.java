@@ -0,0 +1,268 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.filters.plugin.graph;
+
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class ComponentLabelsNGTest {
+
+    private ProjectController pc;
+    private GraphModel graphModel;
+    private DirectedGraph graph;
+    private Node[] nodes;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+        graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        graph = graphModel.getDirectedGraph();
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertEquals(labels.getGiantComponent(), -1);
+    }
+
+    @Test
+    public void testSingletons() {
+        addNodes(4);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+
+        //All components have one node, the first one wins the tie
+        assertEquals(labels.getGiantComponent(), nodes[0].getStoreId());
+        assertGiant(labels, 0);
+        assertSameAsRebuild(labels);
+    }
+
+    @Test
+    public void testNodesBecomeSingletons() {
+        addNodes(4);
+        Edge e01 = addEdge(0, 1);
+        Edge e12 = addEdge(1, 2);
+        Edge e23 = addEdge(2, 3);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 2, 3);
+
+        graph.removeEdge(e12);
+        labels.update(graph);
+        assertGiant(labels, 0, 1);
+        assertSameAsRebuild(labels);
+
+        graph.removeEdge(e01);
+        graph.removeEdge(e23);
+        labels.update(graph);
+        assertGiant(labels, 0);
+        assertSameAsRebuild(labels);
+    }
+
+    @Test
+    public void testAddedEdgesMerged() {
+        addNodes(6);
+        addEdge(0, 1);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertGiant(labels, 0, 1);
+
+        //Only edges and nodes are added, the new edges are merged
+        addEdge(3, 2);
+        addEdge(4, 3);
+        labels.update(graph);
+        assertGiant(labels, 2, 3, 4);
+        assertSameAsRebuild(labels);
+
+        Node node = graphModel.factory().newNode("6");
+        graph.addNode(node);
+        nodes = append(nodes, node);
+        addEdge(6, 5);
+        addEdge(5, 1);
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 5, 6);
+        assertSameAsRebuild(labels);
+
+        //No change
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 5, 6);
+        assertSameAsRebuild(labels);
+
+        //Merge the two components
+        addEdge(4, 0);
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 2, 3, 4, 5, 6);
+        assertSameAsRebuild(labels);
+    }
+
+    @Test
+    public void testRemovedNodeRebuilds() {
+        addNodes(5);
+        addEdge(0, 1);
+        addEdge(1, 2);
+        addEdge(3, 4);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 2);
+
+        graph.removeNode(nodes[1]);
+        labels.update(graph);
+        assertGiant(labels, 3, 4);
+        assertSameAsRebuild(labels);
+
+        //A node added in place of the removed one starts alone
+        Node node = graphModel.factory().newNode("5");
+        graph.addNode(node);
+        nodes = append(nodes, node);
+        labels.update(graph);
+        assertGiant(labels, 3, 4);
+        assertSameAsRebuild(labels);
+    }
+
+    @Test
+    public void testRemovedEdgeRebuilds() {
+        addNodes(5);
+        addEdge(0, 1);
+        Edge e12 = addEdge(1, 2);
+        addEdge(3, 4);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 2);
+
+        //One edge removed and one added, the edge count is unchanged
+        graph.removeEdge(e12);
+        addEdge(4, 2);
+        labels.update(graph);
+        assertGiant(labels, 2, 3, 4);
+        assertSameAsRebuild(labels);
+    }
+
+    @Test
+    public void testReusedEdgeIdRebuilds() {
+        addNodes(6);
+        Edge e01 = addEdge(0, 1);
+        addEdge(2, 3);
+        addEdge(3, 4);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertGiant(labels, 2, 3, 4);
+
+        //The store can give the new edge the id of the removed one, with
+        //other endpoints
+        graph.removeEdge(e01);
+        addEdge(5, 0);
+        labels.update(graph);
+        assertGiant(labels, 2, 3, 4);
+        assertFalse(labels.isInGiantComponent(nodes[1]));
+        assertSameAsRebuild(labels);
+
+        graph.removeEdge(graph.getEdge(nodes[3], nodes[4]));
+        addEdge(1, 0);
+        labels.update(graph);
+        assertGiant(labels, 0, 1, 5);
+        assertSameAsRebuild(labels);
+    }
+
+    @Test
+    public void testGiantTieBreak() {
+        addNodes(6);
+        addEdge(4, 5);
+        ComponentLabels labels = new ComponentLabels();
+        labels.update(graph);
+        assertGiant(labels, 4, 5);
+
+        //Same size, the smallest root wins whatever the merge order
+        addEdge(3, 2);
+        labels.update(graph);
+        assertGiant(labels, 2, 3);
+        assertSameAsRebuild(labels);
+
+        addEdge(1, 0);
+        labels.update(graph);
+        assertGiant(labels, 0, 1);
+        assertSameAsRebuild(labels);
+
+        addEdge(5, 3);
+        labels.update(graph);
+        assertGiant(labels, 2, 3, 4, 5);
+        assertSameAsRebuild(labels);
+    }
+
+    private void addNodes(int count) {
+        nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+        }
+    }
+
+    private Edge addEdge(int source, int target) {
+        Edge edge = graphModel.factory().newEdge(nodes[source], nodes[target]);
+        graph.addEdge(edge);
+        return edge;
+    }
+
+    private static Node[] append(Node[] array, Node node) {
+        Node[] result = new Node[array.length + 1];
+        System.arraycopy(array, 0, result, 0, array.length);
+        result[array.length] = node;
+        return result;
+    }
+
+    /**
+     * Checks the giant component holds exactly the given nodes, among the
+     * nodes still in the graph.
+     */
+    private void assertGiant(ComponentLabels labels, int... giant) {
+        boolean[] expected = new boolean[nodes.length];
+        for (int i : giant) {
+            expected[i] = true;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            if (graph.contains(nodes[i])) {
+                assertEquals(labels.isInGiantComponent(nodes[i]), expected[i], "Node " + i);
+            }
+        }
+    }
+
+    /**
+     * Checks the incrementally updated components give the same giant
+     * component as components built from scratch.
+     */
+    private void assertSameAsRebuild(ComponentLabels labels) {
+        ComponentLabels rebuilt = new ComponentLabels();
+        rebuilt.update(graph);
+        assertEquals(labels.getGiantComponent(), rebuilt.getGiantComponent());
+        for (Node node : graph.getNodes()) {
+            assertEquals(labels.isInGiantComponent(node), rebuilt.isInGiantComponent(node), "Node " + node.getId());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.Random;
+import org.gephi.io.generator.spi.Generator;
+import org.gephi.io.importer.api.Container;
+import org.gephi.io.importer.api.ContainerLoader;
+import org.gephi.io.importer.api.EdgeDraft;
+import org.gephi.io.importer.api.NodeDraft;
+import org.gephi.io.importer.api.Report;
+import org.gephi.utils.progress.Progress;
+import org.gephi.utils.progress.ProgressTicket;
+import org.openide.util.NbBundle;
+
+/**
+ * Base class of the random graph generators.
+ * <p>
+ * Creates <code>numberOfNodes</code> nodes and calls
+ * {@link #generateEdges(Random)} with a random generator initialized with
+ * <code>seed</code>, so that the same parameters and seed always give the same
+ * graph. Without a seed, a new one is drawn at each run and can be found with
+ * {@link #getLastSeed()}. Edges are given by node index to
+ * {@link #addEdge(int, int)} and written to the container in batches.
+ *
+ * @author Mathieu Bastian
+ */
+public abstract class AbstractRandomGenerator implements Generator {
+
+    protected static final int BATCH_SIZE = 1 << 16;
+    protected int numberOfNodes = 50;
+    protected Long seed;
+    protected Long lastSeed;
+    protected ProgressTicket progress;
+    protected boolean cancel = false;
+    //Generation
+    private ContainerLoader container;
+    private NodeDraft[] nodeArray;
+    private int[] sources;
+    private int[] targets;
+    private int batchCount;
+    private int progressUnit;
+    private int progressMax;
+
+    @Override
+    public void generate(ContainerLoader container) {
+        cancel = false;
+        this.container = container;
+        long units = (numberOfNodes + Math.max(0, getExpectedEdgeCount())) / BATCH_SIZE + 1;
+        progressMax = (int) Math.min(Integer.MAX_VALUE, units);
+        progressUnit = 0;
+        Progress.start(progress, progressMax);
+
+        long runSeed = seed != null ? seed : new Random().nextLong();
+        lastSeed = runSeed;
+        if (container instanceof Container) {
+            Report report = ((Container) container).getReport();
+            if (report != null) {
+                report.log(NbBundle.getMessage(AbstractRandomGenerator.class, "AbstractRandomGenerator.log.seed", String.valueOf(runSeed)));
+            }
+        }
+
+        try {
+            nodeArray = new NodeDraft[numberOfNodes];
+            for (int i = 0; i < numberOfNodes && !cancel; i++) {
+                NodeDraft nodeDraft = container.factory().newNodeDraft();
+                container.addNode(nodeDraft);
+                nodeArray[i] = nodeDraft;
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    progress();
+                }
+            }
+
+            if (!cancel) {
+                sources = new int[BATCH_SIZE];
+                targets = new int[BATCH_SIZE];
+                batchCount = 0;
+                generateEdges(new Random(runSeed));
+                flush();
+            }
+        } finally {
+            this.container = null;
+            nodeArray = null;
+            sources = null;
+            targets = null;
+        }
+
+        Progress.finish(progress);
+        progress = null;
+    }
+
+    /**
+     * Generates the edges, by calling {@link #addEdge(int, int)}. Implementations
+     * should return as soon as <code>cancel</code> is true.
+     *
+     * @param random random generator initialized with the seed
+     */
+    protected abstract void generateEdges(Random random);
+
+    /**
+     * Returns the expected number of edges, used for progress only.
+     *
+     * @return the expected number of edges
+     */
+    protected abstract long getExpectedEdgeCount();
+
+    /**
+     * Adds an edge between the nodes at index <code>source</code> and
+     * <code>target</code>. The edge is written to the container with the
+     * next batch.
+     *
+     * @param source source node index
+     * @param target target node index
+     */
+    protected final void addEdge(int source, int target) {
+        sources[batchCount] = source;
+        targets[batchCount] = target;
+        if (++batchCount == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        for (int i = 0; i < batchCount && !cancel; i++) {
+            EdgeDraft edgeDraft = container.factory().newEdgeDraft();
+            edgeDraft.setSource(nodeArray[sources[i]]);
+            edgeDraft.setTarget(nodeArray[targets[i]]);
+            container.addEdge(edgeDraft);
+        }
+        batchCount = 0;
+        progress();
+    }
+
+    private void progress() {
+        if (progressUnit < progressMax) {
+            Progress.progress(progress, ++progressUnit);
+        }
+    }
+
+    public void setNumberOfNodes(int numberOfNodes) {
+        if (numberOfNodes < 0) {
+            throw new IllegalArgumentException("# of nodes must be greater than 0");
+        }
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Sets the seed of the random generator. Default is <code>null</code>, a
+     * new random seed at each run.
+     *
+     * @param seed the seed, or <code>null</code> for a new seed at each run
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the seed used by the last run, which is the seed to set to
+     * generate the same graph again.
+     *
+     * @return the last seed, or <code>null</code> if the generator never ran
+     */
+    public Long getLastSeed() {
+        return lastSeed;
+    }
+
+    @Override
+    public boolean cancel() {
+        cancel = true;
+        return true;
+    }
+
+    @Override
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        this.progress = progressTicket;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.Random;
+import org.gephi.io.generator.spi.Generator;
+import org.gephi.io.generator.spi.GeneratorUI;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Erdos-Renyi random graph G(n, m), with exactly <code>numberOfEdges</code>
+ * edges chosen uniformly among all pairs of distinct nodes.
+ * <p>
+ * Pairs are drawn at random and duplicates rejected. When more than half of
+ * the pairs are edges, the pairs that are not edges are drawn instead.
+ *
+ * @author Mathieu Bastian
+ */
+@ServiceProvider(service = Generator.class)
+public class GnmRandomGraph extends AbstractRandomGenerator {
+
+    protected long numberOfEdges = 100;
+
+    @Override
+    protected void generateEdges(Random random) {
+        int n = numberOfNodes;
+        long pairs = (long) n * (n - 1) / 2;
+        long m = Math.min(numberOfEdges, pairs);
+        if (m <= 0) {
+            return;
+        }
+
+        if (m <= pairs / 2) {
+            PairSet edges = new PairSet(m);
+            while (edges.size() < m && !cancel) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                if (i != j && edges.add(PairSet.undirected(i, j, n))) {
+                    addEdge(Math.min(i, j), Math.max(i, j));
+                }
+            }
+        } else {
+            PairSet excluded = new PairSet(pairs - m);
+            while (excluded.size() < pairs - m && !cancel) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                if (i != j) {
+                    excluded.add(PairSet.undirected(i, j, n));
+                }
+            }
+            for (int i = 0; i < n - 1 && !cancel; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (!excluded.contains(PairSet.undirected(i, j, n))) {
+                        addEdge(i, j);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected long getExpectedEdgeCount() {
+        return numberOfEdges;
+    }
+
+    @Override
+    public String getName() {
+        return NbBundle.getMessage(GnmRandomGraph.class, "GnmRandomGraph.name");
+    }
+
+    @Override
+    public GeneratorUI getUI() {
+        return Lookup.getDefault().lookup(GnmRandomGraphUI.class);
+    }
+
+    /**
+     * Sets the number of edges, at most n(n-1)/2. Default is 100.
+     *
+     * @param numberOfEdges the number of edges
+     */
+    public void setNumberOfEdges(long numberOfEdges) {
+        if (numberOfEdges < 0) {
+            throw new IllegalArgumentException("# of edges must be greater than 0");
+        }
+        this.numberOfEdges = numberOfEdges;
+    }
+
+    public long getNumberOfEdges() {
+        return numberOfEdges;
+    }
+}
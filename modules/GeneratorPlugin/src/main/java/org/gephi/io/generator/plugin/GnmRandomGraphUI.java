@@ -1,6 +1,6 @@
 /*
-Copyright 2008-2011 Gephi
-Authors : Mathieu Jacomy <mathieu.jacomy@gmail.com>
+Copyright 2008-2010 Gephi
+Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
 Website : http://www.gephi.org
 
 This file is part of Gephi.
@@ -38,21 +38,14 @@ made subject to such option by the copyright holder.
 Contributor(s):
 
 Portions Copyrighted 2011 Gephi Consortium.
- */
-package org.gephi.layout.plugin.forceAtlas2;
+*/
+package org.gephi.io.generator.plugin;
 
-import org.gephi.graph.spi.LayoutData;
+import org.gephi.io.generator.spi.GeneratorUI;
 
 /**
- * Data stored in Nodes and used by ForceAtlas2
- * @author Mathieu Jacomy
+ *
+ * @author Mathieu Bastian
  */
-public class ForceAtlas2LayoutData implements LayoutData {
-    //Data
-
-    public double dx = 0;
-    public double dy = 0;
-    public double old_dx = 0;
-    public double old_dy = 0;
-    public double mass = 1;
+public interface GnmRandomGraphUI extends GeneratorUI {
 }
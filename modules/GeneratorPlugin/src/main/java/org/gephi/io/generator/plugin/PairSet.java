@@ -0,0 +1,157 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of node pairs, encoded as non-negative longs.
+ * Generators use it to avoid parallel edges without boxing.
+ *
+ * @author Mathieu Bastian
+ */
+final class PairSet {
+
+    private static final long EMPTY = -1L;
+    private long[] keys;
+    private int mask;
+    private int size;
+
+    PairSet(long expectedSize) {
+        long capacity = Long.highestOneBit(Math.max(4L, expectedSize * 2 - 1)) << 1;
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many pairs: " + expectedSize);
+        }
+        keys = new long[(int) capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length - 1;
+    }
+
+    /**
+     * Returns the key of the unordered pair <code>(i, j)</code>.
+     */
+    static long undirected(int i, int j, int n) {
+        return i < j ? (long) i * n + j : (long) j * n + i;
+    }
+
+    /**
+     * Returns the key of the ordered pair <code>(i, j)</code>.
+     */
+    static long directed(int i, int j, int n) {
+        return (long) i * n + j;
+    }
+
+    boolean add(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    boolean contains(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean remove(long key) {
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        //Shift back the following keys of the cluster
+        int gap = slot;
+        slot = (slot + 1) & mask;
+        while (keys[slot] != EMPTY) {
+            int home = slot(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash() {
+        long[] old = keys;
+        if (old.length >= 1 << 30) {
+            throw new IllegalStateException("Too many pairs");
+        }
+        keys = new long[old.length * 2];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length - 1;
+        size = 0;
+        for (long key : old) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.Random;
+import org.gephi.io.generator.spi.Generator;
+import org.gephi.io.generator.spi.GeneratorUI;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Barabasi-Albert preferential attachment graph. The first
+ * <code>edgesPerNode + 1</code> nodes form a clique, then each new node is
+ * linked to <code>edgesPerNode</code> distinct existing nodes, chosen with a
+ * probability proportional to their degree.
+ * <p>
+ * Sampling by degree is done by picking a random endpoint in the list of the
+ * endpoints of all edges (Batagelj and Brandes, 2005), in constant time.
+ *
+ * @author Mathieu Bastian
+ */
+@ServiceProvider(service = Generator.class)
+public class PreferentialAttachmentGraph extends AbstractRandomGenerator {
+
+    protected int edgesPerNode = 2;
+
+    @Override
+    protected void generateEdges(Random random) {
+        int n = numberOfNodes;
+        int m = edgesPerNode;
+        long endpointCount = 2 * getExpectedEdgeCount();
+        if (endpointCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges: " + endpointCount / 2);
+        }
+        int[] endpoints = new int[(int) endpointCount];
+        int size = 0;
+        int clique = Math.min(n, m + 1);
+        for (int i = 0; i < clique; i++) {
+            for (int j = i + 1; j < clique; j++) {
+                addEdge(i, j);
+                endpoints[size++] = i;
+                endpoints[size++] = j;
+            }
+        }
+
+        int[] chosen = new int[m];
+        for (int v = m + 1; v < n && !cancel; v++) {
+            for (int t = 0; t < m; t++) {
+                int u;
+                do {
+                    u = endpoints[random.nextInt(size)];
+                } while (contains(chosen, t, u));
+                chosen[t] = u;
+            }
+            for (int t = 0; t < m; t++) {
+                addEdge(v, chosen[t]);
+                endpoints[size++] = v;
+                endpoints[size++] = chosen[t];
+            }
+        }
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected long getExpectedEdgeCount() {
+        long m = edgesPerNode;
+        if (numberOfNodes <= m + 1) {
+            return (long) numberOfNodes * (numberOfNodes - 1) / 2;
+        }
+        return m * (m + 1) / 2 + (numberOfNodes - m - 1) * m;
+    }
+
+    @Override
+    public String getName() {
+        return NbBundle.getMessage(PreferentialAttachmentGraph.class, "PreferentialAttachmentGraph.name");
+    }
+
+    @Override
+    public GeneratorUI getUI() {
+        return Lookup.getDefault().lookup(PreferentialAttachmentGraphUI.class);
+    }
+
+    /**
+     * Sets the number of edges linking each new node to the graph. Default
+     * is 2.
+     *
+     * @param edgesPerNode the number of edges of each new node
+     */
+    public void setEdgesPerNode(int edgesPerNode) {
+        if (edgesPerNode < 1) {
+            throw new IllegalArgumentException("# of edges per node must be at least 1");
+        }
+        this.edgesPerNode = edgesPerNode;
+    }
+
+    public int getEdgesPerNode() {
+        return edgesPerNode;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.Random;
+import org.gephi.io.generator.spi.Generator;
+import org.gephi.io.generator.spi.GeneratorUI;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * R-MAT recursive matrix graph (Chakrabarti, Zhan and Faloutsos, 2004), a
+ * stochastic Kronecker graph with a 2x2 initiator matrix.
+ * <p>
+ * Each edge is placed in the adjacency matrix by choosing one of its four
+ * quadrants with probabilities <code>a</code>, <code>b</code>, <code>c</code>
+ * and <code>1 - a - b - c</code>, recursively until a single cell is left.
+ * The defaults are the Graph500 parameters. Node indices are shuffled so that
+ * high degree nodes are spread over the graph, and self-loops and parallel
+ * edges are rejected. Edges falling outside of <code>numberOfNodes</code>,
+ * when it is not a power of two, are rejected too.
+ *
+ * @author Mathieu Bastian
+ */
+@ServiceProvider(service = Generator.class)
+public class RMatGraph extends AbstractRandomGenerator {
+
+    protected long numberOfEdges = 800;
+    protected double a = 0.57;
+    protected double b = 0.19;
+    protected double c = 0.19;
+
+    @Override
+    protected void generateEdges(Random random) {
+        int n = numberOfNodes;
+        long m = Math.min(numberOfEdges, (long) n * (n - 1));
+        if (m <= 0) {
+            return;
+        }
+        int scale = 32 - Integer.numberOfLeadingZeros(n - 1);
+
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+
+        //Very skewed parameters make duplicates likely, attempts are bounded
+        double ab = a + b;
+        double abc = a + b + c;
+        PairSet edges = new PairSet(m);
+        long attempts = 0;
+        long maxAttempts = 8 * m + 1024;
+        while (edges.size() < m && attempts++ < maxAttempts && !cancel) {
+            int source = 0;
+            int target = 0;
+            for (int level = 0; level < scale; level++) {
+                double r = random.nextDouble();
+                source <<= 1;
+                target <<= 1;
+                if (r >= abc) {
+                    source |= 1;
+                    target |= 1;
+                } else if (r >= ab) {
+                    source |= 1;
+                } else if (r >= a) {
+                    target |= 1;
+                }
+            }
+            if (source >= n || target >= n || source == target) {
+                continue;
+            }
+            source = permutation[source];
+            target = permutation[target];
+            if (edges.add(PairSet.directed(source, target, n))) {
+                addEdge(source, target);
+            }
+        }
+    }
+
+    @Override
+    protected long getExpectedEdgeCount() {
+        return numberOfEdges;
+    }
+
+    @Override
+    public String getName() {
+        return NbBundle.getMessage(RMatGraph.class, "RMatGraph.name");
+    }
+
+    @Override
+    public GeneratorUI getUI() {
+        return Lookup.getDefault().lookup(RMatGraphUI.class);
+    }
+
+    /**
+     * Sets the number of edges. Default is 800.
+     *
+     * @param numberOfEdges the number of edges
+     */
+    public void setNumberOfEdges(long numberOfEdges) {
+        if (numberOfEdges < 0) {
+            throw new IllegalArgumentException("# of edges must be greater than 0");
+        }
+        this.numberOfEdges = numberOfEdges;
+    }
+
+    public long getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    /**
+     * Sets the probabilities of the top-left, top-right and bottom-left
+     * quadrants. The bottom-right quadrant has probability
+     * <code>1 - a - b - c</code>. Default is 0.57, 0.19, 0.19.
+     *
+     * @param a top-left probability
+     * @param b top-right probability
+     * @param c bottom-left probability
+     */
+    public void setProbabilities(double a, double b, double c) {
+        if (a < 0 || b < 0 || c < 0 || a + b + c > 1) {
+            throw new IllegalArgumentException("Probabilities must be positive and their sum at most 1");
+        }
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
+
+    public double getA() {
+        return a;
+    }
+
+    public double getB() {
+        return b;
+    }
+
+    public double getC() {
+        return c;
+    }
+}
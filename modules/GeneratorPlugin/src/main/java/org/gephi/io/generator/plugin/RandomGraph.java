@@ -44,64 +44,61 @@ package org.gephi.io.generator.plugin;
 import java.util.Random;
 import org.gephi.io.generator.spi.Generator;
 import org.gephi.io.generator.spi.GeneratorUI;
-import org.gephi.io.importer.api.ContainerLoader;
-import org.gephi.io.importer.api.EdgeDraft;
-import org.gephi.io.importer.api.NodeDraft;
-import org.gephi.utils.progress.Progress;
-import org.gephi.utils.progress.ProgressTicket;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
+ * Erdos-Renyi random graph G(n, p), where each pair of nodes is linked with
+ * probability <code>wiringProbability</code>.
+ * <p>
+ * Instead of drawing a number for each pair, the number of pairs to skip until
+ * the next edge is drawn from the geometric distribution (Batagelj and
+ * Brandes, 2005), so the time is proportional to the number of edges.
  *
  * @author Mathieu Bastian
  */
 @ServiceProvider(service = Generator.class)
-public class RandomGraph implements Generator {
+public class RandomGraph extends AbstractRandomGenerator {
 
-    protected int numberOfNodes = 50;
     protected double wiringProbability = 0.05;
-    protected ProgressTicket progress;
-    protected boolean cancel = false;
 
     @Override
-    public void generate(ContainerLoader container) {
-
-        int max = numberOfNodes;
-        if (wiringProbability > 0) {
-            max += numberOfNodes - 1;
+    protected void generateEdges(Random random) {
+        int n = numberOfNodes;
+        if (wiringProbability <= 0) {
+            return;
         }
-        Progress.start(progress, max);
-        int progressUnit = 0;
-        Random random = new Random();
-
-        NodeDraft[] nodeArray = new NodeDraft[numberOfNodes];
-        for (int i = 0; i < numberOfNodes && !cancel; i++) {
-            NodeDraft nodeDraft = container.factory().newNodeDraft();
-            container.addNode(nodeDraft);
-            nodeArray[i] = nodeDraft;
-            Progress.progress(progress, ++progressUnit);
+        if (wiringProbability >= 1) {
+            for (int i = 0; i < n - 1 && !cancel; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    addEdge(i, j);
+                }
+            }
+            return;
         }
 
-        if (wiringProbability > 0) {
-            for (int i = 0; i < numberOfNodes - 1 && !cancel; i++) {
-                NodeDraft node1 = nodeArray[i];
-                for (int j = i + 1; j < numberOfNodes && !cancel; j++) {
-                    NodeDraft node2 = nodeArray[j];
-                    if (random.nextDouble() < wiringProbability) {
-                        EdgeDraft edgeDraft = container.factory().newEdgeDraft();
-                        edgeDraft.setSource(node1);
-                        edgeDraft.setTarget(node2);
-                        container.addEdge(edgeDraft);
-                    }
-                }
-                Progress.progress(progress, ++progressUnit);
+        //Pairs (w, v) with w < v, in the same order as a loop over v then w
+        double logq = Math.log(1.0 - wiringProbability);
+        long maxSkip = (long) n * n;
+        int v = 1;
+        long w = -1;
+        while (v < n && !cancel) {
+            double skip = Math.floor(Math.log(1.0 - random.nextDouble()) / logq);
+            w += 1 + (long) Math.min(skip, maxSkip);
+            while (w >= v && v < n) {
+                w -= v;
+                v++;
+            }
+            if (v < n) {
+                addEdge((int) w, v);
             }
         }
+    }
 
-        Progress.finish(progress);
-        progress = null;
+    @Override
+    protected long getExpectedEdgeCount() {
+        return (long) (wiringProbability * numberOfNodes * (numberOfNodes - 1.0) / 2.0);
     }
 
     @Override
@@ -114,13 +111,6 @@ public class RandomGraph implements Generator {
         return Lookup.getDefault().lookup(RandomGraphUI.class);
     }
 
-    public void setNumberOfNodes(int numberOfNodes) {
-        if (numberOfNodes < 0) {
-            throw new IllegalArgumentException("# of nodes must be greater than 0");
-        }
-        this.numberOfNodes = numberOfNodes;
-    }
-
     public void setWiringProbability(double wiringProbability) {
         if (wiringProbability < 0 || wiringProbability > 1) {
             throw new IllegalArgumentException("Wiring probability must be between 0 and 1");
@@ -128,22 +118,7 @@ public class RandomGraph implements Generator {
         this.wiringProbability = wiringProbability;
     }
 
-    public int getNumberOfNodes() {
-        return numberOfNodes;
-    }
-
     public double getWiringProbability() {
         return wiringProbability;
     }
-
-    @Override
-    public boolean cancel() {
-        cancel = true;
-        return true;
-    }
-
-    @Override
-    public void setProgressTicket(ProgressTicket progressTicket) {
-        this.progress = progressTicket;
-    }
 }
@@ -0,0 +1,173 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.io.generator.spi.Generator;
+import org.gephi.io.generator.spi.GeneratorUI;
+import org.gephi.io.importer.api.ContainerLoader;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Watts-Strogatz small-world graph. Nodes are on a ring, each linked to its
+ * <code>degree / 2</code> nearest neighbours on each side, then the far end of
+ * each edge is rewired with probability <code>rewiringProbability</code> to a
+ * random node, avoiding self-loops and parallel edges.
+ *
+ * @author Mathieu Bastian
+ */
+@ServiceProvider(service = Generator.class)
+public class SmallWorldGraph extends AbstractRandomGenerator {
+
+    protected int degree = 4;
+    protected double rewiringProbability = 0.1;
+
+    @Override
+    public void generate(ContainerLoader container) {
+        //Checked before any node is created
+        long size = (long) numberOfNodes * getHalfDegree();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("# of nodes times half the degree must be at most "
+                    + Integer.MAX_VALUE + ", was " + size);
+        }
+        super.generate(container);
+    }
+
+    @Override
+    protected void generateEdges(Random random) {
+        int n = numberOfNodes;
+        int k = getHalfDegree();
+        if (k <= 0) {
+            return;
+        }
+
+        //Ring lattice, target of edge (i, d) is at index i * k + d - 1
+        int[] targets = new int[n * k];
+        PairSet edges = new PairSet((long) n * k);
+        for (int i = 0; i < n; i++) {
+            for (int d = 1; d <= k; d++) {
+                int j = (i + d) % n;
+                targets[i * k + d - 1] = j;
+                edges.add(PairSet.undirected(i, j, n));
+            }
+        }
+
+        //Rewiring, nodes linked to every other node are left unchanged
+        int[] degrees = new int[n];
+        Arrays.fill(degrees, 2 * k);
+        for (int d = 1; d <= k && !cancel; d++) {
+            for (int i = 0; i < n; i++) {
+                if (random.nextDouble() < rewiringProbability && degrees[i] < n - 1) {
+                    int j;
+                    do {
+                        j = random.nextInt(n);
+                    } while (j == i || edges.contains(PairSet.undirected(i, j, n)));
+                    int index = i * k + d - 1;
+                    edges.remove(PairSet.undirected(i, targets[index], n));
+                    edges.add(PairSet.undirected(i, j, n));
+                    degrees[targets[index]]--;
+                    degrees[j]++;
+                    targets[index] = j;
+                }
+            }
+        }
+
+        for (int i = 0; i < n && !cancel; i++) {
+            for (int d = 0; d < k; d++) {
+                addEdge(i, targets[i * k + d]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lattice neighbors on each side of a node.
+     */
+    private int getHalfDegree() {
+        return Math.min(degree / 2, (numberOfNodes - 1) / 2);
+    }
+
+    @Override
+    protected long getExpectedEdgeCount() {
+        return (long) numberOfNodes * (degree / 2);
+    }
+
+    @Override
+    public String getName() {
+        return NbBundle.getMessage(SmallWorldGraph.class, "SmallWorldGraph.name");
+    }
+
+    @Override
+    public GeneratorUI getUI() {
+        return Lookup.getDefault().lookup(SmallWorldGraphUI.class);
+    }
+
+    /**
+     * Sets the degree of the nodes in the ring lattice, rounded down to an
+     * even number. Default is 4.
+     *
+     * @param degree the lattice degree
+     */
+    public void setDegree(int degree) {
+        if (degree < 0) {
+            throw new IllegalArgumentException("Degree must be greater than 0");
+        }
+        this.degree = degree;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public void setRewiringProbability(double rewiringProbability) {
+        if (rewiringProbability < 0 || rewiringProbability > 1) {
+            throw new IllegalArgumentException("Rewiring probability must be between 0 and 1");
+        }
+        this.rewiringProbability = rewiringProbability;
+    }
+
+    public double getRewiringProbability() {
+        return rewiringProbability;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class PairSetNGTest {
+
+    @Test
+    public void testPairKeys() {
+        assertEquals(PairSet.undirected(3, 7, 10), PairSet.undirected(7, 3, 10));
+        assertEquals(PairSet.undirected(3, 7, 10), 37L);
+        assertEquals(PairSet.directed(7, 3, 10), 73L);
+        assertEquals(PairSet.directed(65535, 65535, 65536), 65536L * 65536L - 1);
+    }
+
+    @Test
+    public void testAddContainsRemove() {
+        PairSet set = new PairSet(2);
+        assertTrue(set.add(5L));
+        assertFalse(set.add(5L));
+        assertTrue(set.contains(5L));
+        assertFalse(set.contains(6L));
+        assertEquals(set.size(), 1);
+        assertTrue(set.remove(5L));
+        assertFalse(set.remove(5L));
+        assertFalse(set.contains(5L));
+        assertEquals(set.size(), 0);
+    }
+
+    @Test
+    public void testSameAsHashSet() {
+        //Small key range and a small initial capacity, so that clusters,
+        //removals and rehashes are frequent
+        Random random = new Random(42);
+        PairSet set = new PairSet(4);
+        Set<Long> expected = new HashSet<Long>();
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(set.add(key), expected.add(key));
+                    break;
+                case 1:
+                    assertEquals(set.remove(key), expected.remove(key));
+                    break;
+                default:
+                    assertEquals(set.contains(key), expected.contains(key));
+            }
+            assertEquals(set.size(), expected.size());
+        }
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(set.contains(key), expected.contains(key));
+        }
+    }
+}
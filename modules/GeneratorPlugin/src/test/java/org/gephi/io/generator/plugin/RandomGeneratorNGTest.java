@@ -0,0 +1,187 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.io.generator.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.gephi.io.importer.api.EdgeDraft;
+import org.gephi.io.importer.api.NodeDraft;
+import org.gephi.io.importer.impl.ImportContainerImpl;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class RandomGeneratorNGTest {
+
+    @Test
+    public void testRandomGraphEdgeCount() {
+        RandomGraph generator = new RandomGraph();
+        generator.setSeed(42L);
+        generator.setNumberOfNodes(2000);
+        generator.setWiringProbability(0.01);
+        List<long[]> edges = generate(generator);
+
+        //Expected 19990 edges, with a standard deviation of about 141
+        assertTrue(Math.abs(edges.size() - 19990) < 700, "Edge count " + edges.size());
+        assertNoDuplicates(edges, generator.getNumberOfNodes(), false);
+
+        generator.setNumberOfNodes(50);
+        generator.setWiringProbability(1.0);
+        edges = generate(generator);
+        assertEquals(edges.size(), 50 * 49 / 2);
+        assertNoDuplicates(edges, 50, false);
+
+        generator.setWiringProbability(0.0);
+        assertTrue(generate(generator).isEmpty());
+    }
+
+    @Test
+    public void testGnmRandomGraphEdgeCount() {
+        GnmRandomGraph generator = new GnmRandomGraph();
+        generator.setSeed(42L);
+        generator.setNumberOfNodes(100);
+
+        //Sparse, then dense enough to draw the complement
+        for (long m : new long[]{300, 4000, 4950, 10000}) {
+            generator.setNumberOfEdges(m);
+            List<long[]> edges = generate(generator);
+            assertEquals(edges.size(), Math.min(m, 4950));
+            assertNoDuplicates(edges, 100, false);
+        }
+    }
+
+    @Test
+    public void testPreferentialAttachmentEdgeCount() {
+        PreferentialAttachmentGraph generator = new PreferentialAttachmentGraph();
+        generator.setSeed(42L);
+        generator.setNumberOfNodes(500);
+        generator.setEdgesPerNode(3);
+        List<long[]> edges = generate(generator);
+
+        //Clique of 4 nodes, then 3 edges per node
+        assertEquals(edges.size(), 6 + 496 * 3);
+        assertNoDuplicates(edges, 500, false);
+    }
+
+    @Test
+    public void testSmallWorldEdgeCount() {
+        SmallWorldGraph generator = new SmallWorldGraph();
+        generator.setSeed(42L);
+        generator.setNumberOfNodes(300);
+        generator.setDegree(6);
+        generator.setRewiringProbability(0.3);
+        List<long[]> edges = generate(generator);
+
+        assertEquals(edges.size(), 300 * 3);
+        assertNoDuplicates(edges, 300, false);
+    }
+
+    @Test
+    public void testSmallWorldTooLarge() {
+        SmallWorldGraph generator = new SmallWorldGraph();
+        generator.setNumberOfNodes(100000);
+        generator.setDegree(50000);
+        ImportContainerImpl container = new ImportContainerImpl();
+        try {
+            generator.generate(container.getLoader());
+            fail("Expected the lattice size to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("2500000000"), e.getMessage());
+        }
+        assertFalse(container.getUnloader().getNodes().iterator().hasNext());
+    }
+
+    @Test
+    public void testRMatEdgeCount() {
+        RMatGraph generator = new RMatGraph();
+        generator.setSeed(42L);
+        generator.setNumberOfNodes(1000);
+        generator.setNumberOfEdges(5000);
+        List<long[]> edges = generate(generator);
+
+        assertEquals(edges.size(), 5000);
+        assertNoDuplicates(edges, 1000, true);
+    }
+
+    @Test
+    public void testSameSeedSameGraph() {
+        AbstractRandomGenerator[] generators = new AbstractRandomGenerator[]{
+            new RandomGraph(), new GnmRandomGraph(), new PreferentialAttachmentGraph(),
+            new SmallWorldGraph(), new RMatGraph()};
+        for (AbstractRandomGenerator generator : generators) {
+            generator.setNumberOfNodes(200);
+            generator.setSeed(42L);
+            List<String> expected = toStrings(generate(generator));
+            assertEquals(toStrings(generate(generator)), expected, generator.getClass().getSimpleName());
+
+            generator.setSeed(43L);
+            assertFalse(toStrings(generate(generator)).equals(expected), generator.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void testNewSeedAtEachRun() {
+        RandomGraph generator = new RandomGraph();
+        generator.setNumberOfNodes(200);
+        assertNull(generator.getSeed());
+        assertNull(generator.getLastSeed());
+
+        List<String> first = toStrings(generate(generator));
+        Long firstSeed = generator.getLastSeed();
+        assertNotNull(firstSeed);
+        List<String> second = toStrings(generate(generator));
+        assertFalse(generator.getLastSeed().equals(firstSeed));
+        assertFalse(second.equals(first));
+
+        //The last seed gives the same graph again
+        generator.setSeed(firstSeed);
+        assertEquals(toStrings(generate(generator)), first);
+        assertEquals(generator.getLastSeed(), firstSeed);
+    }
+
+    /**
+     * Generates the graph and returns its edges as pairs of node indices.
+     */
+    private static List<long[]> generate(AbstractRandomGenerator generator) {
+        ImportContainerImpl container = new ImportContainerImpl();
+        generator.generate(container.getLoader());
+
+        Map<String, Integer> indices = new HashMap<String, Integer>();
+        for (NodeDraft node : container.getUnloader().getNodes()) {
+            indices.put(node.getId(), indices.size());
+        }
+        assertEquals(indices.size(), generator.getNumberOfNodes());
+
+        List<long[]> edges = new ArrayList<long[]>();
+        for (EdgeDraft edge : container.getUnloader().getEdges()) {
+            edges.add(new long[]{indices.get(edge.getSource().getId()), indices.get(edge.getTarget().getId())});
+        }
+        return edges;
+    }
+
+    private static void assertNoDuplicates(List<long[]> edges, int n, boolean directed) {
+        Set<Long> pairs = new HashSet<Long>();
+        for (long[] edge : edges) {
+            assertTrue(edge[0] != edge[1], "Self-loop on " + edge[0]);
+            long key = directed || edge[0] < edge[1] ? edge[0] * n + edge[1] : edge[1] * n + edge[0];
+            assertTrue(pairs.add(key), "Parallel edge " + edge[0] + " " + edge[1]);
+        }
+    }
+
+    private static List<String> toStrings(List<long[]> edges) {
+        List<String> strings = new ArrayList<String>();
+        for (long[] edge : edges) {
+            strings.add(edge[0] + " " + edge[1]);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.ui.generator.plugin;
+
+import javax.swing.JPanel;
+import org.gephi.io.generator.plugin.RMatGraph;
+import org.gephi.io.generator.plugin.RMatGraphUI;
+import org.gephi.io.generator.spi.Generator;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+@ServiceProvider(service = RMatGraphUI.class)
+public class RMatGraphUIImpl implements RMatGraphUI {
+
+    private RMatGraphPanel panel;
+    private RMatGraph generator;
+
+    public RMatGraphUIImpl() {
+    }
+
+    @Override
+    public JPanel getPanel() {
+        if (panel == null) {
+            panel = new RMatGraphPanel();
+        }
+        return RMatGraphPanel.createValidationPanel(panel);
+    }
+
+    @Override
+    public void setup(Generator generator) {
+        this.generator = (RMatGraph) generator;
+
+        //Set UI
+        if (panel == null) {
+            panel = new RMatGraphPanel();
+        }
+        panel.nodeField.setText(String.valueOf(this.generator.getNumberOfNodes()));
+        panel.edgeField.setText(String.valueOf(this.generator.getNumberOfEdges()));
+        panel.aField.setText(String.valueOf(this.generator.getA()));
+        panel.bField.setText(String.valueOf(this.generator.getB()));
+        panel.cField.setText(String.valueOf(this.generator.getC()));
+        Long seed = this.generator.getSeed();
+        panel.seedField.setText(seed != null ? String.valueOf(seed) : "");
+        Long lastSeed = this.generator.getLastSeed();
+        panel.lastSeedLabel.setText(lastSeed != null ? NbBundle.getMessage(RMatGraphUIImpl.class, "RMatGraphPanel.lastSeedLabel.seed", String.valueOf(lastSeed)) : "");
+    }
+
+    @Override
+    public void unsetup() {
+        //Set params
+        generator.setNumberOfNodes(Integer.parseInt(panel.nodeField.getText()));
+        generator.setNumberOfEdges(Long.parseLong(panel.edgeField.getText()));
+        generator.setProbabilities(Double.parseDouble(panel.aField.getText()),
+                Double.parseDouble(panel.bField.getText()),
+                Double.parseDouble(panel.cField.getText()));
+        String seed = panel.seedField.getText().trim();
+        generator.setSeed(seed.isEmpty() ? null : Long.valueOf(seed));
+        panel = null;
+    }
+}
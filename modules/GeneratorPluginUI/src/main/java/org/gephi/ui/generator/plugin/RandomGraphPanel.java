@@ -76,6 +76,9 @@ public class RandomGraphPanel extends javax.swing.JPanel {
         group.add(innerPanel.edgeField, Validators.REQUIRE_NON_EMPTY_STRING,
                 new BetweenZeroAndOneValidator());
 
+        //Seed field, empty for a new seed at each run
+        group.add(innerPanel.seedField, new SeedValidator());
+
         return validationPanel;
     }
 
@@ -92,6 +95,9 @@ public class RandomGraphPanel extends javax.swing.JPanel {
         edgeLabel = new javax.swing.JLabel();
         nodeField = new javax.swing.JTextField();
         edgeField = new javax.swing.JTextField();
+        seedLabel = new javax.swing.JLabel();
+        seedField = new javax.swing.JTextField();
+        lastSeedLabel = new javax.swing.JLabel();
 
         nodeLabel.setText(org.openide.util.NbBundle.getMessage(RandomGraphPanel.class, "RandomGraphPanel.nodeLabel.text")); // NOI18N
 
@@ -101,6 +107,13 @@ public class RandomGraphPanel extends javax.swing.JPanel {
 
         edgeField.setText(org.openide.util.NbBundle.getMessage(RandomGraphPanel.class, "RandomGraphPanel.edgeField.text")); // NOI18N
 
+        seedLabel.setText(org.openide.util.NbBundle.getMessage(RandomGraphPanel.class, "RandomGraphPanel.seedLabel.text")); // NOI18N
+
+        seedField.setText(org.openide.util.NbBundle.getMessage(RandomGraphPanel.class, "RandomGraphPanel.seedField.text")); // NOI18N
+        seedField.setToolTipText(org.openide.util.NbBundle.getMessage(RandomGraphPanel.class, "RandomGraphPanel.seedField.toolTipText")); // NOI18N
+
+        lastSeedLabel.setText(org.openide.util.NbBundle.getMessage(RandomGraphPanel.class, "RandomGraphPanel.lastSeedLabel.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -109,10 +122,13 @@ public class RandomGraphPanel extends javax.swing.JPanel {
                 .addContainerGap(20, Short.MAX_VALUE)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING)
                     .addComponent(nodeLabel)
-                    .addComponent(edgeLabel))
+                    .addComponent(edgeLabel)
+                    .addComponent(seedLabel))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
                     .addComponent(edgeField)
+                    .addComponent(seedField)
+                    .addComponent(lastSeedLabel)
                     .addComponent(nodeField, javax.swing.GroupLayout.DEFAULT_SIZE, 109, Short.MAX_VALUE))
                 .addContainerGap(19, Short.MAX_VALUE))
         );
@@ -127,13 +143,22 @@ public class RandomGraphPanel extends javax.swing.JPanel {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(edgeField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(edgeLabel))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(seedField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(seedLabel))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(lastSeedLabel)
                 .addContainerGap(28, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
     // Variables declaration - do not modify//GEN-BEGIN:variables
     protected javax.swing.JTextField edgeField;
     private javax.swing.JLabel edgeLabel;
+    protected javax.swing.JLabel lastSeedLabel;
     protected javax.swing.JTextField nodeField;
     private javax.swing.JLabel nodeLabel;
+    protected javax.swing.JTextField seedField;
+    private javax.swing.JLabel seedLabel;
     // End of variables declaration//GEN-END:variables
 }
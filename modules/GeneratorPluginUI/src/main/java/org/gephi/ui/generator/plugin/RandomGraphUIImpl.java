@@ -45,6 +45,7 @@ import javax.swing.JPanel;
 import org.gephi.io.generator.plugin.RandomGraph;
 import org.gephi.io.generator.plugin.RandomGraphUI;
 import org.gephi.io.generator.spi.Generator;
+import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
@@ -78,6 +79,10 @@ public class RandomGraphUIImpl implements RandomGraphUI {
         }
         panel.nodeField.setText(String.valueOf(randomGraph.getNumberOfNodes()));
         panel.edgeField.setText(String.valueOf(randomGraph.getWiringProbability()));
+        Long seed = randomGraph.getSeed();
+        panel.seedField.setText(seed != null ? String.valueOf(seed) : "");
+        Long lastSeed = randomGraph.getLastSeed();
+        panel.lastSeedLabel.setText(lastSeed != null ? NbBundle.getMessage(RandomGraphUIImpl.class, "RandomGraphPanel.lastSeedLabel.seed", String.valueOf(lastSeed)) : "");
     }
 
     @Override
@@ -85,6 +90,8 @@ public class RandomGraphUIImpl implements RandomGraphUI {
         //Set params
         randomGraph.setNumberOfNodes(Integer.parseInt(panel.nodeField.getText()));
         randomGraph.setWiringProbability(Double.parseDouble(panel.edgeField.getText()));
+        String seed = panel.seedField.getText().trim();
+        randomGraph.setSeed(seed.isEmpty() ? null : Long.valueOf(seed));
         panel = null;
     }
 }
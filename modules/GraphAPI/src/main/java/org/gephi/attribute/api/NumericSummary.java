@@ -0,0 +1,311 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.attribute.api;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Summary of the values of a numerical column: count, minimum, maximum and an
+ * equi-depth histogram.
+ * <p>
+ * The histogram has bucket bounds such that each bucket holds about the same
+ * number of values. It gives approximate quantiles and ranks in
+ * <code>O(log buckets)</code>, which is enough to build quantile
+ * interpolations without going through the elements again.
+ * <p>
+ * A summary is immutable. It is built either from a column {@link Index},
+ * which the store keeps up to date on every attribute write, in time
+ * proportional to the number of distinct values, or with a {@link Builder}
+ * when values are computed.
+ *
+ * @author Mathieu Bastian
+ */
+public final class NumericSummary {
+
+    public static final int DEFAULT_BUCKETS = 32;
+    private final long count;
+    private final double min;
+    private final double max;
+    //Bounds of the equi-depth buckets, bounds[i] is the quantile i/buckets
+    private final double[] bounds;
+
+    private NumericSummary(long count, double min, double max, double[] bounds) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Builds the summary of <code>column</code> from <code>index</code>,
+     * visiting each distinct value once.
+     *
+     * @param index the index <code>column</code> belongs to
+     * @param column a numerical column
+     * @return the summary of the column's values
+     */
+    public static NumericSummary of(Index index, Column column) {
+        Builder builder = new Builder();
+        for (Object value : index.values(column)) {
+            if (value instanceof Number) {
+                builder.add(((Number) value).doubleValue(), index.count(column, value));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the value count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the minimum, or <code>NaN</code> if there are no values.
+     *
+     * @return the minimum value
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum, or <code>NaN</code> if there are no values.
+     *
+     * @return the maximum value
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the number of histogram buckets, zero if there are no values.
+     *
+     * @return the bucket count
+     */
+    public int getBucketCount() {
+        return bounds.length - 1;
+    }
+
+    /**
+     * Returns the bucket bounds, <code>getBucketCount() + 1</code> values from
+     * the minimum to the maximum.
+     *
+     * @return a copy of the bucket bounds
+     */
+    public double[] getBounds() {
+        return Arrays.copyOf(bounds, bounds.length);
+    }
+
+    /**
+     * Returns the approximate value below which a fraction <code>q</code> of
+     * the values fall, interpolated between bucket bounds.
+     *
+     * @param q a fraction between 0 and 1
+     * @return the approximate quantile, or <code>NaN</code> if there are no
+     * values
+     */
+    public double getQuantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int buckets = bounds.length - 1;
+        double position = Math.max(0.0, Math.min(1.0, q)) * buckets;
+        int bucket = Math.min((int) position, buckets - 1);
+        double fraction = position - bucket;
+        return bounds[bucket] + fraction * (bounds[bucket + 1] - bounds[bucket]);
+    }
+
+    /**
+     * Returns the approximate fraction of values lower than or equal to
+     * <code>value</code>, interpolated between bucket bounds. This is the
+     * inverse of {@link #getQuantile(double)}.
+     *
+     * @param value a value
+     * @return a fraction between 0 and 1
+     */
+    public double getRank(double value) {
+        if (count == 0 || value < min) {
+            return 0.0;
+        }
+        if (value >= max) {
+            return 1.0;
+        }
+        //Last bound lower than or equal to value
+        int buckets = bounds.length - 1;
+        int low = 0;
+        int high = buckets;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double width = bounds[low + 1] - bounds[low];
+        double fraction = width > 0 ? (value - bounds[low]) / width : 0.0;
+        return (low + fraction) / buckets;
+    }
+
+    /**
+     * Builder of summaries from values given one at a time, or with their
+     * number of occurrences.
+     */
+    public static class Builder {
+
+        private final int buckets;
+        private double[] values = new double[16];
+        private long[] weights = new long[16];
+        private int size;
+        private boolean sorted = true;
+        private boolean unitWeights = true;
+
+        public Builder() {
+            this(DEFAULT_BUCKETS);
+        }
+
+        public Builder(int buckets) {
+            if (buckets < 1) {
+                throw new IllegalArgumentException("The bucket count must be positive");
+            }
+            this.buckets = buckets;
+        }
+
+        /**
+         * Adds one occurrence of <code>value</code>. <code>NaN</code> is
+         * ignored.
+         *
+         * @param value the value to add
+         */
+        public void add(double value) {
+            add(value, 1);
+        }
+
+        /**
+         * Adds <code>occurrences</code> times <code>value</code>.
+         * <code>NaN</code> is ignored.
+         *
+         * @param value the value to add
+         * @param occurrences the number of occurrences
+         */
+        public void add(double value, long occurrences) {
+            if (Double.isNaN(value) || occurrences <= 0) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            if (size > 0 && value < values[size - 1]) {
+                sorted = false;
+            }
+            unitWeights &= occurrences == 1;
+            values[size] = value;
+            weights[size] = occurrences;
+            size++;
+        }
+
+        public NumericSummary build() {
+            if (size == 0) {
+                return new NumericSummary(0, Double.NaN, Double.NaN, new double[1]);
+            }
+            if (!sorted) {
+                sort();
+            }
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += weights[i];
+            }
+
+            //Bound i is the value at rank i * (total - 1) / buckets, interpolated
+            double[] bounds = new double[buckets + 1];
+            int index = 0;
+            long before = 0;
+            for (int b = 0; b <= buckets; b++) {
+                double rank = (double) b * (total - 1) / buckets;
+                while (before + weights[index] <= (long) rank) {
+                    before += weights[index];
+                    index++;
+                }
+                double value = values[index];
+                double fraction = rank - (long) rank;
+                if (fraction > 0 && (long) rank + 1 >= before + weights[index]) {
+                    value += fraction * (values[index + 1] - value);
+                }
+                bounds[b] = value;
+            }
+            return new NumericSummary(total, values[0], values[size - 1], bounds);
+        }
+
+        private void sort() {
+            if (unitWeights) {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+                return;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(values[a], values[b]);
+                }
+            });
+            double[] sortedValues = new double[values.length];
+            long[] sortedWeights = new long[weights.length];
+            for (int i = 0; i < size; i++) {
+                sortedValues[i] = values[order[i]];
+                sortedWeights[i] = weights[order[i]];
+            }
+            values = sortedValues;
+            weights = sortedWeights;
+            sorted = true;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gephi.attribute.api.AttributeModel;
+import org.gephi.attribute.api.TableObserver;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeEvent.EventType;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphChangeNotifier;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphView;
+
+/**
+ * Change notifier of a graph model. Changes are detected from the store's
+ * graph and table versions, which costs a few comparisons and never visits
+ * nodes, edges or columns. The notifier thread only runs while there are
+ * listeners.
+ *
+ * @author Mathieu Bastian
+ */
+public class GraphChangeNotifierImpl implements GraphChangeNotifier {
+
+    //Delay between two reads of the store versions
+    private static final long CHECK_PERIOD = 100;
+    //Pending changes are delivered once no change came for this delay...
+    private static final long DEBOUNCE_DELAY = 250;
+    //...or at the latest this long after the first of them
+    private static final long MAX_DELAY = 1000;
+    private final GraphModel graphModel;
+    private final AttributeModel attributeModel;
+    private final List<GraphChangeListener> listeners = new CopyOnWriteArrayList<GraphChangeListener>();
+    private final AtomicLong graphVersion = new AtomicLong();
+    private final AtomicLong viewVersion = new AtomicLong();
+    private final AtomicLong tableVersion = new AtomicLong();
+    //Pending changes
+    private final EnumSet<EventType> pending = EnumSet.noneOf(EventType.class);
+    private long firstPendingTime;
+    private long lastPendingTime;
+    //Observers, created when the first listener is added
+    private ScheduledExecutorService executor;
+    private GraphObserver graphObserver;
+    private GraphObserver viewObserver;
+    private GraphView visibleView;
+    private TableObserver nodeTableObserver;
+    private TableObserver edgeTableObserver;
+
+    public GraphChangeNotifierImpl(GraphModel graphModel, AttributeModel attributeModel) {
+        this.graphModel = graphModel;
+        this.attributeModel = attributeModel;
+    }
+
+    @Override
+    public synchronized void addChangeListener(GraphChangeListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        if (executor == null) {
+            start();
+        }
+    }
+
+    @Override
+    public synchronized void removeChangeListener(GraphChangeListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && executor != null) {
+            stop();
+        }
+    }
+
+    @Override
+    public void fireChange(EventType... types) {
+        EnumSet<EventType> changes = EnumSet.noneOf(EventType.class);
+        for (EventType type : types) {
+            changes.add(type);
+        }
+        addPending(changes, System.currentTimeMillis());
+    }
+
+    @Override
+    public long getGraphVersion() {
+        return graphVersion.get();
+    }
+
+    @Override
+    public long getViewVersion() {
+        return viewVersion.get();
+    }
+
+    @Override
+    public long getTableVersion() {
+        return tableVersion.get();
+    }
+
+    private void start() {
+        graphObserver = graphModel.createGraphObserver(graphModel.getGraph(), false);
+        graphObserver.hasGraphChanged();
+        observeVisibleView();
+        nodeTableObserver = attributeModel.getNodeTable().createTableObserver();
+        nodeTableObserver.hasTableChanged();
+        edgeTableObserver = attributeModel.getEdgeTable().createTableObserver();
+        edgeTableObserver.hasTableChanged();
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Graph Change Notifier");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                check();
+            }
+        }, CHECK_PERIOD, CHECK_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    private void stop() {
+        executor.shutdown();
+        executor = null;
+        graphObserver.destroy();
+        viewObserver.destroy();
+        nodeTableObserver.destroy();
+        edgeTableObserver.destroy();
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    private void observeVisibleView() {
+        if (viewObserver != null && !viewObserver.isDestroyed()) {
+            viewObserver.destroy();
+        }
+        visibleView = graphModel.getVisibleView();
+        viewObserver = graphModel.createGraphObserver(graphModel.getGraph(visibleView), false);
+        viewObserver.hasGraphChanged();
+    }
+
+    private void check() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (executor == null) {
+                return;
+            }
+            addPending(detectChanges(), now);
+        }
+        GraphChangeEvent event = pollPending(now);
+        if (event != null) {
+            for (GraphChangeListener listener : listeners) {
+                try {
+                    listener.graphChanged(event);
+                } catch (RuntimeException ex) {
+                    //Keep notifying the other listeners and the next changes
+                    Logger.getLogger(GraphChangeNotifierImpl.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }
+    }
+
+    private EnumSet<EventType> detectChanges() {
+        EnumSet<EventType> changes = EnumSet.noneOf(EventType.class);
+        if (graphObserver.hasGraphChanged()) {
+            changes.add(EventType.GRAPH);
+        }
+        if (graphModel.getVisibleView() != visibleView || viewObserver.isDestroyed()) {
+            observeVisibleView();
+            changes.add(EventType.VISIBLE_VIEW);
+        } else if (viewObserver.hasGraphChanged()) {
+            changes.add(EventType.VISIBLE_VIEW);
+        }
+        //Both observers are polled so neither keeps a stale change
+        boolean nodeTableChanged = nodeTableObserver.hasTableChanged();
+        boolean edgeTableChanged = edgeTableObserver.hasTableChanged();
+        if (nodeTableChanged || edgeTableChanged) {
+            changes.add(EventType.TABLES);
+        }
+        return changes;
+    }
+
+    private void addPending(EnumSet<EventType> changes, long now) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (pending) {
+            for (EventType type : changes) {
+                switch (type) {
+                    case GRAPH:
+                        graphVersion.incrementAndGet();
+                        break;
+                    case VISIBLE_VIEW:
+                        viewVersion.incrementAndGet();
+                        break;
+                    case TABLES:
+                        tableVersion.incrementAndGet();
+                        break;
+                }
+            }
+            if (pending.isEmpty()) {
+                firstPendingTime = now;
+            }
+            pending.addAll(changes);
+            lastPendingTime = now;
+        }
+    }
+
+    private GraphChangeEvent pollPending(long now) {
+        synchronized (pending) {
+            if (pending.isEmpty()
+                    || (now - lastPendingTime < DEBOUNCE_DELAY && now - firstPendingTime < MAX_DELAY)) {
+                return null;
+            }
+            GraphChangeEvent event = new GraphChangeEvent(pending, graphVersion.get(), viewVersion.get(), tableVersion.get());
+            pending.clear();
+            return event;
+        }
+    }
+}
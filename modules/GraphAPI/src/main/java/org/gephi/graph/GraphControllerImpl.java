@@ -87,6 +87,17 @@ public class GraphControllerImpl implements GraphController {
         return getGraphModel(workspace);
     }
 
+    @Override
+    public synchronized GraphChangeNotifierImpl getChangeNotifier(Workspace workspace) {
+        GraphChangeNotifierImpl notifier = workspace.getLookup().lookup(GraphChangeNotifierImpl.class);
+        if (notifier == null) {
+            GraphModelImpl model = getGraphModel(workspace);
+            notifier = new GraphChangeNotifierImpl(model, model);
+            workspace.add(notifier);
+        }
+        return notifier;
+    }
+
     private GraphModelImpl newGraphModel(Workspace workspace) {
         GraphModelImpl graphModelImpl = new GraphModelImpl();
         workspace.add(graphModelImpl);
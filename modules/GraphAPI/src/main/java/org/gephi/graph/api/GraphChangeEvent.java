@@ -0,0 +1,110 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Coalesced changes delivered to a {@link GraphChangeListener}, with the
+ * versions of the graph, visible view and tables at the time of delivery.
+ * Versions only increase, by one for every detected change.
+ *
+ * @author Mathieu Bastian
+ */
+public final class GraphChangeEvent {
+
+    public enum EventType {
+
+        /**
+         * Nodes or edges of the main graph changed.
+         */
+        GRAPH,
+        /**
+         * The visible view changed, or its nodes or edges did.
+         */
+        VISIBLE_VIEW,
+        /**
+         * Columns of the node or edge table changed.
+         */
+        TABLES
+    }
+    private final Set<EventType> types;
+    private final long graphVersion;
+    private final long viewVersion;
+    private final long tableVersion;
+
+    public GraphChangeEvent(Set<EventType> types, long graphVersion, long viewVersion, long tableVersion) {
+        this.types = EnumSet.copyOf(types);
+        this.graphVersion = graphVersion;
+        this.viewVersion = viewVersion;
+        this.tableVersion = tableVersion;
+    }
+
+    /**
+     * Returns <code>true</code> if any of <code>types</code> changed.
+     *
+     * @param types the types to test
+     * @return <code>true</code> if at least one of the types changed
+     */
+    public boolean is(EventType... types) {
+        return !Collections.disjoint(this.types, Arrays.asList(types));
+    }
+
+    public Set<EventType> getTypes() {
+        return EnumSet.copyOf(types);
+    }
+
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+
+    public long getViewVersion() {
+        return viewVersion;
+    }
+
+    public long getTableVersion() {
+        return tableVersion;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Tracks changes of a workspace's graph model and notifies listeners, so
+ * modules don't have to poll the graph themselves.
+ * <p>
+ * Each kind of change has a version counter, incremented once for every
+ * detected change. Listeners are called on a single notifier thread, with
+ * changes coalesced and debounced: the call happens once the graph has been
+ * left untouched for a short delay, but never later than a maximum delay
+ * after the first pending change.
+ * <p>
+ * The notifier is obtained from the graph controller:
+ * <pre>GraphChangeNotifier notifier = graphController.getChangeNotifier(workspace);</pre>
+ *
+ * @author Mathieu Bastian
+ * @see GraphController#getChangeNotifier(org.gephi.project.api.Workspace)
+ */
+public interface GraphChangeNotifier {
+
+    /**
+     * Adds <code>listener</code>. The notifier only watches the graph while
+     * it has listeners.
+     *
+     * @param listener the listener to add
+     */
+    public void addChangeListener(GraphChangeListener listener);
+
+    /**
+     * Removes <code>listener</code>.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeChangeListener(GraphChangeListener listener);
+
+    /**
+     * Signals changes right away, for code that modifies the graph and wants
+     * listeners notified without waiting for them to be detected.
+     *
+     * @param types the types of change
+     */
+    public void fireChange(GraphChangeEvent.EventType... types);
+
+    /**
+     * Returns the version of the main graph's nodes and edges.
+     *
+     * @return the graph version
+     */
+    public long getGraphVersion();
+
+    /**
+     * Returns the version of the visible view.
+     *
+     * @return the visible view version
+     */
+    public long getViewVersion();
+
+    /**
+     * Returns the version of the node and edge tables.
+     *
+     * @return the table version
+     */
+    public long getTableVersion();
+}
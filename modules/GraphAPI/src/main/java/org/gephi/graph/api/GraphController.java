@@ -106,4 +106,14 @@ public interface GraphController {
      * @return the attribute model for <code>workspace</code>.
      */
     public AttributeModel getAttributeModel(Workspace workspace);
+
+    /**
+     * Returns the change notifier of the graph model of
+     * <code>workspace</code>. Modules that need to react to graph or table
+     * changes should add a listener to it rather than poll the model.
+     *
+     * @param workspace the workspace
+     * @return the <code>workspace</code>'s change notifier
+     */
+    public GraphChangeNotifier getChangeNotifier(Workspace workspace);
 }
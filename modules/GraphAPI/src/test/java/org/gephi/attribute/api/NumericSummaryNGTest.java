@@ -0,0 +1,152 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.attribute.api;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class NumericSummaryNGTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void testEmpty() {
+        NumericSummary summary = new NumericSummary.Builder().build();
+        assertEquals(summary.getCount(), 0);
+        assertTrue(Double.isNaN(summary.getMin()));
+        assertTrue(Double.isNaN(summary.getMax()));
+        assertEquals(summary.getBucketCount(), 0);
+        assertTrue(Double.isNaN(summary.getQuantile(0.5)));
+        assertEquals(summary.getRank(1.0), 0.0);
+    }
+
+    @Test
+    public void testIgnoredValues() {
+        NumericSummary.Builder builder = new NumericSummary.Builder();
+        builder.add(Double.NaN);
+        builder.add(3.0, 0);
+        builder.add(4.0, -2);
+        assertEquals(builder.build().getCount(), 0);
+    }
+
+    @Test
+    public void testSingleValue() {
+        NumericSummary.Builder builder = new NumericSummary.Builder(4);
+        builder.add(7.5);
+        NumericSummary summary = builder.build();
+        assertEquals(summary.getCount(), 1);
+        assertEquals(summary.getMin(), 7.5);
+        assertEquals(summary.getMax(), 7.5);
+        assertEquals(summary.getBucketCount(), 4);
+        for (double bound : summary.getBounds()) {
+            assertEquals(bound, 7.5);
+        }
+        assertEquals(summary.getQuantile(0.0), 7.5);
+        assertEquals(summary.getQuantile(0.3), 7.5);
+        assertEquals(summary.getQuantile(1.0), 7.5);
+        assertEquals(summary.getRank(7.0), 0.0);
+        assertEquals(summary.getRank(7.5), 1.0);
+    }
+
+    @Test
+    public void testWeightedDuplicates() {
+        //Same multiset, once with weights in shuffled order, once expanded
+        NumericSummary.Builder weighted = new NumericSummary.Builder(8);
+        weighted.add(5.0, 3);
+        weighted.add(1.0, 1);
+        weighted.add(9.0, 2);
+        weighted.add(3.0, 4);
+        NumericSummary.Builder expanded = new NumericSummary.Builder(8);
+        double[] values = {1.0, 3.0, 3.0, 3.0, 3.0, 5.0, 5.0, 5.0, 9.0, 9.0};
+        for (double v : values) {
+            expanded.add(v);
+        }
+        NumericSummary a = weighted.build();
+        NumericSummary b = expanded.build();
+        assertEquals(a.getCount(), 10);
+        assertEquals(a.getMin(), 1.0);
+        assertEquals(a.getMax(), 9.0);
+        assertEquals(a.getBounds(), b.getBounds());
+        assertBounds(a, values);
+    }
+
+    @Test
+    public void testQuantileMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            int size = 1 + random.nextInt(500);
+            int buckets = 1 + random.nextInt(40);
+            double[] values = new double[size];
+            NumericSummary.Builder builder = new NumericSummary.Builder(buckets);
+            for (int i = 0; i < size; i++) {
+                //Few distinct values, so duplicates are frequent
+                values[i] = random.nextInt(size / 4 + 1) * 0.5;
+                builder.add(values[i]);
+            }
+            NumericSummary summary = builder.build();
+            Arrays.sort(values);
+            assertEquals(summary.getCount(), size);
+            assertEquals(summary.getMin(), values[0]);
+            assertEquals(summary.getMax(), values[size - 1]);
+            assertBounds(summary, values);
+            for (int b = 0; b <= buckets; b++) {
+                double q = (double) b / buckets;
+                assertEquals(summary.getQuantile(q), bruteQuantile(values, q), EPS);
+            }
+        }
+    }
+
+    @Test
+    public void testRankMatchesBruteForce() {
+        Random random = new Random(7);
+        int size = 1000;
+        int buckets = 32;
+        double[] values = new double[size];
+        NumericSummary.Builder builder = new NumericSummary.Builder(buckets);
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextGaussian() * 10.0;
+            builder.add(values[i]);
+        }
+        NumericSummary summary = builder.build();
+        Arrays.sort(values);
+        assertEquals(summary.getRank(values[0] - 1.0), 0.0);
+        assertEquals(summary.getRank(values[size - 1]), 1.0);
+        double previous = 0.0;
+        for (int i = 0; i < size; i++) {
+            double rank = summary.getRank(values[i]);
+            //Distinct values, the exact rank of the i-th value is i / (size - 1)
+            assertEquals(rank, (double) i / (size - 1), 1.0 / buckets);
+            assertTrue(rank >= previous);
+            previous = rank;
+        }
+        for (int b = 0; b <= buckets; b++) {
+            double q = (double) b / buckets;
+            assertEquals(summary.getRank(summary.getQuantile(q)), q, EPS);
+        }
+    }
+
+    private static void assertBounds(NumericSummary summary, double[] sortedValues) {
+        double[] bounds = summary.getBounds();
+        int buckets = summary.getBucketCount();
+        assertEquals(bounds.length, buckets + 1);
+        for (int b = 0; b <= buckets; b++) {
+            assertEquals(bounds[b], bruteQuantile(sortedValues, (double) b / buckets), EPS);
+        }
+    }
+
+    //Value at rank q * (n - 1), linearly interpolated between neighbours
+    private static double bruteQuantile(double[] sortedValues, double q) {
+        double rank = q * (sortedValues.length - 1);
+        int low = (int) Math.floor(rank);
+        int high = Math.min(low + 1, sortedValues.length - 1);
+        return sortedValues[low] + (rank - low) * (sortedValues[high] - sortedValues[low]);
+    }
+}
@@ -136,7 +136,11 @@ public class ImportControllerImpl implements ImportController {
             fileObject = getArchivedFile(fileObject);   //Unzip and return content file
             FileImporterBuilder builder = getMatchingImporter(fileObject);
             if (fileObject != null && builder != null) {
-                Container c = importFile(fileObject.getInputStream(), builder.buildImporter());
+                FileImporter importer = builder.buildImporter();
+                if (importer instanceof FileImporter.FileAware) {
+                    ((FileImporter.FileAware) importer).setFile(FileUtil.toFile(fileObject));
+                }
+                Container c = importFile(fileObject.getInputStream(), importer);
                 if (fileObject.getPath().startsWith(System.getProperty("java.io.tmpdir"))) {
                     try {
                         fileObject.delete();
@@ -156,6 +160,9 @@ public class ImportControllerImpl implements ImportController {
         if (fileObject != null) {
             fileObject = getArchivedFile(fileObject);   //Unzip and return content file
             if (fileObject != null) {
+                if (importer instanceof FileImporter.FileAware) {
+                    ((FileImporter.FileAware) importer).setFile(FileUtil.toFile(fileObject));
+                }
                 Container c = importFile(fileObject.getInputStream(), importer);
                 if (fileObject.getPath().startsWith(System.getProperty("java.io.tmpdir"))) {
                     try {
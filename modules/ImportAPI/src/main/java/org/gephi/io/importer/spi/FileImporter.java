@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 */
 package org.gephi.io.importer.spi;
 
+import java.io.File;
 import java.io.Reader;
 
 /**
@@ -55,4 +56,18 @@ public interface FileImporter extends Importer {
      * @param reader    the reader on data
      */
     public void setReader(Reader reader);
+
+    /**
+     * Optional interface for file importers that want to know the file they
+     * read from, for instance to report progress against its length. The
+     * file is set before the reader, when the data comes from a file.
+     */
+    public interface FileAware {
+
+        /**
+         * Sets the file the reader's characters come from.
+         * @param file  the imported file
+         */
+        public void setFile(File file);
+    }
 }
@@ -41,15 +41,21 @@
  */
 package org.gephi.io.importer.plugin.file;
 
-import java.io.LineNumberReader;
+import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.gephi.io.importer.api.ContainerLoader;
 import org.gephi.io.importer.api.EdgeDraft;
-import org.gephi.io.importer.api.ImportUtils;
 import org.gephi.io.importer.api.NodeDraft;
 import org.gephi.io.importer.api.Report;
 import org.gephi.io.importer.spi.FileImporter;
@@ -58,130 +64,327 @@ import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
 
 /**
+ * Imports edge lists, adjacency lists and adjacency matrices from CSV files.
+ * <p>
+ * The reader is consumed in large chunks cut at line boundaries, so memory
+ * doesn't depend on the size of the file. Fields are separated by commas,
+ * semicolons or whitespace and may be quoted with double or single quotes.
+ * With more than one thread, see {@link #setThreadCount(int)}, chunks are
+ * split into fields concurrently and merged into the container in file order,
+ * so the result is the same as with a single thread.
+ * <p>
+ * A file whose first line starts with a semicolon is a matrix: the first
+ * line holds the labels, each other line a node id followed by the weights
+ * of its edges to the labels' nodes.
  *
  * @author Mathieu Bastian, Sebastien Heymann
  */
-public class ImporterCSV implements FileImporter, LongTask {
+public class ImporterCSV implements FileImporter, FileImporter.FileAware, LongTask {
 
+    private static final int BUFFER_SIZE = 1 << 20;
     //Architecture
     private Reader reader;
+    private long fileLength;
     private ContainerLoader container;
     private Report report;
     private ProgressTicket progressTicket;
     private boolean cancel = false;
+    //Settings
+    private int threadCount = 1;
+    private int bufferSize = BUFFER_SIZE;
+    //Matrix state
+    private boolean matrix;
+    private List<String> labels;
+    private int matrixRow;
+    //Progress, in bytes
+    private long position;
 
     @Override
     public boolean execute(ContainerLoader container) {
         this.container = container;
         this.report = new Report();
-        LineNumberReader lineReader = ImportUtils.getTextReader(reader);
         try {
-            importData(lineReader);
+            importData(reader);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         return !cancel;
     }
 
-    private void importData(LineNumberReader reader) throws Exception {
+    private void importData(Reader reader) throws Exception {
         Progress.start(progressTicket);        //Progress
-
-        List<String> lines = new ArrayList<String>();
-        for (; reader.ready();) {
-            String line = reader.readLine();
-            if (line != null && !line.isEmpty()) {
-                lines.add(line);
-            }
+        int units = (int) (fileLength >> 10);
+        if (units > 0) {
+            Progress.switchToDeterminate(progressTicket, units);
         }
 
-        Progress.switchToDeterminate(progressTicket, lines.size());
-
-        //Magix regex
-        Pattern pattern = Pattern.compile("(?<=(?:,|;|\\s|^)\")(.*?)(?=(?<=(?:[^\\\\]))\",|;|\"\\s|\"$)|(?<=(?:,|;|\\s|^)')(.*?)(?=(?<=(?:[^\\\\]))',|;|'\\s|'$)|(?<=(?:,|;|\\s|^))(?=[^'\"])(.*?)(?=(?:,|;|\\s|$))|(?<=,|;)($)");
-
-        if (lines.get(0).startsWith(";")) { //Matrix
-            //Fill the Labels array
-            String line0 = lines.get(0);
-            line0 = line0.substring(1, line0.length());
-            lines.remove(0);
-            Matcher m = pattern.matcher(line0); //Remove the first ";"
-            List<String> labels = new ArrayList<String>();
-            while (m.find()) {
-                int start = m.start();
-                int end = m.end();
-                if (start != end) {
-                    String data = line0.substring(start, end);
-                    data = data.trim();
-                    if (!data.isEmpty() && !data.toLowerCase().equals("null")) {
-                        labels.add(data);
+        labels = null;
+        matrixRow = 0;
+        position = 0;
+        ExecutorService pool = null;
+        LinkedList<Future<Chunk>> futures = new LinkedList<Future<Chunk>>();
+        try {
+            char[] buffer = new char[bufferSize];
+            int length = 0;
+            boolean first = true;
+            boolean last = false;
+            while (!last && !cancel) {
+                //Fill the buffer, growing it for lines longer than the buffer
+                int read = fill(reader, buffer, length);
+                last = read < buffer.length - length;
+                length += read;
+                int end = last ? length : lastLineEnd(buffer, length);
+                if (end < 0) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                if (first) {
+                    matrix = isMatrix(buffer, end);
+                    first = false;
+                }
+
+                //The rest of the last line is carried to the next buffer
+                if (threadCount > 1 && !(pool == null && last)) {
+                    if (pool == null) {
+                        pool = Executors.newFixedThreadPool(threadCount);
+                    }
+                    char[] next = new char[Math.max(bufferSize, (length - end) * 2)];
+                    System.arraycopy(buffer, end, next, 0, length - end);
+                    futures.add(pool.submit(new Chunk(buffer, end)));
+                    buffer = next;
+                    while (futures.size() >= 2 * threadCount && !cancel) {
+                        merge(futures.removeFirst().get());
+                    }
+                } else {
+                    while (!futures.isEmpty() && !cancel) {
+                        merge(futures.removeFirst().get());
                     }
+                    merge(new Chunk(buffer, end).call());
+                    System.arraycopy(buffer, end, buffer, 0, length - end);
                 }
+                length -= end;
             }
+            while (!futures.isEmpty() && !cancel) {
+                merge(futures.removeFirst().get());
+            }
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            if (pool != null) {
+                for (Future<Chunk> future : futures) {
+                    future.cancel(true);
+                }
+                pool.shutdown();
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+            }
+        }
 
-            int size = lines.size();
-            if (size != labels.size()) {
-                throw new Exception("Inconsistent number of matrix lines compared to the number of labels.");
+        if (!cancel && matrix && labels != null && matrixRow != labels.size()) {
+            throw new Exception("Inconsistent number of matrix lines compared to the number of labels.");
+        }
+        Progress.finish(progressTicket);
+    }
+
+    /**
+     * Reads until <code>buffer</code> is full or the reader is exhausted and
+     * returns the number of characters read.
+     */
+    private static int fill(Reader reader, char[] buffer, int from) throws IOException {
+        int length = from;
+        while (length < buffer.length) {
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
             }
+            length += read;
+        }
+        return length - from;
+    }
 
-            for (int i = 0; i < size; i++) {
-                if (cancel) {
-                    return;
+    /**
+     * Returns the index following the last line feed or carriage return, or
+     * -1 if there is none. A CRLF cut after its carriage return leaves an
+     * empty line to the next buffer, which is skipped.
+     */
+    private static int lastLineEnd(char[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n' || buffer[i] == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the UTF-8 encoded length of the first <code>length</code>
+     * characters, which is how far the file was read for UTF-8 and ASCII
+     * files, and a close estimate for other charsets.
+     */
+    static long utf8Length(char[] chars, int length) {
+        long bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                //Surrogate pairs encode in four bytes
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isMatrix(char[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (c != '\n' && c != '\r' && c != '\uFEFF') {
+                return c == ';';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits the lines of <code>chars</code> into fields. Lines end with LF,
+     * CRLF or a lone CR. Lines without fields are left out.
+     */
+    static List<String[]> parse(char[] chars, int from, int to) {
+        List<String[]> records = new ArrayList<String[]>();
+        List<String> fields = new ArrayList<String>();
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && chars[lineEnd] != '\n' && chars[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (next < to && chars[lineEnd] == '\r' && chars[next] == '\n') {
+                next++;
+            }
+            parseLine(chars, lineStart, lineEnd, fields);
+            if (!fields.isEmpty()) {
+                records.add(fields.toArray(new String[fields.size()]));
+                fields.clear();
+            }
+            lineStart = next;
+        }
+        return records;
+    }
+
+    private static void parseLine(char[] chars, int from, int to, List<String> fields) {
+        //A comma or semicolon directly after another one, or at the beginning
+        //or the end of the line, delimits an empty field
+        boolean afterDelimiter = true;
+        int i = from;
+        while (i < to) {
+            char c = chars[i];
+            if (c == ' ' || c == '\t' || c == '\uFEFF') {
+                i++;
+            } else if (c == ',' || c == ';') {
+                if (afterDelimiter) {
+                    fields.add("");
                 }
-                String line = lines.get(i);
-                m = pattern.matcher(line);
-                int count = -1;
-                String sourceID = "";
-                while (m.find()) {
-                    int start = m.start();
-                    int end = m.end();
-                    if (start != end) {
-                        String data = line.substring(start, end);
-                        data = data.trim();
-                        if (!data.isEmpty() && !data.toLowerCase().equals("null")) {
-                            if (count == -1) {
-                                sourceID = data;
-                                addNode(sourceID, labels.get(i));
-                            } else if (!data.equals("0")) {
-                                //Create Edge
-                                addEdge(sourceID, labels.get(count), Float.parseFloat(data));
-                            }
-                        }
+                afterDelimiter = true;
+                i++;
+            } else if (c == '"' || c == '\'') {
+                //Quoted field, the quote can be escaped with a backslash
+                int start = ++i;
+                boolean escaped = false;
+                while (i < to && chars[i] != c) {
+                    if (chars[i] == '\\' && i + 1 < to && chars[i + 1] == c) {
+                        escaped = true;
+                        i++;
                     }
-                    count++;
+                    i++;
+                }
+                String field = new String(chars, start, i - start);
+                if (escaped) {
+                    field = field.replace("\\" + c, String.valueOf(c));
                 }
-                Progress.progress(progressTicket);      //Progress
+                fields.add(field.trim());
+                afterDelimiter = false;
+                i++;
+            } else {
+                int start = i;
+                while (i < to && (c = chars[i]) != ',' && c != ';' && c != ' ' && c != '\t') {
+                    i++;
+                }
+                fields.add(new String(chars, start, i - start));
+                afterDelimiter = false;
             }
-        } else { //Edge or Adjacency list
-            Matcher m;
-            for (String line : lines) {
-                if (cancel) {
-                    return;
+        }
+        if (afterDelimiter && !fields.isEmpty()) {
+            fields.add("");
+        }
+    }
+
+    private void merge(Chunk chunk) throws Exception {
+        if (cancel) {
+            return;
+        }
+        for (String[] record : chunk.records) {
+            if (!matrix) {
+                //Edge or Adjacency list
+                String sourceID = null;
+                for (int i = 0; i < record.length; i++) {
+                    String data = record[i];
+                    if (isEmpty(data)) {
+                        continue;
+                    }
+                    if (i == 0) {
+                        sourceID = data;
+                        addNode(sourceID, data);
+                    } else if (sourceID != null) {
+                        //Create Edge
+                        addEdge(sourceID, data);
+                    }
+                }
+            } else if (labels == null) {
+                //Fill the Labels array
+                labels = new ArrayList<String>();
+                for (String data : record) {
+                    if (!isEmpty(data)) {
+                        labels.add(data);
+                    }
+                }
+            } else {
+                if (matrixRow >= labels.size()) {
+                    throw new Exception("Inconsistent number of matrix lines compared to the number of labels.");
                 }
-                m = pattern.matcher(line);
-                int count = 0;
-                String sourceID = "";
-                while (m.find()) {
-                    int start = m.start();
-                    int end = m.end();
-                    if (start != end) {
-                        String data = line.substring(start, end);
-                        data = data.trim();
-                        if (!data.isEmpty() && !data.toLowerCase().equals("null")) {
-                            if (count == 0) {
-                                sourceID = data;
-                                addNode(sourceID, data);
-                            } else {
-                                //Create Edge
-                                addEdge(sourceID, data);
-                            }
+                String sourceID = null;
+                for (int i = 0; i < record.length; i++) {
+                    String data = record[i];
+                    if (isEmpty(data)) {
+                        continue;
+                    }
+                    if (i == 0) {
+                        sourceID = data;
+                        addNode(sourceID, labels.get(matrixRow));
+                    } else if (sourceID != null && !data.equals("0")) {
+                        if (i > labels.size()) {
+                            throw new Exception("Inconsistent number of matrix columns compared to the number of labels.");
                         }
+                        //Create Edge
+                        addEdge(sourceID, labels.get(i - 1), Float.parseFloat(data));
                     }
-                    count++;
                 }
-                Progress.progress(progressTicket);      //Progress
+                matrixRow++;
             }
         }
+        position += chunk.bytes;
+        if (fileLength > 0) {
+            Progress.progress(progressTicket, (int) (Math.min(position, fileLength) >> 10));      //Progress
+        }
+    }
 
+    private static boolean isEmpty(String data) {
+        return data.isEmpty() || data.equalsIgnoreCase("null");
     }
 
     private void addNode(String id, String label) {
@@ -219,11 +422,35 @@ public class ImporterCSV implements FileImporter, LongTask {
         container.addEdge(edge);
     }
 
+    /**
+     * Sets the number of threads splitting lines into fields, one by
+     * default.
+     *
+     * @param threadCount the thread count, at least one
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
     @Override
     public void setReader(Reader reader) {
         this.reader = reader;
     }
 
+    @Override
+    public void setFile(File file) {
+        //The length is read now as temporary files can be deleted before import
+        this.fileLength = file != null ? file.length() : 0;
+    }
+
     @Override
     public ContainerLoader getContainer() {
         return container;
@@ -244,4 +471,29 @@ public class ImporterCSV implements FileImporter, LongTask {
     public void setProgressTicket(ProgressTicket progressTicket) {
         this.progressTicket = progressTicket;
     }
+
+    /**
+     * Lines of the file, from the end of the previous chunk to a line
+     * boundary, and their fields once parsed.
+     */
+    private static class Chunk implements Callable<Chunk> {
+
+        private char[] chars;
+        private final int length;
+        private List<String[]> records;
+        private long bytes;
+
+        public Chunk(char[] chars, int length) {
+            this.chars = chars;
+            this.length = length;
+        }
+
+        @Override
+        public Chunk call() {
+            records = parse(chars, 0, length);
+            bytes = utf8Length(chars, length);
+            chars = null;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,553 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>, Sebastien Heymann <sebastien.heymann@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.importer.plugin.file;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import org.gephi.io.exporter.plugin.GBINFormat;
+import org.gephi.io.importer.api.ColumnDraft;
+import org.gephi.io.importer.api.ContainerLoader;
+import org.gephi.io.importer.api.EdgeDirection;
+import org.gephi.io.importer.api.EdgeDirectionDefault;
+import org.gephi.io.importer.api.EdgeDraft;
+import org.gephi.io.importer.api.ElementDraft;
+import org.gephi.io.importer.api.Issue;
+import org.gephi.io.importer.api.NodeDraft;
+import org.gephi.io.importer.api.Report;
+import org.gephi.io.importer.spi.FileImporter;
+import org.gephi.utils.longtask.spi.LongTask;
+import org.gephi.utils.progress.Progress;
+import org.gephi.utils.progress.ProgressTicket;
+import org.openide.util.NbBundle;
+
+/**
+ * Importer for the GBIN binary graph format written by the GBIN exporter.
+ * The layout of the file is described in {@link GBINFormat}.
+ * <p>
+ * The file is memory-mapped and its arrays are read in bulk. Edges refer to
+ * nodes by their index in the node table, so no id lookup is needed.
+ *
+ * @author Mathieu Bastian
+ */
+public class ImporterGBIN implements FileImporter, FileImporter.FileAware, LongTask {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    //Architecture
+    private File file;
+    private ContainerLoader container;
+    private Report report;
+    private ProgressTicket progressTicket;
+    private boolean cancel = false;
+
+    @Override
+    public boolean execute(ContainerLoader container) {
+        this.container = container;
+        this.report = new Report();
+        if (file == null) {
+            report.logIssue(new Issue(NbBundle.getMessage(ImporterGBIN.class, "importerGBIN_error_nofile"), Issue.Level.CRITICAL));
+            return false;
+        }
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                importData(new MappedInput(randomAccessFile.getChannel()));
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return !cancel;
+    }
+
+    private void importData(MappedInput input) throws IOException {
+        Progress.start(progressTicket);        //Progress
+
+        //Header
+        if (input.length() < GBINFormat.HEADER_SIZE + 4 || input.getInt() != GBINFormat.MAGIC || input.getInt() != GBINFormat.VERSION) {
+            report.logIssue(new Issue(NbBundle.getMessage(ImporterGBIN.class, "importerGBIN_error_format"), Issue.Level.CRITICAL));
+            return;
+        }
+        //Cancelled exports have no end marker
+        if (input.getIntAt(input.length() - 4) != GBINFormat.END) {
+            report.logIssue(new Issue(NbBundle.getMessage(ImporterGBIN.class, "importerGBIN_error_incomplete"), Issue.Level.CRITICAL));
+            return;
+        }
+        int flags = input.getInt();
+        int nodeCount = input.getInt();
+        int edgeCount = input.getInt();
+        int nodeColumnCount = input.getInt();
+        int edgeColumnCount = input.getInt();
+        boolean mixed = (flags & (GBINFormat.FLAG_DIRECTED | GBINFormat.FLAG_UNDIRECTED)) == 0;
+        if ((flags & GBINFormat.FLAG_DIRECTED) != 0) {
+            container.setEdgeDefault(EdgeDirectionDefault.DIRECTED);
+        } else if ((flags & GBINFormat.FLAG_UNDIRECTED) != 0) {
+            container.setEdgeDefault(EdgeDirectionDefault.UNDIRECTED);
+        } else {
+            container.setEdgeDefault(EdgeDirectionDefault.MIXED);
+        }
+        Progress.switchToDeterminate(progressTicket, nodeCount + edgeCount);
+
+        //Nodes
+        NodeDraft[] nodes = new NodeDraft[nodeCount];
+        String[] ids = input.getStrings(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = container.factory().newNodeDraft(ids[i]);
+        }
+        ids = null;
+        if ((flags & GBINFormat.FLAG_NODE_LABELS) != 0) {
+            String[] labels = input.getStrings(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i].setLabel(labels[i]);
+            }
+        }
+        if ((flags & GBINFormat.FLAG_VIZ) != 0) {
+            float[] values = new float[nodeCount];
+            input.getFloats(values);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i].setX(values[i]);
+            }
+            input.getFloats(values);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i].setY(values[i]);
+            }
+            input.getFloats(values);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i].setZ(values[i]);
+            }
+            input.getFloats(values);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i].setSize(values[i]);
+            }
+            int[] colors = new int[nodeCount];
+            input.getInts(colors);
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i].setColor(new Color(colors[i], true));
+            }
+        }
+        for (NodeDraft node : nodes) {
+            container.addNode(node);
+        }
+        Progress.progress(progressTicket, nodeCount);
+
+        //Edges
+        String[] edgeIds = input.getStrings(edgeCount);
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        input.getInts(sources);
+        input.getInts(targets);
+        for (int i = 0; i < edgeCount; i++) {
+            if (sources[i] < 0 || sources[i] >= nodeCount || targets[i] < 0 || targets[i] >= nodeCount) {
+                report.logIssue(new Issue(NbBundle.getMessage(ImporterGBIN.class, "importerGBIN_error_edgenode", edgeIds[i]), Issue.Level.CRITICAL));
+                return;
+            }
+        }
+        byte[] directions = null;
+        if (mixed) {
+            directions = new byte[edgeCount];
+            input.getBytes(directions);
+        }
+        double[] weights = null;
+        if ((flags & GBINFormat.FLAG_WEIGHTS) != 0) {
+            weights = new double[edgeCount];
+            input.getDoubles(weights);
+        }
+        String[] labels = null;
+        if ((flags & GBINFormat.FLAG_EDGE_LABELS) != 0) {
+            labels = input.getStrings(edgeCount);
+        }
+        EdgeDraft[] edges = new EdgeDraft[edgeCount];
+        for (int i = 0; i < edgeCount && !cancel; i++) {
+            EdgeDraft edge = container.factory().newEdgeDraft(edgeIds[i]);
+            edge.setSource(nodes[sources[i]]);
+            edge.setTarget(nodes[targets[i]]);
+            if (directions != null) {
+                edge.setDirection(directions[i] != 0 ? EdgeDirection.DIRECTED : EdgeDirection.UNDIRECTED);
+            }
+            if (weights != null) {
+                edge.setWeight(weights[i]);
+            }
+            if (labels != null) {
+                edge.setLabel(labels[i]);
+            }
+            container.addEdge(edge);
+            edges[i] = edge;
+        }
+        edgeIds = null;
+        sources = null;
+        targets = null;
+        Progress.progress(progressTicket, nodeCount + edgeCount);
+
+        //Attributes
+        for (int i = 0; i < nodeColumnCount && !cancel; i++) {
+            readColumn(input, nodes, true);
+        }
+        for (int i = 0; i < edgeColumnCount && !cancel; i++) {
+            readColumn(input, edges, false);
+        }
+
+        Progress.finish(progressTicket);
+    }
+
+    private void readColumn(MappedInput input, ElementDraft[] elements, boolean nodeColumn) throws IOException {
+        String id = input.getStrings(1)[0];
+        String title = input.getStrings(1)[0];
+        byte type = input.getByte();
+        boolean dynamic = input.getByte() != 0;
+        Class typeClass = GBINFormat.getType(type);
+        ColumnDraft column = nodeColumn ? container.addNodeColumn(id, typeClass, dynamic) : container.addEdgeColumn(id, typeClass, dynamic);
+        if (column != null && title != null) {
+            column.setTitle(title);
+        }
+
+        int count = elements.length;
+        if (!dynamic) {
+            Object[] values = readValues(input, type, count);
+            for (int i = 0; i < count; i++) {
+                if (values[i] != null && elements[i] != null) {
+                    elements[i].setValue(id, values[i]);
+                }
+            }
+            return;
+        }
+
+        //Timestamp count of each element, then all timestamps and values
+        int[] counts = new int[count];
+        input.getInts(counts);
+        int total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        double[] timestamps = new double[total];
+        input.getDoubles(timestamps);
+        Object[] values = readValues(input, type, total);
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < counts[i]; j++, index++) {
+                if (values[index] != null && elements[i] != null) {
+                    elements[i].setValue(id, values[index], timestamps[index]);
+                }
+            }
+        }
+    }
+
+    private Object[] readValues(MappedInput input, byte type, int count) throws IOException {
+        if (type == GBINFormat.TYPE_STRING) {
+            return input.getStrings(count);
+        }
+
+        byte[] bitmap = new byte[(count + 7) / 8];
+        input.getBytes(bitmap);
+        Object[] values = new Object[count];
+        switch (type) {
+            case GBINFormat.TYPE_INT: {
+                int[] array = new int[count];
+                input.getInts(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i];
+                }
+                break;
+            }
+            case GBINFormat.TYPE_LONG: {
+                long[] array = new long[count];
+                input.getLongs(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i];
+                }
+                break;
+            }
+            case GBINFormat.TYPE_FLOAT: {
+                float[] array = new float[count];
+                input.getFloats(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i];
+                }
+                break;
+            }
+            case GBINFormat.TYPE_DOUBLE: {
+                double[] array = new double[count];
+                input.getDoubles(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i];
+                }
+                break;
+            }
+            case GBINFormat.TYPE_SHORT: {
+                short[] array = new short[count];
+                input.getShorts(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i];
+                }
+                break;
+            }
+            case GBINFormat.TYPE_CHAR: {
+                short[] array = new short[count];
+                input.getShorts(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = (char) array[i];
+                }
+                break;
+            }
+            case GBINFormat.TYPE_BYTE: {
+                byte[] array = new byte[count];
+                input.getBytes(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i];
+                }
+                break;
+            }
+            default: {
+                byte[] array = new byte[count];
+                input.getBytes(array);
+                for (int i = 0; i < count; i++) {
+                    values[i] = array[i] != 0;
+                }
+                break;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((bitmap[i >> 3] & (1 << (i & 7))) == 0) {
+                values[i] = null;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void setReader(Reader reader) {
+        //The file is mapped instead
+    }
+
+    @Override
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public ContainerLoader getContainer() {
+        return container;
+    }
+
+    @Override
+    public Report getReport() {
+        return report;
+    }
+
+    @Override
+    public boolean cancel() {
+        cancel = true;
+        return true;
+    }
+
+    @Override
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        this.progressTicket = progressTicket;
+    }
+
+    /**
+     * Little-endian reader over a memory-mapped file channel. The file is
+     * mapped in windows of at most 1 GB, remapped as reading goes forward, so
+     * files larger than a single mapping can be read.
+     */
+    private static class MappedInput {
+
+        private static final long WINDOW_SIZE = 1 << 30;
+        private final FileChannel channel;
+        private final long length;
+        private MappedByteBuffer buffer;
+        private long bufferPosition;
+
+        public MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.length = channel.size();
+            map(0);
+        }
+
+        public long length() {
+            return length;
+        }
+
+        private void map(long position) throws IOException {
+            bufferPosition = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, length - position));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Remaps the window at the current position when it has less than
+         * <code>bytes</code> remaining.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                long position = bufferPosition + buffer.position();
+                if (length - position < bytes) {
+                    throw new IOException("Unexpected end of file");
+                }
+                map(position);
+            }
+        }
+
+        public byte getByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        public int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        /**
+         * Reads the int at <code>position</code> without moving the current
+         * position.
+         */
+        public int getIntAt(long position) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, position + bytes.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            return bytes.getInt(0);
+        }
+
+        public void getBytes(byte[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                ensure(1);
+                int count = Math.min(buffer.remaining(), array.length - offset);
+                buffer.get(array, offset, count);
+                offset += count;
+            }
+        }
+
+        public void getInts(int[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                ensure(4);
+                int count = Math.min(buffer.remaining() / 4, array.length - offset);
+                buffer.asIntBuffer().get(array, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+            }
+        }
+
+        public void getShorts(short[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                ensure(2);
+                int count = Math.min(buffer.remaining() / 2, array.length - offset);
+                buffer.asShortBuffer().get(array, offset, count);
+                buffer.position(buffer.position() + count * 2);
+                offset += count;
+            }
+        }
+
+        public void getLongs(long[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                ensure(8);
+                int count = Math.min(buffer.remaining() / 8, array.length - offset);
+                buffer.asLongBuffer().get(array, offset, count);
+                buffer.position(buffer.position() + count * 8);
+                offset += count;
+            }
+        }
+
+        public void getFloats(float[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                ensure(4);
+                int count = Math.min(buffer.remaining() / 4, array.length - offset);
+                buffer.asFloatBuffer().get(array, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+            }
+        }
+
+        public void getDoubles(double[] array) throws IOException {
+            int offset = 0;
+            while (offset < array.length) {
+                ensure(8);
+                int count = Math.min(buffer.remaining() / 8, array.length - offset);
+                buffer.asDoubleBuffer().get(array, offset, count);
+                buffer.position(buffer.position() + count * 8);
+                offset += count;
+            }
+        }
+
+        /**
+         * Reads a string table of <code>count</code> strings.
+         */
+        public String[] getStrings(int count) throws IOException {
+            int[] lengths = new int[count];
+            getInts(lengths);
+            String[] strings = new String[count];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int stringLength = lengths[i];
+                if (stringLength >= 0) {
+                    if (stringLength > bytes.length) {
+                        bytes = new byte[Math.max(stringLength, bytes.length * 2)];
+                    }
+                    int offset = 0;
+                    while (offset < stringLength) {
+                        ensure(1);
+                        int n = Math.min(buffer.remaining(), stringLength - offset);
+                        buffer.get(bytes, offset, n);
+                        offset += n;
+                    }
+                    strings[i] = new String(bytes, 0, stringLength, UTF8);
+                }
+            }
+            return strings;
+        }
+    }
+}
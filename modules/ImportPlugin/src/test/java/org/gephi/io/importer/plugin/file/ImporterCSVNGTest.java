@@ -0,0 +1,142 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.io.importer.plugin.file;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.gephi.io.importer.api.EdgeDraft;
+import org.gephi.io.importer.api.NodeDraft;
+import org.gephi.io.importer.impl.ImportContainerImpl;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class ImporterCSVNGTest {
+
+    private static final String EDGE_LIST = "a,b\r\n"
+            + "\"node, with comma\";'node; with semicolon'\r\n"
+            + "'it\\'s quoted' \"a\" c\n"
+            + "\n"
+            + "a_node_with_a_name_longer_than_the_buffer;b\n"
+            + "c,\"d\"";
+    private static final String MATRIX = ";a;b;c\n"
+            + "a;0;1;2\r\n"
+            + "b;1;0;0\r\n"
+            + "c;\"2\";0;0\n";
+
+    @Test
+    public void testQuotedSeparators() {
+        char[] chars = "\"a,b\";'c;d' \"e f\",,'g\\'h'\n".toCharArray();
+        List<String[]> records = ImporterCSV.parse(chars, 0, chars.length);
+
+        assertEquals(records.size(), 1);
+        assertEquals(records.get(0), new String[]{"a,b", "c;d", "e f", "", "g'h"});
+    }
+
+    @Test
+    public void testEdgeList() {
+        ImportContainerImpl container = importString(EDGE_LIST, 1 << 20, 1);
+
+        assertEquals(getNodes(container).size(), 8);
+        List<String> edges = getEdges(container);
+        assertTrue(edges.contains("node, with comma>node; with semicolon"));
+        assertTrue(edges.contains("it's quoted>a"));
+        assertTrue(edges.contains("it's quoted>c"));
+        assertTrue(edges.contains("c>d"));
+    }
+
+    @Test
+    public void testChunkBoundaries() {
+        //Every buffer size cuts the lines, the quoted fields and the line
+        //feeds at a different place
+        ImportContainerImpl expected = importString(EDGE_LIST, 1 << 20, 1);
+        for (int bufferSize = 1; bufferSize < EDGE_LIST.length(); bufferSize++) {
+            for (int threadCount = 1; threadCount <= 3; threadCount += 2) {
+                ImportContainerImpl container = importString(EDGE_LIST, bufferSize, threadCount);
+                String message = "buffer " + bufferSize + ", threads " + threadCount;
+                assertEquals(getNodes(container), getNodes(expected), message);
+                assertEquals(getEdges(container), getEdges(expected), message);
+            }
+        }
+    }
+
+    @Test
+    public void testMatrixChunkBoundaries() {
+        ImportContainerImpl expected = importString(MATRIX, 1 << 20, 1);
+        assertEquals(getEdges(expected).size(), 4);
+        assertTrue(getEdges(expected).contains("a>c:2.0"));
+        for (int bufferSize = 1; bufferSize < MATRIX.length(); bufferSize++) {
+            for (int threadCount = 1; threadCount <= 3; threadCount += 2) {
+                ImportContainerImpl container = importString(MATRIX, bufferSize, threadCount);
+                String message = "buffer " + bufferSize + ", threads " + threadCount;
+                assertEquals(getEdges(container), getEdges(expected), message);
+            }
+        }
+    }
+
+    @Test
+    public void testCarriageReturnLineEnds() {
+        char[] chars = "a,b\rc,d\r\re,f\r\ng,h\r".toCharArray();
+        List<String[]> records = ImporterCSV.parse(chars, 0, chars.length);
+        assertEquals(records.size(), 4);
+        assertEquals(records.get(1), new String[]{"c", "d"});
+        assertEquals(records.get(3), new String[]{"g", "h"});
+
+        String[] strings = new String[]{EDGE_LIST, MATRIX};
+        for (String string : strings) {
+            String crOnly = string.replace("\r\n", "\r").replace('\n', '\r');
+            ImportContainerImpl expected = importString(string, 1 << 20, 1);
+            for (int bufferSize = 1; bufferSize <= crOnly.length(); bufferSize++) {
+                for (int threadCount = 1; threadCount <= 3; threadCount += 2) {
+                    ImportContainerImpl container = importString(crOnly, bufferSize, threadCount);
+                    String message = "buffer " + bufferSize + ", threads " + threadCount;
+                    assertEquals(getNodes(container), getNodes(expected), message);
+                    assertEquals(getEdges(container), getEdges(expected), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUtf8Length() throws Exception {
+        String string = "a\u00e9\u20ac\ud83d\ude00,";
+        char[] chars = string.toCharArray();
+        assertEquals(ImporterCSV.utf8Length(chars, chars.length), string.getBytes("UTF-8").length);
+    }
+
+    private ImportContainerImpl importString(String string, int bufferSize, int threadCount) {
+        ImporterCSV importer = new ImporterCSV();
+        importer.setBufferSize(bufferSize);
+        importer.setThreadCount(threadCount);
+        importer.setReader(new StringReader(string));
+        ImportContainerImpl container = new ImportContainerImpl();
+        assertTrue(importer.execute(container.getLoader()));
+        return container;
+    }
+
+    private List<String> getNodes(ImportContainerImpl container) {
+        List<String> nodes = new ArrayList<String>();
+        for (NodeDraft node : container.getUnloader().getNodes()) {
+            nodes.add(node.getId() + ":" + node.getLabel());
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
+    private List<String> getEdges(ImportContainerImpl container) {
+        List<String> edges = new ArrayList<String>();
+        for (EdgeDraft edge : container.getUnloader().getEdges()) {
+            String weight = edge.getWeight() != 1 ? ":" + edge.getWeight() : "";
+            edges.add(edge.getSource().getId() + ">" + edge.getTarget().getId() + weight);
+        }
+        Collections.sort(edges);
+        return edges;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.io.importer.plugin.file;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.attribute.api.AttributeModel;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.time.TimestampDoubleSet;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.io.exporter.plugin.ExporterGBIN;
+import org.gephi.io.exporter.plugin.GBINFormat;
+import org.gephi.io.importer.api.EdgeDraft;
+import org.gephi.io.importer.api.Issue;
+import org.gephi.io.importer.api.NodeDraft;
+import org.gephi.io.importer.impl.ImportContainerImpl;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class ImporterGBINNGTest {
+
+    private ProjectController pc;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testRoundTripNodesAndEdges() throws IOException {
+        GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Node node1 = graphModel.factory().newNode("a");
+        Node node2 = graphModel.factory().newNode("b");
+        node1.setLabel("Node A");
+        node1.setX(1.5f);
+        node1.setY(-2.5f);
+        node1.setZ(3f);
+        node1.setSize(12f);
+        node1.setColor(Color.RED);
+        graph.addNode(node1);
+        graph.addNode(node2);
+        Edge edge = graphModel.factory().newEdge("ab", node1, node2, 1f, true);
+        edge.setWeight(0.1);
+        graph.addEdge(edge);
+
+        ImportContainerImpl container = roundTrip(export());
+
+        Map<String, NodeDraft> nodes = getNodes(container);
+        assertEquals(nodes.size(), 2);
+        NodeDraft nodeDraft = nodes.get("a");
+        assertEquals(nodeDraft.getLabel(), "Node A");
+        assertEquals(nodeDraft.getX(), 1.5f);
+        assertEquals(nodeDraft.getY(), -2.5f);
+        assertEquals(nodeDraft.getZ(), 3f);
+        assertEquals(nodeDraft.getSize(), 12f);
+        assertEquals(nodeDraft.getColor(), Color.RED);
+        assertNotNull(nodes.get("b"));
+
+        Map<String, EdgeDraft> edges = getEdges(container);
+        assertEquals(edges.size(), 1);
+        EdgeDraft edgeDraft = edges.get("ab");
+        assertNotNull(edgeDraft);
+        assertEquals(edgeDraft.getSource().getId(), "a");
+        assertEquals(edgeDraft.getTarget().getId(), "b");
+        //Weights are not narrowed to float
+        assertEquals(edgeDraft.getWeight(), 0.1);
+    }
+
+    @Test
+    public void testRoundTripColumns() throws IOException {
+        GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
+        GraphModel graphModel = graphController.getGraphModel();
+        AttributeModel attributeModel = graphController.getAttributeModel();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Object[] values = new Object[]{42, 1L << 40, 1.25f, 0.1, true, (short) 7, (byte) -3, 'x', "text"};
+        Column[] columns = new Column[values.length];
+        for (int i = 0; i < values.length; i++) {
+            columns[i] = attributeModel.getNodeTable().addColumn("col" + i, values[i].getClass());
+        }
+        Column dynamicColumn = attributeModel.getNodeTable().addColumn("score", TimestampDoubleSet.class);
+
+        Node node1 = graphModel.factory().newNode("1");
+        Node node2 = graphModel.factory().newNode("2");
+        for (int i = 0; i < values.length; i++) {
+            node1.setAttribute(columns[i], values[i]);
+        }
+        node1.addTimestamp(2000.0);
+        node1.addTimestamp(2001.0);
+        node1.setAttribute(dynamicColumn, 1.0, 2000.0);
+        node1.setAttribute(dynamicColumn, 2.0, 2001.0);
+        graph.addNode(node1);
+        graph.addNode(node2);
+
+        ImportContainerImpl container = roundTrip(export());
+
+        Map<String, NodeDraft> nodes = getNodes(container);
+        NodeDraft nodeDraft1 = nodes.get("1");
+        NodeDraft nodeDraft2 = nodes.get("2");
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(nodeDraft1.getValue("col" + i), values[i], "col" + i);
+            assertNull(nodeDraft2.getValue("col" + i));
+        }
+        assertEquals(nodeDraft1.getValue("score", 2000.0), 1.0);
+        assertEquals(nodeDraft1.getValue("score", 2001.0), 2.0);
+        assertNull(nodeDraft2.getValue("score", 2000.0));
+    }
+
+    @Test
+    public void testIncompleteFileRejected() throws IOException {
+        GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        graph.addNode(graphModel.factory().newNode("a"));
+
+        //Drop the end marker, as an export cancelled halfway would
+        File file = export();
+        File truncated = File.createTempFile("incomplete", ".gbin");
+        truncated.deleteOnExit();
+        copy(file, truncated, file.length() - 4);
+
+        ImporterGBIN importer = new ImporterGBIN();
+        ImportContainerImpl container = new ImportContainerImpl();
+        importer.setFile(truncated);
+        //Critical issues are thrown by the report
+        try {
+            importer.execute(container.getLoader());
+            fail("The incomplete file was imported");
+        } catch (RuntimeException e) {
+            assertEquals(e.getMessage(), NbBundle.getMessage(ImporterGBIN.class, "importerGBIN_error_incomplete"));
+        }
+        Issue issue = importer.getReport().getIssues().get(0);
+        assertEquals(issue.getLevel(), Issue.Level.CRITICAL);
+    }
+
+    @Test
+    public void testEdgeNodeOutOfRangeRejected() throws IOException {
+        assertEquals(getNodes(roundTrip(writeEdge(0, 1))).size(), 2);
+
+        int[][] endpoints = new int[][]{{-1, 1}, {2, 1}, {0, -1}, {0, 2}, {Integer.MAX_VALUE, 0}};
+        for (int[] endpoint : endpoints) {
+            ImporterGBIN importer = new ImporterGBIN();
+            ImportContainerImpl container = new ImportContainerImpl();
+            importer.setFile(writeEdge(endpoint[0], endpoint[1]));
+            try {
+                importer.execute(container.getLoader());
+                fail("The edge " + endpoint[0] + " " + endpoint[1] + " was imported");
+            } catch (RuntimeException e) {
+                assertEquals(e.getMessage(), NbBundle.getMessage(ImporterGBIN.class, "importerGBIN_error_edgenode", "e"));
+            }
+            Issue issue = importer.getReport().getIssues().get(0);
+            assertEquals(issue.getLevel(), Issue.Level.CRITICAL);
+            assertFalse(container.getUnloader().getEdges().iterator().hasNext());
+        }
+    }
+
+    private File export() throws IOException {
+        File file = File.createTempFile("export", ".gbin");
+        file.deleteOnExit();
+        ExporterGBIN exporter = new ExporterGBIN();
+        exporter.setWorkspace(pc.getCurrentWorkspace());
+        OutputStream stream = new FileOutputStream(file);
+        try {
+            exporter.setOutputStream(stream);
+            assertTrue(exporter.execute());
+        } finally {
+            stream.close();
+        }
+        return file;
+    }
+
+    private ImportContainerImpl roundTrip(File file) {
+        ImporterGBIN importer = new ImporterGBIN();
+        ImportContainerImpl container = new ImportContainerImpl();
+        importer.setFile(file);
+        assertTrue(importer.execute(container.getLoader()));
+        return container;
+    }
+
+    private Map<String, NodeDraft> getNodes(ImportContainerImpl container) {
+        Map<String, NodeDraft> nodes = new HashMap<String, NodeDraft>();
+        for (NodeDraft node : container.getUnloader().getNodes()) {
+            nodes.put(node.getId(), node);
+        }
+        return nodes;
+    }
+
+    private Map<String, EdgeDraft> getEdges(ImportContainerImpl container) {
+        Map<String, EdgeDraft> edges = new HashMap<String, EdgeDraft>();
+        for (EdgeDraft edge : container.getUnloader().getEdges()) {
+            edges.put(edge.getId(), edge);
+        }
+        return edges;
+    }
+
+    /**
+     * Writes a GBIN file with the nodes "a" and "b" and a single directed
+     * edge "e" between the given node indices.
+     */
+    private static File writeEdge(int source, int target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(GBINFormat.MAGIC).putInt(GBINFormat.VERSION).putInt(GBINFormat.FLAG_DIRECTED);
+        buffer.putInt(2).putInt(1).putInt(0).putInt(0);
+        buffer.putInt(1).putInt(1).put((byte) 'a').put((byte) 'b');
+        buffer.putInt(1).put((byte) 'e');
+        buffer.putInt(source).putInt(target);
+        buffer.putInt(GBINFormat.END);
+
+        File file = File.createTempFile("edge", ".gbin");
+        file.deleteOnExit();
+        OutputStream output = new FileOutputStream(file);
+        try {
+            output.write(buffer.array(), 0, buffer.position());
+        } finally {
+            output.close();
+        }
+        return file;
+    }
+
+    private static void copy(File source, File destination, long length) throws IOException {
+        InputStream input = new FileInputStream(source);
+        OutputStream output = new FileOutputStream(destination);
+        try {
+            byte[] buffer = new byte[(int) length];
+            int offset = 0;
+            while (offset < length) {
+                offset += input.read(buffer, offset, (int) length - offset);
+            }
+            output.write(buffer);
+        } finally {
+            input.close();
+            output.close();
+        }
+    }
+}
@@ -77,14 +77,20 @@ public class ForceAtlas2 implements Layout {
     private boolean outboundAttractionDistribution;
     private boolean adjustSizes;
     private boolean barnesHutOptimize;
+    private boolean barnesHutQuadTree;
     private double barnesHutTheta;
     private boolean linLogMode;
     private boolean strongGravityMode;
     private int threadCount;
     private int currentThreadCount;
     private Region rootRegion;
+    private QuadTree quadTree;
     double outboundAttCompensation = 1;
     private ExecutorService pool;
+    private ForceAtlas2Data data;
+    //Force buffers of each thread, indexed by node store id
+    private double[][] threadDx;
+    private double[][] threadDy;
 
     public ForceAtlas2(ForceAtlas2Builder layoutBuilder) {
         this.layoutBuilder = layoutBuilder;
@@ -97,25 +103,14 @@ public class ForceAtlas2 implements Layout {
 
         graph = graphModel.getGraphVisible();
 
-        graph.readLock();
-        Node[] nodes = graph.getNodes().toArray();
-
         // Initialise layout data
-        for (Node n : nodes) {
-            if (n.getLayoutData() == null || !(n.getLayoutData() instanceof ForceAtlas2LayoutData)) {
-                ForceAtlas2LayoutData nLayout = new ForceAtlas2LayoutData();
-                n.setLayoutData(nLayout);
-            }
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-            nLayout.mass = 1 + graph.getDegree(n);
-            nLayout.old_dx = 0;
-            nLayout.old_dy = 0;
-            nLayout.dx = 0;
-            nLayout.dy = 0;
-        }
+        data = new ForceAtlas2Data();
 
         pool = Executors.newFixedThreadPool(threadCount);
         currentThreadCount = threadCount;
+        threadDx = new double[currentThreadCount][0];
+        threadDy = new double[currentThreadCount][0];
+        quadTree = new QuadTree(data, pool, currentThreadCount);
     }
 
     @Override
@@ -131,84 +126,78 @@ public class ForceAtlas2 implements Layout {
         Edge[] edges = graph.getEdges().toArray();
 
         // Initialise layout data
-        for (Node n : nodes) {
-            if (n.getLayoutData() == null || !(n.getLayoutData() instanceof ForceAtlas2LayoutData)) {
-                ForceAtlas2LayoutData nLayout = new ForceAtlas2LayoutData();
-                n.setLayoutData(nLayout);
+        data.prepare(graph, nodes);
+        int[] ids = data.ids;
+        for (int t = 0; t < currentThreadCount; t++) {
+            if (threadDx[t].length != data.getCapacity()) {
+                threadDx[t] = new double[data.getCapacity()];
+                threadDy[t] = new double[data.getCapacity()];
             }
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-            nLayout.mass = 1 + graph.getDegree(n);
-            nLayout.old_dx = nLayout.dx;
-            nLayout.old_dy = nLayout.dy;
-            nLayout.dx = 0;
-            nLayout.dy = 0;
         }
 
         // If Barnes Hut active, initialize root region
+        BarnesHutTree tree = null;
+        int[] order = ids;
         if (isBarnesHutOptimize()) {
-            rootRegion = new Region(nodes);
-            rootRegion.buildSubRegions();
+            if (isBarnesHutQuadTree()) {
+                quadTree.build(ids);
+                tree = quadTree;
+                // Threads go through nodes close to each other
+                order = quadTree.getOrder();
+            } else {
+                rootRegion = new Region(data, ids);
+                rootRegion.buildSubRegions();
+                tree = rootRegion;
+            }
         }
 
         // If outboundAttractionDistribution active, compensate.
         if (isOutboundAttractionDistribution()) {
             outboundAttCompensation = 0;
-            for (Node n : nodes) {
-                ForceAtlas2LayoutData nLayout = n.getLayoutData();
-                outboundAttCompensation += nLayout.mass;
+            for (int n : ids) {
+                outboundAttCompensation += data.mass[n];
             }
             outboundAttCompensation /= nodes.length;
         }
 
-        // Repulsion (and gravity)
-        // NB: Muti-threaded
-        RepulsionForce Repulsion = ForceFactory.builder.buildRepulsion(isAdjustSizes(), getScalingRatio());
-
-        int taskCount = 8 * currentThreadCount;  // The threadPool Executor Service will manage the fetching of tasks and threads.
-        // We make more tasks than threads because some tasks may need more time to compute.
-        ArrayList<Future> threads = new ArrayList();
-        for (int t = taskCount; t > 0; t--) {
-            int from = (int) Math.floor(nodes.length * (t - 1) / taskCount);
-            int to = (int) Math.floor(nodes.length * t / taskCount);
-            Future future = pool.submit(new NodesThread(nodes, from, to, isBarnesHutOptimize(), getBarnesHutTheta(), getGravity(), (isStrongGravityMode()) ? (ForceFactory.builder.getStrongGravity(getScalingRatio())) : (Repulsion), getScalingRatio(), rootRegion, Repulsion));
-            threads.add(future);
-        }
-        for (Future future : threads) {
-            try {
-                future.get();
-            } catch (InterruptedException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (ExecutionException ex) {
-                Exceptions.printStackTrace(ex);
+        // Repulsion, gravity and attraction
+        // NB: Muti-threaded, each thread adds to its own force buffers
+        RepulsionForce Repulsion = ForceFactory.builder.buildRepulsion(data, isAdjustSizes(), getScalingRatio());
+        RepulsionForce Gravity = (isStrongGravityMode()) ? (ForceFactory.builder.getStrongGravity(data, getScalingRatio())) : (Repulsion);
+        AttractionForce Attraction = ForceFactory.builder.buildAttraction(data, isLinLogMode(), isOutboundAttractionDistribution(), isAdjustSizes(), 1 * ((isOutboundAttractionDistribution()) ? (outboundAttCompensation) : (1)));
+
+        List<Runnable> tasks = new ArrayList<Runnable>(currentThreadCount);
+        for (int t = 0; t < currentThreadCount; t++) {
+            int repulsionFrom;
+            int repulsionTo;
+            if (isBarnesHutOptimize()) {
+                repulsionFrom = split(nodes.length, t);
+                repulsionTo = split(nodes.length, t + 1);
+            } else {
+                // Node i is repulsed by the i nodes before it, balance the triangle
+                repulsionFrom = (int) Math.floor(nodes.length * Math.sqrt((double) t / currentThreadCount));
+                repulsionTo = (int) Math.floor(nodes.length * Math.sqrt((double) (t + 1) / currentThreadCount));
             }
+            tasks.add(new NodesThread(order, repulsionFrom, repulsionTo, split(nodes.length, t), split(nodes.length, t + 1),
+                    edges, split(edges.length, t), split(edges.length, t + 1), threadDx[t], threadDy[t],
+                    isBarnesHutOptimize(), getBarnesHutTheta(), getGravity(), Gravity, getScalingRatio(), tree, Repulsion,
+                    Attraction, getEdgeWeightInfluence()));
         }
+        runAll(tasks);
 
-        // Attraction
-        AttractionForce Attraction = ForceFactory.builder.buildAttraction(isLinLogMode(), isOutboundAttractionDistribution(), isAdjustSizes(), 1 * ((isOutboundAttractionDistribution()) ? (outboundAttCompensation) : (1)));
-        if (getEdgeWeightInfluence() == 0) {
-            for (Edge e : edges) {
-                Attraction.apply(e.getSource(), e.getTarget(), 1);
-            }
-        } else if (getEdgeWeightInfluence() == 1) {
-            for (Edge e : edges) {
-                Attraction.apply(e.getSource(), e.getTarget(), e.getWeight());
-            }
-        } else {
-            for (Edge e : edges) {
-                Attraction.apply(e.getSource(), e.getTarget(), Math.pow(e.getWeight(), getEdgeWeightInfluence()));
-            }
+        // Sum the thread buffers, and how much irregular and useful movement there is
+        List<ReduceTask> reduceTasks = new ArrayList<ReduceTask>(currentThreadCount);
+        for (int t = 0; t < currentThreadCount; t++) {
+            reduceTasks.add(new ReduceTask(ids, split(nodes.length, t), split(nodes.length, t + 1)));
         }
+        runAll(reduceTasks);
 
         // Auto adjust speed
         double totalSwinging = 0d;  // How much irregular movement
         double totalEffectiveTraction = 0d;  // Hom much useful movement
-        for (Node n : nodes) {
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-            if (!n.isFixed()) {
-                double swinging = Math.sqrt(Math.pow(nLayout.old_dx - nLayout.dx, 2) + Math.pow(nLayout.old_dy - nLayout.dy, 2));
-                totalSwinging += nLayout.mass * swinging;   // If the node has a burst change of direction, then it's not converging.
-                totalEffectiveTraction += nLayout.mass * 0.5 * Math.sqrt(Math.pow(nLayout.old_dx + nLayout.dx, 2) + Math.pow(nLayout.old_dy + nLayout.dy, 2));
-            }
+        for (ReduceTask task : reduceTasks) {
+            totalSwinging += task.swinging;
+            totalEffectiveTraction += task.effectiveTraction;
         }
         // We want that swingingMovement < tolerance * convergenceMovement
         double targetSpeed = getJitterTolerance() * getJitterTolerance() * totalEffectiveTraction / totalSwinging;
@@ -218,47 +207,130 @@ public class ForceAtlas2 implements Layout {
         speed = speed + Math.min(targetSpeed - speed, maxRise * speed);
 
         // Apply forces
-        if (isAdjustSizes()) {
-            // If nodes overlap prevention is active, it's not possible to trust the swinging mesure.
-            for (Node n : nodes) {
-                ForceAtlas2LayoutData nLayout = n.getLayoutData();
-                if (!n.isFixed()) {
-
-                    // Adaptive auto-speed: the speed of each node is lowered
-                    // when the node swings.
-                    double swinging = Math.sqrt((nLayout.old_dx - nLayout.dx) * (nLayout.old_dx - nLayout.dx) + (nLayout.old_dy - nLayout.dy) * (nLayout.old_dy - nLayout.dy));
-                    double factor = 0.1 * speed / (1f + speed * Math.sqrt(swinging));
-
-                    double df = Math.sqrt(Math.pow(nLayout.dx, 2) + Math.pow(nLayout.dy, 2));
-                    factor = Math.min(factor * df, 10.) / df;
+        List<Runnable> moveTasks = new ArrayList<Runnable>(currentThreadCount);
+        for (int t = 0; t < currentThreadCount; t++) {
+            moveTasks.add(new MoveTask(nodes, ids, split(nodes.length, t), split(nodes.length, t + 1), speed, isAdjustSizes()));
+        }
+        runAll(moveTasks);
 
-                    double x = n.x() + nLayout.dx * factor;
-                    double y = n.y() + nLayout.dy * factor;
+        graph.readUnlockAll();
+    }
 
-                    n.setX((float) x);
-                    n.setY((float) y);
+    private int split(int length, int t) {
+        return (int) ((long) length * t / currentThreadCount);
+    }
+
+    private void runAll(List<? extends Runnable> tasks) {
+        ArrayList<Future> threads = new ArrayList<Future>();
+        for (Runnable task : tasks) {
+            threads.add(pool.submit(task));
+        }
+        for (Future future : threads) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Exceptions.printStackTrace(ex);
+            } catch (ExecutionException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+    }
+
+    /**
+     * Sums the thread force buffers of a range of nodes, clearing them for the
+     * next iteration, and measures the swinging and effective traction of the
+     * range.
+     */
+    private class ReduceTask implements Runnable {
+
+        private final int[] ids;
+        private final int from;
+        private final int to;
+        private double swinging;
+        private double effectiveTraction;
+
+        public ReduceTask(int[] ids, int from, int to) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            for (int i = from; i < to; i++) {
+                int n = ids[i];
+                double dx = 0;
+                double dy = 0;
+                for (int t = 0; t < threadDx.length; t++) {
+                    dx += threadDx[t][n];
+                    dy += threadDy[t][n];
+                    threadDx[t][n] = 0;
+                    threadDy[t][n] = 0;
+                }
+                data.dx[n] = dx;
+                data.dy[n] = dy;
+                if (!data.fixed[n]) {
+                    double nodeSwinging = Math.sqrt(Math.pow(data.old_dx[n] - dx, 2) + Math.pow(data.old_dy[n] - dy, 2));
+                    swinging += data.mass[n] * nodeSwinging;   // If the node has a burst change of direction, then it's not converging.
+                    effectiveTraction += data.mass[n] * 0.5 * Math.sqrt(Math.pow(data.old_dx[n] + dx, 2) + Math.pow(data.old_dy[n] + dy, 2));
                 }
             }
-        } else {
-            for (Node n : nodes) {
-                ForceAtlas2LayoutData nLayout = n.getLayoutData();
-                if (!n.isFixed()) {
+        }
+    }
+
+    /**
+     * Moves a range of nodes along their force.
+     */
+    private class MoveTask implements Runnable {
+
+        private final Node[] nodes;
+        private final int[] ids;
+        private final int from;
+        private final int to;
+        private final double speed;
+        private final boolean adjustSizes;
+
+        public MoveTask(Node[] nodes, int[] ids, int from, int to, double speed, boolean adjustSizes) {
+            this.nodes = nodes;
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.speed = speed;
+            this.adjustSizes = adjustSizes;
+        }
 
-                    // Adaptive auto-speed: the speed of each node is lowered
-                    // when the node swings.
-                    double swinging = Math.sqrt((nLayout.old_dx - nLayout.dx) * (nLayout.old_dx - nLayout.dx) + (nLayout.old_dy - nLayout.dy) * (nLayout.old_dy - nLayout.dy));
+        @Override
+        public void run() {
+            for (int i = from; i < to; i++) {
+                int n = ids[i];
+                if (data.fixed[n]) {
+                    continue;
+                }
+                double dx = data.dx[n];
+                double dy = data.dy[n];
+
+                // Adaptive auto-speed: the speed of each node is lowered
+                // when the node swings.
+                double swinging = Math.sqrt((data.old_dx[n] - dx) * (data.old_dx[n] - dx) + (data.old_dy[n] - dy) * (data.old_dy[n] - dy));
+                double factor;
+                if (adjustSizes) {
+                    // If nodes overlap prevention is active, it's not possible to trust the swinging mesure.
+                    factor = 0.1 * speed / (1f + speed * Math.sqrt(swinging));
+
+                    double df = Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
+                    factor = Math.min(factor * df, 10.) / df;
+                } else {
                     //double factor = speed / (1f + Math.sqrt(speed * swinging));
-                    double factor = speed / (1f + speed * Math.sqrt(swinging));
+                    factor = speed / (1f + speed * Math.sqrt(swinging));
+                }
 
-                    double x = n.x() + nLayout.dx * factor;
-                    double y = n.y() + nLayout.dy * factor;
+                double x = data.x[n] + dx * factor;
+                double y = data.y[n] + dy * factor;
 
-                    n.setX((float) x);
-                    n.setY((float) y);
-                }
+                nodes[i].setX((float) x);
+                nodes[i].setY((float) y);
             }
         }
-        graph.readUnlockAll();
     }
 
     @Override
@@ -268,9 +340,11 @@ public class ForceAtlas2 implements Layout {
 
     @Override
     public void endAlgo() {
-        for (Node n : graph.getNodes()) {
-            n.setLayoutData(null);
-        }
+        data = null;
+        quadTree = null;
+        rootRegion = null;
+        threadDx = null;
+        threadDy = null;
         pool.shutdown();
         graph.readUnlockAll();
     }
@@ -364,6 +438,14 @@ public class ForceAtlas2 implements Layout {
                     NbBundle.getMessage(getClass(), "ForceAtlas2.barnesHutTheta.desc"),
                     "getBarnesHutTheta", "setBarnesHutTheta"));
 
+            properties.add(LayoutProperty.createProperty(
+                    this, Boolean.class,
+                    NbBundle.getMessage(getClass(), "ForceAtlas2.barnesHutQuadTree.name"),
+                    FORCEATLAS2_PERFORMANCE,
+                    "ForceAtlas2.barnesHutQuadTree.name",
+                    NbBundle.getMessage(getClass(), "ForceAtlas2.barnesHutQuadTree.desc"),
+                    "isBarnesHutQuadTree", "setBarnesHutQuadTree"));
+
             properties.add(LayoutProperty.createProperty(
                     this, Integer.class,
                     NbBundle.getMessage(getClass(), "ForceAtlas2.threads.name"),
@@ -416,6 +498,7 @@ public class ForceAtlas2 implements Layout {
             setBarnesHutOptimize(false);
         }
         setBarnesHutTheta(1.2);
+        setBarnesHutQuadTree(true);
         setThreadsCount(2);
     }
 
@@ -522,4 +605,12 @@ public class ForceAtlas2 implements Layout {
     public void setBarnesHutOptimize(Boolean barnesHutOptimize) {
         this.barnesHutOptimize = barnesHutOptimize;
     }
+
+    public Boolean isBarnesHutQuadTree() {
+        return barnesHutQuadTree;
+    }
+
+    public void setBarnesHutQuadTree(Boolean barnesHutQuadTree) {
+        this.barnesHutQuadTree = barnesHutQuadTree;
+    }
 }
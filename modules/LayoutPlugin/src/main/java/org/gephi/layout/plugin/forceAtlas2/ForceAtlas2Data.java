@@ -0,0 +1,127 @@
+/*
+Copyright 2008-2011 Gephi
+Authors : Mathieu Jacomy <mathieu.jacomy@gmail.com>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.layout.plugin.forceAtlas2;
+
+import java.util.Arrays;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+
+/**
+ * Data used by ForceAtlas2, in dense arrays indexed by node store id.
+ * <p>
+ * Positions, sizes and masses are copied from the nodes at the beginning of
+ * each iteration. Forces and previous forces are kept from one iteration to
+ * the next.
+ *
+ * @author Mathieu Jacomy
+ */
+public class ForceAtlas2Data {
+
+    //Store id of each node of the current iteration, in graph order
+    public int[] ids = new int[0];
+    public double[] x = new double[0];
+    public double[] y = new double[0];
+    public double[] size = new double[0];
+    public double[] mass = new double[0];
+    public double[] dx = new double[0];
+    public double[] dy = new double[0];
+    public double[] old_dx = new double[0];
+    public double[] old_dy = new double[0];
+    public boolean[] fixed = new boolean[0];
+
+    /**
+     * Copies the state of <code>nodes</code> and starts a new iteration: the
+     * forces become the previous forces and are reset.
+     *
+     * @param graph the graph, read-locked by the caller
+     * @param nodes the nodes of this iteration
+     */
+    public void prepare(Graph graph, Node[] nodes) {
+        int maxId = -1;
+        for (Node n : nodes) {
+            maxId = Math.max(maxId, n.getStoreId());
+        }
+        ensureCapacity(maxId + 1);
+        if (ids.length != nodes.length) {
+            ids = new int[nodes.length];
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            Node n = nodes[i];
+            int id = n.getStoreId();
+            ids[i] = id;
+            x[id] = n.x();
+            y[id] = n.y();
+            size[id] = n.size();
+            mass[id] = 1 + graph.getDegree(n);
+            fixed[id] = n.isFixed();
+            old_dx[id] = dx[id];
+            old_dy[id] = dy[id];
+            dx[id] = 0;
+            dy[id] = 0;
+        }
+    }
+
+    /**
+     * Returns the length of the arrays, one more than the largest store id.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return dx.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= dx.length) {
+            return;
+        }
+        capacity = Math.max(capacity, dx.length + (dx.length >> 1));
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        size = Arrays.copyOf(size, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        old_dx = Arrays.copyOf(old_dx, capacity);
+        old_dy = Arrays.copyOf(old_dy, capacity);
+        fixed = Arrays.copyOf(fixed, capacity);
+    }
+}
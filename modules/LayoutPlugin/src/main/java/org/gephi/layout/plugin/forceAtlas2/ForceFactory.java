@@ -41,8 +41,6 @@
  */
 package org.gephi.layout.plugin.forceAtlas2;
 
-import org.gephi.graph.api.Node;
-
 /**
  * Generates the forces on demand, here are all the formulas for attraction and
  * repulsion.
@@ -58,62 +56,82 @@ public class ForceFactory {
 
     ;
 
-    public RepulsionForce buildRepulsion(boolean adjustBySize, double coefficient) {
+    public RepulsionForce buildRepulsion(ForceAtlas2Data data, boolean adjustBySize, double coefficient) {
         if (adjustBySize) {
-            return new linRepulsion_antiCollision(coefficient);
+            return new linRepulsion_antiCollision(data, coefficient);
         } else {
-            return new linRepulsion(coefficient);
+            return new linRepulsion(data, coefficient);
         }
     }
 
-    public RepulsionForce getStrongGravity(double coefficient) {
-        return new strongGravity(coefficient);
+    public RepulsionForce getStrongGravity(ForceAtlas2Data data, double coefficient) {
+        return new strongGravity(data, coefficient);
     }
 
-    public AttractionForce buildAttraction(boolean logAttraction, boolean distributedAttraction, boolean adjustBySize, double coefficient) {
+    public AttractionForce buildAttraction(ForceAtlas2Data data, boolean logAttraction, boolean distributedAttraction, boolean adjustBySize, double coefficient) {
         if (adjustBySize) {
             if (logAttraction) {
                 if (distributedAttraction) {
-                    return new logAttraction_degreeDistributed_antiCollision(coefficient);
+                    return new logAttraction_degreeDistributed_antiCollision(data, coefficient);
                 } else {
-                    return new logAttraction_antiCollision(coefficient);
+                    return new logAttraction_antiCollision(data, coefficient);
                 }
             } else {
                 if (distributedAttraction) {
-                    return new linAttraction_degreeDistributed_antiCollision(coefficient);
+                    return new linAttraction_degreeDistributed_antiCollision(data, coefficient);
                 } else {
-                    return new linAttraction_antiCollision(coefficient);
+                    return new linAttraction_antiCollision(data, coefficient);
                 }
             }
         } else {
             if (logAttraction) {
                 if (distributedAttraction) {
-                    return new logAttraction_degreeDistributed(coefficient);
+                    return new logAttraction_degreeDistributed(data, coefficient);
                 } else {
-                    return new logAttraction(coefficient);
+                    return new logAttraction(data, coefficient);
                 }
             } else {
                 if (distributedAttraction) {
-                    return new linAttraction_massDistributed(coefficient);
+                    return new linAttraction_massDistributed(data, coefficient);
                 } else {
-                    return new linAttraction(coefficient);
+                    return new linAttraction(data, coefficient);
                 }
             }
         }
     }
 
+    /*
+     * Forces read the node state from data, by store id, and add to the dx and
+     * dy arrays given to apply(), so that each thread can have its own.
+     */
     public abstract class AttractionForce {
 
-        public abstract void apply(Node n1, Node n2, double e); // Model for node-node attraction (e is for edge weight if needed)
+        protected final ForceAtlas2Data data;
+
+        public AttractionForce(ForceAtlas2Data data) {
+            this.data = data;
+        }
+
+        public abstract void apply(int n1, int n2, double e, double[] dx, double[] dy); // Model for node-node attraction (e is for edge weight if needed)
     }
 
     public abstract class RepulsionForce {
 
-        public abstract void apply(Node n1, Node n2);           // Model for node-node repulsion
+        protected final ForceAtlas2Data data;
 
-        public abstract void apply(Node n, Region r);           // Model for Barnes Hut approximation
+        public RepulsionForce(ForceAtlas2Data data) {
+            this.data = data;
+        }
 
-        public abstract void apply(Node n, double g);           // Model for gravitation (anti-repulsion)
+        public abstract void apply(int n1, int n2, double[] dx, double[] dy);           // Model for node-node repulsion
+
+        public abstract void apply(int n, double mass, double massCenterX, double massCenterY, double[] dx, double[] dy); // Model for Barnes Hut approximation
+
+        public void apply(int n, Region r, double[] dx, double[] dy) {
+            apply(n, r.getMass(), r.getMassCenterX(), r.getMassCenterY(), dx, dy);
+        }
+
+        public abstract void apply(int n, double g, double[] dx, double[] dy);           // Model for gravitation (anti-repulsion)
     }
 
     /*
@@ -123,65 +141,59 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public linRepulsion(double c) {
+        public linRepulsion(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * n1Layout.mass * n2Layout.mass / distance / distance;
+                double factor = coefficient * data.mass[n1] * data.mass[n2] / distance / distance;
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
 
         @Override
-        public void apply(Node n, Region r) {
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-
+        public void apply(int n, double mass, double massCenterX, double massCenterY, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n.x() - r.getMassCenterX();
-            double yDist = n.y() - r.getMassCenterY();
+            double xDist = data.x[n] - massCenterX;
+            double yDist = data.y[n] - massCenterY;
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * r.getMass() / distance / distance;
+                double factor = coefficient * data.mass[n] * mass / distance / distance;
 
-                nLayout.dx += xDist * factor;
-                nLayout.dy += yDist * factor;
+                dx[n] += xDist * factor;
+                dy[n] += yDist * factor;
             }
         }
 
         @Override
-        public void apply(Node n, double g) {
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-
+        public void apply(int n, double g, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n.x();
-            double yDist = n.y();
+            double xDist = data.x[n];
+            double yDist = data.y[n];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * g / distance;
+                double factor = coefficient * data.mass[n] * g / distance;
 
-                nLayout.dx -= xDist * factor;
-                nLayout.dy -= yDist * factor;
+                dx[n] -= xDist * factor;
+                dy[n] -= yDist * factor;
             }
         }
     }
@@ -193,79 +205,73 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public linRepulsion_antiCollision(double c) {
+        public linRepulsion_antiCollision(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1.size() - n2.size();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - data.size[n1] - data.size[n2];
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * n1Layout.mass * n2Layout.mass / distance / distance;
+                double factor = coefficient * data.mass[n1] * data.mass[n2] / distance / distance;
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
 
             } else if (distance < 0) {
-                double factor = 100 * coefficient * n1Layout.mass * n2Layout.mass;
+                double factor = 100 * coefficient * data.mass[n1] * data.mass[n2];
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
 
         @Override
-        public void apply(Node n, Region r) {
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-
+        public void apply(int n, double mass, double massCenterX, double massCenterY, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n.x() - r.getMassCenterX();
-            double yDist = n.y() - r.getMassCenterY();
+            double xDist = data.x[n] - massCenterX;
+            double yDist = data.y[n] - massCenterY;
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * r.getMass() / distance / distance;
+                double factor = coefficient * data.mass[n] * mass / distance / distance;
 
-                nLayout.dx += xDist * factor;
-                nLayout.dy += yDist * factor;
+                dx[n] += xDist * factor;
+                dy[n] += yDist * factor;
             } else if (distance < 0) {
-                double factor = -coefficient * nLayout.mass * r.getMass() / distance;
+                double factor = -coefficient * data.mass[n] * mass / distance;
 
-                nLayout.dx += xDist * factor;
-                nLayout.dy += yDist * factor;
+                dx[n] += xDist * factor;
+                dy[n] += yDist * factor;
             }
         }
 
         @Override
-        public void apply(Node n, double g) {
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-
+        public void apply(int n, double g, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n.x();
-            double yDist = n.y();
+            double xDist = data.x[n];
+            double yDist = data.y[n];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * g / distance;
+                double factor = coefficient * data.mass[n] * g / distance;
 
-                nLayout.dx -= xDist * factor;
-                nLayout.dy -= yDist * factor;
+                dx[n] -= xDist * factor;
+                dy[n] -= yDist * factor;
             }
         }
     }
@@ -274,35 +280,34 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public strongGravity(double c) {
+        public strongGravity(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2) {
+        public void apply(int n1, int n2, double[] dx, double[] dy) {
             // Not Relevant
         }
 
         @Override
-        public void apply(Node n, Region r) {
+        public void apply(int n, double mass, double massCenterX, double massCenterY, double[] dx, double[] dy) {
             // Not Relevant
         }
 
         @Override
-        public void apply(Node n, double g) {
-            ForceAtlas2LayoutData nLayout = n.getLayoutData();
-
+        public void apply(int n, double g, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n.x();
-            double yDist = n.y();
+            double xDist = data.x[n];
+            double yDist = data.y[n];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * g;
+                double factor = coefficient * data.mass[n] * g;
 
-                nLayout.dx -= xDist * factor;
-                nLayout.dy -= yDist * factor;
+                dx[n] -= xDist * factor;
+                dy[n] -= yDist * factor;
             }
         }
     }
@@ -314,27 +319,25 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public linAttraction(double c) {
+        public linAttraction(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
 
             // NB: factor = force / distance
             double factor = -coefficient * e;
 
-            n1Layout.dx += xDist * factor;
-            n1Layout.dy += yDist * factor;
+            dx[n1] += xDist * factor;
+            dy[n1] += yDist * factor;
 
-            n2Layout.dx -= xDist * factor;
-            n2Layout.dy -= yDist * factor;
+            dx[n2] -= xDist * factor;
+            dy[n2] -= yDist * factor;
         }
     }
 
@@ -345,27 +348,25 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public linAttraction_massDistributed(double c) {
+        public linAttraction_massDistributed(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
 
             // NB: factor = force / distance
-            double factor = -coefficient * e / n1Layout.mass;
+            double factor = -coefficient * e / data.mass[n1];
 
-            n1Layout.dx += xDist * factor;
-            n1Layout.dy += yDist * factor;
+            dx[n1] += xDist * factor;
+            dy[n1] += yDist * factor;
 
-            n2Layout.dx -= xDist * factor;
-            n2Layout.dy -= yDist * factor;
+            dx[n2] -= xDist * factor;
+            dy[n2] -= yDist * factor;
         }
     }
 
@@ -376,18 +377,16 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public logAttraction(double c) {
+        public logAttraction(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
@@ -395,11 +394,11 @@ public class ForceFactory {
                 // NB: factor = force / distance
                 double factor = -coefficient * e * Math.log(1 + distance) / distance;
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
     }
@@ -411,30 +410,28 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public logAttraction_degreeDistributed(double c) {
+        public logAttraction_degreeDistributed(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
-                double factor = -coefficient * e * Math.log(1 + distance) / distance / n1Layout.mass;
+                double factor = -coefficient * e * Math.log(1 + distance) / distance / data.mass[n1];
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
     }
@@ -446,29 +443,27 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public linAttraction_antiCollision(double c) {
+        public linAttraction_antiCollision(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1.size() - n2.size();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - data.size[n1] - data.size[n2];
 
             if (distance > 0) {
                 // NB: factor = force / distance
                 double factor = -coefficient * e;
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
     }
@@ -480,29 +475,27 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public linAttraction_degreeDistributed_antiCollision(double c) {
+        public linAttraction_degreeDistributed_antiCollision(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1.size() - n2.size();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - data.size[n1] - data.size[n2];
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = -coefficient * e / n1Layout.mass;
+                double factor = -coefficient * e / data.mass[n1];
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
     }
@@ -514,30 +507,28 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public logAttraction_antiCollision(double c) {
+        public logAttraction_antiCollision(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1.size() - n2.size();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - data.size[n1] - data.size[n2];
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
                 double factor = -coefficient * e * Math.log(1 + distance) / distance;
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
     }
@@ -549,30 +540,28 @@ public class ForceFactory {
 
         private double coefficient;
 
-        public logAttraction_degreeDistributed_antiCollision(double c) {
+        public logAttraction_degreeDistributed_antiCollision(ForceAtlas2Data data, double c) {
+            super(data);
             coefficient = c;
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            ForceAtlas2LayoutData n1Layout = n1.getLayoutData();
-            ForceAtlas2LayoutData n2Layout = n2.getLayoutData();
-
+        public void apply(int n1, int n2, double e, double[] dx, double[] dy) {
             // Get the distance
-            double xDist = n1.x() - n2.x();
-            double yDist = n1.y() - n2.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1.size() - n2.size();
+            double xDist = data.x[n1] - data.x[n2];
+            double yDist = data.y[n1] - data.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - data.size[n1] - data.size[n2];
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
-                double factor = -coefficient * e * Math.log(1 + distance) / distance / n1Layout.mass;
+                double factor = -coefficient * e * Math.log(1 + distance) / distance / data.mass[n1];
 
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
+                dx[n1] += xDist * factor;
+                dy[n1] += yDist * factor;
 
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                dx[n2] -= xDist * factor;
+                dy[n2] -= yDist * factor;
             }
         }
     }
@@ -41,30 +41,62 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.layout.plugin.forceAtlas2;
 
-import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Edge;
+import org.gephi.layout.plugin.forceAtlas2.ForceFactory.AttractionForce;
 import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 
 /**
+ * Computes the forces of one slice of the nodes and edges. Forces are added
+ * to the thread's own <code>dx</code> and <code>dy</code> buffers, indexed by
+ * store id, which <code>ForceAtlas2</code> sums once all threads are done.
  *
  * @author Mathieu Jacomy
  */
 public class NodesThread implements Runnable {
 
-    private Node[] nodes;
-    private int from;
-    private int to;
-    private Region rootRegion;
+    private final int[] nodes;
+    private final int repulsionFrom;
+    private final int repulsionTo;
+    private final int from;
+    private final int to;
+    private final Edge[] edges;
+    private final int edgesFrom;
+    private final int edgesTo;
+    private final double[] dx;
+    private final double[] dy;
+    private BarnesHutTree rootRegion;
     private boolean barnesHutOptimize;
     private RepulsionForce Repulsion;
     private double barnesHutTheta;
     private double gravity;
     private RepulsionForce GravityForce;
     private double scaling;
+    private AttractionForce Attraction;
+    private double edgeWeightInfluence;
 
-    public NodesThread(Node[] nodes, int from, int to, boolean barnesHutOptimize, double barnesHutTheta, double gravity, RepulsionForce GravityForce, double scaling, Region rootRegion, RepulsionForce Repulsion) {
+    /**
+     * @param nodes store ids of the nodes
+     * @param repulsionFrom first node whose repulsion this thread computes
+     * @param repulsionTo end of the repulsion range
+     * @param from first node whose gravity this thread computes
+     * @param to end of the gravity range
+     * @param edges the edges
+     * @param edgesFrom first edge whose attraction this thread computes
+     * @param edgesTo end of the attraction range
+     * @param dx this thread's force buffer, zero on entry
+     * @param dy this thread's force buffer, zero on entry
+     */
+    public NodesThread(int[] nodes, int repulsionFrom, int repulsionTo, int from, int to, Edge[] edges, int edgesFrom, int edgesTo, double[] dx, double[] dy, boolean barnesHutOptimize, double barnesHutTheta, double gravity, RepulsionForce GravityForce, double scaling, BarnesHutTree rootRegion, RepulsionForce Repulsion, AttractionForce Attraction, double edgeWeightInfluence) {
         this.nodes = nodes;
+        this.repulsionFrom = repulsionFrom;
+        this.repulsionTo = repulsionTo;
         this.from = from;
         this.to = to;
+        this.edges = edges;
+        this.edgesFrom = edgesFrom;
+        this.edgesTo = edgesTo;
+        this.dx = dx;
+        this.dy = dy;
         this.rootRegion = rootRegion;
         this.barnesHutOptimize = barnesHutOptimize;
         this.Repulsion = Repulsion;
@@ -72,30 +104,41 @@ public class NodesThread implements Runnable {
         this.gravity = gravity;
         this.GravityForce = GravityForce;
         this.scaling = scaling;
+        this.Attraction = Attraction;
+        this.edgeWeightInfluence = edgeWeightInfluence;
     }
 
     @Override
     public void run() {
         // Repulsion
         if (barnesHutOptimize) {
-            for (int nIndex = from; nIndex < to; nIndex++) {
-                Node n = nodes[nIndex];
-                rootRegion.applyForce(n, Repulsion, barnesHutTheta);
-            }
+            rootRegion.applyForce(nodes, repulsionFrom, repulsionTo, Repulsion, barnesHutTheta, dx, dy);
         } else {
-            for (int n1Index = from; n1Index < to; n1Index++) {
-                Node n1 = nodes[n1Index];
+            for (int n1Index = repulsionFrom; n1Index < repulsionTo; n1Index++) {
+                int n1 = nodes[n1Index];
                 for (int n2Index = 0; n2Index < n1Index; n2Index++) {
-                    Node n2 = nodes[n2Index];
-                    Repulsion.apply(n1, n2);
+                    Repulsion.apply(n1, nodes[n2Index], dx, dy);
                 }
             }
         }
 
         // Gravity
         for (int nIndex = from; nIndex < to; nIndex++) {
-            Node n = nodes[nIndex];
-            GravityForce.apply(n, gravity / scaling);
+            GravityForce.apply(nodes[nIndex], gravity / scaling, dx, dy);
+        }
+
+        // Attraction
+        for (int eIndex = edgesFrom; eIndex < edgesTo; eIndex++) {
+            Edge e = edges[eIndex];
+            double weight;
+            if (edgeWeightInfluence == 0) {
+                weight = 1;
+            } else if (edgeWeightInfluence == 1) {
+                weight = e.getWeight();
+            } else {
+                weight = Math.pow(e.getWeight(), edgeWeightInfluence);
+            }
+            Attraction.apply(e.getSource().getStoreId(), e.getTarget().getStoreId(), weight, dx, dy);
         }
     }
 }
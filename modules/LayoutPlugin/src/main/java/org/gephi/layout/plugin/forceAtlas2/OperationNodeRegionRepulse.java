@@ -41,7 +41,6 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.layout.plugin.forceAtlas2;
 
-import org.gephi.graph.api.Node;
 import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 
 /**
@@ -50,20 +49,24 @@ import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
  */
 public class OperationNodeRegionRepulse extends Operation {
 
-    private final Node n;
+    private final int n;
     private final Region r;
     private final RepulsionForce f;
+    private final double[] dx;
+    private final double[] dy;
     private final double theta;
 
-    public OperationNodeRegionRepulse(Node n, Region r, RepulsionForce f, double theta) {
+    public OperationNodeRegionRepulse(int n, Region r, RepulsionForce f, double theta, double[] dx, double[] dy) {
         this.n = n;
         this.f = f;
         this.r = r;
         this.theta = theta;
+        this.dx = dx;
+        this.dy = dy;
     }
 
     @Override
     public void execute() {
-        r.applyForce(n, f, theta);
+        r.applyForce(n, f, theta, dx, dy);
     }
 }
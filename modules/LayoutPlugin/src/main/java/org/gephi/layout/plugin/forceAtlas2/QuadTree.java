@@ -0,0 +1,514 @@
+/*
+ Copyright 2008-2011 Gephi
+ Authors : Mathieu Jacomy <mathieu.jacomy@gmail.com>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.layout.plugin.forceAtlas2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
+import org.openide.util.Exceptions;
+
+/**
+ * Barnes Hut optimization on a flat quadtree.
+ * <p>
+ * Nodes are sorted along a Morton (Z-order) curve, so that the nodes of every
+ * cell are a contiguous range of the sorted order. Cells are stored in
+ * parallel arrays, the children of a cell being next to each other, and all
+ * arrays are kept from one iteration to the next. Morton codes and subtrees
+ * are computed by the layout's threads, and the tree is traversed with an
+ * explicit stack.
+ * <p>
+ * Unlike {@link Region}, which splits at the center of mass, cells are split
+ * at their geometric center and levels where all nodes fall in the same
+ * quadrant are skipped.
+ *
+ * @author Mathieu Jacomy
+ */
+public class QuadTree implements BarnesHutTree {
+
+    //Morton codes have 16 bits per axis, which bounds the depth of the tree
+    private static final int MAX_DEPTH = 16;
+    //Cells with that many nodes or less are not split
+    private static final int LEAF_SIZE = 4;
+    //Subtrees given to each thread when building in parallel
+    private static final int TASKS_PER_THREAD = 8;
+    private final ForceAtlas2Data data;
+    private final ExecutorService pool;
+    private final int threadCount;
+    //Store ids sorted by Morton code, and the codes
+    private int[] order = new int[0];
+    private int[] codes = new int[0];
+    private int[] orderBuffer = new int[0];
+    private int[] codesBuffer = new int[0];
+    private int nodeCount;
+    //Bounding square
+    private double minX;
+    private double minY;
+    private double side;
+    //Cells, the root is cell 0
+    private int cellCount;
+    private int[] cellStart = new int[0];
+    private int[] cellEnd = new int[0];
+    private int[] cellLevel = new int[0];
+    private int[] cellChild = new int[0];
+    private int[] cellChildCount = new int[0];
+    private double[] cellMass = new double[0];
+    private double[] cellMassCenterX = new double[0];
+    private double[] cellMassCenterY = new double[0];
+    private double[] cellSize = new double[0];
+
+    /**
+     * @param data layout data the tree is built from
+     * @param pool thread pool used to build the tree, may be <code>null</code>
+     * when <code>threadCount</code> is 1
+     * @param threadCount number of threads of the pool
+     */
+    public QuadTree(ForceAtlas2Data data, ExecutorService pool, int threadCount) {
+        this.data = data;
+        this.pool = pool;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Rebuilds the tree from the current positions and masses of the given
+     * nodes.
+     *
+     * @param nodes store ids of the nodes
+     */
+    public void build(int[] nodes) {
+        nodeCount = nodes.length;
+        cellCount = 0;
+        if (nodeCount == 0) {
+            return;
+        }
+        ensureNodeCapacity(nodeCount);
+
+        // Bounding square
+        List<BoundsTask> boundsTasks = new ArrayList<BoundsTask>(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            boundsTasks.add(new BoundsTask(nodes, split(nodeCount, t), split(nodeCount, t + 1)));
+        }
+        runAll(boundsTasks);
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (BoundsTask task : boundsTasks) {
+            minX = Math.min(minX, task.minX);
+            minY = Math.min(minY, task.minY);
+            maxX = Math.max(maxX, task.maxX);
+            maxY = Math.max(maxY, task.maxY);
+        }
+        side = Math.max(maxX - minX, maxY - minY);
+        if (!(side > 0) || Double.isInfinite(side)) {
+            side = 1;
+        }
+
+        // Morton codes, then sort
+        List<Runnable> codeTasks = new ArrayList<Runnable>(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            codeTasks.add(new CodeTask(nodes, split(nodeCount, t), split(nodeCount, t + 1)));
+        }
+        runAll(codeTasks);
+        sort();
+
+        // Top of the tree, breadth first, until cells are small enough to be
+        // given to a thread
+        int grain = Math.max(LEAF_SIZE, nodeCount / (TASKS_PER_THREAD * threadCount));
+        ensureCellCapacity(1);
+        cellStart[0] = 0;
+        cellEnd[0] = nodeCount;
+        cellLevel[0] = 0;
+        int next = 1;
+        List<Integer> subtrees = new ArrayList<Integer>();
+        for (int cell = 0; cell < next; cell++) {
+            if (cellEnd[cell] - cellStart[cell] > grain) {
+                ensureCellCapacity(next + 4);
+                next = expand(cell, next);
+            } else {
+                subtrees.add(cell);
+            }
+        }
+        int topCount = next;
+
+        // Subtrees, each in its own block of cells. A subtree of n nodes has
+        // at most 2n - 1 cells, as every cell which is not a leaf has at least
+        // two children.
+        List<SubtreeTask> subtreeTasks = new ArrayList<SubtreeTask>(subtrees.size());
+        for (int cell : subtrees) {
+            subtreeTasks.add(new SubtreeTask(cell, next));
+            next += 2 * (cellEnd[cell] - cellStart[cell]) - 2;
+        }
+        ensureCellCapacity(next);
+        if (threadCount > 1) {
+            runAll(subtreeTasks);
+        } else {
+            for (SubtreeTask task : subtreeTasks) {
+                task.run();
+            }
+        }
+
+        // Top cells are after their parent, sum them bottom up
+        for (int cell = topCount - 1; cell >= 0; cell--) {
+            if (cellChildCount[cell] > 0) {
+                sumChildren(cell);
+            }
+        }
+        cellCount = next;
+    }
+
+    @Override
+    public void applyForce(int[] nodes, int from, int to, RepulsionForce Force, double theta, double[] dx, double[] dy) {
+        if (cellCount == 0) {
+            return;
+        }
+        // A cell pushes at most 4 children, and replaces itself
+        int[] stack = new int[3 * (MAX_DEPTH + 1) + 1];
+        for (int i = from; i < to; i++) {
+            int n = nodes[i];
+            double x = data.x[n];
+            double y = data.y[n];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int cell = stack[--top];
+                int start = cellStart[cell];
+                int end = cellEnd[cell];
+                if (end - start == 1) {
+                    // Single node, as Region does
+                    Force.apply(n, order[start], dx, dy);
+                    continue;
+                }
+                double xDist = x - cellMassCenterX[cell];
+                double yDist = y - cellMassCenterY[cell];
+                double distance = Math.sqrt(xDist * xDist + yDist * yDist);
+                if (distance * theta > cellSize[cell]) {
+                    Force.apply(n, cellMass[cell], cellMassCenterX[cell], cellMassCenterY[cell], dx, dy);
+                } else if (cellChildCount[cell] == 0) {
+                    for (int j = start; j < end; j++) {
+                        Force.apply(n, order[j], dx, dy);
+                    }
+                } else {
+                    int child = cellChild[cell];
+                    for (int c = child + cellChildCount[cell] - 1; c >= child; c--) {
+                        stack[top++] = c;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the store ids of the nodes sorted by Morton code, nodes close in
+     * this order are close in space. Only the first elements, as many as
+     * there are nodes, are meaningful.
+     *
+     * @return store ids in Morton order
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Splits a cell in its non-empty quadrants, the children being allocated
+     * from <code>next</code>.
+     *
+     * @return next free cell
+     */
+    private int expand(int cell, int next) {
+        int start = cellStart[cell];
+        int end = cellEnd[cell];
+        int level = cellLevel[cell];
+        cellChildCount[cell] = 0;
+        if (end - start > LEAF_SIZE) {
+            // Codes are sorted, skip levels where first and last node are in the same quadrant
+            while (level < MAX_DEPTH && quadrant(codes[start], level) == quadrant(codes[end - 1], level)) {
+                level++;
+            }
+        }
+        cellSize[cell] = Math.sqrt(2) * side / (1 << level);
+        if (end - start <= LEAF_SIZE || level == MAX_DEPTH) {
+            double mass = 0;
+            double massSumX = 0;
+            double massSumY = 0;
+            for (int i = start; i < end; i++) {
+                int n = order[i];
+                mass += data.mass[n];
+                massSumX += data.x[n] * data.mass[n];
+                massSumY += data.y[n] * data.mass[n];
+            }
+            cellMass[cell] = mass;
+            cellMassCenterX[cell] = massSumX / mass;
+            cellMassCenterY[cell] = massSumY / mass;
+            return next;
+        }
+
+        cellChild[cell] = next;
+        int childStart = start;
+        for (int q = 0; q < 4; q++) {
+            int childEnd = (q == 3) ? end : firstInQuadrant(childStart, end, level, q + 1);
+            if (childEnd > childStart) {
+                cellStart[next] = childStart;
+                cellEnd[next] = childEnd;
+                cellLevel[next] = level + 1;
+                cellChildCount[next] = 0;
+                next++;
+                cellChildCount[cell]++;
+            }
+            childStart = childEnd;
+        }
+        return next;
+    }
+
+    private int buildSubtree(int cell, int next) {
+        next = expand(cell, next);
+        int childCount = cellChildCount[cell];
+        if (childCount > 0) {
+            int child = cellChild[cell];
+            for (int c = child; c < child + childCount; c++) {
+                next = buildSubtree(c, next);
+            }
+            sumChildren(cell);
+        }
+        return next;
+    }
+
+    private void sumChildren(int cell) {
+        double mass = 0;
+        double massSumX = 0;
+        double massSumY = 0;
+        int child = cellChild[cell];
+        for (int c = child; c < child + cellChildCount[cell]; c++) {
+            mass += cellMass[c];
+            massSumX += cellMassCenterX[c] * cellMass[c];
+            massSumY += cellMassCenterY[c] * cellMass[c];
+        }
+        cellMass[cell] = mass;
+        cellMassCenterX[cell] = massSumX / mass;
+        cellMassCenterY[cell] = massSumY / mass;
+    }
+
+    private int firstInQuadrant(int start, int end, int level, int quadrant) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (quadrant(codes[mid], level) < quadrant) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int quadrant(int code, int level) {
+        return (code >>> (2 * (MAX_DEPTH - 1 - level))) & 3;
+    }
+
+    private static int spread(int v) {
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+    /**
+     * Radix sort of the codes, as unsigned integers, and of the order with
+     * them.
+     */
+    private void sort() {
+        int[] count = new int[256];
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < nodeCount; i++) {
+                count[(codes[i] >>> shift) & 0xFF]++;
+            }
+            if (count[(codes[0] >>> shift) & 0xFF] == nodeCount) {
+                // All nodes have the same digit
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < 256; d++) {
+                int c = count[d];
+                count[d] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                int pos = count[(codes[i] >>> shift) & 0xFF]++;
+                codesBuffer[pos] = codes[i];
+                orderBuffer[pos] = order[i];
+            }
+            int[] swap = codes;
+            codes = codesBuffer;
+            codesBuffer = swap;
+            swap = order;
+            order = orderBuffer;
+            orderBuffer = swap;
+        }
+    }
+
+    private int split(int length, int t) {
+        return (int) ((long) length * t / threadCount);
+    }
+
+    private void runAll(List<? extends Runnable> tasks) {
+        if (threadCount == 1 || pool == null) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        ArrayList<Future> threads = new ArrayList<Future>();
+        for (Runnable task : tasks) {
+            threads.add(pool.submit(task));
+        }
+        for (Future future : threads) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Exceptions.printStackTrace(ex);
+            } catch (ExecutionException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+    }
+
+    private void ensureNodeCapacity(int capacity) {
+        if (order.length < capacity) {
+            int length = Math.max(capacity, order.length + (order.length >> 1));
+            order = new int[length];
+            codes = new int[length];
+            orderBuffer = new int[length];
+            codesBuffer = new int[length];
+        }
+    }
+
+    private void ensureCellCapacity(int capacity) {
+        if (cellStart.length < capacity) {
+            int length = Math.max(capacity, cellStart.length + (cellStart.length >> 1));
+            cellStart = Arrays.copyOf(cellStart, length);
+            cellEnd = Arrays.copyOf(cellEnd, length);
+            cellLevel = Arrays.copyOf(cellLevel, length);
+            cellChild = Arrays.copyOf(cellChild, length);
+            cellChildCount = Arrays.copyOf(cellChildCount, length);
+            cellMass = Arrays.copyOf(cellMass, length);
+            cellMassCenterX = Arrays.copyOf(cellMassCenterX, length);
+            cellMassCenterY = Arrays.copyOf(cellMassCenterY, length);
+            cellSize = Arrays.copyOf(cellSize, length);
+        }
+    }
+
+    private class BoundsTask implements Runnable {
+
+        private final int[] nodes;
+        private final int from;
+        private final int to;
+        private double minX = Double.POSITIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+
+        public BoundsTask(int[] nodes, int from, int to) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            for (int i = from; i < to; i++) {
+                int n = nodes[i];
+                minX = Math.min(minX, data.x[n]);
+                minY = Math.min(minY, data.y[n]);
+                maxX = Math.max(maxX, data.x[n]);
+                maxY = Math.max(maxY, data.y[n]);
+            }
+        }
+    }
+
+    private class CodeTask implements Runnable {
+
+        private final int[] nodes;
+        private final int from;
+        private final int to;
+
+        public CodeTask(int[] nodes, int from, int to) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            int max = (1 << MAX_DEPTH) - 1;
+            double scale = (1 << MAX_DEPTH) / side;
+            for (int i = from; i < to; i++) {
+                int n = nodes[i];
+                int qx = Math.min(max, Math.max(0, (int) ((data.x[n] - minX) * scale)));
+                int qy = Math.min(max, Math.max(0, (int) ((data.y[n] - minY) * scale)));
+                order[i] = n;
+                codes[i] = spread(qx) | (spread(qy) << 1);
+            }
+        }
+    }
+
+    private class SubtreeTask implements Runnable {
+
+        private final int cell;
+        private final int next;
+
+        public SubtreeTask(int cell, int next) {
+            this.cell = cell;
+            this.next = next;
+        }
+
+        @Override
+        public void run() {
+            buildSubtree(cell, next);
+        }
+    }
+}
@@ -42,9 +42,7 @@
 package org.gephi.layout.plugin.forceAtlas2;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import org.gephi.graph.api.Node;
 import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 
 /**
@@ -52,122 +50,82 @@ import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
  *
  * @author Mathieu Jacomy
  */
-public class Region {
+public class Region implements BarnesHutTree {
 
+    private final ForceAtlas2Data data;
     private double mass;
     private double massCenterX;
     private double massCenterY;
     private double size;
-    private final List<Node> nodes;
+    //Node store ids
+    private final int[] nodes;
     private final List<Region> subregions = new ArrayList<Region>();
 
-    public Region(Node[] nodes) {
-        this.nodes = new ArrayList<Node>();
-        this.nodes.addAll(Arrays.asList(nodes));
-        updateMassAndGeometry();
-    }
-
-    public Region(ArrayList<Node> nodes) {
-        this.nodes = new ArrayList<Node>(nodes);
+    public Region(ForceAtlas2Data data, int[] nodes) {
+        this.data = data;
+        this.nodes = nodes;
         updateMassAndGeometry();
     }
 
     private void updateMassAndGeometry() {
-        if (nodes.size() > 1) {
+        if (nodes.length > 1) {
             // Compute Mass
             mass = 0;
             double massSumX = 0;
             double massSumY = 0;
-            for (Node n : nodes) {
-                ForceAtlas2LayoutData nLayout = n.getLayoutData();
-                mass += nLayout.mass;
-                massSumX += n.x() * nLayout.mass;
-                massSumY += n.y() * nLayout.mass;
+            for (int n : nodes) {
+                mass += data.mass[n];
+                massSumX += data.x[n] * data.mass[n];
+                massSumY += data.y[n] * data.mass[n];
             }
             massCenterX = massSumX / mass;
             massCenterY = massSumY / mass;
 
             // Compute size
             size = Double.MIN_VALUE;
-            for (Node n : nodes) {
-                double distance = Math.sqrt((n.x() - massCenterX) * (n.x() - massCenterX) + (n.y() - massCenterY) * (n.y() - massCenterY));
+            for (int n : nodes) {
+                double distance = Math.sqrt((data.x[n] - massCenterX) * (data.x[n] - massCenterX) + (data.y[n] - massCenterY) * (data.y[n] - massCenterY));
                 size = Math.max(size, 2 * distance);
             }
         }
     }
 
     public synchronized void buildSubRegions() {
-        if (nodes.size() > 1) {
-            ArrayList<Node> leftNodes = new ArrayList<Node>();
-            ArrayList<Node> rightNodes = new ArrayList<Node>();
-            for (Node n : nodes) {
-                ArrayList<Node> nodesColumn = (n.x() < massCenterX) ? (leftNodes) : (rightNodes);
-                nodesColumn.add(n);
-            }
-
-            ArrayList<Node> topleftNodes = new ArrayList<Node>();
-            ArrayList<Node> bottomleftNodes = new ArrayList<Node>();
-            for (Node n : leftNodes) {
-                ArrayList<Node> nodesLine = (n.y() < massCenterY) ? (topleftNodes) : (bottomleftNodes);
-                nodesLine.add(n);
-            }
-
-            ArrayList<Node> bottomrightNodes = new ArrayList<Node>();
-            ArrayList<Node> toprightNodes = new ArrayList<Node>();
-            for (Node n : rightNodes) {
-                ArrayList<Node> nodesLine = (n.y() < massCenterY) ? (toprightNodes) : (bottomrightNodes);
-                nodesLine.add(n);
-            }
-
-            if (topleftNodes.size() > 0) {
-                if (topleftNodes.size() < nodes.size()) {
-                    Region subregion = new Region(topleftNodes);
-                    subregions.add(subregion);
+        if (nodes.length > 1) {
+            // Quadrant of each node: top left, bottom left, bottom right, top right
+            int[] quadrantSizes = new int[4];
+            int[] quadrants = new int[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                int n = nodes[i];
+                int quadrant;
+                if (data.x[n] < massCenterX) {
+                    quadrant = (data.y[n] < massCenterY) ? 0 : 1;
                 } else {
-                    for (Node n : topleftNodes) {
-                        ArrayList<Node> oneNodeList = new ArrayList<Node>();
-                        oneNodeList.add(n);
-                        Region subregion = new Region(oneNodeList);
-                        subregions.add(subregion);
-                    }
+                    quadrant = (data.y[n] < massCenterY) ? 3 : 2;
                 }
+                quadrants[i] = quadrant;
+                quadrantSizes[quadrant]++;
             }
-            if (bottomleftNodes.size() > 0) {
-                if (bottomleftNodes.size() < nodes.size()) {
-                    Region subregion = new Region(bottomleftNodes);
-                    subregions.add(subregion);
-                } else {
-                    for (Node n : bottomleftNodes) {
-                        ArrayList<Node> oneNodeList = new ArrayList<Node>();
-                        oneNodeList.add(n);
-                        Region subregion = new Region(oneNodeList);
-                        subregions.add(subregion);
-                    }
-                }
+            int[][] quadrantNodes = new int[4][];
+            for (int q = 0; q < 4; q++) {
+                quadrantNodes[q] = new int[quadrantSizes[q]];
             }
-            if (bottomrightNodes.size() > 0) {
-                if (bottomrightNodes.size() < nodes.size()) {
-                    Region subregion = new Region(bottomrightNodes);
-                    subregions.add(subregion);
-                } else {
-                    for (Node n : bottomrightNodes) {
-                        ArrayList<Node> oneNodeList = new ArrayList<Node>();
-                        oneNodeList.add(n);
-                        Region subregion = new Region(oneNodeList);
-                        subregions.add(subregion);
-                    }
-                }
+            int[] fill = new int[4];
+            for (int i = 0; i < nodes.length; i++) {
+                quadrantNodes[quadrants[i]][fill[quadrants[i]]++] = nodes[i];
             }
-            if (toprightNodes.size() > 0) {
-                if (toprightNodes.size() < nodes.size()) {
-                    Region subregion = new Region(toprightNodes);
-                    subregions.add(subregion);
-                } else {
-                    for (Node n : toprightNodes) {
-                        ArrayList<Node> oneNodeList = new ArrayList<Node>();
-                        oneNodeList.add(n);
-                        Region subregion = new Region(oneNodeList);
+
+            for (int q = 0; q < 4; q++) {
+                int[] subNodes = quadrantNodes[q];
+                if (subNodes.length > 0) {
+                    if (subNodes.length < nodes.length) {
+                        Region subregion = new Region(data, subNodes);
                         subregions.add(subregion);
+                    } else {
+                        for (int n : subNodes) {
+                            Region subregion = new Region(data, new int[]{n});
+                            subregions.add(subregion);
+                        }
                     }
                 }
             }
@@ -178,17 +136,24 @@ public class Region {
         }
     }
 
-    public void applyForce(Node n, RepulsionForce Force, double theta) {
-        if (nodes.size() < 2) {
-            Node regionNode = nodes.get(0);
-            Force.apply(n, regionNode);
+    @Override
+    public void applyForce(int[] nodes, int from, int to, RepulsionForce Force, double theta, double[] dx, double[] dy) {
+        for (int i = from; i < to; i++) {
+            applyForce(nodes[i], Force, theta, dx, dy);
+        }
+    }
+
+    public void applyForce(int n, RepulsionForce Force, double theta, double[] dx, double[] dy) {
+        if (nodes.length < 2) {
+            int regionNode = nodes[0];
+            Force.apply(n, regionNode, dx, dy);
         } else {
-            double distance = Math.sqrt((n.x() - massCenterX) * (n.x() - massCenterX) + (n.y() - massCenterY) * (n.y() - massCenterY));
+            double distance = Math.sqrt((data.x[n] - massCenterX) * (data.x[n] - massCenterX) + (data.y[n] - massCenterY) * (data.y[n] - massCenterY));
             if (distance * theta > size) {
-                Force.apply(n, this);
+                Force.apply(n, this, dx, dy);
             } else {
                 for (Region subregion : subregions) {
-                    subregion.applyForce(n, Force, theta);
+                    subregion.applyForce(n, Force, theta, dx, dy);
                 }
             }
         }
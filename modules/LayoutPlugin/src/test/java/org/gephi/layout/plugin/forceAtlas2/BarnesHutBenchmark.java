@@ -0,0 +1,204 @@
+/*
+ Copyright 2008-2011 Gephi
+ Authors : Mathieu Jacomy <mathieu.jacomy@gmail.com>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.layout.plugin.forceAtlas2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
+
+/**
+ * Compares the build and query times of the two Barnes Hut trees,
+ * {@link Region} and {@link QuadTree}, on clustered random positions, and
+ * their error against the exact repulsion on a sample of nodes.
+ * <p>
+ * Arguments: node count (default 200000), thread count (default the number
+ * of processors) and iterations (default 5).
+ *
+ * @author Mathieu Jacomy
+ */
+public class BarnesHutBenchmark {
+
+    private static final double THETA = 1.2;
+    private static final int ERROR_SAMPLE = 200;
+
+    public static void main(String[] args) throws Exception {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        ForceAtlas2Data data = randomData(nodeCount, new Random(42));
+        RepulsionForce force = ForceFactory.builder.buildRepulsion(data, false, 2.0);
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            System.out.println(nodeCount + " nodes, " + threadCount + " threads, theta " + THETA);
+
+            QuadTree quadTree = new QuadTree(data, pool, threadCount);
+            Region rootRegion = null;
+            for (int i = 0; i < iterations + 1; i++) {
+                // First iteration is warm-up
+                boolean report = i > 0;
+
+                long start = System.nanoTime();
+                rootRegion = new Region(data, data.ids);
+                rootRegion.buildSubRegions();
+                long regionBuild = System.nanoTime() - start;
+                long regionQuery = query(rootRegion, data.ids, force, data, pool, threadCount);
+
+                start = System.nanoTime();
+                quadTree.build(data.ids);
+                long quadTreeBuild = System.nanoTime() - start;
+                long quadTreeQuery = query(quadTree, quadTree.getOrder(), force, data, pool, threadCount);
+
+                if (report) {
+                    System.out.println(String.format("Region:   build %6d ms, repulsion %6d ms", regionBuild / 1000000, regionQuery / 1000000));
+                    System.out.println(String.format("QuadTree: build %6d ms, repulsion %6d ms", quadTreeBuild / 1000000, quadTreeQuery / 1000000));
+                }
+            }
+
+            System.out.println(String.format("Mean relative error on %d nodes: Region %.4f, QuadTree %.4f",
+                    ERROR_SAMPLE, error(rootRegion, data, force), error(quadTree, data, force)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Positions in gaussian clusters of various sizes, as a layout in
+     * progress has.
+     */
+    private static ForceAtlas2Data randomData(int nodeCount, Random random) {
+        ForceAtlas2Data data = new ForceAtlas2Data();
+        data.ids = new int[nodeCount];
+        data.x = new double[nodeCount];
+        data.y = new double[nodeCount];
+        data.size = new double[nodeCount];
+        data.mass = new double[nodeCount];
+        data.dx = new double[nodeCount];
+        data.dy = new double[nodeCount];
+        data.old_dx = new double[nodeCount];
+        data.old_dy = new double[nodeCount];
+        data.fixed = new boolean[nodeCount];
+        int clusters = Math.max(1, (int) Math.sqrt(nodeCount) / 10);
+        double[] clusterX = new double[clusters];
+        double[] clusterY = new double[clusters];
+        double[] clusterSize = new double[clusters];
+        for (int c = 0; c < clusters; c++) {
+            clusterX[c] = random.nextGaussian() * 1000;
+            clusterY[c] = random.nextGaussian() * 1000;
+            clusterSize[c] = 10 + random.nextDouble() * 100;
+        }
+        // Shuffled store ids, as graph order is not spatial
+        for (int i = 0; i < nodeCount; i++) {
+            data.ids[i] = i;
+        }
+        for (int i = nodeCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = data.ids[i];
+            data.ids[i] = data.ids[j];
+            data.ids[j] = swap;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            int c = random.nextInt(clusters);
+            data.x[n] = clusterX[c] + random.nextGaussian() * clusterSize[c];
+            data.y[n] = clusterY[c] + random.nextGaussian() * clusterSize[c];
+            data.size[n] = 1;
+            data.mass[n] = 1 + random.nextInt(10);
+        }
+        return data;
+    }
+
+    private static long query(final BarnesHutTree tree, final int[] nodes, final RepulsionForce force, final ForceAtlas2Data data, ExecutorService pool, int threadCount) throws Exception {
+        final int nodeCount = data.ids.length;
+        long start = System.nanoTime();
+        List<Future> futures = new ArrayList<Future>();
+        for (int t = 0; t < threadCount; t++) {
+            final int from = (int) ((long) nodeCount * t / threadCount);
+            final int to = (int) ((long) nodeCount * (t + 1) / threadCount);
+            futures.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    tree.applyForce(nodes, from, to, force, THETA, new double[nodeCount], new double[nodeCount]);
+                }
+            }));
+        }
+        for (Future future : futures) {
+            future.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Mean relative error of the repulsion felt by sampled nodes, against the
+     * exact sum over all other nodes.
+     */
+    private static double error(BarnesHutTree tree, ForceAtlas2Data data, RepulsionForce force) {
+        int nodeCount = data.ids.length;
+        double[] dx = new double[nodeCount];
+        double[] dy = new double[nodeCount];
+        double sum = 0;
+        int samples = Math.min(ERROR_SAMPLE, nodeCount);
+        for (int s = 0; s < samples; s++) {
+            int n = data.ids[s];
+            double exactX = 0;
+            double exactY = 0;
+            for (int m = 0; m < nodeCount; m++) {
+                if (m != n) {
+                    dx[n] = 0;
+                    dy[n] = 0;
+                    force.apply(n, data.mass[m], data.x[m], data.y[m], dx, dy);
+                    exactX += dx[n];
+                    exactY += dy[n];
+                }
+            }
+            dx[n] = 0;
+            dy[n] = 0;
+            tree.applyForce(new int[]{n}, 0, 1, force, THETA, dx, dy);
+            sum += Math.sqrt((dx[n] - exactX) * (dx[n] - exactX) + (dy[n] - exactY) * (dy[n] - exactY))
+                    / Math.sqrt(exactX * exactX + exactY * exactY);
+        }
+        return sum / samples;
+    }
+}
@@ -43,6 +43,7 @@ package org.gephi.preview;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import org.gephi.attribute.api.AttributeModel;
@@ -266,39 +267,61 @@ public class PreviewControllerImpl implements PreviewController {
         if (previewModel != null) {
             PreviewProperties properties = previewModel.getProperties();
 
-            //Progress
-            ProgressTicket progressTicket = null;
-            if (target instanceof AbstractRenderTarget) {
-                int tasks = 0;
-                for (Renderer r : renderers) {
-                    if (!mousePressed || r instanceof MouseResponsiveRenderer) {
+            //Visible area, when only a part of the preview is shown
+            PreviewIndex index = null;
+            Rectangle2D visibleArea = null;
+            if (!mousePressed && target instanceof G2DRenderTargetBuilder.G2DTargetImpl) {
+                visibleArea = getVisibleArea((G2DTarget) target);
+                if (visibleArea != null) {
+                    //Index item bounds once, until the next refresh
+                    index = previewModel.getIndex();
+                    if (index == null) {
+                        index = new PreviewIndex(previewModel, renderers);
+                        previewModel.setIndex(index);
+                    }
+                }
+            }
+
+            //Items of each renderer
+            Item[][] rendererItems = new Item[renderers.length][];
+            int tasks = 0;
+            for (int i = 0; i < renderers.length; i++) {
+                Renderer r = renderers[i];
+                if (!mousePressed || r instanceof MouseResponsiveRenderer) {
+                    Item[] items = visibleArea != null ? index.getItems(r, visibleArea) : null;
+                    if (items == null) {
+                        ArrayList<Item> itemsList = new ArrayList<Item>();
                         for (String type : previewModel.getItemTypes()) {
                             for (Item item : previewModel.getItems(type)) {
                                 if (r.isRendererForitem(item, properties)) {
-                                    tasks++;
+                                    itemsList.add(item);
                                 }
                             }
                         }
+                        items = itemsList.toArray(new Item[0]);
                     }
+                    rendererItems[i] = items;
+                    tasks += items.length;
                 }
+            }
+
+            //Progress
+            ProgressTicket progressTicket = null;
+            if (target instanceof AbstractRenderTarget) {
                 progressTicket = ((AbstractRenderTarget) target).getProgressTicket();
                 Progress.switchToDeterminate(progressTicket, tasks);
             }
 
-
             //Render items
-            for (Renderer r : renderers) {
-                if (!mousePressed || r instanceof MouseResponsiveRenderer) {
-                    for (String type : previewModel.getItemTypes()) {
-                        for (Item item : previewModel.getItems(type)) {
-                            if (r.isRendererForitem(item, properties)) {
-                                r.render(item, target, properties);
-                                Progress.progress(progressTicket);
-                                if (target instanceof AbstractRenderTarget) {
-                                    if (((AbstractRenderTarget) target).isCancelled()) {
-                                        return;
-                                    }
-                                }
+            for (int i = 0; i < renderers.length; i++) {
+                Renderer r = renderers[i];
+                if (rendererItems[i] != null) {
+                    for (Item item : rendererItems[i]) {
+                        r.render(item, target, properties);
+                        Progress.progress(progressTicket);
+                        if (target instanceof AbstractRenderTarget) {
+                            if (((AbstractRenderTarget) target).isCancelled()) {
+                                return;
                             }
                         }
                     }
@@ -307,6 +330,22 @@ public class PreviewControllerImpl implements PreviewController {
         }
     }
 
+    private Rectangle2D getVisibleArea(G2DTarget target) {
+        float scaling = target.getScaling();
+        if (!(scaling > 0f)) {
+            return null;
+        }
+
+        //Inverse of the G2D target transform, with one pixel more for antialiasing
+        Vector trans = target.getTranslate();
+        float centerX = target.getWidth() / 2f;
+        float centerY = target.getHeight() / 2f;
+        float pixel = 1f / scaling;
+        float x = centerX - centerX / scaling - trans.x - pixel;
+        float y = centerY - centerY / scaling - trans.y - pixel;
+        return new Rectangle2D.Float(x, y, target.getWidth() / scaling + 2f * pixel, target.getHeight() / scaling + 2f * pixel);
+    }
+
     @Override
     public synchronized PreviewModelImpl getModel() {
         if (model == null) {
@@ -396,7 +435,7 @@ public class PreviewControllerImpl implements PreviewController {
             return false;
         }
 
-        PreviewModel previewModel = getModel(workspace);
+        PreviewModelImpl previewModel = getModel(workspace);
 
         //Avoid drag events arriving to listeners if they did not consume previous press event.
         if ((event.type != PreviewMouseEvent.Type.DRAGGED && event.type != PreviewMouseEvent.Type.RELEASED) || mousePressed) {
@@ -417,6 +456,8 @@ public class PreviewControllerImpl implements PreviewController {
                         listener.mouseReleased(event, previewModel.getProperties(), workspace);
                 }
                 if (event.isConsumed()) {
+                    //Listeners may have moved items
+                    previewModel.setIndex(null);
                     return true;
                 }
             }
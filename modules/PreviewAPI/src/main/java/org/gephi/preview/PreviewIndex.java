@@ -0,0 +1,296 @@
+/*
+ Copyright 2008-2011 Gephi
+ Authors : Mathieu Bastian
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.preview;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.gephi.preview.api.Item;
+import org.gephi.preview.api.PreviewProperties;
+import org.gephi.preview.spi.BoundedRenderer;
+import org.gephi.preview.spi.Renderer;
+
+/**
+ * Spatial index of the preview items, built when rendering to the G2D target
+ * and dropped by <code>refreshPreview()</code>.
+ * <p>
+ * For each renderer implementing {@link BoundedRenderer}, the bounds of the
+ * items it renders are put in a uniform grid. Rendering a part of the preview
+ * then only visits the cells overlapping the visible area. Items covering too
+ * many cells, and items without bounds, are kept aside and always tested.
+ * <p>
+ * Returned items are in the same order as in the model, so the painting order
+ * is unchanged.
+ *
+ * @author Mathieu Bastian
+ */
+public class PreviewIndex {
+
+    //Average number of items per cell
+    private static final int ITEMS_PER_CELL = 4;
+    //Maximum number of cells an item is put in before being kept aside
+    private static final int MAX_ITEM_CELLS = 16;
+    private static final int MAX_GRID_SIZE = 2048;
+    private final Map<Renderer, RendererIndex> indices = new IdentityHashMap<Renderer, RendererIndex>();
+
+    public PreviewIndex(PreviewModelImpl model, Renderer[] renderers) {
+        PreviewProperties properties = model.getProperties();
+        String[] types = model.getItemTypes();
+        for (Renderer r : renderers) {
+            if (r instanceof BoundedRenderer) {
+                List<Item> items = new ArrayList<Item>();
+                for (String type : types) {
+                    for (Item item : model.getItems(type)) {
+                        if (r.isRendererForitem(item, properties)) {
+                            items.add(item);
+                        }
+                    }
+                }
+                indices.put(r, new RendererIndex((BoundedRenderer) r, items.toArray(new Item[0]), properties));
+            }
+        }
+    }
+
+    /**
+     * Returns the items of <code>renderer</code> whose bounds intersect
+     * <code>area</code>, in model order.
+     *
+     * @param renderer the renderer
+     * @param area the visible area, in preview coordinates
+     * @return the visible items, or <code>null</code> if the renderer is not
+     * indexed
+     */
+    public Item[] getItems(Renderer renderer, Rectangle2D area) {
+        RendererIndex index = indices.get(renderer);
+        if (index != null) {
+            return index.query(area);
+        }
+        return null;
+    }
+
+    private static class RendererIndex {
+
+        private final Item[] items;
+        private final float[] minX;
+        private final float[] minY;
+        private final float[] maxX;
+        private final float[] maxY;
+        //Items kept aside, unbounded or too large
+        private final int[] others;
+        //Grid, items of cell c are cellItems[cellStart[c]] to cellItems[cellStart[c + 1] - 1]
+        private final Rectangle2D.Float extent = new Rectangle2D.Float();
+        private int gridWidth;
+        private int gridHeight;
+        private float cellWidth;
+        private float cellHeight;
+        private int[] cellStart;
+        private int[] cellItems;
+        //Query
+        private final int[] marks;
+        private int stamp;
+        private int[] result = new int[64];
+
+        public RendererIndex(BoundedRenderer renderer, Item[] items, PreviewProperties properties) {
+            int n = items.length;
+            this.items = items;
+            this.minX = new float[n];
+            this.minY = new float[n];
+            this.maxX = new float[n];
+            this.maxY = new float[n];
+            this.marks = new int[n];
+
+            //Bounds
+            boolean[] bounded = new boolean[n];
+            boolean empty = true;
+            for (int i = 0; i < n; i++) {
+                Rectangle2D bounds = renderer.getBounds(items[i], properties);
+                if (bounds != null) {
+                    bounded[i] = true;
+                    minX[i] = (float) bounds.getMinX();
+                    minY[i] = (float) bounds.getMinY();
+                    maxX[i] = (float) bounds.getMaxX();
+                    maxY[i] = (float) bounds.getMaxY();
+                    if (empty) {
+                        extent.setFrameFromDiagonal(minX[i], minY[i], maxX[i], maxY[i]);
+                        empty = false;
+                    } else {
+                        extent.add(minX[i], minY[i]);
+                        extent.add(maxX[i], maxY[i]);
+                    }
+                } else {
+                    minX[i] = Float.NaN;
+                }
+            }
+
+            //Grid size, with square-ish cells
+            int cells = Math.max(1, n / ITEMS_PER_CELL);
+            float ratio = extent.height > 0f && extent.width > 0f ? extent.width / extent.height : 1f;
+            gridWidth = clamp((int) Math.ceil(Math.sqrt(cells * ratio)));
+            gridHeight = clamp((int) Math.ceil(cells / (double) gridWidth));
+            cellWidth = Math.max(extent.width / gridWidth, Float.MIN_NORMAL);
+            cellHeight = Math.max(extent.height / gridHeight, Float.MIN_NORMAL);
+
+            //Count items per cell
+            int[] counts = new int[gridWidth * gridHeight + 1];
+            int[] othersList = new int[16];
+            int othersCount = 0;
+            for (int i = 0; i < n; i++) {
+                if (bounded[i]) {
+                    int x0 = cellX(minX[i]);
+                    int x1 = cellX(maxX[i]);
+                    int y0 = cellY(minY[i]);
+                    int y1 = cellY(maxY[i]);
+                    if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) <= MAX_ITEM_CELLS) {
+                        for (int y = y0; y <= y1; y++) {
+                            for (int x = x0; x <= x1; x++) {
+                                counts[y * gridWidth + x + 1]++;
+                            }
+                        }
+                        continue;
+                    }
+                }
+                if (othersCount == othersList.length) {
+                    othersList = Arrays.copyOf(othersList, othersCount * 2);
+                }
+                othersList[othersCount++] = i;
+                bounded[i] = false;
+            }
+            others = Arrays.copyOf(othersList, othersCount);
+
+            //Fill cells, in item order
+            for (int c = 1; c < counts.length; c++) {
+                counts[c] += counts[c - 1];
+            }
+            cellStart = counts;
+            cellItems = new int[counts[counts.length - 1]];
+            int[] positions = Arrays.copyOf(counts, counts.length - 1);
+            for (int i = 0; i < n; i++) {
+                if (bounded[i]) {
+                    int x0 = cellX(minX[i]);
+                    int x1 = cellX(maxX[i]);
+                    int y0 = cellY(minY[i]);
+                    int y1 = cellY(maxY[i]);
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++) {
+                            cellItems[positions[y * gridWidth + x]++] = i;
+                        }
+                    }
+                }
+            }
+        }
+
+        public Item[] query(Rectangle2D area) {
+            //Unbounded items are always visible
+            if (area.contains(extent)) {
+                return items;
+            }
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                stamp = 1;
+            }
+            float aMinX = (float) area.getMinX();
+            float aMinY = (float) area.getMinY();
+            float aMaxX = (float) area.getMaxX();
+            float aMaxY = (float) area.getMaxY();
+            int count = 0;
+
+            if (area.intersects(extent)) {
+                int x0 = cellX(aMinX);
+                int x1 = cellX(aMaxX);
+                int y0 = cellY(aMinY);
+                int y1 = cellY(aMaxY);
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        int cell = y * gridWidth + x;
+                        for (int j = cellStart[cell]; j < cellStart[cell + 1]; j++) {
+                            int i = cellItems[j];
+                            if (marks[i] != stamp) {
+                                marks[i] = stamp;
+                                if (minX[i] <= aMaxX && maxX[i] >= aMinX && minY[i] <= aMaxY && maxY[i] >= aMinY) {
+                                    count = add(i, count);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            for (int i : others) {
+                if (Float.isNaN(minX[i])
+                        || (minX[i] <= aMaxX && maxX[i] >= aMinX && minY[i] <= aMaxY && maxY[i] >= aMinY)) {
+                    count = add(i, count);
+                }
+            }
+
+            Arrays.sort(result, 0, count);
+            Item[] res = new Item[count];
+            for (int j = 0; j < count; j++) {
+                res[j] = items[result[j]];
+            }
+            return res;
+        }
+
+        private int add(int i, int count) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2);
+            }
+            result[count] = i;
+            return count + 1;
+        }
+
+        private int cellX(float x) {
+            int c = (int) ((x - extent.x) / cellWidth);
+            return c < 0 ? 0 : (c >= gridWidth ? gridWidth - 1 : c);
+        }
+
+        private int cellY(float y) {
+            int c = (int) ((y - extent.y) / cellHeight);
+            return c < 0 ? 0 : (c >= gridHeight ? gridHeight - 1 : c);
+        }
+
+        private static int clamp(int size) {
+            return Math.max(1, Math.min(MAX_GRID_SIZE, size));
+        }
+    }
+}
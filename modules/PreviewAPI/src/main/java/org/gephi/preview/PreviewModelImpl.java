@@ -75,6 +75,7 @@ public class PreviewModelImpl implements PreviewModel {
     //Items
     private final Map<String, List<Item>> typeMap;
     private final Map<Object, Object> sourceMap;
+    private PreviewIndex index;
     //Renderers
     private ManagedRenderer[] managedRenderers;
     //Mouse listeners (of enabled renderers)
@@ -214,6 +215,7 @@ public class PreviewModelImpl implements PreviewModel {
         return new Item[0];
     }
 
+    @Override
     public String[] getItemTypes() {
         return typeMap.keySet().toArray(new String[0]);
     }
@@ -274,6 +276,15 @@ public class PreviewModelImpl implements PreviewModel {
     public void clear() {
         typeMap.clear();
         sourceMap.clear();
+        index = null;
+    }
+
+    public PreviewIndex getIndex() {
+        return index;
+    }
+
+    public void setIndex(PreviewIndex index) {
+        this.index = index;
     }
 
     public Workspace getWorkspace() {
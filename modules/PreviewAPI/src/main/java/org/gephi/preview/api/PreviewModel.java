@@ -78,6 +78,13 @@ public interface PreviewModel {
      */
     public Item[] getItems(String type);
 
+    /**
+     * Returns the types of the items in this model, default and custom.
+     *
+     * @return the item types
+     */
+    public String[] getItemTypes();
+
     /**
      * Returns all items attached to
      * <code>source</code>. <p> The source is the graph object behind the item (e.g.
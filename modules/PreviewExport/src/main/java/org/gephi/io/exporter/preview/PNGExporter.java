@@ -42,17 +42,40 @@
 package org.gephi.io.exporter.preview;
 
 import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 import javax.imageio.ImageIO;
+import org.gephi.io.exporter.preview.util.PNGEncoder;
 import org.gephi.io.exporter.spi.ByteExporter;
 import org.gephi.io.exporter.spi.VectorExporter;
 import org.gephi.preview.api.G2DTarget;
+import org.gephi.preview.api.Item;
 import org.gephi.preview.api.PreviewController;
+import org.gephi.preview.api.PreviewModel;
 import org.gephi.preview.api.PreviewProperties;
 import org.gephi.preview.api.PreviewProperty;
 import org.gephi.preview.api.RenderTarget;
+import org.gephi.preview.api.Vector;
+import org.gephi.preview.spi.BoundedRenderer;
+import org.gephi.preview.spi.Renderer;
 import org.gephi.project.api.Workspace;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.Progress;
@@ -60,6 +83,13 @@ import org.gephi.utils.progress.ProgressTicket;
 import org.openide.util.Lookup;
 
 /**
+ * Exports the preview to a PNG image.
+ * <p>
+ * By default the whole image is drawn in a single buffer and written with
+ * <code>ImageIO</code>. In tiled mode, the image is cut in horizontal strips
+ * rendered in parallel, each one drawing only the items whose bounds overlap
+ * it, and streamed to the file in order. The memory used is then proportional
+ * to the number of threads, not to the image size.
  *
  * @author Mathieu Bastian
  */
@@ -73,7 +103,11 @@ public class PNGExporter implements VectorExporter, ByteExporter, LongTask {
     private int height = 1024;
     private boolean transparentBackground = false;
     private int margin = 4;
+    private boolean tiled = false;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
     private G2DTarget target;
+    //Tile size in pixels, about 4MB of ARGB data per tile
+    private static final int TILE_PIXELS = 1 << 20;
 
     @Override
     public boolean execute() {
@@ -91,9 +125,11 @@ public class PNGExporter implements VectorExporter, ByteExporter, LongTask {
         }
         props.putValue(PreviewProperty.MARGIN, new Float((float) margin));
         controller.refreshPreview(workspace);
-        target = (G2DTarget) controller.getRenderTarget(RenderTarget.G2D_TARGET, workspace);
-        if (target instanceof LongTask) {
-            ((LongTask) target).setProgressTicket(progress);
+        if (!tiled) {
+            target = (G2DTarget) controller.getRenderTarget(RenderTarget.G2D_TARGET, workspace);
+            if (target instanceof LongTask) {
+                ((LongTask) target).setProgressTicket(progress);
+            }
         }
         //Fix bug caused by keeping width and height in the workspace preview properties.
         //When a .gephi file is loaded later with these properties PGraphics will be created instead of a PApplet
@@ -102,14 +138,22 @@ public class PNGExporter implements VectorExporter, ByteExporter, LongTask {
         props.removeSimpleValue(PreviewProperty.MARGIN);
 
         try {
-            target.refresh();
-
-            Progress.switchToIndeterminate(progress);
-
-            Image sourceImg = target.getImage();
-            BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            img.getGraphics().drawImage(sourceImg, 0, 0, null);
-            ImageIO.write(img, "png", stream);
+            if (tiled) {
+                Renderer[] renderers = controller.getModel(workspace).getManagedEnabledRenderers();
+                if (renderers == null) {
+                    renderers = controller.getRegisteredRenderers();
+                }
+                renderTiles(controller.getModel(workspace), renderers);
+            } else {
+                target.refresh();
+
+                Progress.switchToIndeterminate(progress);
+
+                Image sourceImg = target.getImage();
+                BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                img.getGraphics().drawImage(sourceImg, 0, 0, null);
+                ImageIO.write(img, "png", stream);
+            }
             stream.close();
 
             props.putValue(PreviewProperty.BACKGROUND_COLOR, oldColor);
@@ -122,6 +166,233 @@ public class PNGExporter implements VectorExporter, ByteExporter, LongTask {
         return !cancel;
     }
 
+    private void renderTiles(PreviewModel model, Renderer[] renderers) throws Exception {
+        PreviewProperties properties = model.getProperties();
+        AffineTransform transform = getLayoutTransform(model);
+        int tileHeight = Math.max(1, Math.min(height, TILE_PIXELS / width));
+        int tileCount = (height + tileHeight - 1) / tileHeight;
+
+        //Collect the items to draw in the order of the controller, with the tiles they overlap
+        List<Renderer> opRenderers = new ArrayList<Renderer>();
+        List<Item> opItems = new ArrayList<Item>();
+        int[] firstTiles = new int[1024];
+        int[] lastTiles = new int[1024];
+        int[] tileSizes = new int[tileCount];
+        double scaleY = transform.getScaleY();
+        double translateY = transform.getTranslateY();
+        for (Renderer r : renderers) {
+            for (String type : model.getItemTypes()) {
+                for (Item item : model.getItems(type)) {
+                    if (r.isRendererForitem(item, properties)) {
+                        int first = 0;
+                        int last = tileCount - 1;
+                        Rectangle2D bounds = r instanceof BoundedRenderer ? ((BoundedRenderer) r).getBounds(item, properties) : null;
+                        if (bounds != null) {
+                            //One pixel more for antialiasing
+                            double minY = bounds.getMinY() * scaleY + translateY - 1.0;
+                            double maxY = bounds.getMaxY() * scaleY + translateY + 1.0;
+                            if (maxY < 0 || minY >= height) {
+                                continue;
+                            }
+                            first = Math.max(0, (int) (minY / tileHeight));
+                            last = Math.min(tileCount - 1, (int) (maxY / tileHeight));
+                        }
+                        int op = opItems.size();
+                        if (op == firstTiles.length) {
+                            firstTiles = Arrays.copyOf(firstTiles, op * 2);
+                            lastTiles = Arrays.copyOf(lastTiles, op * 2);
+                        }
+                        opRenderers.add(r);
+                        opItems.add(item);
+                        firstTiles[op] = first;
+                        lastTiles[op] = last;
+                        for (int t = first; t <= last; t++) {
+                            tileSizes[t]++;
+                        }
+                    }
+                }
+            }
+        }
+        int[][] tileOps = new int[tileCount][];
+        for (int t = 0; t < tileCount; t++) {
+            tileOps[t] = new int[tileSizes[t]];
+            tileSizes[t] = 0;
+        }
+        for (int op = 0; op < opItems.size(); op++) {
+            for (int t = firstTiles[op]; t <= lastTiles[op]; t++) {
+                tileOps[t][tileSizes[t]++] = op;
+            }
+        }
+        Renderer[] renderersArray = opRenderers.toArray(new Renderer[0]);
+        Item[] itemsArray = opItems.toArray(new Item[0]);
+
+        //Render tiles in parallel and write them in order, with a bounded number in flight
+        Progress.switchToDeterminate(progress, tileCount);
+        PNGEncoder encoder = new PNGEncoder(stream, width, height, Deflater.DEFAULT_COMPRESSION);
+        encoder.writeHeader();
+        Color background = properties.getColorValue(PreviewProperty.BACKGROUND_COLOR);
+        int threads = Math.max(1, threadCount);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            LinkedList<Future<BufferedImage>> pending = new LinkedList<Future<BufferedImage>>();
+            int next = 0;
+            for (int t = 0; t < tileCount && !cancel; t++) {
+                while (next < tileCount && pending.size() < threads * 2) {
+                    int y = next * tileHeight;
+                    int rows = Math.min(tileHeight, height - y);
+                    pending.add(pool.submit(new TileTask(width, y, rows, transform, background, renderersArray, itemsArray, tileOps[next], properties)));
+                    next++;
+                }
+                BufferedImage tile = pending.removeFirst().get();
+                int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+                encoder.writeRows(pixels, 0, tile.getHeight());
+                Progress.progress(progress);
+            }
+            if (!cancel) {
+                encoder.finish();
+            }
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private AffineTransform getLayoutTransform(PreviewModel model) {
+        //Same layout as the G2D target
+        AffineTransform transform = new AffineTransform();
+        Dimension dimensions = model.getDimensions();
+        Point topLeft = model.getTopLeftPosition();
+        if (dimensions == null || topLeft == null) {
+            return transform;
+        }
+        float scaling = Math.min(width / (float) dimensions.getWidth(), height / (float) dimensions.getHeight());
+        float centerX = width / 2f;
+        float centerY = height / 2f;
+        transform.translate(centerX - centerX * scaling, centerY - centerY * scaling);
+        transform.scale(scaling, scaling);
+        transform.translate(centerX - (topLeft.x + (float) dimensions.getWidth() / 2f),
+                centerY - (topLeft.y + (float) dimensions.getHeight() / 2f));
+        return transform;
+    }
+
+    private static class TileTask implements Callable<BufferedImage> {
+
+        private final int width;
+        private final int y;
+        private final int rows;
+        private final AffineTransform transform;
+        private final Color background;
+        private final Renderer[] renderers;
+        private final Item[] items;
+        private final int[] ops;
+        private final PreviewProperties properties;
+
+        public TileTask(int width, int y, int rows, AffineTransform transform, Color background, Renderer[] renderers, Item[] items, int[] ops, PreviewProperties properties) {
+            this.width = width;
+            this.y = y;
+            this.rows = rows;
+            this.transform = transform;
+            this.background = background;
+            this.renderers = renderers;
+            this.items = items;
+            this.ops = ops;
+            this.properties = properties;
+        }
+
+        @Override
+        public BufferedImage call() throws Exception {
+            BufferedImage image = new BufferedImage(width, rows, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = image.createGraphics();
+            try {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+                if (background != null) {
+                    g2.setColor(background);
+                    g2.fillRect(0, 0, width, rows);
+                }
+                g2.translate(0, -y);
+                g2.transform(transform);
+
+                TileTarget target = new TileTarget(g2, image, (float) transform.getScaleX());
+                for (int op : ops) {
+                    renderers[op].render(items[op], target, properties);
+                }
+            } finally {
+                g2.dispose();
+            }
+            return image;
+        }
+    }
+
+    /**
+     * G2D target drawing into one tile. Renderers are called directly, the
+     * target is never refreshed.
+     */
+    private static class TileTarget implements G2DTarget {
+
+        private final Graphics2D graphics;
+        private final BufferedImage image;
+        private final float scaling;
+
+        public TileTarget(Graphics2D graphics, BufferedImage image, float scaling) {
+            this.graphics = graphics;
+            this.image = image;
+            this.scaling = scaling;
+        }
+
+        @Override
+        public Graphics2D getGraphics() {
+            return graphics;
+        }
+
+        @Override
+        public Image getImage() {
+            return image;
+        }
+
+        @Override
+        public int getWidth() {
+            return image.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return image.getHeight();
+        }
+
+        @Override
+        public void resize(int width, int height) {
+        }
+
+        @Override
+        public void setMoving(boolean moving) {
+        }
+
+        @Override
+        public Vector getTranslate() {
+            return new Vector();
+        }
+
+        @Override
+        public float getScaling() {
+            return scaling;
+        }
+
+        @Override
+        public void setScaling(float scaling) {
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void refresh() {
+        }
+    }
+
     public int getHeight() {
         return height;
     }
@@ -146,6 +417,22 @@ public class PNGExporter implements VectorExporter, ByteExporter, LongTask {
         this.margin = margin;
     }
 
+    public boolean isTiled() {
+        return tiled;
+    }
+
+    public void setTiled(boolean tiled) {
+        this.tiled = tiled;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
     public boolean isTransparentBackground() {
         return transparentBackground;
     }
@@ -0,0 +1,297 @@
+/*
+ Copyright 2008-2011 Gephi
+ Authors : Mathieu Bastian
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.exporter.preview.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Streaming PNG encoder for 8-bit RGBA images.
+ * <p>
+ * Rows are given from top to bottom, in any number of calls to
+ * <code>writeRows()</code>, so the full image never needs to be in memory. Each
+ * row is filtered with the PNG filter giving the smallest sum of absolute
+ * differences, then deflated into <code>IDAT</code> chunks.
+ * <p>
+ * The underlying stream is not closed by <code>finish()</code>.
+ *
+ * @author Mathieu Bastian
+ */
+public class PNGEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int CHUNK_SIZE = 1 << 16;
+    private final OutputStream stream;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    private final ChunkOutputStream chunks;
+    private final DeflaterOutputStream data;
+    //Rows
+    private final int stride;
+    private byte[] previous;
+    private byte[] current;
+    private final byte[][] filtered;
+    private int rowsWritten;
+
+    /**
+     * Constructor.
+     *
+     * @param stream the stream to write to
+     * @param width the image's width, in pixels
+     * @param height the image's height, in pixels
+     * @param compressionLevel the deflate level, from 0 to 9
+     */
+    public PNGEncoder(OutputStream stream, int width, int height, int compressionLevel) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Width and height must be positive");
+        }
+        this.stream = stream;
+        this.width = width;
+        this.height = height;
+        this.stride = width * 4;
+        this.previous = new byte[stride];
+        this.current = new byte[stride];
+        this.filtered = new byte[5][stride + 1];
+        this.deflater = new Deflater(compressionLevel);
+        this.chunks = new ChunkOutputStream();
+        this.data = new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes the PNG signature and the <code>IHDR</code> chunk. Must be called
+     * once, before the rows.
+     *
+     * @throws IOException if the stream can't be written
+     */
+    public void writeHeader() throws IOException {
+        stream.write(SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8;  //Bit depth
+        header[9] = 6;  //Truecolor with alpha
+        header[10] = 0; //Deflate
+        header[11] = 0; //Adaptive filtering
+        header[12] = 0; //No interlace
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Writes <code>rows</code> rows of non-premultiplied ARGB pixels, as found
+     * in <code>BufferedImage.TYPE_INT_ARGB</code> images.
+     *
+     * @param pixels the pixels, <code>width</code> per row
+     * @param offset the index of the first pixel in <code>pixels</code>
+     * @param rows the number of rows to write
+     * @throws IOException if the stream can't be written
+     */
+    public void writeRows(int[] pixels, int offset, int rows) throws IOException {
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("The image has only " + height + " rows");
+        }
+        for (int r = 0; r < rows; r++) {
+            int index = offset + r * width;
+            for (int i = 0, j = 0; i < width; i++, j += 4) {
+                int argb = pixels[index + i];
+                current[j] = (byte) (argb >> 16);
+                current[j + 1] = (byte) (argb >> 8);
+                current[j + 2] = (byte) argb;
+                current[j + 3] = (byte) (argb >>> 24);
+            }
+            byte[] row = filter();
+            data.write(row, 0, row.length);
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        rowsWritten += rows;
+    }
+
+    /**
+     * Flushes the compressed data and writes the <code>IEND</code> chunk.
+     *
+     * @throws IOException if the stream can't be written
+     */
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written");
+        }
+        data.finish();
+        chunks.flushChunk();
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        stream.flush();
+    }
+
+    private byte[] filter() {
+        byte[] none = filtered[0];
+        byte[] sub = filtered[1];
+        byte[] up = filtered[2];
+        byte[] average = filtered[3];
+        byte[] paeth = filtered[4];
+        none[0] = 0;
+        sub[0] = 1;
+        up[0] = 2;
+        average[0] = 3;
+        paeth[0] = 4;
+        long sumNone = 0, sumSub = 0, sumUp = 0, sumAverage = 0, sumPaeth = 0;
+        for (int i = 0; i < stride; i++) {
+            int x = current[i] & 0xFF;
+            int a = i >= 4 ? current[i - 4] & 0xFF : 0;
+            int b = previous[i] & 0xFF;
+            int c = i >= 4 ? previous[i - 4] & 0xFF : 0;
+
+            byte v = (byte) x;
+            none[i + 1] = v;
+            sumNone += Math.abs(v);
+            v = (byte) (x - a);
+            sub[i + 1] = v;
+            sumSub += Math.abs(v);
+            v = (byte) (x - b);
+            up[i + 1] = v;
+            sumUp += Math.abs(v);
+            v = (byte) (x - ((a + b) >> 1));
+            average[i + 1] = v;
+            sumAverage += Math.abs(v);
+            v = (byte) (x - paethPredictor(a, b, c));
+            paeth[i + 1] = v;
+            sumPaeth += Math.abs(v);
+        }
+        byte[] best = none;
+        long min = sumNone;
+        if (sumSub < min) {
+            best = sub;
+            min = sumSub;
+        }
+        if (sumUp < min) {
+            best = up;
+            min = sumUp;
+        }
+        if (sumAverage < min) {
+            best = average;
+            min = sumAverage;
+        }
+        if (sumPaeth < min) {
+            best = paeth;
+        }
+        return best;
+    }
+
+    private static int paethPredictor(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        } else if (pb <= pc) {
+            return b;
+        }
+        return c;
+    }
+
+    private void writeChunk(String type, byte[] bytes, int length) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        byte[] lengthBytes = new byte[4];
+        writeInt(lengthBytes, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(bytes, 0, length);
+        byte[] crcBytes = new byte[4];
+        writeInt(crcBytes, 0, (int) crc.getValue());
+
+        stream.write(lengthBytes);
+        stream.write(typeBytes);
+        stream.write(bytes, 0, length);
+        stream.write(crcBytes);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Buffers the compressed data and writes it as <code>IDAT</code> chunks.
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk("IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.io.exporter.preview.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class PNGEncoderNGTest {
+
+    @Test
+    public void testStrips() throws IOException {
+        //23 rows in strips of 5, the last strip has 3 rows
+        int[] pixels = createPixels(37, 23, new Random(42));
+        BufferedImage image = read(encode(pixels, 37, 23, 5, Deflater.DEFAULT_COMPRESSION));
+        assertPixels(image, pixels, 37, 23);
+    }
+
+    @Test
+    public void testSingleRowStripsAndOneStrip() throws IOException {
+        int[] pixels = createPixels(16, 9, new Random(7));
+        assertPixels(read(encode(pixels, 16, 9, 1, Deflater.DEFAULT_COMPRESSION)), pixels, 16, 9);
+        assertPixels(read(encode(pixels, 16, 9, 9, Deflater.DEFAULT_COMPRESSION)), pixels, 16, 9);
+        assertPixels(read(encode(pixels, 1, 144, 64, Deflater.DEFAULT_COMPRESSION)), pixels, 1, 144);
+    }
+
+    @Test
+    public void testCompressionLevelsAndChunks() throws IOException {
+        //Over 64 KB of image data, split in several IDAT chunks
+        int[] pixels = createPixels(300, 250, new Random(1));
+        for (int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION}) {
+            assertPixels(read(encode(pixels, 300, 250, 64, level)), pixels, 300, 250);
+        }
+    }
+
+    @Test
+    public void testOffset() throws IOException {
+        int[] pixels = createPixels(8, 6, new Random(3));
+        int[] shifted = new int[pixels.length + 5];
+        System.arraycopy(pixels, 0, shifted, 5, pixels.length);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        PNGEncoder encoder = new PNGEncoder(stream, 8, 6, Deflater.DEFAULT_COMPRESSION);
+        encoder.writeHeader();
+        encoder.writeRows(shifted, 5, 4);
+        encoder.writeRows(shifted, 5 + 4 * 8, 2);
+        encoder.finish();
+        assertPixels(read(stream.toByteArray()), pixels, 8, 6);
+    }
+
+    @Test
+    public void testRowCountChecked() throws IOException {
+        int[] pixels = new int[4 * 3];
+        PNGEncoder encoder = new PNGEncoder(new ByteArrayOutputStream(), 4, 3, Deflater.DEFAULT_COMPRESSION);
+        encoder.writeHeader();
+        encoder.writeRows(pixels, 0, 2);
+        try {
+            encoder.finish();
+            fail("The missing row was not reported");
+        } catch (IllegalStateException e) {
+        }
+        try {
+            encoder.writeRows(pixels, 0, 2);
+            fail("The extra row was written");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    /**
+     * Returns ARGB pixels alternating bands of smooth gradients, which the
+     * predicting filters compress best, and random noise with random alpha.
+     */
+    private static int[] createPixels(int width, int height, Random random) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int argb;
+                if ((y / 4) % 2 == 0) {
+                    argb = 0xFF000000 | ((x * 7) & 0xFF) << 16 | ((y * 11) & 0xFF) << 8 | ((x + y) & 0xFF);
+                } else {
+                    argb = random.nextInt();
+                }
+                pixels[y * width + x] = argb;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Encodes the pixels in strips of <code>stripHeight</code> rows, each
+     * strip in its own array as the tiles of the PNG exporter.
+     */
+    private static byte[] encode(int[] pixels, int width, int height, int stripHeight, int level) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        PNGEncoder encoder = new PNGEncoder(stream, width, height, level);
+        encoder.writeHeader();
+        for (int y = 0; y < height; y += stripHeight) {
+            int rows = Math.min(stripHeight, height - y);
+            int[] strip = Arrays.copyOfRange(pixels, y * width, (y + rows) * width);
+            encoder.writeRows(strip, 0, rows);
+        }
+        encoder.finish();
+        return stream.toByteArray();
+    }
+
+    private static BufferedImage read(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image);
+        return image;
+    }
+
+    private static void assertPixels(BufferedImage image, int[] pixels, int width, int height) {
+        assertEquals(image.getWidth(), width);
+        assertEquals(image.getHeight(), height);
+        assertTrue(image.getColorModel().hasAlpha());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(image.getRGB(x, y), pixels[y * width + x], "Pixel " + x + "," + y);
+            }
+        }
+    }
+}
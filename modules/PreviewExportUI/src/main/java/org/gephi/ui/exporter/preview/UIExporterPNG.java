@@ -102,12 +102,14 @@ public class UIExporterPNG implements ExporterUI {
         private int height = 1024;
         private int margin = 4;
         private boolean transparentBackground;
+        private boolean tiled;
 
         void load(PNGExporter exporter) {
             exporter.setHeight(height);
             exporter.setWidth(width);
             exporter.setMargin(margin);
             exporter.setTransparentBackground(transparentBackground);
+            exporter.setTiled(tiled);
         }
 
         void save(PNGExporter exporter) {
@@ -115,6 +117,7 @@ public class UIExporterPNG implements ExporterUI {
             width = exporter.getWidth();
             margin = exporter.getMargin();
             transparentBackground = exporter.isTransparentBackground();
+            tiled = exporter.isTiled();
         }
     }
 }
@@ -54,6 +54,7 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
         widthTextField.setText(Integer.toString(exporter.getWidth()));
         marginTextField.setText(Integer.toString(exporter.getMargin()));
         transparentBackgroundCheckbox.setSelected(exporter.isTransparentBackground());
+        tiledCheckbox.setSelected(exporter.isTiled());
     }
 
     void unsetup(PNGExporter exporter) {
@@ -62,6 +63,7 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
             exporter.setHeight(Integer.parseInt(heightTextField.getText()));
             exporter.setMargin(Integer.parseInt(marginTextField.getText()));
             exporter.setTransparentBackground(transparentBackgroundCheckbox.isSelected());
+            exporter.setTiled(tiledCheckbox.isSelected());
         } catch (Exception ex) {
         }
     }
@@ -88,6 +90,7 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
         marginTextField = new javax.swing.JTextField();
         labelMperc = new javax.swing.JLabel();
         transparentBackgroundCheckbox = new javax.swing.JCheckBox();
+        tiledCheckbox = new javax.swing.JCheckBox();
 
         widthTextField.setName("width"); // NOI18N
 
@@ -109,6 +112,8 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
 
         transparentBackgroundCheckbox.setText("Transparent background");
 
+        tiledCheckbox.setText("Tiled rendering (large images)");
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -138,7 +143,8 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
                             .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                                 .addComponent(labelMperc)
                                 .addComponent(labelHpx))))
-                    .addComponent(transparentBackgroundCheckbox))
+                    .addComponent(transparentBackgroundCheckbox)
+                    .addComponent(tiledCheckbox))
                 .addContainerGap(123, Short.MAX_VALUE))
         );
         layout.setVerticalGroup(
@@ -161,7 +167,9 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
                     .addComponent(labelMperc))
                 .addGap(18, 18, 18)
                 .addComponent(transparentBackgroundCheckbox)
-                .addContainerGap(49, Short.MAX_VALUE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(tiledCheckbox)
+                .addContainerGap(26, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
     // Variables declaration - do not modify//GEN-BEGIN:variables
@@ -172,6 +180,7 @@ public class UIExporterPNGPanel extends javax.swing.JPanel implements Validation
     private javax.swing.JLabel labelMperc;
     private javax.swing.JLabel labelWpx;
     private javax.swing.JTextField marginTextField;
+    private javax.swing.JCheckBox tiledCheckbox;
     private javax.swing.JCheckBox transparentBackgroundCheckbox;
     private javax.swing.JLabel widthLabel;
     private javax.swing.JTextField widthTextField;
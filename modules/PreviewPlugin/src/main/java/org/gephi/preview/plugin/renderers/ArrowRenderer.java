@@ -46,6 +46,7 @@ import com.itextpdf.text.pdf.PdfGState;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Rectangle2D;
 import java.util.Locale;
 import org.gephi.graph.api.Edge;
 import org.gephi.preview.api.*;
@@ -53,6 +54,7 @@ import org.gephi.preview.plugin.builders.EdgeBuilder;
 import org.gephi.preview.plugin.builders.NodeBuilder;
 import org.gephi.preview.plugin.items.EdgeItem;
 import org.gephi.preview.plugin.items.NodeItem;
+import org.gephi.preview.spi.BoundedRenderer;
 import org.gephi.preview.spi.ItemBuilder;
 import org.gephi.preview.spi.Renderer;
 import org.gephi.preview.types.EdgeColor;
@@ -65,7 +67,7 @@ import org.w3c.dom.Element;
  * @author Yudi Xue, Mathieu Bastian
  */
 @ServiceProvider(service = Renderer.class, position = 200)
-public class ArrowRenderer implements Renderer {
+public class ArrowRenderer implements Renderer, BoundedRenderer {
 
     //Const
     protected final float BASE_RATIO = 0.5f;
@@ -117,6 +119,21 @@ public class ArrowRenderer implements Renderer {
         }
     }
 
+    @Override
+    public Rectangle2D getBounds(Item item, PreviewProperties properties) {
+        //The arrow is within its length and half width of the node border
+        Item targetItem = item.getData(EdgeRenderer.TARGET);
+        Float x = targetItem.getData(NodeItem.X);
+        Float y = targetItem.getData(NodeItem.Y);
+        Double weight = item.getData(EdgeItem.WEIGHT);
+        float size = Math.max(0f, properties.getFloatValue(PreviewProperty.ARROW_SIZE)) * weight.floatValue();
+        float radius = Math.abs(properties.getFloatValue(PreviewProperty.EDGE_RADIUS))
+                + (Float) targetItem.getData(NodeItem.SIZE) / 2f
+                + Math.max(0, properties.getFloatValue(PreviewProperty.NODE_BORDER_WIDTH));
+        float extent = radius + size * (1f + BASE_RATIO);
+        return new Rectangle2D.Float(x - extent, y - extent, extent * 2f, extent * 2f);
+    }
+
     public void renderStraight(RenderTarget target, Item item, float x1, float y1, float x2, float y2, float radius, float size, Color color) {
         Edge edge = (Edge) item.getSource();
         Vector direction = new Vector(x2, y2);
@@ -47,6 +47,7 @@ import com.itextpdf.text.pdf.PdfGState;
 import java.awt.*;
 import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
 import org.gephi.graph.api.Edge;
 import org.gephi.preview.api.*;
 import org.gephi.preview.plugin.builders.EdgeBuilder;
@@ -55,6 +56,7 @@ import org.gephi.preview.plugin.builders.NodeBuilder;
 import org.gephi.preview.plugin.items.EdgeItem;
 import org.gephi.preview.plugin.items.EdgeLabelItem;
 import org.gephi.preview.plugin.items.NodeItem;
+import org.gephi.preview.spi.BoundedRenderer;
 import org.gephi.preview.spi.ItemBuilder;
 import org.gephi.preview.spi.Renderer;
 import org.gephi.preview.types.DependantColor;
@@ -70,7 +72,7 @@ import org.w3c.dom.Text;
  * @author Yudi Xue, Mathieu Bastian
  */
 @ServiceProvider(service = Renderer.class, position = 500)
-public class EdgeLabelRenderer implements Renderer {
+public class EdgeLabelRenderer implements Renderer, BoundedRenderer {
     //Custom properties
 
     public static final String EDGE_COLOR = "edge.label.edgeColor";
@@ -87,6 +89,7 @@ public class EdgeLabelRenderer implements Renderer {
     protected final float defaultOutlineOpacity = 40;
     //Font cache
     protected Font font;
+    private static final FontRenderContext BOUNDS_CONTEXT = new FontRenderContext(null, true, true);
 
     @Override
     public void preProcess(PreviewModel previewModel) {
@@ -211,6 +214,21 @@ public class EdgeLabelRenderer implements Renderer {
         }
     }
 
+    @Override
+    public Rectangle2D getBounds(Item item, PreviewProperties properties) {
+        String label = item.getData(EdgeLabelItem.LABEL);
+        Float x = item.getData(LABEL_X);
+        Float y = item.getData(LABEL_Y);
+        float outlineSize = Math.max(0f, properties.getFloatValue(PreviewProperty.EDGE_LABEL_OUTLINE_SIZE)) * (font.getSize() / 32f);
+
+        //Metrics of the graphics may differ a little from unhinted ones
+        Rectangle2D text = font.getStringBounds(label, BOUNDS_CONTEXT);
+        float height = (float) text.getHeight();
+        float halfWidth = (float) text.getWidth() / 2f + outlineSize + font.getSize() / 4f;
+        float halfHeight = height + outlineSize;
+        return new Rectangle2D.Float(x - halfWidth, y - halfHeight, halfWidth * 2f, halfHeight * 2f);
+    }
+
     public void renderG2D(G2DTarget target, String label, float x, float y, Color color, float outlineSize, Color outlineColor) {
         Graphics2D graphics = target.getGraphics();
 
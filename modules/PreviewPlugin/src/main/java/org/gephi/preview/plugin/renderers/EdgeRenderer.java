@@ -48,6 +48,7 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
 import java.text.DecimalFormat;
 import java.util.Locale;
 import org.gephi.graph.api.Edge;
@@ -57,6 +58,7 @@ import org.gephi.preview.plugin.builders.EdgeBuilder;
 import org.gephi.preview.plugin.builders.NodeBuilder;
 import org.gephi.preview.plugin.items.EdgeItem;
 import org.gephi.preview.plugin.items.NodeItem;
+import org.gephi.preview.spi.BoundedRenderer;
 import org.gephi.preview.spi.ItemBuilder;
 import org.gephi.preview.spi.Renderer;
 import org.gephi.preview.types.EdgeColor;
@@ -69,7 +71,7 @@ import org.w3c.dom.Element;
  * @author Yudi Xue, Mathieu Bastian
  */
 @ServiceProvider(service = Renderer.class, position = 100)
-public class EdgeRenderer implements Renderer {
+public class EdgeRenderer implements Renderer, BoundedRenderer {
 
     //Custom properties
     public static final String EDGE_MIN_WEIGHT = "edge.min-weight";
@@ -193,6 +195,43 @@ public class EdgeRenderer implements Renderer {
         }
     }
 
+    @Override
+    public Rectangle2D getBounds(Item item, PreviewProperties properties) {
+        Item sourceItem = item.getData(SOURCE);
+        Item targetItem = item.getData(TARGET);
+        Float x1 = sourceItem.getData(NodeItem.X);
+        Float y1 = sourceItem.getData(NodeItem.Y);
+        Float x2 = targetItem.getData(NodeItem.X);
+        Float y2 = targetItem.getData(NodeItem.Y);
+
+        //Curves are within the convex hull of their control points
+        Rectangle2D.Float bounds = new Rectangle2D.Float(x1, y1, 0f, 0f);
+        if (sourceItem == targetItem) {
+            Float size = sourceItem.getData(NodeItem.SIZE);
+            bounds.add(x1 + size, y1 - size);
+            bounds.add(x1 + size, y1 + size);
+        } else {
+            bounds.add(x2, y2);
+            if (properties.getBooleanValue(PreviewProperty.EDGE_CURVED)) {
+                Vector direction = new Vector(x2, y2);
+                direction.sub(new Vector(x1, y1));
+                float length = direction.mag();
+                direction.normalize();
+                float factor = properties.getFloatValue(BEZIER_CURVENESS) * length;
+                Vector n = new Vector(direction.y, -direction.x);
+                n.mult(factor);
+                direction.mult(factor);
+                bounds.add(x1 + direction.x + n.x, y1 + direction.y + n.y);
+                bounds.add(x2 - direction.x + n.x, y2 - direction.y + n.y);
+            }
+        }
+
+        //Square caps reach further than half the thickness
+        float pad = ((Double) item.getData(EdgeItem.WEIGHT)).floatValue();
+        bounds.setRect(bounds.x - pad, bounds.y - pad, bounds.width + 2f * pad, bounds.height + 2f * pad);
+        return bounds;
+    }
+
     public void renderSelfLoop(Item nodeItem, float thickness, Color color, PreviewProperties properties, RenderTarget renderTarget) {
         Float x = nodeItem.getData(NodeItem.X);
         Float y = nodeItem.getData(NodeItem.Y);
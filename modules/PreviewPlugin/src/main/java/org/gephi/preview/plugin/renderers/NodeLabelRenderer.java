@@ -56,6 +56,7 @@ import org.gephi.preview.plugin.builders.NodeBuilder;
 import org.gephi.preview.plugin.builders.NodeLabelBuilder;
 import org.gephi.preview.plugin.items.NodeItem;
 import org.gephi.preview.plugin.items.NodeLabelItem;
+import org.gephi.preview.spi.BoundedRenderer;
 import org.gephi.preview.spi.ItemBuilder;
 import org.gephi.preview.spi.Renderer;
 import org.gephi.preview.types.DependantColor;
@@ -72,7 +73,7 @@ import org.w3c.dom.svg.SVGRect;
  * @author Yudi Xue, Mathieu Bastian
  */
 @ServiceProvider(service = Renderer.class, position = 400)
-public class NodeLabelRenderer implements Renderer {
+public class NodeLabelRenderer implements Renderer, BoundedRenderer {
     //Custom properties
 
     public static final String NODE_COLOR = "node.label.nodeColor";
@@ -95,6 +96,7 @@ public class NodeLabelRenderer implements Renderer {
     protected final int defaultBoxOpacity = 100;
     //Font cache
     protected Map<Integer, Font> fontCache;
+    private static final FontRenderContext BOUNDS_CONTEXT = new FontRenderContext(null, true, true);
 
     @Override
     public void preProcess(PreviewModel previewModel) {
@@ -185,6 +187,22 @@ public class NodeLabelRenderer implements Renderer {
         }
     }
 
+    @Override
+    public Rectangle2D getBounds(Item item, PreviewProperties properties) {
+        String label = item.getData(NodeLabelItem.LABEL);
+        Float x = item.getData(NODE_X);
+        Float y = item.getData(NODE_Y);
+        Font font = fontCache.get((Integer) item.getData(FONT_SIZE));
+        float outlineSize = Math.max(0f, properties.getFloatValue(PreviewProperty.NODE_LABEL_OUTLINE_SIZE)) * (font.getSize() / 32f);
+
+        //Metrics of the graphics may differ a little from unhinted ones
+        Rectangle2D text = font.getStringBounds(label, BOUNDS_CONTEXT);
+        float height = (float) text.getHeight();
+        float halfWidth = (float) text.getWidth() / 2f + outlineSize + font.getSize() / 4f;
+        float halfHeight = height + outlineSize;
+        return new Rectangle2D.Float(x - halfWidth, y - halfHeight, halfWidth * 2f, halfHeight * 2f);
+    }
+
     public void renderG2D(G2DTarget target, String label, float x, float y, int fontSize, Color color, float outlineSize, Color outlineColor, boolean showBox, Color boxColor) {
         Graphics2D graphics = target.getGraphics();
 
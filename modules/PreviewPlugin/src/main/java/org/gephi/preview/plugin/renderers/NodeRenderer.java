@@ -47,10 +47,12 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
 import org.gephi.graph.api.Node;
 import org.gephi.preview.api.*;
 import org.gephi.preview.plugin.builders.NodeBuilder;
 import org.gephi.preview.plugin.items.NodeItem;
+import org.gephi.preview.spi.BoundedRenderer;
 import org.gephi.preview.spi.ItemBuilder;
 import org.gephi.preview.spi.Renderer;
 import org.gephi.preview.types.DependantColor;
@@ -63,7 +65,7 @@ import org.w3c.dom.Element;
  * @author Yudi Xue, Mathieu Bastian
  */
 @ServiceProvider(service = Renderer.class, position = 300)
-public class NodeRenderer implements Renderer {
+public class NodeRenderer implements Renderer, BoundedRenderer {
 
     //Default values
     protected float defaultBorderWidth = 1f;
@@ -85,6 +87,15 @@ public class NodeRenderer implements Renderer {
         }
     }
 
+    @Override
+    public Rectangle2D getBounds(Item item, PreviewProperties properties) {
+        Float x = item.getData(NodeItem.X);
+        Float y = item.getData(NodeItem.Y);
+        Float size = item.getData(NodeItem.SIZE);
+        float radius = size / 2f + Math.max(0f, properties.getFloatValue(PreviewProperty.NODE_BORDER_WIDTH));
+        return new Rectangle2D.Float(x - radius, y - radius, radius * 2f, radius * 2f);
+    }
+
     public void renderG2D(Item item, G2DTarget target, PreviewProperties properties) {
         //Params
         Float x = item.getData(NodeItem.X);
@@ -41,64 +41,44 @@
  */
 package org.gephi.ranking;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import org.gephi.attribute.api.AttributeModel;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphChangeNotifier;
 import org.gephi.graph.api.GraphController;
 import org.gephi.ranking.api.RankingEvent;
 import org.openide.util.Lookup;
 
 /**
+ * Refreshes the rankings when the node or edge table changes, as notified by
+ * the workspace's {@link GraphChangeNotifier}.
  *
  * @author mbastian
  */
-public class ColumnObserver extends TimerTask {
+public class ColumnObserver implements GraphChangeListener {
 
-    private static final int INTERVAL = 1000;
-    private final Timer timer;
     private final RankingModelImpl model;
-    private final AttributeModel attributeModel;
-    //Hashcodes
-    private int nodeTableHash;
-    private int edgeTableHash;
+    private final GraphChangeNotifier notifier;
 
     public ColumnObserver(RankingModelImpl rankingModel) {
-        timer = new Timer("RankingColumnObserver", true);
         model = rankingModel;
 
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
-
-        attributeModel = graphController.getAttributeModel(rankingModel.getWorkspace());
-        nodeTableHash = attributeModel.getNodeTable().hashCode();
-        edgeTableHash = attributeModel.getEdgeTable().hashCode();
+        notifier = graphController.getChangeNotifier(rankingModel.getWorkspace());
     }
 
     @Override
-    public void run() {
-        boolean changed = false;
-        int nodeHash = attributeModel.getNodeTable().hashCode();
-        if (nodeHash != nodeTableHash) {
-            changed = true;
-        }
-        nodeTableHash = nodeHash;
-
-        int edgeHash = attributeModel.getEdgeTable().hashCode();
-        if (edgeHash != edgeTableHash) {
-            changed = true;
-        }
-        edgeTableHash = edgeHash;
-
-        if (changed) {
+    public void graphChanged(GraphChangeEvent event) {
+        if (event.is(GraphChangeEvent.EventType.TABLES)) {
             RankingEvent rankingEvent = new RankingEventImpl(RankingEvent.EventType.REFRESH_RANKING, model);
             model.fireRankingListener(rankingEvent);
         }
     }
 
     public void start() {
-        timer.schedule(this, INTERVAL, INTERVAL);
+        notifier.addChangeListener(this);
     }
 
     public void stop() {
-        timer.cancel();
+        notifier.removeChangeListener(this);
     }
 }
@@ -41,51 +41,45 @@
  */
 package org.gephi.ranking;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import org.gephi.graph.api.GraphChangeEvent;
+import org.gephi.graph.api.GraphChangeListener;
+import org.gephi.graph.api.GraphChangeNotifier;
 import org.gephi.graph.api.GraphController;
-import org.gephi.graph.api.GraphModel;
 import org.gephi.ranking.api.RankingEvent;
 import org.openide.util.Lookup;
 
 /**
+ * Refreshes the ranking view when the visible view is replaced or its nodes
+ * and edges change, as notified by the workspace's
+ * {@link GraphChangeNotifier}.
  *
  * @author mbastian
  */
-public class GraphViewObserver extends TimerTask {
+public class GraphViewObserver implements GraphChangeListener {
 
-    private static final int INTERVAL = 1000;
-    private final Timer timer;
     private final RankingModelImpl model;
-    private final GraphModel graphModel;
-    //Hashcodes
-    private int viewHash;
+    private final GraphChangeNotifier notifier;
 
     public GraphViewObserver(RankingModelImpl rankingModel) {
-        timer = new Timer("RankingGraphViewObserver", true);
         model = rankingModel;
 
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
-
-        graphModel = graphController.getGraphModel(rankingModel.getWorkspace());
-        viewHash = graphModel.getVisibleView().hashCode();
+        notifier = graphController.getChangeNotifier(rankingModel.getWorkspace());
     }
 
     @Override
-    public void run() {
-        int hash = graphModel.getVisibleView().hashCode();
-        if (hash != viewHash) {
+    public void graphChanged(GraphChangeEvent event) {
+        if (event.is(GraphChangeEvent.EventType.VISIBLE_VIEW)) {
             RankingEvent rankingEvent = new RankingEventImpl(RankingEvent.EventType.REFRESH_VIEW, model);
             model.fireRankingListener(rankingEvent);
-            viewHash = hash;
         }
     }
 
     public void start() {
-        timer.schedule(this, INTERVAL, INTERVAL);
+        notifier.addChangeListener(this);
     }
 
     public void stop() {
-        timer.cancel();
+        notifier.removeChangeListener(this);
     }
 }
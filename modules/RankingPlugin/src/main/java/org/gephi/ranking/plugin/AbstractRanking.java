@@ -41,16 +41,13 @@
  */
 package org.gephi.ranking.plugin;
 
-import java.util.ArrayList;
-import java.util.List;
-import org.gephi.graph.api.Edge;
+import org.gephi.attribute.api.NumericSummary;
 import org.gephi.graph.api.Graph;
-import org.gephi.graph.api.Node;
 import org.gephi.ranking.api.Ranking;
 import org.gephi.ranking.api.RankingModel;
 
 /**
- * Abstract ranking implementation, providing min/max storage.
+ * Abstract ranking implementation, providing min/max and summary storage.
  * <p>
  * It also has convenient static methods:
  * <ul><li><b>refreshMinMax:</b> Refresh the minimum and maximum of the ranking
@@ -67,6 +64,7 @@ public abstract class AbstractRanking<Element> implements Ranking<Element> {
     protected final String elementType;
     protected Number minimum;
     protected Number maximum;
+    protected NumericSummary summary;
 
     public AbstractRanking(String elementType, String name, RankingModel rankingModel) {
         this.elementType = elementType;
@@ -104,33 +102,54 @@ public abstract class AbstractRanking<Element> implements Ranking<Element> {
 
     /**
      * Refresh the min and max of
-     * <code>ranking</code>.
+     * <code>ranking</code>, and its summary, in a single pass over the
+     * elements.
      *
      * @param ranking the ranking to find min and ma
      * @param graph the graph where values are from
      */
     public static void refreshMinMax(AbstractRanking ranking, Graph graph) {
+        Object[] elements;
         if (ranking.getElementType().equals(Ranking.NODE_ELEMENT)) {
-            List<Comparable> objects = new ArrayList<Comparable>();
-            for (Node node : graph.getNodes().toArray()) {
-                Comparable value = (Comparable) ranking.getValue(node);
-                if (value != null) {
-                    objects.add(value);
-                }
-            }
-            ranking.setMinimumValue((Number) getMin(objects.toArray(new Comparable[0])));
-            ranking.setMaximumValue((Number) getMax(objects.toArray(new Comparable[0])));
+            elements = graph.getNodes().toArray();
         } else if (ranking.getElementType().equals(Ranking.EDGE_ELEMENT)) {
-            List<Comparable> objects = new ArrayList<Comparable>();
-            for (Edge edge : graph.getEdges().toArray()) {
-                Comparable value = (Comparable) ranking.getValue(edge);
-                if (value != null) {
-                    objects.add(value);
+            elements = graph.getEdges().toArray();
+        } else {
+            return;
+        }
+        NumericSummary.Builder builder = new NumericSummary.Builder();
+        Number min = null;
+        Number max = null;
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        for (Object element : elements) {
+            Number value = ranking.getValue(element);
+            if (value != null) {
+                double v = value.doubleValue();
+                if (min == null || v < minValue) {
+                    min = value;
+                    minValue = v;
                 }
+                if (max == null || v > maxValue) {
+                    max = value;
+                    maxValue = v;
+                }
+                builder.add(v);
             }
-            ranking.setMinimumValue((Number) getMin(objects.toArray(new Comparable[0])));
-            ranking.setMaximumValue((Number) getMax(objects.toArray(new Comparable[0])));
         }
+        ranking.setMinimumValue(min != null ? min : Double.NaN);
+        ranking.setMaximumValue(max != null ? max : Double.NaN);
+        ranking.summary = builder.build();
+    }
+
+    /**
+     * Returns the summary of the values, with count, bounds and an
+     * equi-depth histogram. Computed along with the min and max.
+     *
+     * @return the values summary, or <code>null</code> if not computed yet
+     */
+    public NumericSummary getSummary() {
+        return summary;
     }
 
     /**
@@ -48,6 +48,8 @@ import java.util.List;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.AttributeUtils;
 import org.gephi.attribute.api.Column;
+import org.gephi.attribute.api.Index;
+import org.gephi.attribute.api.NumericSummary;
 import org.gephi.attribute.time.TimestampValueSet;
 import org.gephi.graph.api.*;
 import org.gephi.ranking.api.Ranking;
@@ -173,7 +175,7 @@ public class AttributeRankingBuilder implements RankingBuilder {
         @Override
         public Number getMaximumValue() {
             if (maximum == null) {
-                AbstractRanking.refreshMinMax(this, graph);
+                refreshMinMax();
             }
             return maximum;
         }
@@ -181,11 +183,28 @@ public class AttributeRankingBuilder implements RankingBuilder {
         @Override
         public Number getMinimumValue() {
             if (minimum == null) {
-                AbstractRanking.refreshMinMax(this, graph);
+                refreshMinMax();
             }
             return minimum;
         }
 
+        private void refreshMinMax() {
+            if (column.isDynamic()) {
+                AbstractRanking.refreshMinMax(this, graph);
+                return;
+            }
+            //Static values are indexed by the store, read the bounds from the index
+            GraphModel graphModel = graph.getView().getGraphModel();
+            Index index = elementType.equals(Ranking.NODE_ELEMENT)
+                    ? graphModel.getNodeIndex(graph.getView())
+                    : graphModel.getEdgeIndex(graph.getView());
+            Number min = index.getMinValue(column);
+            Number max = index.getMaxValue(column);
+            minimum = min != null ? min : Double.NaN;
+            maximum = max != null ? max : Double.NaN;
+            summary = NumericSummary.of(index, column);
+        }
+
         @Override
         protected AttributeRanking clone() {
             GraphModel graphModel = graph.getView().getGraphModel();
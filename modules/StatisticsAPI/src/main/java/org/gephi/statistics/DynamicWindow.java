@@ -0,0 +1,334 @@
+/*
+ * Copyright 2008-2010 Gephi
+ * Authors : Cezary Bartosiak
+ *           Mathieu Bastian <mathieu.bastian@gephi.org>
+ * Website : http://www.gephi.org
+ * 
+ * This file is part of Gephi.
+ *
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.gephi.attribute.api.TimestampIndex;
+import org.gephi.attribute.time.Interval;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
+
+/**
+ * Sliding window over the visible graph, kept in a single view which is
+ * updated with the nodes and edges entering and leaving the window at each
+ * move.
+ * <p>
+ * The window bounds and the tick split the time into elementary slices, the
+ * intervals between two consecutive window bounds. Each slice is queried from
+ * the timestamp indexes when it enters the window and when it leaves it, and
+ * every element counts how many slices of the window it is in. An element is
+ * in the window as long as its count is positive. Edges are only in the window
+ * when both their source and target are.
+ * <p>
+ * The view is destroyed by <code>destroy()</code>.
+ *
+ * @author Mathieu Bastian
+ */
+class DynamicWindow {
+
+    private final GraphModel graphModel;
+    private final Graph visibleGraph;
+    private final TimestampIndex<Node> nodeIndex;
+    private final TimestampIndex<Edge> edgeIndex;
+    private final IncrementalDynamicStatistics listener;
+    private final double window;
+    //Windows
+    private final double[] lows;
+    private final double[] boundaries;
+    private final int[] firstSlices;
+    private final int[] lastSlices;
+    //Current window, slices [left, right[
+    private int left;
+    private int right;
+    private int current = -1;
+    //Counts, by store id
+    private int[] nodeCounts = new int[0];
+    private int[] edgeCounts = new int[0];
+    private boolean[] changedNodes = new boolean[0];
+    private boolean[] changedEdges = new boolean[0];
+    private final List<Node> nodes = new ArrayList<Node>();
+    private final List<Edge> edges = new ArrayList<Edge>();
+    //View
+    private GraphView view;
+    private Graph graph;
+
+    public DynamicWindow(GraphModel graphModel, Interval bounds, double window, double tick, IncrementalDynamicStatistics listener) {
+        this.graphModel = graphModel;
+        this.listener = listener;
+        this.window = window;
+
+        GraphView visibleView = graphModel.getVisibleView();
+        visibleGraph = graphModel.getGraph(visibleView);
+        nodeIndex = graphModel.getNodeTimestampIndex(visibleView);
+        edgeIndex = graphModel.getEdgeTimestampIndex(visibleView);
+
+        lows = getLows(bounds, window, tick);
+        double[] bounds2 = new double[lows.length * 2];
+        for (int i = 0; i < lows.length; i++) {
+            bounds2[2 * i] = lows[i];
+            bounds2[2 * i + 1] = lows[i] + window;
+        }
+        Arrays.sort(bounds2);
+        int count = 0;
+        for (int i = 0; i < bounds2.length; i++) {
+            if (count == 0 || bounds2[i] != bounds2[count - 1]) {
+                bounds2[count++] = bounds2[i];
+            }
+        }
+        boundaries = Arrays.copyOf(bounds2, count);
+        firstSlices = new int[lows.length];
+        lastSlices = new int[lows.length];
+        for (int i = 0; i < lows.length; i++) {
+            firstSlices[i] = Arrays.binarySearch(boundaries, lows[i]);
+            lastSlices[i] = Arrays.binarySearch(boundaries, lows[i] + window);
+        }
+
+        view = graphModel.createView();
+        graph = graphModel.getGraph(view);
+    }
+
+    /**
+     * Returns the lower bounds of the successive windows.
+     *
+     * @param bounds the min and max bounds
+     * @param window the window duration
+     * @param tick the window move at each iteration
+     * @return the window lower bounds, in increasing order
+     */
+    static double[] getLows(Interval bounds, double window, double tick) {
+        List<Double> lowList = new ArrayList<Double>();
+        for (double low = bounds.getLow(); low <= bounds.getHigh() - window; low += tick) {
+            lowList.add(low);
+        }
+        double[] lows = new double[lowList.size()];
+        for (int i = 0; i < lows.length; i++) {
+            lows[i] = lowList.get(i);
+        }
+        return lows;
+    }
+
+    /**
+     * Adds to the empty <code>graph</code> the nodes of the interval
+     * <code>[low, high]</code> and the edges of the interval between them,
+     * each in a single bulk insertion.
+     *
+     * @param graph the graph of an empty view
+     * @param nodeIndex the node timestamp index
+     * @param edgeIndex the edge timestamp index
+     * @param low the interval lower bound
+     * @param high the interval upper bound
+     */
+    static void fill(Graph graph, TimestampIndex<Node> nodeIndex, TimestampIndex<Edge> edgeIndex, double low, double high) {
+        List<Node> windowNodes = new ArrayList<Node>();
+        for (Node node : nodeIndex.get(low, high)) {
+            windowNodes.add(node);
+        }
+        graph.addAllNodes(windowNodes);
+        List<Edge> windowEdges = new ArrayList<Edge>();
+        for (Edge edge : edgeIndex.get(low, high)) {
+            if (graph.contains(edge.getSource()) && graph.contains(edge.getTarget())) {
+                windowEdges.add(edge);
+            }
+        }
+        graph.addAllEdges(windowEdges);
+    }
+
+    public int getWindowCount() {
+        return lows.length;
+    }
+
+    public Interval getInterval(int index) {
+        return new Interval(lows[index], lows[index] + window);
+    }
+
+    /**
+     * Moves the window to the <code>index</code>-th interval and returns the
+     * window graph. Windows are expected to be visited in order.
+     *
+     * @param index the window index
+     * @return the graph of the window
+     */
+    public Graph moveTo(int index) {
+        int first = firstSlices[index];
+        int last = lastSlices[index];
+        if (first == last) {
+            //Empty window, only the elements at this timestamp
+            if (current != -1) {
+                count(lows[current], lows[current], -1);
+            }
+            count(lows[index], lows[index], 1);
+        } else {
+            //Entering slices first so that elements staying in the window are never counted to zero
+            for (int i = Math.max(right, first); i < last; i++) {
+                count(boundaries[i], boundaries[i + 1], 1);
+            }
+            for (int i = left; i < Math.min(right, first); i++) {
+                count(boundaries[i], boundaries[i + 1], -1);
+            }
+            left = first;
+            right = last;
+        }
+        current = index;
+        update();
+        return graph;
+    }
+
+    /**
+     * Destroys the window view.
+     */
+    public void destroy() {
+        if (view != null) {
+            graphModel.destroyView(view);
+            view = null;
+            graph = null;
+        }
+    }
+
+    private void count(double low, double high, int delta) {
+        for (Node node : nodeIndex.get(low, high)) {
+            int id = node.getStoreId();
+            if (id >= nodeCounts.length) {
+                int capacity = Math.max(id + 1, nodeCounts.length + (nodeCounts.length >> 1));
+                nodeCounts = Arrays.copyOf(nodeCounts, capacity);
+                changedNodes = Arrays.copyOf(changedNodes, capacity);
+            }
+            nodeCounts[id] += delta;
+            if (!changedNodes[id]) {
+                changedNodes[id] = true;
+                nodes.add(node);
+            }
+        }
+        for (Edge edge : edgeIndex.get(low, high)) {
+            int id = edge.getStoreId();
+            if (id >= edgeCounts.length) {
+                int capacity = Math.max(id + 1, edgeCounts.length + (edgeCounts.length >> 1));
+                edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+                changedEdges = Arrays.copyOf(changedEdges, capacity);
+            }
+            edgeCounts[id] += delta;
+            if (!changedEdges[id]) {
+                changedEdges[id] = true;
+                edges.add(edge);
+            }
+        }
+    }
+
+    private void update() {
+        //Removed edges
+        for (Edge edge : edges) {
+            if (edgeCounts[edge.getStoreId()] == 0 && graph.contains(edge)) {
+                removeEdge(edge);
+            }
+        }
+
+        //Removed nodes, after their remaining edges
+        for (Node node : nodes) {
+            if (nodeCounts[node.getStoreId()] == 0 && graph.contains(node)) {
+                for (Edge edge : graph.getEdges(node).toArray()) {
+                    removeEdge(edge);
+                }
+                if (listener != null) {
+                    listener.nodeRemoved(graph, node);
+                }
+                graph.removeNode(node);
+            }
+        }
+
+        //Added nodes, with their edges already in the window
+        for (Node node : nodes) {
+            if (nodeCounts[node.getStoreId()] > 0 && !graph.contains(node)) {
+                graph.addNode(node);
+                if (listener != null) {
+                    listener.nodeAdded(graph, node);
+                }
+                for (Edge edge : visibleGraph.getEdges(node)) {
+                    if (isEdgeInWindow(edge) && !graph.contains(edge)) {
+                        addEdge(edge);
+                    }
+                }
+            }
+        }
+
+        //Added edges
+        for (Edge edge : edges) {
+            if (isEdgeInWindow(edge) && !graph.contains(edge)) {
+                addEdge(edge);
+            }
+        }
+
+        for (Node node : nodes) {
+            changedNodes[node.getStoreId()] = false;
+        }
+        for (Edge edge : edges) {
+            changedEdges[edge.getStoreId()] = false;
+        }
+        nodes.clear();
+        edges.clear();
+    }
+
+    private boolean isEdgeInWindow(Edge edge) {
+        int id = edge.getStoreId();
+        return id < edgeCounts.length && edgeCounts[id] > 0
+                && graph.contains(edge.getSource()) && graph.contains(edge.getTarget());
+    }
+
+    private void addEdge(Edge edge) {
+        graph.addEdge(edge);
+        if (listener != null) {
+            listener.edgeAdded(graph, edge);
+        }
+    }
+
+    private void removeEdge(Edge edge) {
+        if (listener != null) {
+            listener.edgeRemoved(graph, edge);
+        }
+        graph.removeEdge(edge);
+    }
+}
@@ -42,6 +42,13 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.statistics;
 
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.TimestampIndex;
 import org.gephi.attribute.time.Interval;
@@ -61,6 +68,9 @@ import org.gephi.utils.longtask.api.LongTaskListener;
 import org.gephi.project.api.Workspace;
 import org.gephi.project.api.WorkspaceListener;
 import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
+import org.gephi.statistics.spi.ParallelDynamicStatistics;
+import org.gephi.statistics.spi.StatisticsBatchListener;
 import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
 import org.openide.util.Lookup;
@@ -75,10 +85,12 @@ import org.openide.util.lookup.ServiceProvider;
 public class StatisticsControllerImpl implements StatisticsController {
 
     private final StatisticsBuilder[] statisticsBuilders;
+    private final StatisticsBatchListener[] batchListeners;
     private StatisticsModelImpl model;
 
     public StatisticsControllerImpl() {
         statisticsBuilders = Lookup.getDefault().lookupAll(StatisticsBuilder.class).toArray(new StatisticsBuilder[0]);
+        batchListeners = Lookup.getDefault().lookupAll(StatisticsBatchListener.class).toArray(new StatisticsBatchListener[0]);
 
         //Workspace events
         ProjectController pc = Lookup.getDefault().lookup(ProjectController.class);
@@ -135,7 +147,12 @@ public class StatisticsControllerImpl implements StatisticsController {
 
                 @Override
                 public void run() {
-                    executeDynamic((DynamicStatistics) statistics, dynamicLongTask);
+                    startBatch();
+                    try {
+                        executeDynamic((DynamicStatistics) statistics, dynamicLongTask);
+                    } finally {
+                        finishBatch();
+                    }
                 }
             }, builder.getName(), null);
         } else {
@@ -152,6 +169,34 @@ public class StatisticsControllerImpl implements StatisticsController {
 
     @Override
     public void execute(Statistics statistics) {
+        execute(new Statistics[]{statistics});
+    }
+
+    @Override
+    public void execute(Statistics[] statistics) {
+        startBatch();
+        try {
+            for (Statistics s : statistics) {
+                executeOne(s);
+            }
+        } finally {
+            finishBatch();
+        }
+    }
+
+    private void startBatch() {
+        for (StatisticsBatchListener listener : batchListeners) {
+            listener.batchStarted();
+        }
+    }
+
+    private void finishBatch() {
+        for (StatisticsBatchListener listener : batchListeners) {
+            listener.batchFinished();
+        }
+    }
+
+    private void executeOne(Statistics statistics) {
         if (statistics instanceof DynamicStatistics) {
             executeDynamic((DynamicStatistics) statistics, null);
         } else {
@@ -186,39 +231,106 @@ public class StatisticsControllerImpl implements StatisticsController {
         statistics.execute(graphModel, attributeModel);
 
         //Loop
-        for (double low = bounds.getLow(); low <= bounds.getHigh() - window; low += tick) {
-            double high = low + window;
-
-//            Graph g = dynamicGraph.getSnapshotGraph(low, high);
-            
-            
-            GraphView currentView = graphModel.getVisibleView();
-            Graph graph = graphModel.getGraphVisible();
-            GraphView view = graphModel.createView();
-            Graph g = graphModel.getGraph(view);
-            
-            TimestampIndex<Node> nodeIndex = graphModel.getNodeTimestampIndex(currentView);
-            for(Node node : nodeIndex.get(low, high)) {
-                g.addNode(node);
-            }
-            
-            TimestampIndex<Edge> edgeIndex = graphModel.getEdgeTimestampIndex(currentView);
-            for(Edge edge : edgeIndex.get(low, high)) {
-                g.addEdge(edge);
-            }
-            
+        boolean completed;
+        if (statistics instanceof ParallelDynamicStatistics && ((ParallelDynamicStatistics) statistics).getThreadCount() > 1) {
+            completed = loopParallel((ParallelDynamicStatistics) statistics, graphModel, bounds, window, tick, dynamicLongTask);
+        } else {
+            completed = loop(statistics, graphModel, bounds, window, tick, dynamicLongTask);
+        }
+        if (!completed) {
+            return;
+        }
+        statistics.end();
+        model.addReport(statistics);
+    }
+
+    private boolean loop(DynamicStatistics statistics, GraphModel graphModel, Interval bounds, double window, double tick, DynamicLongTask dynamicLongTask) {
+        IncrementalDynamicStatistics listener = statistics instanceof IncrementalDynamicStatistics ? (IncrementalDynamicStatistics) statistics : null;
+        DynamicWindow dynamicWindow = new DynamicWindow(graphModel, bounds, window, tick, listener);
+        try {
+            for (int i = 0; i < dynamicWindow.getWindowCount(); i++) {
+                Graph g = dynamicWindow.moveTo(i);
 
-            statistics.loop(g.getView(), new Interval(low, high));
+                statistics.loop(g.getView(), dynamicWindow.getInterval(i));
 
-            //Cancelled?
-            if (dynamicLongTask != null && dynamicLongTask.isCancelled()) {
-                return;
-            } else if (dynamicLongTask != null) {
-                dynamicLongTask.progress();
+                //Cancelled?
+                if (dynamicLongTask != null && dynamicLongTask.isCancelled()) {
+                    return false;
+                } else if (dynamicLongTask != null) {
+                    dynamicLongTask.progress();
+                }
             }
+        } finally {
+            dynamicWindow.destroy();
         }
-        statistics.end();
-        model.addReport(statistics);
+        return true;
+    }
+
+    private boolean loopParallel(final ParallelDynamicStatistics statistics, GraphModel graphModel, Interval bounds, double window, double tick, DynamicLongTask dynamicLongTask) {
+        GraphView visibleView = graphModel.getVisibleView();
+        TimestampIndex<Node> nodeIndex = graphModel.getNodeTimestampIndex(visibleView);
+        TimestampIndex<Edge> edgeIndex = graphModel.getEdgeTimestampIndex(visibleView);
+        double[] lows = DynamicWindow.getLows(bounds, window, tick);
+
+        //Each window keeps its view until its results are written, in order.
+        //Views are filled here so that the workers only read the store and
+        //don't wait on each other for its write lock.
+        int threads = statistics.getThreadCount();
+        int maxWindows = 2 * threads;
+        LinkedList<GraphView> views = new LinkedList<GraphView>();
+        LinkedList<Future<Runnable>> results = new LinkedList<Future<Runnable>>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < lows.length || !results.isEmpty(); i++) {
+                if (i >= lows.length || results.size() == maxWindows) {
+                    //Write the oldest window
+                    try {
+                        results.removeFirst().get().run();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    } catch (ExecutionException ex) {
+                        throw new RuntimeException(ex.getCause());
+                    } finally {
+                        graphModel.destroyView(views.removeFirst());
+                    }
+
+                    //Cancelled?
+                    if (dynamicLongTask != null && dynamicLongTask.isCancelled()) {
+                        return false;
+                    } else if (dynamicLongTask != null) {
+                        dynamicLongTask.progress();
+                    }
+                }
+                if (i < lows.length) {
+                    final GraphView view = graphModel.createView();
+                    final Interval interval = new Interval(lows[i], lows[i] + window);
+                    views.add(view);
+                    DynamicWindow.fill(graphModel.getGraph(view), nodeIndex, edgeIndex, interval.getLow(), interval.getHigh());
+                    results.add(pool.submit(new Callable<Runnable>() {
+
+                        @Override
+                        public Runnable call() throws Exception {
+                            return statistics.compute(view, interval);
+                        }
+                    }));
+                }
+            }
+        } finally {
+            for (Future<Runnable> result : results) {
+                result.cancel(false);
+            }
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            for (GraphView view : views) {
+                graphModel.destroyView(view);
+            }
+        }
+        return true;
     }
 
     public StatisticsBuilder getBuilder(Class<? extends Statistics> statisticsClass) {
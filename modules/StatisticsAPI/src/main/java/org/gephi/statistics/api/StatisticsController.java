@@ -75,6 +75,14 @@ public interface StatisticsController {
      * @param statistics    the statistics to execute
      */
     public void execute(Statistics statistics);
+
+    /**
+     * Executes <code>statistics</code> in the current thread, in order, as one
+     * batch. Statistics of the same batch can share a copy of the graph, as
+     * long as it doesn't change.
+     * @param statistics    the statistics to execute
+     */
+    public void execute(Statistics[] statistics);
     
     /**
      * Finds the builder from the statistics class.
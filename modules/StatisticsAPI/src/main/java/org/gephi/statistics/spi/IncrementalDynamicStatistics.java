@@ -0,0 +1,94 @@
+/*
+ * Copyright 2008-2010 Gephi
+ * Authors : Cezary Bartosiak
+ *           Mathieu Bastian <mathieu.bastian@gephi.org>
+ * Website : http://www.gephi.org
+ * 
+ * This file is part of Gephi.
+ *
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.spi;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+
+/**
+ * Dynamic statistics which are told about the nodes and edges entering and
+ * leaving the window, and can therefore update their results instead of
+ * computing them again on the whole window at every <code>loop()</code>.
+ * <p>
+ * The same window graph is reused from one interval to the next. Before each
+ * <code>loop()</code>, the changes since the previous interval are notified in
+ * this order: edges removed, nodes removed, nodes added and edges added. A
+ * node is only removed once its edges have been.
+ * <p>
+ * Notifications are not guaranteed: when <code>loop()</code> is called without
+ * any, the statistics should compute its results from the window as
+ * {@link DynamicStatistics} do.
+ *
+ * @author Mathieu Bastian
+ */
+public interface IncrementalDynamicStatistics extends DynamicStatistics {
+
+    /**
+     * Called after <code>node</code> has been added to the window.
+     * @param window the window graph
+     * @param node the added node
+     */
+    public void nodeAdded(Graph window, Node node);
+
+    /**
+     * Called before <code>node</code> is removed from the window.
+     * @param window the window graph
+     * @param node the removed node
+     */
+    public void nodeRemoved(Graph window, Node node);
+
+    /**
+     * Called after <code>edge</code> has been added to the window.
+     * @param window the window graph
+     * @param edge the added edge
+     */
+    public void edgeAdded(Graph window, Edge edge);
+
+    /**
+     * Called before <code>edge</code> is removed from the window.
+     * @param window the window graph
+     * @param edge the removed edge
+     */
+    public void edgeRemoved(Graph window, Edge edge);
+}
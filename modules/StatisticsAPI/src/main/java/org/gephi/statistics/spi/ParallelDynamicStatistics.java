@@ -0,0 +1,87 @@
+/*
+ * Copyright 2008-2010 Gephi
+ * Authors : Cezary Bartosiak
+ *           Mathieu Bastian <mathieu.bastian@gephi.org>
+ * Website : http://www.gephi.org
+ * 
+ * This file is part of Gephi.
+ *
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.spi;
+
+import org.gephi.attribute.time.Interval;
+import org.gephi.graph.api.GraphView;
+
+/**
+ * Dynamic statistics whose windows can be computed independently of each
+ * other, and therefore concurrently.
+ * <p>
+ * When <code>getThreadCount()</code> is greater than one, the windows are
+ * built in separate views from the calling thread and <code>compute()</code>
+ * is called from a pool of that many threads instead of <code>loop()</code>. The returned tasks are
+ * run in timestamp order from a single thread: this is where the results
+ * should be written to the graph and to the statistics. The number of windows
+ * in progress, and therefore of views, is bounded.
+ *
+ * @author Mathieu Bastian
+ */
+public interface ParallelDynamicStatistics extends DynamicStatistics {
+
+    /**
+     * Computes the results of the window without modifying anything, and
+     * returns the task writing them. May be called concurrently for
+     * different windows.
+     * @param window a snapshot of the graph at the current interval
+     * @param interval the interval of the current snapshot
+     * @return the task writing the results, run in timestamp order
+     */
+    public Runnable compute(GraphView window, Interval interval);
+
+    /**
+     * Returns the number of windows computed concurrently. Windows are
+     * computed one after the other with <code>loop()</code> when it is
+     * <code>1</code>.
+     * @return the thread count
+     */
+    public int getThreadCount();
+
+    /**
+     * Sets the number of windows computed concurrently, <code>1</code> to
+     * compute them one after the other with <code>loop()</code>.
+     * @param threadCount the thread count, at least <code>1</code>
+     */
+    public void setThreadCount(int threadCount);
+}
@@ -52,8 +52,6 @@ import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.graph.api.Node;
-import org.gephi.graph.api.DirectedGraph;
-import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -325,12 +323,10 @@ public class ClusteringCoefficient implements Statistics, LongTask {
         triangles = new int[N];
     }
 
-    public int createIndiciesMapAndInitNetwork(Graph hgraph, HashMap<Node, Integer> indicies, ArrayWrapper[] networks, int currentProgress) {
-        int index = 0;
-        for (Node s : hgraph.getNodes()) {
-            indicies.put(s, index);
-            networks[index] = new ArrayWrapper();
-            index++;
+    private int initNetwork(GraphAdjacency adjacency, ArrayWrapper[] networks, int currentProgress) {
+        int n = adjacency.getNodeCount();
+        for (int i = 0; i < n; i++) {
+            networks[i] = new ArrayWrapper();
             Progress.progress(progress, ++currentProgress);
         }
         return currentProgress;
@@ -416,43 +412,60 @@ public class ClusteringCoefficient implements Statistics, LongTask {
         }
     }
 
-    private HashMap<Node, EdgeWrapper> createNeighbourTable(Graph hgraph, Node node, HashMap<Node, Integer> indicies,
-            ArrayWrapper[] networks, boolean directed) {
-
-        HashMap<Node, EdgeWrapper> neighborTable = new HashMap<Node, EdgeWrapper>();
-
-        if (!directed) {
-            for (Edge edge : hgraph.getEdges(node)) {
-                Node neighbor = hgraph.getOpposite(node, edge);
-                neighborTable.put(neighbor, new EdgeWrapper(1, networks[indicies.get(neighbor)]));
-            }
-        } else {
-            for (Node neighbor : ((DirectedGraph) hgraph).getPredecessors(node)) {
-                neighborTable.put(neighbor, new EdgeWrapper(1, networks[indicies.get(neighbor)]));
+    /**
+     * Fills the neighbor table of every node from the snapshot, one entry per
+     * distinct neighbor. Undirected entries count <code>1</code>. Directed
+     * entries count <code>1</code> for any in-edges plus one per out-edge.
+     */
+    private int fillNetwork(GraphAdjacency adjacency, ArrayWrapper[] currentNetwork, boolean directed, int currentProgress) {
+        int n = adjacency.getNodeCount();
+        int[] outOffsets = adjacency.getOutOffsets();
+        int[] outNeighbors = adjacency.getOutNeighbors();
+        int[] inOffsets = adjacency.getInOffsets();
+        int[] inNeighbors = adjacency.getInNeighbors();
+
+        //Position of each neighbor in the table being built, -1 if absent
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        int[] neighbors = new int[n];
+        int[] counts = new int[n];
+        for (int v = 0; v < n; v++) {
+            int size = 0;
+            if (directed) {
+                for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                    int u = inNeighbors[e];
+                    if (position[u] == -1) {
+                        position[u] = size;
+                        neighbors[size] = u;
+                        counts[size++] = 1;
+                    }
+                }
             }
-
-            for (Edge out : ((DirectedGraph) hgraph).getOutEdges(node)) {
-                Node neighbor = out.getTarget();
-                EdgeWrapper ew = neighborTable.get(neighbor);
-                if (ew == null) {
-                    neighborTable.put(neighbor, new EdgeWrapper(1, network[indicies.get(neighbor)]));
-                } else {
-                    ew.count++;
+            for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                int u = outNeighbors[e];
+                if (position[u] == -1) {
+                    position[u] = size;
+                    neighbors[size] = u;
+                    counts[size++] = 1;
+                } else if (directed) {
+                    counts[position[u]]++;
                 }
             }
-        }
-        return neighborTable;
-    }
 
-    private EdgeWrapper[] getEdges(HashMap<Node, EdgeWrapper> neighborTable) {
+            EdgeWrapper[] edges = new EdgeWrapper[size];
+            for (int i = 0; i < size; i++) {
+                edges[i] = new EdgeWrapper(counts[i], currentNetwork[neighbors[i]]);
+                position[neighbors[i]] = -1;
+            }
+            currentNetwork[v].node = adjacency.getNode(v);
+            currentNetwork[v].setArray(edges);
+            Progress.progress(progress, ++currentProgress);
 
-        int i = 0;
-        EdgeWrapper[] edges = new EdgeWrapper[neighborTable.size()];
-        for (EdgeWrapper e : neighborTable.values()) {
-            edges[i] = e;
-            i++;
+            if (isCanceled) {
+                return currentProgress;
+            }
         }
-        return edges;
+        return currentProgress;
     }
 
     private int processNetwork(ArrayWrapper[] currentNetwork, int currentProgress) {
@@ -537,26 +550,13 @@ public class ClusteringCoefficient implements Statistics, LongTask {
         /**
          * Create network for processing
          */
-        /**
-         *         */
-        HashMap<Node, Integer> indicies = new HashMap<Node, Integer>();
-
-        ProgressCount = createIndiciesMapAndInitNetwork(hgraph, indicies, currentNetwork, ProgressCount);
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, directed, false);
 
-        int index = 0;
-        for (Node node : hgraph.getNodes()) {
-            HashMap<Node, EdgeWrapper> neighborTable = createNeighbourTable(hgraph, node, indicies, currentNetwork, directed);
-
-            EdgeWrapper[] edges = getEdges(neighborTable);
-            currentNetwork[index].node = node;
-            currentNetwork[index].setArray(edges);
-            index++;
-            Progress.progress(progress, ++ProgressCount);
-
-            if (isCanceled) {
-                hgraph.readUnlockAll();
-                return resultValues;
-            }
+        ProgressCount = initNetwork(adjacency, currentNetwork, ProgressCount);
+        ProgressCount = fillNetwork(adjacency, currentNetwork, directed, ProgressCount);
+        if (isCanceled) {
+            hgraph.readUnlockAll();
+            return resultValues;
         }
 
         ProgressCount = processNetwork(currentNetwork, ProgressCount);
@@ -774,6 +774,20 @@ public class ClusteringCoefficient implements Statistics, LongTask {
         return res;
     }
 
+    /**
+     * Returns the nodes in the order of {@link #getCoefficientReuslts()} and
+     * {@link #getTriangesReuslts()}, which is not the graph's node order.
+     *
+     * @return the nodes of the last computation
+     */
+    public Node[] getResultNodes() {
+        Node[] res = new Node[N];
+        for (int v = 0; v < N; v++) {
+            res[v] = network[v].node;
+        }
+        return res;
+    }
+
     public double[] getTriangesReuslts() {
         double[] res = new double[N];
         for (int v = 0; v < N; v++) {
@@ -43,20 +43,26 @@ package org.gephi.statistics.plugin;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
 import org.gephi.graph.api.DirectedGraph;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Node;
-import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.utils.longtask.spi.LongTask;
@@ -79,10 +85,21 @@ public class ConnectedComponents implements Statistics, LongTask {
     public static final String STRONG = "strongcompnum";
     private boolean isDirected;
     private ProgressTicket progress;
-    private boolean isCanceled;
+    private volatile boolean isCanceled;
     private int componentCount;
     private int stronglyCount;
     private int[] componentsSize;
+    private int giantComponent = -1;
+    private int[] strongComponentsSize;
+    private int strongGiantComponent = -1;
+    /**
+     * Number of worker threads the weakly connected union-find is split across
+     */
+    private int threadCount = 1;
+    /**
+     * Rows per union-find task at least hold this many slots
+     */
+    private static final int UNION_CHUNK_SIZE = 65536;
     int count;
 
     public ConnectedComponents() {
@@ -102,11 +119,15 @@ public class ConnectedComponents implements Statistics, LongTask {
         undirectedGraph.readLock();
 
         weaklyConnected(undirectedGraph, attributeModel);
-        if (isDirected) {
+        if (isDirected && !isCanceled) {
             DirectedGraph directedGraph = graphModel.getDirectedGraphVisible();
             stronglyConnected(directedGraph, attributeModel);
         }
 
+        if (isCanceled) {
+            undirectedGraph.readUnlockAll();
+            return;
+        }
         undirectedGraph.readUnlock();
     }
 
@@ -115,78 +136,185 @@ public class ConnectedComponents implements Statistics, LongTask {
 
         Column componentCol = initializeWeeklyConnectedColumn(attributeModel);
 
-        HashMap<Node, Integer> indicies = createIndiciesMap(graph);
-
-        LinkedList<LinkedList<Node>> components = computeWeeklyConnectedComponents(graph, indicies);
+        GraphAdjacency adjacency = GraphAdjacency.get(graph, false, false);
 
-        saveComputedComponents(components, componentCol);
+        int[] componentId = computeWeaklyConnectedComponents(adjacency);
+        if (componentId == null) {
+            return;
+        }
 
-        fillComponentSizeList(components);
+        saveComponentIds(adjacency, componentId, componentCol);
+    }
 
-        componentCount = components.size();
+    /**
+     * Computes the weakly connected component of every node, numbered from
+     * <code>0</code> in the order of their first node. Also fills the size
+     * distribution and the giant component.
+     *
+     * @param graph the graph, read-locked by the caller
+     * @return the component of each node, in iteration order, or
+     * <code>null</code> if canceled
+     */
+    public int[] computeWeaklyConnectedComponents(Graph graph) {
+        return computeWeaklyConnectedComponents(GraphAdjacency.get(graph, false, false));
     }
 
     public LinkedList<LinkedList<Node>> computeWeeklyConnectedComponents(Graph graph, HashMap<Node, Integer> indicies) {
+        GraphAdjacency adjacency = GraphAdjacency.build(graph, false, false, indicies);
+        int[] componentId = computeWeaklyConnectedComponents(adjacency);
+        if (componentId == null) {
+            return new LinkedList<LinkedList<Node>>();
+        }
+        return toComponentLists(adjacency, componentId, componentCount);
+    }
 
-        int N = graph.getNodeCount();
-
-        //Keep track of which nodes have been seen
-        int[] color = new int[N];
+    private int[] computeWeaklyConnectedComponents(GraphAdjacency adjacency) {
+        final int N = adjacency.getNodeCount();
+        final int[] offsets = adjacency.getOutOffsets();
+        final int[] neighbors = adjacency.getOutNeighbors();
 
         Progress.start(progress, N);
 
-        int seenCount = 0;
-
-        LinkedList<LinkedList<Node>> components = new LinkedList<LinkedList<Node>>();
-        while (seenCount < N) {
-            //The search Q
-            LinkedList<Node> Q = new LinkedList<Node>();
-            //The component-list
-            LinkedList<Node> component = new LinkedList<Node>();
-
-            //Seed the seach Q
-            NodeIterable iter = graph.getNodes();
-            for (Node first : iter) {
-                if (color[indicies.get(first)] == 0) {
-                    Q.add(first);
-                    iter.doBreak();
-                    break;
+        //Link every edge, each chunk of rows holds about the same number of slots
+        final AtomicIntegerArray parent = new AtomicIntegerArray(N);
+        for (int i = 0; i < N; i++) {
+            parent.set(i, i);
+        }
+        int threads = Math.max(1, Math.min(threadCount, neighbors.length / UNION_CHUNK_SIZE));
+        if (threads > 1) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Callable<Void>> chunks = new ArrayList<Callable<Void>>(threads);
+                int from = 0;
+                for (int t = 1; t <= threads; t++) {
+                    int to = t == threads ? N : rowAtSlot(offsets, (int) ((long) neighbors.length * t / threads));
+                    final int chunkFrom = from;
+                    final int chunkTo = to;
+                    chunks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            unionRows(parent, offsets, neighbors, chunkFrom, chunkTo);
+                            return null;
+                        }
+                    });
+                    from = to;
+                }
+                for (Future<Void> future : pool.invokeAll(chunks)) {
+                    future.get();
                 }
+            } catch (InterruptedException ex) {
+                isCanceled = true;
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                throw new RuntimeException(ex.getCause());
+            } finally {
+                pool.shutdownNow();
             }
+        } else {
+            unionRows(parent, offsets, neighbors, 0, N);
+        }
+        if (isCanceled) {
+            return null;
+        }
 
-            //While there are more nodes to search
-            while (!Q.isEmpty()) {
-                if (isCanceled) {
-                    graph.readUnlock();
-                    return new LinkedList<LinkedList<Node>>();
-                }
-                //Get the next Node and add it to the component list
-                Node u = Q.removeFirst();
-                component.add(u);
-
-                //Iterate over all of u's neighbors
-                EdgeIterable edgeIter = graph.getEdges(u);
-
-                //For each neighbor
-                for (Edge edge : edgeIter) {
-                    Node reachable = graph.getOpposite(u, edge);
-                    int id = indicies.get(reachable);
-                    //If this neighbor is unvisited
-                    if (color[id] == 0) {
-                        color[id] = 1;
-                        //Add it to the search Q
-                        Q.addLast(reachable);
-                        //Mark it as used 
-
-                        Progress.progress(progress, seenCount);
-                    }
+        //Label roots in node order, counting sizes and the giant component on the way
+        int[] componentId = new int[N];
+        int[] label = new int[N];
+        Arrays.fill(label, -1);
+        int[] sizes = new int[N];
+        int components = 0;
+        int giant = -1;
+        for (int i = 0; i < N; i++) {
+            int root = find(parent, i);
+            int c = label[root];
+            if (c < 0) {
+                c = components++;
+                label[root] = c;
+            }
+            componentId[i] = c;
+            giant = updateGiant(sizes, c, giant);
+            Progress.progress(progress, i);
+        }
+
+        componentCount = components;
+        componentsSize = Arrays.copyOf(sizes, components);
+        giantComponent = giant;
+        return componentId;
+    }
+
+    private void unionRows(AtomicIntegerArray parent, int[] offsets, int[] neighbors, int from, int to) {
+        for (int i = from; i < to; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                int j = neighbors[e];
+                //Undirected rows hold both directions
+                if (j > i) {
+                    union(parent, i, j);
                 }
-                color[indicies.get(u)] = 2;
-                seenCount++;
             }
-            components.add(component);
+            if (isCanceled) {
+                return;
+            }
         }
-        return components;
+    }
+
+    private static int rowAtSlot(int[] offsets, int slot) {
+        int row = Arrays.binarySearch(offsets, slot);
+        if (row < 0) {
+            row = -row - 2;
+        }
+        //First row of a run of empty rows
+        while (row > 0 && offsets[row - 1] == slot) {
+            row--;
+        }
+        return row;
+    }
+
+    /**
+     * Lock-free find with path halving. Only roots are ever linked, with a
+     * compare-and-set, so concurrent unions never lose an edge.
+     */
+    private static int find(AtomicIntegerArray parent, int x) {
+        int p;
+        while ((p = parent.get(x)) != x) {
+            int grandParent = parent.get(p);
+            if (grandParent != p) {
+                parent.compareAndSet(x, p, grandParent);
+            }
+            x = grandParent;
+        }
+        return x;
+    }
+
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            //Link the larger root under the smaller one
+            if (a < b) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Increments the size of <code>component</code> and returns the largest
+     * component so far, the first one on ties.
+     */
+    private static int updateGiant(int[] sizes, int component, int giant) {
+        sizes[component]++;
+        if (giant < 0 || sizes[component] > sizes[giant]
+                || (sizes[component] == sizes[giant] && component < giant)) {
+            return component;
+        }
+        return giant;
     }
 
     private Column initializeWeeklyConnectedColumn(AttributeModel attributeModel) {
@@ -208,20 +336,33 @@ public class ConnectedComponents implements Statistics, LongTask {
         return indicies;
     }
 
-    private void saveComputedComponents(LinkedList<LinkedList<Node>> components, Column componentCol) {
-        int i = 0;
-        for (LinkedList<Node> component : components) {
-            for (Node s : component) {
-                s.setAttribute(componentCol, i);
-            }
-            i++;
+    private void saveComponentIds(GraphAdjacency adjacency, int[] componentId, Column componentCol) {
+        for (int i = 0; i < componentId.length; i++) {
+            adjacency.getNode(i).setAttribute(componentCol, componentId[i]);
         }
     }
 
+    private LinkedList<LinkedList<Node>> toComponentLists(GraphAdjacency adjacency, int[] componentId, int components) {
+        ArrayList<LinkedList<Node>> lists = new ArrayList<LinkedList<Node>>(components);
+        for (int c = 0; c < components; c++) {
+            lists.add(new LinkedList<Node>());
+        }
+        for (int i = 0; i < componentId.length; i++) {
+            lists.get(componentId[i]).add(adjacency.getNode(i));
+        }
+        return new LinkedList<LinkedList<Node>>(lists);
+    }
+
     void fillComponentSizeList(LinkedList<LinkedList<Node>> components) {
         componentsSize = new int[components.size()];
-        for (int i = 0; i < components.size(); i++) {
-            componentsSize[i] = components.get(i).size();
+        giantComponent = -1;
+        int i = 0;
+        for (LinkedList<Node> component : components) {
+            componentsSize[i] = component.size();
+            if (giantComponent < 0 || componentsSize[i] > componentsSize[giantComponent]) {
+                giantComponent = i;
+            }
+            i++;
         }
     }
 
@@ -240,86 +381,120 @@ public class ConnectedComponents implements Statistics, LongTask {
 
         Column componentCol = initializeStronglyConnectedColumn(attributeModel);
 
-        HashMap<Node, Integer> indicies = createIndiciesMap(hgraph);
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, true, false);
 
-        LinkedList<LinkedList<Node>> components = top_tarjans(hgraph, indicies);
+        int[] componentId = computeStronglyConnectedComponents(adjacency);
+        if (componentId == null) {
+            return;
+        }
 
-        saveComputedComponents(components, componentCol);
+        saveComponentIds(adjacency, componentId, componentCol);
+    }
 
-        stronglyCount = components.size();
+    /**
+     * Computes the strongly connected component of every node with an
+     * iterative Tarjan search. Components are numbered from <code>0</code> in
+     * completion order. Also fills the strong size distribution and giant
+     * component.
+     *
+     * @param graph the graph, read-locked by the caller
+     * @return the component of each node, in iteration order, or
+     * <code>null</code> if canceled
+     */
+    public int[] computeStronglyConnectedComponents(DirectedGraph graph) {
+        return computeStronglyConnectedComponents(GraphAdjacency.get(graph, true, false));
     }
 
     public LinkedList<LinkedList<Node>> top_tarjans(DirectedGraph graph, HashMap<Node, Integer> indicies) {
+        GraphAdjacency adjacency = GraphAdjacency.build(graph, true, false, indicies);
+        int[] componentId = computeStronglyConnectedComponents(adjacency);
+        if (componentId == null) {
+            return new LinkedList<LinkedList<Node>>();
+        }
+        return toComponentLists(adjacency, componentId, stronglyCount);
+    }
 
-        LinkedList<LinkedList<Node>> allComponents = new LinkedList<LinkedList<Node>>();
+    private int[] computeStronglyConnectedComponents(GraphAdjacency adjacency) {
+        int N = adjacency.getNodeCount();
+        int[] offsets = adjacency.getOutOffsets();
+        int[] neighbors = adjacency.getOutNeighbors();
 
-        count = 1;
-        stronglyCount = 0;
+        Progress.start(progress, N);
 
-        int N = graph.getNodeCount();
+        //Discovery index, 0 when unvisited, and lowest index reachable
         int[] index = new int[N];
-        int[] low_index = new int[N];
+        int[] lowIndex = new int[N];
+        //Assigned when the node leaves the Tarjan stack, -1 while on it
+        int[] componentId = new int[N];
+        Arrays.fill(componentId, -1);
+        int[] stack = new int[N];
+        int stackSize = 0;
+        //Explicit DFS call stack, with the next slot to follow for each node
+        int[] callStack = new int[N];
+        int[] nextSlot = new int[N];
+        int[] sizes = new int[N];
+        int components = 0;
+        int giant = -1;
+        count = 1;
 
-        while (true) {
-            //The search Q
-            LinkedList<Node> S = new LinkedList<Node>();
-            //The component-list
-            //LinkedList<Node> component = new LinkedList<Node>();
-            //Seed the seach Q
-            Node first = null;
-            NodeIterable iter = graph.getNodes();
-            for (Node u : iter) {
-                if (index[indicies.get(u)] == 0) {
-                    first = u;
-                    iter.doBreak();
-                    break;
-                }
+        for (int root = 0; root < N; root++) {
+            if (index[root] != 0) {
+                continue;
             }
-            if (first == null) {
-                return allComponents;
+            if (isCanceled) {
+                return null;
             }
-
-            LinkedList<LinkedList<Node>> components = new LinkedList<LinkedList<Node>>();
-            components = tarjans(components, S, graph, first, index, low_index, indicies);
-            for (LinkedList<Node> component : components) {
-                allComponents.add(component);
+            int depth = 0;
+            index[root] = lowIndex[root] = count++;
+            stack[stackSize++] = root;
+            nextSlot[root] = offsets[root];
+            callStack[depth++] = root;
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (nextSlot[v] < offsets[v + 1]) {
+                    int w = neighbors[nextSlot[v]++];
+                    if (index[w] == 0) {
+                        index[w] = lowIndex[w] = count++;
+                        stack[stackSize++] = w;
+                        nextSlot[w] = offsets[w];
+                        callStack[depth++] = w;
+                    } else if (componentId[w] < 0) {
+                        lowIndex[v] = Math.min(lowIndex[v], index[w]);
+                    }
+                } else {
+                    depth--;
+                    if (lowIndex[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            componentId[w] = components;
+                            giant = updateGiant(sizes, components, giant);
+                        } while (w != v);
+                        components++;
+                    }
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        lowIndex[parent] = Math.min(lowIndex[parent], lowIndex[v]);
+                    }
+                    Progress.progress(progress, count - 1);
+                }
             }
         }
-    }
 
-    private LinkedList<LinkedList<Node>> tarjans(LinkedList<LinkedList<Node>> components, LinkedList<Node> S, DirectedGraph graph, Node f, int[] index, int[] low_index, HashMap<Node, Integer> indicies) {
-        int id = indicies.get(f);
-        index[id] = count;
-        low_index[id] = count;
-        count++;
-        S.addFirst(f);
-        EdgeIterable edgeIter = graph.getOutEdges(f);
-        for (Edge e : edgeIter) {
-            Node u = graph.getOpposite(f, e);
-            int x = indicies.get(u);
-            if (index[x] == 0) {
-                tarjans(components, S, graph, u, index, low_index, indicies);
-                low_index[id] = Math.min(low_index[x], low_index[id]);
-            } else if (S.contains(u)) {
-                low_index[id] = Math.min(low_index[id], index[x]);
-            }
-        }
-        LinkedList<Node> currentComponent = new LinkedList<Node>();
-        if (low_index[id] == index[id]) {
-            Node v = null;
-            while (v != f) {
-                v = S.removeFirst();
-                currentComponent.add(v);
-            }
-            components.add(currentComponent);
-        }
-        return components;
+        stronglyCount = components;
+        strongComponentsSize = Arrays.copyOf(sizes, components);
+        strongGiantComponent = giant;
+        return componentId;
     }
 
     public int getConnectedComponentsCount() {
         return componentCount;
     }
 
+    public int getStronglyConnectedComponentsCount() {
+        return stronglyCount;
+    }
+
     public void setDirected(boolean isDirected) {
         this.isDirected = isDirected;
     }
@@ -328,21 +503,33 @@ public class ConnectedComponents implements Statistics, LongTask {
         return isDirected;
     }
 
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
     public int[] getComponentsSize() {
         return componentsSize;
     }
 
+    /**
+     * Returns the largest weakly connected component, the first one on ties.
+     *
+     * @return the giant component id, or <code>-1</code> if not computed
+     */
     public int getGiantComponent() {
-        int[] sizes = getComponentsSize();
-        int max = Integer.MIN_VALUE;
-        int maxIndex = -1;
-        for (int i = 0; i < sizes.length; i++) {
-            if (sizes[i] > max) {
-                max = sizes[i];
-                maxIndex = i;
-            }
-        }
-        return maxIndex;
+        return giantComponent;
+    }
+
+    public int[] getStrongComponentsSize() {
+        return strongComponentsSize;
+    }
+
+    public int getStrongGiantComponent() {
+        return strongGiantComponent;
     }
 
     public int getComponentNumber(LinkedList<LinkedList<Node>> components, Node node) {
@@ -397,6 +584,7 @@ public class ConnectedComponents implements Statistics, LongTask {
                 + "Network Interpretation:  " + (isDirected ? "directed" : "undirected") + "<br>"
                 + "<br> <h2> Results: </h2>"
                 + "Number of Weakly Connected Components: " + componentCount + "<br>"
+                + (giantComponent >= 0 ? "Giant Component Size: " + componentsSize[giantComponent] + "<br>" : "")
                 + (isDirected ? "Number of Stronlgy Connected Components: " + stronglyCount + "<br>" : "")
                 + "<br /><br />" + imageFile
                 + "<br />" + "<h2> Algorithm: </h2>"
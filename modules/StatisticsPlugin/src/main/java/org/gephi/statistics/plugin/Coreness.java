@@ -0,0 +1,234 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.attribute.api.AttributeModel;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.api.Table;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.statistics.spi.Statistics;
+import org.gephi.utils.longtask.spi.LongTask;
+import org.gephi.utils.progress.Progress;
+import org.gephi.utils.progress.ProgressTicket;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.openide.util.NbBundle;
+
+/**
+ * K-core decomposition: the coreness of a node is the largest <code>k</code>
+ * such that the node belongs to a subgraph where all nodes have a degree of at
+ * least <code>k</code>.
+ * <p>
+ * Computed in <code>O(V + E)</code> with the bucket algorithm of Batagelj and
+ * Zaversnik, on all edges regardless of their direction. Parallel edges count
+ * once each, self-loops count in the degree but are never removed.
+ *
+ * @author Mathieu Bastian
+ */
+public class Coreness implements Statistics, LongTask {
+
+    public static final String CORENESS = "coreness";
+    private ProgressTicket progress;
+    private boolean isCanceled;
+    private int maxCoreness;
+    private Map<Integer, Integer> corenessDist;
+
+    @Override
+    public void execute(GraphModel graphModel, AttributeModel attributeModel) {
+        Graph graph = graphModel.getGraphVisible();
+        execute(graph, attributeModel);
+    }
+
+    public void execute(Graph graph, AttributeModel attributeModel) {
+        isCanceled = false;
+        Column corenessCol = initializeAttributeColumn(attributeModel);
+
+        graph.readLock();
+
+        Progress.start(progress);
+        GraphAdjacency adjacency = GraphAdjacency.get(graph, false, false);
+        int[] coreness = computeCoreness(adjacency);
+
+        maxCoreness = 0;
+        corenessDist = new HashMap<Integer, Integer>();
+        Progress.switchToDeterminate(progress, coreness.length);
+        for (int i = 0; i < coreness.length && !isCanceled; i++) {
+            int core = coreness[i];
+            adjacency.getNode(i).setAttribute(corenessCol, core);
+            maxCoreness = Math.max(maxCoreness, core);
+            Integer count = corenessDist.get(core);
+            corenessDist.put(core, count == null ? 1 : count + 1);
+            Progress.progress(progress);
+        }
+
+        graph.readUnlockAll();
+        Progress.finish(progress);
+    }
+
+    /**
+     * Returns the coreness of each node of <code>adjacency</code>, by node
+     * index.
+     *
+     * @param adjacency an undirected adjacency snapshot
+     * @return the coreness of each node
+     */
+    public static int[] computeCoreness(GraphAdjacency adjacency) {
+        int n = adjacency.getNodeCount();
+        int[] offsets = adjacency.getOutOffsets();
+        int[] neighbors = adjacency.getOutNeighbors();
+
+        //Bucket sort nodes by degree
+        int[] degree = new int[n];
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            degree[v] = offsets[v + 1] - offsets[v];
+            maxDegree = Math.max(maxDegree, degree[v]);
+        }
+        int[] binStart = new int[maxDegree + 1];
+        for (int v = 0; v < n; v++) {
+            binStart[degree[v]]++;
+        }
+        int start = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            int count = binStart[d];
+            binStart[d] = start;
+            start += count;
+        }
+        int[] position = new int[n];
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            position[v] = binStart[degree[v]]++;
+            order[position[v]] = v;
+        }
+        for (int d = maxDegree; d > 0; d--) {
+            binStart[d] = binStart[d - 1];
+        }
+        binStart[0] = 0;
+
+        //Peel nodes by increasing degree, moving neighbors one bucket down
+        for (int i = 0; i < n; i++) {
+            int v = order[i];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = neighbors[j];
+                if (degree[u] > degree[v]) {
+                    int du = degree[u];
+                    int pu = position[u];
+                    int pw = binStart[du];
+                    int w = order[pw];
+                    if (u != w) {
+                        position[u] = pw;
+                        order[pu] = w;
+                        position[w] = pu;
+                        order[pw] = u;
+                    }
+                    binStart[du]++;
+                    degree[u]--;
+                }
+            }
+        }
+        return degree;
+    }
+
+    private Column initializeAttributeColumn(AttributeModel attributeModel) {
+        Table nodeTable = attributeModel.getNodeTable();
+        Column corenessCol = nodeTable.getColumn(CORENESS);
+        if (corenessCol == null) {
+            corenessCol = nodeTable.addColumn(CORENESS, NbBundle.getMessage(Coreness.class, "Coreness.nodecolumn.Coreness"), Integer.class, 0);
+        }
+        return corenessCol;
+    }
+
+    public int getMaxCoreness() {
+        return maxCoreness;
+    }
+
+    @Override
+    public String getReport() {
+        //Distribution series
+        XYSeries dSeries = ChartUtils.createXYSeries(corenessDist, "Coreness Distribution");
+
+        XYSeriesCollection dataset1 = new XYSeriesCollection();
+        dataset1.addSeries(dSeries);
+
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                "Coreness Distribution",
+                "Coreness",
+                "Count",
+                dataset1,
+                PlotOrientation.VERTICAL,
+                true,
+                false,
+                false);
+        chart.removeLegend();
+        ChartUtils.decorateChart(chart);
+        ChartUtils.scaleChart(chart, dSeries, false);
+        String imageFile = ChartUtils.renderChart(chart, "coreness-distribution.png");
+
+        String report = "<HTML> <BODY> <h1>Coreness Report </h1> "
+                + "<hr>"
+                + "<br> <h2> Results: </h2>"
+                + "Maximum Coreness: " + maxCoreness
+                + "<br /><br />" + imageFile
+                + "<br /><br />" + "<h2> Algorithm: </h2>"
+                + "Vladimir Batagelj, Matjaz Zaversnik, <i>An O(m) Algorithm for Cores Decomposition of Networks</i>, 2003"
+                + "</BODY></HTML>";
+
+        return report;
+    }
+
+    @Override
+    public boolean cancel() {
+        this.isCanceled = true;
+        return true;
+    }
+
+    @Override
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        this.progress = progressTicket;
+    }
+}
@@ -41,14 +41,12 @@
  */
 package org.gephi.statistics.plugin;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
-import org.gephi.graph.api.DirectedGraph;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -146,13 +144,12 @@ public class EigenvectorCentrality implements Statistics, LongTask {
 
         Progress.start(progress, numRuns);
 
-        HashMap<Integer, Node> indicies = new HashMap<Integer, Node>();
-        HashMap<Node, Integer> invIndicies = new HashMap<Node, Integer>();
-        fillIndiciesMaps(hgraph, centralities, indicies, invIndicies);
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, isDirected, false);
+        Arrays.fill(centralities, 1);
 
-        sumChange = calculateEigenvectorCentrality(hgraph, centralities, indicies, invIndicies, isDirected, numRuns);
+        sumChange = calculateEigenvectorCentrality(hgraph, centralities, adjacency, numRuns);
 
-        saveCalculatedValues(hgraph, column, indicies, centralities);
+        saveCalculatedValues(adjacency, column, centralities);
 
         hgraph.readUnlock();
 
@@ -168,13 +165,12 @@ public class EigenvectorCentrality implements Statistics, LongTask {
         return eigenCol;
     }
 
-    private void saveCalculatedValues(Graph hgraph, Column attributeColumn, HashMap<Integer, Node> indicies,
-            double[] eigCenrtalities) {
+    private void saveCalculatedValues(GraphAdjacency adjacency, Column attributeColumn, double[] eigCenrtalities) {
 
-        int N = hgraph.getNodeCount();
+        int N = adjacency.getNodeCount();
 
         for (int i = 0; i < N; i++) {
-            Node s = indicies.get(i);
+            Node s = adjacency.getNode(i);
 
             s.setAttribute(attributeColumn, eigCenrtalities[i]);
         }
@@ -194,25 +190,16 @@ public class EigenvectorCentrality implements Statistics, LongTask {
         }
     }
 
-    private double computeMaxValueAndTempValues(Graph hgraph, HashMap<Integer, Node> indicies, HashMap<Node, Integer> invIndicies,
-            double[] tempValues, double[] centralityValues, boolean directed) {
+    private double computeMaxValueAndTempValues(GraphAdjacency adjacency, double[] tempValues, double[] centralityValues) {
 
         double max = 0.;
-        int N = hgraph.getNodeCount();
+        int N = adjacency.getNodeCount();
+        int[] offsets = adjacency.getInOffsets();
+        int[] neighbors = adjacency.getInNeighbors();
 
         for (int i = 0; i < N; i++) {
-            Node u = indicies.get(i);
-            EdgeIterable iter = null;
-            if (directed) {
-                iter = ((DirectedGraph) hgraph).getInEdges(u);
-            } else {
-                iter = hgraph.getEdges(u);
-            }
-
-            for (Edge e : iter) {
-                Node v = hgraph.getOpposite(u, e);
-                Integer id = invIndicies.get(v);
-                tempValues[i] += centralityValues[id];
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                tempValues[i] += centralityValues[neighbors[e]];
             }
             max = Math.max(max, tempValues[i]);
             if (isCanceled) {
@@ -243,13 +230,19 @@ public class EigenvectorCentrality implements Statistics, LongTask {
     public double calculateEigenvectorCentrality(Graph hgraph, double[] eigCentralities,
             HashMap<Integer, Node> indicies, HashMap<Node, Integer> invIndicies,
             boolean directed, int numIterations) {
+        GraphAdjacency adjacency = GraphAdjacency.build(hgraph, directed, false, invIndicies);
+        return calculateEigenvectorCentrality(hgraph, eigCentralities, adjacency, numIterations);
+    }
 
-        int N = hgraph.getNodeCount();
+    private double calculateEigenvectorCentrality(Graph hgraph, double[] eigCentralities,
+            GraphAdjacency adjacency, int numIterations) {
+
+        int N = adjacency.getNodeCount();
         double sumChanged = 0.;
         double[] tmp = new double[N];
 
         for (int s = 0; s < numIterations; s++) {
-            double max = computeMaxValueAndTempValues(hgraph, indicies, invIndicies, tmp, eigCentralities, directed);
+            double max = computeMaxValueAndTempValues(adjacency, tmp, eigCentralities);
             sumChanged = updateValues(hgraph, tmp, eigCentralities, max);
             if (isCanceled) {
                 return sumChanged;
@@ -0,0 +1,385 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.plugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.statistics.spi.StatisticsBatchListener;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Immutable compressed sparse row (CSR) copy of a graph's adjacency.
+ * <p>
+ * Nodes are numbered from <code>0</code> to <code>n - 1</code> in the graph
+ * iteration order, which is the order the statistics' own index maps use. The
+ * neighbors of node <code>i</code> are stored in
+ * <code>neighbors[offsets[i]]</code> to
+ * <code>neighbors[offsets[i + 1] - 1]</code>, in the order the graph returns
+ * its edges, with one entry per edge. Directed snapshots have separate out and
+ * in arrays, built from <code>getOutEdges()</code> and
+ * <code>getInEdges()</code>. Undirected snapshots share the same arrays for
+ * both, built from <code>getEdges()</code>.
+ * <p>
+ * Use {@link #get(Graph, boolean, boolean)} so that the statistics of one
+ * batch traverse the graph only once. Within a batch, the snapshot of the main
+ * or visible view is reused until the view's <code>GraphObserver</code> reports
+ * a change. When the batch ends, all snapshots and observers are released, so
+ * nothing outlives the run. Other views, such as dynamic windows, are never
+ * cached. The caller must hold the graph read lock.
+ * <p>
+ * Arrays returned by the getters are shared and must not be modified.
+ *
+ * @author Mathieu Bastian
+ */
+public final class GraphAdjacency {
+
+    private static final Map<GraphView, CacheEntry[]> CACHE = new HashMap<GraphView, CacheEntry[]>();
+    private static int batches;
+    private final boolean directed;
+    private final Node[] nodes;
+    private final int[] indexByStoreId;
+    private final int[] outOffsets;
+    private final int[] outNeighbors;
+    private final Edge[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inNeighbors;
+    private final Edge[] inEdges;
+    private final double[] outWeights;
+    private final double[] inWeights;
+
+    private GraphAdjacency(Graph graph, boolean directed, Map<Node, Integer> indexMap) {
+        this.directed = directed;
+        int n = graph.getNodeCount();
+        nodes = new Node[n];
+        int maxStoreId = -1;
+        int index = 0;
+        for (Node node : graph.getNodes()) {
+            int i = indexMap != null ? indexMap.get(node) : index;
+            nodes[i] = node;
+            maxStoreId = Math.max(maxStoreId, node.getStoreId());
+            index++;
+        }
+        indexByStoreId = new int[maxStoreId + 1];
+        Arrays.fill(indexByStoreId, -1);
+        for (int i = 0; i < n; i++) {
+            indexByStoreId[nodes[i].getStoreId()] = i;
+        }
+
+        int estimate = directed ? graph.getEdgeCount() : graph.getEdgeCount() * 2;
+        outOffsets = new int[n + 1];
+        Object[] out = fill(graph, directed ? Direction.OUT : Direction.BOTH, outOffsets, estimate);
+        outNeighbors = (int[]) out[0];
+        outEdges = (Edge[]) out[1];
+        if (directed) {
+            inOffsets = new int[n + 1];
+            Object[] in = fill(graph, Direction.IN, inOffsets, estimate);
+            inNeighbors = (int[]) in[0];
+            inEdges = (Edge[]) in[1];
+        } else {
+            inOffsets = outOffsets;
+            inNeighbors = outNeighbors;
+            inEdges = outEdges;
+        }
+        outWeights = null;
+        inWeights = null;
+    }
+
+    private GraphAdjacency(GraphAdjacency structure) {
+        directed = structure.directed;
+        nodes = structure.nodes;
+        indexByStoreId = structure.indexByStoreId;
+        outOffsets = structure.outOffsets;
+        outNeighbors = structure.outNeighbors;
+        outEdges = structure.outEdges;
+        inOffsets = structure.inOffsets;
+        inNeighbors = structure.inNeighbors;
+        inEdges = structure.inEdges;
+        outWeights = readWeights(outEdges);
+        inWeights = directed ? readWeights(inEdges) : outWeights;
+    }
+
+    private enum Direction {
+
+        OUT, IN, BOTH
+    }
+
+    private Object[] fill(Graph graph, Direction direction, int[] offsets, int estimate) {
+        int[] neighbors = new int[Math.max(16, estimate)];
+        Edge[] edges = new Edge[neighbors.length];
+        int size = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            Node node = nodes[i];
+            EdgeIterable iterable;
+            if (direction == Direction.OUT) {
+                iterable = ((DirectedGraph) graph).getOutEdges(node);
+            } else if (direction == Direction.IN) {
+                iterable = ((DirectedGraph) graph).getInEdges(node);
+            } else {
+                iterable = graph.getEdges(node);
+            }
+            for (Edge edge : iterable) {
+                if (size == neighbors.length) {
+                    neighbors = Arrays.copyOf(neighbors, size * 2);
+                    edges = Arrays.copyOf(edges, size * 2);
+                }
+                neighbors[size] = indexByStoreId[graph.getOpposite(node, edge).getStoreId()];
+                edges[size] = edge;
+                size++;
+            }
+            offsets[i + 1] = size;
+        }
+        return new Object[]{Arrays.copyOf(neighbors, size), Arrays.copyOf(edges, size)};
+    }
+
+    private static double[] readWeights(Edge[] edges) {
+        double[] weights = new double[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            weights[i] = edges[i].getWeight();
+        }
+        return weights;
+    }
+
+    /**
+     * Builds a new snapshot of <code>graph</code>.
+     *
+     * @param graph the graph to copy, a <code>DirectedGraph</code> if
+     * <code>directed</code> is <code>true</code>
+     * @param directed <code>true</code> for separate out and in adjacency
+     * @param weighted <code>true</code> to copy edge weights
+     * @return a new snapshot
+     */
+    public static GraphAdjacency build(Graph graph, boolean directed, boolean weighted) {
+        GraphAdjacency adjacency = new GraphAdjacency(graph, directed, null);
+        return weighted ? new GraphAdjacency(adjacency) : adjacency;
+    }
+
+    /**
+     * Builds a new snapshot of <code>graph</code> numbering nodes with
+     * <code>indicies</code> instead of the iteration order.
+     *
+     * @param graph the graph to copy
+     * @param directed <code>true</code> for separate out and in adjacency
+     * @param weighted <code>true</code> to copy edge weights
+     * @param indicies node indices, from <code>0</code> to <code>n - 1</code>
+     * @return a new snapshot
+     */
+    public static GraphAdjacency build(Graph graph, boolean directed, boolean weighted, Map<Node, Integer> indicies) {
+        GraphAdjacency adjacency = new GraphAdjacency(graph, directed, indicies);
+        return weighted ? new GraphAdjacency(adjacency) : adjacency;
+    }
+
+    /**
+     * Returns the snapshot of <code>graph</code>, shared with the other
+     * statistics of the current batch.
+     * <p>
+     * Outside of a batch, or for a view other than the main or visible view,
+     * this is the same as {@link #build(Graph, boolean, boolean)}. Weighted
+     * snapshots share the structure but always read the weights again, as
+     * changing a weight doesn't change the graph version.
+     *
+     * @param graph the graph to copy, a <code>DirectedGraph</code> if
+     * <code>directed</code> is <code>true</code>
+     * @param directed <code>true</code> for separate out and in adjacency
+     * @param weighted <code>true</code> to copy edge weights
+     * @return the snapshot, numbered in the graph iteration order
+     */
+    public static GraphAdjacency get(Graph graph, boolean directed, boolean weighted) {
+        GraphView view = graph.getView();
+        synchronized (CACHE) {
+            if (batches == 0 || !(view.isMainView() || view == graph.getModel().getVisibleView())) {
+                return build(graph, directed, weighted);
+            }
+            //Directed and undirected graphs of a view don't return the same edges
+            int slot = (graph instanceof UndirectedGraph ? 2 : 0) + (directed ? 1 : 0);
+            CacheEntry[] entries = CACHE.get(view);
+            if (entries == null) {
+                entries = new CacheEntry[4];
+                CACHE.put(view, entries);
+            }
+            CacheEntry entry = entries[slot];
+            if (entry == null) {
+                entry = new CacheEntry(graph.getModel().createGraphObserver(graph, false));
+                entries[slot] = entry;
+            }
+            if (entry.adjacency == null || entry.observer.hasGraphChanged()) {
+                entry.adjacency = new GraphAdjacency(graph, directed, null);
+            }
+            return weighted ? new GraphAdjacency(entry.adjacency) : entry.adjacency;
+        }
+    }
+
+    /**
+     * Starts a batch of statistics. Batches can be nested, snapshots are
+     * released when the outermost one ends.
+     */
+    public static void startBatch() {
+        synchronized (CACHE) {
+            batches++;
+        }
+    }
+
+    /**
+     * Ends a batch of statistics started with {@link #startBatch()}.
+     */
+    public static void endBatch() {
+        synchronized (CACHE) {
+            if (batches > 0 && --batches == 0) {
+                for (CacheEntry[] entries : CACHE.values()) {
+                    for (CacheEntry entry : entries) {
+                        if (entry != null && !entry.observer.isDestroyed()) {
+                            entry.observer.destroy();
+                        }
+                    }
+                }
+                CACHE.clear();
+            }
+        }
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public boolean isWeighted() {
+        return outWeights != null;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Returns the index of <code>node</code>, looked up by its store id.
+     *
+     * @param node the node
+     * @return the node index, or <code>-1</code> if it isn't in the snapshot
+     */
+    public int getIndex(Node node) {
+        int storeId = node.getStoreId();
+        if (storeId < 0 || storeId >= indexByStoreId.length) {
+            return -1;
+        }
+        int index = indexByStoreId[storeId];
+        return index != -1 && nodes[index] == node ? index : -1;
+    }
+
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    public int[] getOutNeighbors() {
+        return outNeighbors;
+    }
+
+    public Edge[] getOutEdges() {
+        return outEdges;
+    }
+
+    public double[] getOutWeights() {
+        return outWeights;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInNeighbors() {
+        return inNeighbors;
+    }
+
+    public Edge[] getInEdges() {
+        return inEdges;
+    }
+
+    public double[] getInWeights() {
+        return inWeights;
+    }
+
+    public int getOutDegree(int index) {
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    public int getInDegree(int index) {
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    private static class CacheEntry {
+
+        private final GraphObserver observer;
+        private GraphAdjacency adjacency;
+
+        public CacheEntry(GraphObserver observer) {
+            this.observer = observer;
+        }
+    }
+
+    /**
+     * Shares snapshots between the statistics of a batch run by the
+     * statistics controller.
+     */
+    @ServiceProvider(service = StatisticsBatchListener.class)
+    public static class BatchListener implements StatisticsBatchListener {
+
+        @Override
+        public void batchStarted() {
+            startBatch();
+        }
+
+        @Override
+        public void batchFinished() {
+            endBatch();
+        }
+    }
+}
@@ -42,13 +42,18 @@
 package org.gephi.statistics.plugin;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.graph.api.*;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
@@ -104,9 +109,28 @@ public class GraphDistance implements Statistics, LongTask {
     private ProgressTicket progress;
     /**
      *      */
-    private boolean isCanceled;
+    private volatile boolean isCanceled;
     private int shortestPaths;
     private boolean isNormalized;
+    /**
+     * Number of worker threads the single-source searches are split across
+     */
+    private int threadCount = 1;
+    /**
+     * Sampled mode: estimate the metrics from a subset of pivot sources
+     */
+    private boolean isApproximate;
+    private double errorBound = 0.05;
+    private double confidence = 0.95;
+    /**
+     * Pivot sampling seed, <code>null</code> draws a new one at each run
+     */
+    private Long seed;
+    private long lastSeed;
+    /**
+     * Number of sources the last run searched from
+     */
+    private int pivotCount;
 
     public double getPathLength() {
         return avgDist;
@@ -160,138 +184,401 @@ public class GraphDistance implements Statistics, LongTask {
         
         initializeStartValues();
         
-        HashMap<Node, Integer> indicies = createIndiciesMap(hgraph);
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, isDirected, false);
 
-        Map<String, double[]> metrics = calculateDistanceMetrics(hgraph, indicies, isDirected, isNormalized);
+        Map<String, double[]> metrics = calculateDistanceMetrics(hgraph, adjacency, isNormalized);
         
         eccentricity = metrics.get(ECCENTRICITY);
         closeness = metrics.get(CLOSENESS);
         betweenness = metrics.get(BETWEENNESS);
         
-        saveCalculatedValues(hgraph, indicies, eccentricity, betweenness, closeness);
+        saveCalculatedValues(adjacency, eccentricity, betweenness, closeness);
                 
         hgraph.readUnlock();
     }
     
     public Map<String, double[]> calculateDistanceMetrics(Graph hgraph, HashMap<Node, Integer> indicies, boolean directed, boolean normalized) {
-        int n = hgraph.getNodeCount();
-        
+        return calculateDistanceMetrics(hgraph, GraphAdjacency.build(hgraph, directed, false, indicies), normalized);
+    }
+
+    private Map<String, double[]> calculateDistanceMetrics(Graph hgraph, GraphAdjacency adjacency, boolean normalized) {
+        int n = adjacency.getNodeCount();
+        boolean directed = adjacency.isDirected();
+
         HashMap<String, double[]> metrics = new HashMap<String, double[]>();
-        
+
         double[] nodeEccentricity = new double[n];
         double[] nodeBetweenness = new double[n];
         double[] nodeCloseness = new double[n];
-        
+
         metrics.put(ECCENTRICITY, nodeEccentricity);
         metrics.put(CLOSENESS, nodeCloseness);
         metrics.put(BETWEENNESS, nodeBetweenness);
-        
-        Progress.start(progress, hgraph.getNodeCount());
+
+        //Sources are processed in the graph iteration order
+        int[] sources = new int[n];
         int count = 0;
-        
-        
         for (Node s : hgraph.getNodes()) {
-            Stack<Node> S = new Stack<Node>();
+            sources[count++] = adjacency.getIndex(s);
+        }
 
-            LinkedList<Node>[] P = new LinkedList[n];
-            double[] theta = new double[n];
+        pivotCount = isApproximate ? Math.min(n, getSampleSize(errorBound, confidence)) : n;
+        boolean sampled = pivotCount < n;
+        if (sampled) {
+            lastSeed = seed != null ? seed : new Random().nextLong();
+            sources = samplePivots(sources, pivotCount, lastSeed);
+        }
+
+        Progress.start(progress, sources.length);
+
+        BrandesSearch search = new BrandesSearch(adjacency, sampled, sources, nodeEccentricity, nodeCloseness, nodeBetweenness);
+        int threads = Math.max(1, Math.min(threadCount, sources.length));
+        if (threads == 1) {
+            search.run();
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<Future<?>>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(pool.submit(search));
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException ex) {
+                        isCanceled = true;
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ex) {
+                        throw new RuntimeException(ex.getCause());
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        if (isCanceled) {
+            hgraph.readUnlockAll();
+            return metrics;
+        }
+
+        avgDist /= shortestPaths;//mN * (mN - 1.0f);
+
+        if (sampled) {
+            search.estimate();
+        }
+
+        calculateCorrection(nodeBetweenness, nodeCloseness, directed, normalized);
+
+        return metrics;
+    }
+
+    /**
+     * Number of pivots needed so that a mean over pivot sources (closeness,
+     * average path length) is within <code>errorBound</code> times the
+     * diameter of its exact value with probability <code>confidence</code>,
+     * by Hoeffding's inequality.
+     *
+     * @param errorBound relative error bound, in ]0, 1[
+     * @param confidence probability the bound holds, in ]0, 1[
+     * @return the number of pivots to sample
+     */
+    public static int getSampleSize(double errorBound, double confidence) {
+        double delta = 1.0 - confidence;
+        return (int) Math.ceil(Math.log(2.0 / delta) / (2.0 * errorBound * errorBound));
+    }
+
+    private int[] samplePivots(int[] sources, int k, long seed) {
+        //Partial Fisher-Yates shuffle, pivots are uniform without replacement
+        int[] pivots = Arrays.copyOf(sources, sources.length);
+        Random random = new Random(seed);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(pivots.length - i);
+            int tmp = pivots[i];
+            pivots[i] = pivots[j];
+            pivots[j] = tmp;
+        }
+        return Arrays.copyOf(pivots, k);
+    }
+
+    /**
+     * Brandes' single-source searches over a primitive adjacency copy of the
+     * graph. The same instance is run by every worker thread: sources are
+     * claimed in order and each worker keeps its own reusable buffers.
+     * <p>
+     * Per-source dependencies are committed to the betweenness array in source
+     * order, which makes the result bit-for-bit identical to a sequential run,
+     * whatever the number of threads.
+     * <p>
+     * When only a sample of pivot sources is searched, betweenness is
+     * extrapolated as in Brandes and Pich and the closeness and eccentricity of
+     * every node are estimated from its distances to the pivots, as in Eppstein
+     * and Wang. For directed graphs these distances come from an additional
+     * search along incoming edges.
+     */
+    private class BrandesSearch implements Runnable {
+
+        private final int[] sources;
+        private final double[] nodeEccentricity;
+        private final double[] nodeCloseness;
+        private final double[] nodeBetweenness;
+        //Adjacency
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final int[] predecessorOffsets;
+        private final int[] reverseOffsets;
+        private final int[] reverseNeighbors;
+        //Sampled estimates
+        private final boolean sampled;
+        private final long[] pivotDistanceSums;
+        private final int[] pivotDistanceCounts;
+        private final int[] pivotDistanceMax;
+        //Ordered commit
+        private final Object lock = new Object();
+        private final int[][] pendingNodes;
+        private final double[][] pendingDeltas;
+        private final int window;
+        private int nextClaim;
+        private int nextCommit;
+
+        public BrandesSearch(GraphAdjacency adjacency, boolean sampled, int[] sources,
+                double[] nodeEccentricity, double[] nodeCloseness, double[] nodeBetweenness) {
+            this.sources = sources;
+            this.sampled = sampled;
+            this.nodeEccentricity = nodeEccentricity;
+            this.nodeCloseness = nodeCloseness;
+            this.nodeBetweenness = nodeBetweenness;
+
+            int n = nodeBetweenness.length;
+            offsets = adjacency.getOutOffsets();
+            neighbors = adjacency.getOutNeighbors();
+            //Predecessors of a node are bounded by its number of incoming entries
+            predecessorOffsets = new int[n + 1];
+            for (int i = 0; i < neighbors.length; i++) {
+                predecessorOffsets[neighbors[i] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                predecessorOffsets[i + 1] += predecessorOffsets[i];
+            }
+            if (sampled && adjacency.isDirected()) {
+                //Incoming adjacency, to measure distances from nodes to pivots
+                reverseOffsets = adjacency.getInOffsets();
+                reverseNeighbors = adjacency.getInNeighbors();
+            } else {
+                reverseOffsets = null;
+                reverseNeighbors = null;
+            }
+            if (sampled) {
+                pivotDistanceSums = new long[n];
+                pivotDistanceCounts = new int[n];
+                pivotDistanceMax = new int[n];
+            } else {
+                pivotDistanceSums = null;
+                pivotDistanceCounts = null;
+                pivotDistanceMax = null;
+            }
+
+            window = Math.max(1, threadCount) * 4;
+            pendingNodes = new int[sources.length][];
+            pendingDeltas = new double[sources.length][];
+        }
+
+        @Override
+        public void run() {
+            int n = nodeBetweenness.length;
+            int[] queue = new int[n];
             int[] d = new int[n];
-            
-            int s_index = indicies.get(s);
-            
-            setInitParametetrsForNode(s, P, theta, d, s_index, n);
+            double[] theta = new double[n];
+            double[] delta = new double[n];
+            int[] predecessorCounts = new int[n];
+            int[] predecessors = new int[neighbors.length];
+            Arrays.fill(d, -1);
+            int[] reverseQueue = null;
+            int[] reverseD = null;
+            if (reverseOffsets != null) {
+                reverseQueue = new int[n];
+                reverseD = new int[n];
+                Arrays.fill(reverseD, -1);
+            }
 
-            LinkedList<Node> Q = new LinkedList<Node>();
-            Q.addLast(s);
-            while (!Q.isEmpty()) {
-                Node v = Q.removeFirst();
-                S.push(v);
-                int v_index = indicies.get(v);
+            int position;
+            while ((position = claim()) != -1) {
+                int s_index = sources[position];
+
+                //Breadth-first search, the queue array doubles as the stack S
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = s_index;
+                d[s_index] = 0;
+                theta[s_index] = 1;
+                while (head < tail) {
+                    int v_index = queue[head++];
+                    for (int e = offsets[v_index]; e < offsets[v_index + 1]; e++) {
+                        int r_index = neighbors[e];
+                        if (d[r_index] < 0) {
+                            queue[tail++] = r_index;
+                            d[r_index] = d[v_index] + 1;
+                        }
+                        if (d[r_index] == (d[v_index] + 1)) {
+                            theta[r_index] = theta[r_index] + theta[v_index];
+                            predecessors[predecessorOffsets[r_index] + predecessorCounts[r_index]++] = v_index;
+                        }
+                    }
+                }
 
-                EdgeIterable edgeIter = getEdgeIter(hgraph, v, directed);
+                int reachable = tail - 1;
+                long distanceSum = 0;
+                int eccentricity = 0;
+                for (int i = 1; i < tail; i++) {
+                    int dist = d[queue[i]];
+                    distanceSum += dist;
+                    eccentricity = Math.max(eccentricity, dist);
+                }
+                if (!sampled) {
+                    nodeEccentricity[s_index] = eccentricity;
+                    nodeCloseness[s_index] = reachable != 0 ? (double) distanceSum / reachable : 0;
+                }
 
-                for (Edge edge : edgeIter) {
-                    Node reachable = hgraph.getOpposite(v, edge);
+                //Dependency accumulation, in stack order
+                int[] dependencyNodes = new int[reachable];
+                double[] dependencies = new double[reachable];
+                int k = 0;
+                for (int i = tail - 1; i >= 0; i--) {
+                    int w_index = queue[i];
+                    int from = predecessorOffsets[w_index];
+                    int to = from + predecessorCounts[w_index];
+                    for (int j = from; j < to; j++) {
+                        int u_index = predecessors[j];
+                        delta[u_index] += (theta[u_index] / theta[w_index]) * (1 + delta[w_index]);
+                    }
+                    if (w_index != s_index) {
+                        dependencyNodes[k] = w_index;
+                        dependencies[k] = delta[w_index];
+                        k++;
+                    }
+                }
 
-                    int r_index = indicies.get(reachable);
-                    if (d[r_index] < 0) {
-                        Q.addLast(reachable);
-                        d[r_index] = d[v_index] + 1;
+                //Distances between the pivot and the nodes it reaches, or is reached from
+                int[] pivotDistanceNodes = null;
+                int[] pivotDistances = null;
+                if (sampled) {
+                    int[] distanceQueue = queue;
+                    int[] distance = d;
+                    int distanceTail = tail;
+                    if (reverseOffsets != null) {
+                        distanceQueue = reverseQueue;
+                        distance = reverseD;
+                        distanceTail = reverseSearch(s_index, reverseQueue, reverseD);
                     }
-                    if (d[r_index] == (d[v_index] + 1)) {
-                        theta[r_index] = theta[r_index] + theta[v_index];
-                        P[r_index].addLast(v);
+                    pivotDistanceNodes = Arrays.copyOfRange(distanceQueue, 1, distanceTail);
+                    pivotDistances = new int[distanceTail - 1];
+                    for (int i = 1; i < distanceTail; i++) {
+                        pivotDistances[i - 1] = distance[distanceQueue[i]];
+                    }
+                    if (reverseOffsets != null) {
+                        for (int i = 0; i < distanceTail; i++) {
+                            reverseD[reverseQueue[i]] = -1;
+                        }
                     }
                 }
-            }
-            double reachable = 0;
-            for (int i = 0; i < n; i++) {
-                if (d[i] > 0) {
-                    avgDist += d[i];
-                    nodeEccentricity[s_index] = (int) Math.max(nodeEccentricity[s_index], d[i]);
-                    nodeCloseness[s_index] += d[i];
-                    diameter = Math.max(diameter, d[i]);
-                    reachable++;
+
+                //Reset touched entries only
+                for (int i = 0; i < tail; i++) {
+                    int v_index = queue[i];
+                    d[v_index] = -1;
+                    theta[v_index] = 0;
+                    delta[v_index] = 0;
+                    predecessorCounts[v_index] = 0;
                 }
-            }
 
-            radius = (int) Math.min(nodeEccentricity[s_index], radius);
+                commit(position, dependencyNodes, dependencies, pivotDistanceNodes, pivotDistances, distanceSum, eccentricity, reachable);
+            }
+        }
 
-            if (reachable != 0) {
-                nodeCloseness[s_index] /= reachable;
+        private int reverseSearch(int s_index, int[] queue, int[] d) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s_index;
+            d[s_index] = 0;
+            while (head < tail) {
+                int v_index = queue[head++];
+                for (int e = reverseOffsets[v_index]; e < reverseOffsets[v_index + 1]; e++) {
+                    int r_index = reverseNeighbors[e];
+                    if (d[r_index] < 0) {
+                        queue[tail++] = r_index;
+                        d[r_index] = d[v_index] + 1;
+                    }
+                }
             }
+            return tail;
+        }
 
-            shortestPaths += reachable;
+        /**
+         * Turns the pivot sums into estimates over all sources.
+         */
+        public void estimate() {
+            int n = nodeBetweenness.length;
+            double scale = (double) n / sources.length;
+            for (int i = 0; i < n; i++) {
+                nodeBetweenness[i] *= scale;
+                nodeCloseness[i] = pivotDistanceCounts[i] != 0 ? (double) pivotDistanceSums[i] / pivotDistanceCounts[i] : 0;
+                nodeEccentricity[i] = pivotDistanceMax[i];
+            }
+        }
 
-            double[] delta = new double[n];
-            while (!S.empty()) {
-                Node w = S.pop();
-                int w_index = indicies.get(w);
-                ListIterator<Node> iter1 = P[w_index].listIterator();
-                while (iter1.hasNext()) {
-                    Node u = iter1.next();
-                    int u_index = indicies.get(u);
-                    delta[u_index] += (theta[u_index] / theta[w_index]) * (1 + delta[w_index]);
+        private int claim() {
+            synchronized (lock) {
+                try {
+                    while (!isCanceled && nextClaim < sources.length && nextClaim - nextCommit >= window) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    isCanceled = true;
+                    Thread.currentThread().interrupt();
                 }
-                if (w != s) {
-                    nodeBetweenness[w_index] += delta[w_index];
+                if (isCanceled || nextClaim >= sources.length) {
+                    lock.notifyAll();
+                    return -1;
                 }
+                return nextClaim++;
             }
-            count++;
-            if (isCanceled) {
-                hgraph.readUnlockAll();
-                return metrics;
-            }
-            Progress.progress(progress, count);
         }
 
-        avgDist /= shortestPaths;//mN * (mN - 1.0f);
+        private void commit(int position, int[] dependencyNodes, double[] dependencies, int[] pivotDistanceNodes, int[] pivotDistances,
+                long distanceSum, int eccentricity, int reachable) {
+            synchronized (lock) {
+                avgDist += distanceSum;
+                diameter = Math.max(diameter, eccentricity);
+                radius = Math.min(eccentricity, radius);
+                shortestPaths += reachable;
+
+                if (pivotDistanceNodes != null) {
+                    for (int i = 0; i < pivotDistanceNodes.length; i++) {
+                        int v_index = pivotDistanceNodes[i];
+                        pivotDistanceSums[v_index] += pivotDistances[i];
+                        pivotDistanceCounts[v_index]++;
+                        pivotDistanceMax[v_index] = Math.max(pivotDistanceMax[v_index], pivotDistances[i]);
+                    }
+                }
 
-        calculateCorrection(hgraph, indicies, nodeBetweenness, nodeCloseness, directed, normalized);
-        
-        return metrics;
-    }
-    
-    private void setInitParametetrsForNode(Node s, LinkedList<Node>[] P, double[] theta, int[] d, int index, int n) {           
-            for (int j = 0; j < n; j++) {
-                P[j] = new LinkedList<Node>();
-                theta[j] = 0;
-                d[j] = -1;
+                pendingNodes[position] = dependencyNodes;
+                pendingDeltas[position] = dependencies;
+                while (nextCommit < sources.length && pendingNodes[nextCommit] != null) {
+                    int[] nodes = pendingNodes[nextCommit];
+                    double[] deltas = pendingDeltas[nextCommit];
+                    for (int i = 0; i < nodes.length; i++) {
+                        nodeBetweenness[nodes[i]] += deltas[i];
+                    }
+                    pendingNodes[nextCommit] = null;
+                    pendingDeltas[nextCommit] = null;
+                    nextCommit++;
+                    Progress.progress(progress, nextCommit);
+                }
+                lock.notifyAll();
             }
-            theta[index] = 1;
-            d[index] = 0;
-    }
-    
-    private EdgeIterable getEdgeIter(Graph hgraph, Node v, boolean directed) {
-            EdgeIterable edgeIter = null;
-            if (directed) {
-                edgeIter = ((DirectedGraph) hgraph).getOutEdges(v);
-            } else {
-                edgeIter = hgraph.getEdges(v);
-             }
-            return edgeIter;
+        }
     }
-    
+
     private void initializeAttributeColunms(AttributeModel attributeModel) {
         Table nodeTable = attributeModel.getNodeTable();
         if (!nodeTable.hasColumn(ECCENTRICITY)) {
@@ -325,14 +612,11 @@ public class GraphDistance implements Statistics, LongTask {
         radius = Integer.MAX_VALUE;
      }
      
-     private void calculateCorrection(Graph hgraph, HashMap<Node, Integer> indicies,
-             double[] nodeBetweenness, double[] nodeCloseness, boolean directed, boolean normalized) {
+     private void calculateCorrection(double[] nodeBetweenness, double[] nodeCloseness, boolean directed, boolean normalized) {
          
-         int n = hgraph.getNodeCount();
+         int n = nodeBetweenness.length;
          
-         for (Node s : hgraph.getNodes()) {
-            
-             int s_index = indicies.get(s);
+         for (int s_index = 0; s_index < n; s_index++) {
 
             if (!directed) {
                 nodeBetweenness[s_index] /= 2;
@@ -344,10 +628,10 @@ public class GraphDistance implements Statistics, LongTask {
          }
      }
      
-     private void saveCalculatedValues(Graph hgraph, HashMap<Node, Integer> indicies,
+     private void saveCalculatedValues(GraphAdjacency adjacency,
             double[] nodeEccentricity, double[] nodeBetweenness, double[] nodeCloseness) {
-        for (Node s : hgraph.getNodes()) {
-            int s_index = indicies.get(s);
+        for (int s_index = 0; s_index < adjacency.getNodeCount(); s_index++) {
+            Node s = adjacency.getNode(s_index);
 
             s.setAttribute(ECCENTRICITY, nodeEccentricity[s_index]);
             s.setAttribute(CLOSENESS, nodeCloseness[s_index]);
@@ -363,6 +647,52 @@ public class GraphDistance implements Statistics, LongTask {
         return isNormalized;
     }
 
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setApproximate(boolean isApproximate) {
+        this.isApproximate = isApproximate;
+    }
+
+    public boolean isApproximate() {
+        return isApproximate;
+    }
+
+    public void setErrorBound(double errorBound) {
+        this.errorBound = errorBound;
+    }
+
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Sets the seed pivot sources are sampled with in approximate mode. The
+     * same seed on the same graph samples the same pivots.
+     *
+     * @param seed the seed, or <code>null</code> to draw a new one at each run
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
     public void setDirected(boolean isDirected) {
         this.isDirected = isDirected;
     }
@@ -423,21 +753,38 @@ public class GraphDistance implements Statistics, LongTask {
             Exceptions.printStackTrace(ex);
         }
 
+        boolean sampled = pivotCount < N;
+        String approximation = "";
+        String estimate = "";
+        if (sampled) {
+            approximation = "Approximation: " + pivotCount + " pivot sources out of " + N + "<br />"
+                    + "Error bound: " + errorBound + "<br />"
+                    + "Confidence: " + confidence + "<br />"
+                    + "Seed: " + lastSeed + "<br />";
+            estimate = "<br />Results are estimated from the sampled pivots. With probability " + confidence
+                    + ", average path length and closeness are within " + errorBound + " &times; diameter of their exact value"
+                    + " and betweenness within " + errorBound + " &times; n(n-2). Diameter and eccentricities are lower bounds, radius is an upper bound.<br />";
+        }
+
         String report = "<HTML> <BODY> <h1>Graph Distance  Report </h1> "
                 + "<hr>"
                 + "<br>"
                 + "<h2> Parameters: </h2>"
                 + "Network Interpretation:  " + (isDirected ? "directed" : "undirected") + "<br />"
+                + approximation
                 + "<br /> <h2> Results: </h2>"
                 + "Diameter: " + diameter + "<br />"
                 + "Radius: " + radius + "<br />"
                 + "Average Path length: " + avgDist + "<br />"
-                + "Number of shortest paths: " + shortestPaths + "<br /><br />"
+                + "Number of shortest paths: " + (sampled ? (long) ((double) shortestPaths * N / pivotCount) : shortestPaths) + "<br />"
+                + estimate + "<br />"
                 + htmlIMG1 + "<br /><br />"
                 + htmlIMG2 + "<br /><br />"
                 + htmlIMG3
                 + "<br /><br />" + "<h2> Algorithm: </h2>"
                 + "Ulrik Brandes, <i>A Faster Algorithm for Betweenness Centrality</i>, in Journal of Mathematical Sociology 25(2):163-177, (2001)<br />"
+                + (sampled ? "Ulrik Brandes and Christian Pich, <i>Centrality Estimation in Large Networks</i>, in International Journal of Bifurcation and Chaos 17(7):2303-2318, (2007)<br />"
+                + "David Eppstein and Joseph Wang, <i>Fast Approximation of Centrality</i>, in Journal of Graph Algorithms and Applications 8(1):39-45, (2004)<br />" : "")
                 + "</BODY> </HTML>";
 
         return report;
@@ -47,9 +47,6 @@ import java.util.Map;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
-import org.gephi.graph.api.DirectedGraph;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -123,18 +120,22 @@ public class Hits implements Statistics, LongTask {
         authority = new double[N];
         hubs = new double[N];
 
-        Map<Node, Integer> indicies = createIndiciesMap(hgraph);
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, !useUndirected, false);
 
-        calculateHits(hgraph, hubs, authority, indicies, !useUndirected, epsilon);
+        calculateHits(adjacency, hubs, authority, epsilon);
 
-        saveCalculatedValues(hgraph, authority, hubs);
+        saveCalculatedValues(adjacency, authority, hubs);
 
         hgraph.readUnlockAll();
     }
 
     public void calculateHits(Graph hgraph, double[] hubValues, double[] authorityValues, Map<Node, Integer> indicies, boolean isDirected, double eps) {
+        calculateHits(GraphAdjacency.build(hgraph, isDirected, false, indicies), hubValues, authorityValues, eps);
+    }
 
-        int N = hgraph.getNodeCount();
+    private void calculateHits(GraphAdjacency adjacency, double[] hubValues, double[] authorityValues, double eps) {
+
+        int N = adjacency.getNodeCount();
 
         double[] temp_authority = new double[N];
         double[] temp_hubs = new double[N];
@@ -147,8 +148,8 @@ public class Hits implements Statistics, LongTask {
 
             boolean done = true;
 
-            updateAutorithy(hgraph, temp_authority, hubValues, isDirected, indicies);
-            updateHub(hgraph, temp_hubs, temp_authority, isDirected, indicies);
+            updateValues(temp_authority, hubValues, adjacency.getInOffsets(), adjacency.getInNeighbors());
+            updateValues(temp_hubs, temp_authority, adjacency.getOutOffsets(), adjacency.getOutNeighbors());
 
             done = checkDiff(authorityValues, temp_authority, eps) && checkDiff(hubValues, temp_hubs, eps);
 
@@ -182,25 +183,21 @@ public class Hits implements Statistics, LongTask {
         }
     }
 
-    void updateAutorithy(Graph hgraph, double[] newValues, double[] hubValues, boolean isDirected, Map<Node, Integer> indicies) {
+    /**
+     * Sums the scores of each node's neighbors, incoming neighbors for
+     * authorities and outgoing neighbors for hubs, and normalizes the result.
+     */
+    void updateValues(double[] newValues, double[] values, int[] offsets, int[] neighbors) {
         double norm = 0;
-        int j = 0;
-        for (Node node : hgraph.getNodes()) {
-            double auth = 0;
-            EdgeIterable edge_iter;
-            if (isDirected) {
-                edge_iter = ((DirectedGraph) hgraph).getInEdges(node);
-            } else {
-                edge_iter = hgraph.getEdges(node);
+        for (int j = 0; j < newValues.length; j++) {
+            double sum = 0;
+            for (int e = offsets[j]; e < offsets[j + 1]; e++) {
+                sum += values[neighbors[e]];
             }
-            for (Edge edge : edge_iter) {
-                Node target = hgraph.getOpposite(node, edge);
-                auth += hubValues[indicies.get(target)];
+            if (sum > 0) {
+                newValues[j] = sum;
             }
-            if (auth > 0) {
-                newValues[j] = auth;
-            }
-            norm += newValues[j++];
+            norm += newValues[j];
             if (isCanceled) {
                 return;
             }
@@ -213,36 +210,6 @@ public class Hits implements Statistics, LongTask {
         }
     }
 
-    void updateHub(Graph hgraph, double[] newValues, double[] authValues, boolean isDirected, Map<Node, Integer> indicies) {
-        double norm = 0;
-        int j = 0;
-        for (Node node : hgraph.getNodes()) {
-            double hub = 0;
-            EdgeIterable edge_iter;
-            if (isDirected) {
-                edge_iter = ((DirectedGraph) hgraph).getOutEdges(node);
-            } else {
-                edge_iter = hgraph.getEdges(node);
-            }
-            for (Edge edge : edge_iter) {
-                Node target = hgraph.getOpposite(node, edge);
-                hub += authValues[indicies.get(target)];
-            }
-            if(hub > 0) {
-                newValues[j] = hub;
-            }
-            norm += newValues[j++];
-            if (isCanceled) {
-                return;
-            }
-        }
-        if (norm > 0) {
-            for (int i = 0; i < newValues.length; i++) {
-                newValues[i] = newValues[i] / norm;
-            }
-        }
-    }
-
     private boolean checkDiff(double[] oldValues, double[] newValues, double epsilon) {
 
         for (int i = 0; i < oldValues.length; i++) {
@@ -253,13 +220,12 @@ public class Hits implements Statistics, LongTask {
         return true;
     }
 
-    private void saveCalculatedValues(Graph hgraph, double[] nodeAuthority, double[] nodeHubs) {
-        int i = 0;
-        for (Node s : hgraph.getNodes()) {
-            int s_index = i++;
+    private void saveCalculatedValues(GraphAdjacency adjacency, double[] nodeAuthority, double[] nodeHubs) {
+        for (int i = 0; i < adjacency.getNodeCount(); i++) {
+            Node s = adjacency.getNode(i);
 
-            s.setAttribute(AUTHORITY, (float) nodeAuthority[s_index]);
-            s.setAttribute(HUB, (float) nodeHubs[s_index]);
+            s.setAttribute(AUTHORITY, (float) nodeAuthority[i]);
+            s.setAttribute(HUB, (float) nodeHubs[i]);
         }
     }
 
@@ -0,0 +1,735 @@
+/*
+ Copyright 2008-2010 Gephi
+ Authors : Mathieu Bastian <mathieu.bastian@gephi.org>
+ Website : http://www.gephi.org
+
+ This file is part of Gephi.
+
+ DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+ Copyright 2011 Gephi Consortium. All rights reserved.
+
+ The contents of this file are subject to the terms of either the GNU
+ General Public License Version 3 only ("GPL") or the Common
+ Development and Distribution License("CDDL") (collectively, the
+ "License"). You may not use this file except in compliance with the
+ License. You can obtain a copy of the License at
+ http://gephi.org/about/legal/license-notice/
+ or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+ specific language governing permissions and limitations under the
+ License.  When distributing the software, include this License Header
+ Notice in each file and include the License files at
+ /cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+ License Header, with the fields enclosed by brackets [] replaced by
+ your own identifying information:
+ "Portions Copyrighted [year] [name of copyright owner]"
+
+ If you wish your version of this file to be governed by only the CDDL
+ or only the GPL Version 3, indicate your decision by adding
+ "[Contributor] elects to include this software in this distribution
+ under the [CDDL or GPL Version 3] license." If you do not indicate a
+ single choice of license, a recipient has the option to distribute
+ your version of this file under either the CDDL, the GPL Version 3 or
+ to extend the choice of license to its licensees as provided above.
+ However, if you add GPL Version 3 code and therefore, elected the GPL
+ Version 3 license, then the option applies only if the new code is
+ made subject to such option by the copyright holder.
+
+ Contributor(s):
+
+ Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Multilevel Louvain community detection over primitive arrays, with an
+ * optional Leiden refinement phase.
+ * <p>
+ * The input is a symmetric weighted adjacency in compressed-sparse-row form,
+ * without self-loops. Community ids are plain <code>int</code>s and the
+ * weights to neighbor communities are summed in open-addressing
+ * accumulators reused from node to node. Each level is aggregated into a
+ * new CSR graph whose nodes are the communities of the previous one.
+ * <p>
+ * With more than one thread, nodes are greedily colored so that no two
+ * nodes of a color are adjacent. The moves of a color are evaluated in
+ * parallel against the current state and applied in order, re-checking the
+ * gain with up-to-date community totals. Every applied move increases the
+ * modularity, and the result only depends on whether the run is parallel,
+ * not on the number of threads.
+ *
+ * @author Mathieu Bastian
+ */
+final class LouvainEngine {
+
+    /**
+     * Upper bound of local moving sweeps per level
+     */
+    private static final int MAX_SWEEPS = 1000;
+    /**
+     * Ranges smaller than this are processed on the calling thread
+     */
+    private static final int MIN_PARALLEL_RANGE = 1024;
+    private final double resolution;
+    private final boolean randomized;
+    private final boolean refine;
+    private final int threadCount;
+    private final Random random;
+    private int minParallelRange = MIN_PARALLEL_RANGE;
+    private volatile boolean canceled;
+    private int levelCount;
+    //Run state
+    private ExecutorService pool;
+    private IntDoubleMap[] accumulators;
+    private double totalWeight;
+
+    LouvainEngine(double resolution, boolean randomized, boolean refine, int threadCount, Random random) {
+        this.resolution = resolution;
+        this.randomized = randomized;
+        this.refine = refine;
+        this.threadCount = Math.max(1, threadCount);
+        this.random = random;
+    }
+
+    void cancel() {
+        canceled = true;
+    }
+
+    /**
+     * Sets the size under which ranges are processed on the calling thread,
+     * <code>1</code> splits every range across the threads.
+     *
+     * @param minParallelRange the smallest range processed in parallel
+     */
+    void setMinParallelRange(int minParallelRange) {
+        this.minParallelRange = Math.max(1, minParallelRange);
+    }
+
+    /**
+     * Returns the number of levels of the last run, including the last one,
+     * which was not aggregated.
+     *
+     * @return the level count
+     */
+    int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Detects the communities of a graph.
+     *
+     * @param offsets row offsets, of length <code>n + 1</code>
+     * @param neighbors neighbor of each slot, both directions of every edge
+     * @param weights weight of each slot
+     * @return the community of each node, numbered from <code>0</code> in the
+     * order of their first node, or <code>null</code> if canceled
+     */
+    int[] run(int[] offsets, int[] neighbors, double[] weights) {
+        int n = offsets.length - 1;
+        levelCount = 0;
+        Level level = new Level(n, offsets, neighbors, weights, new double[n]);
+        totalWeight = 0;
+        for (int i = 0; i < n; i++) {
+            totalWeight += level.strength[i];
+        }
+        int[] communities = identity(n);
+        if (totalWeight == 0) {
+            levelCount = 1;
+            return communities;
+        }
+
+        accumulators = new IntDoubleMap[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            accumulators[t] = new IntDoubleMap();
+        }
+        pool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount) : null;
+        try {
+            int[] membership = identity(n);
+            while (true) {
+                moveNodes(level, communities);
+                if (canceled) {
+                    return null;
+                }
+                int communityCount = renumber(communities);
+                int[] partition = communities;
+                int partitionCount = communityCount;
+                if (refine) {
+                    partition = refinePartition(level, communities, communityCount);
+                    partitionCount = renumber(partition);
+                }
+                levelCount++;
+                if (canceled) {
+                    return null;
+                }
+                if (partitionCount == level.n) {
+                    break;
+                }
+
+                //Next level starts from the unrefined communities
+                for (int v = 0; v < n; v++) {
+                    membership[v] = partition[membership[v]];
+                }
+                int[] next = new int[partitionCount];
+                for (int i = 0; i < level.n; i++) {
+                    next[partition[i]] = communities[i];
+                }
+                level = aggregate(level, partition, partitionCount);
+                communities = next;
+            }
+
+            int[] result = new int[n];
+            for (int v = 0; v < n; v++) {
+                result[v] = communities[membership[v]];
+            }
+            renumber(result);
+            return result;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+                pool = null;
+            }
+            accumulators = null;
+        }
+    }
+
+    /**
+     * Computes the modularity of a partition.
+     *
+     * @param offsets row offsets
+     * @param neighbors neighbor of each slot
+     * @param weights weight of each slot
+     * @param communities community of each node
+     * @param communityCount number of communities
+     * @param resolution resolution parameter
+     * @return the modularity, <code>NaN</code> if the graph has no edges
+     */
+    static double modularity(int[] offsets, int[] neighbors, double[] weights, int[] communities,
+            int communityCount, double resolution) {
+        double[] internal = new double[communityCount];
+        double[] degrees = new double[communityCount];
+        double total = 0;
+        for (int i = 0; i < offsets.length - 1; i++) {
+            int c = communities[i];
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                degrees[c] += weights[e];
+                total += weights[e];
+                if (communities[neighbors[e]] == c) {
+                    internal[c] += weights[e];
+                }
+            }
+        }
+        double res = 0;
+        for (int c = 0; c < communityCount; c++) {
+            res += resolution * (internal[c] / total) - Math.pow(degrees[c] / total, 2);
+        }
+        return res;
+    }
+
+    private void moveNodes(final Level level, final int[] communities) {
+        final double[] tot = new double[level.n];
+        for (int i = 0; i < level.n; i++) {
+            tot[communities[i]] += level.strength[i];
+        }
+        int[] order = visitOrder(level.n);
+
+        if (pool == null) {
+            IntDoubleMap accumulator = accumulators[0];
+            double[] edgeWeights = new double[2];
+            for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+                boolean moved = false;
+                for (int i = 0; i < order.length; i++) {
+                    int node = order[i];
+                    int target = evaluate(level, communities, tot, node, accumulator, edgeWeights, 0);
+                    moved |= apply(level, communities, tot, node, target, edgeWeights[0], edgeWeights[1]);
+                }
+                if (!moved || canceled) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        final int[] batch = new int[level.n];
+        int[] colorOffsets = color(level, order, batch);
+        final int[] targets = new int[level.n];
+        final double[] edgeWeights = new double[2 * level.n];
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            boolean moved = false;
+            for (int c = 0; c < colorOffsets.length - 1; c++) {
+                int start = colorOffsets[c];
+                int end = colorOffsets[c + 1];
+                forEachRange(start, end, new RangeBody() {
+                    @Override
+                    public void run(int from, int to, IntDoubleMap accumulator) {
+                        for (int pos = from; pos < to; pos++) {
+                            targets[pos] = evaluate(level, communities, tot, batch[pos], accumulator, edgeWeights, pos);
+                        }
+                    }
+                });
+                for (int pos = start; pos < end; pos++) {
+                    moved |= apply(level, communities, tot, batch[pos], targets[pos],
+                            edgeWeights[2 * pos], edgeWeights[2 * pos + 1]);
+                }
+                if (canceled) {
+                    return;
+                }
+            }
+            if (!moved) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the neighbor community with the best gain for <code>node</code>,
+     * and stores the weights from the node to its own and to the best
+     * community at <code>2 * pos</code> and <code>2 * pos + 1</code>.
+     */
+    private int evaluate(Level level, int[] communities, double[] tot, int node, IntDoubleMap accumulator,
+            double[] edgeWeights, int pos) {
+        int own = communities[node];
+        accumulator.clear();
+        accumulator.add(own, 0.);
+        for (int e = level.offsets[node]; e < level.offsets[node + 1]; e++) {
+            accumulator.add(communities[level.neighbors[e]], level.weights[e]);
+        }
+        double nodeWeight = level.strength[node];
+        double ownWeight = accumulator.valueAt(0);
+        int best = own;
+        double bestWeight = ownWeight;
+        double bestGain = resolution * ownWeight - nodeWeight * (tot[own] - nodeWeight) / totalWeight;
+        for (int s = 1; s < accumulator.size(); s++) {
+            int community = accumulator.keyAt(s);
+            double weight = accumulator.valueAt(s);
+            double gain = resolution * weight - nodeWeight * tot[community] / totalWeight;
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = community;
+                bestWeight = weight;
+            }
+        }
+        edgeWeights[2 * pos] = ownWeight;
+        edgeWeights[2 * pos + 1] = bestWeight;
+        return best;
+    }
+
+    private boolean apply(Level level, int[] communities, double[] tot, int node, int target,
+            double ownWeight, double targetWeight) {
+        int own = communities[node];
+        if (target == own) {
+            return false;
+        }
+        double nodeWeight = level.strength[node];
+        double stay = resolution * ownWeight - nodeWeight * (tot[own] - nodeWeight) / totalWeight;
+        double gain = resolution * targetWeight - nodeWeight * tot[target] / totalWeight;
+        if (gain <= stay) {
+            return false;
+        }
+        tot[own] -= nodeWeight;
+        tot[target] += nodeWeight;
+        communities[node] = target;
+        return true;
+    }
+
+    /**
+     * Greedy distance-1 coloring in visit order. Fills <code>batch</code>
+     * with the nodes grouped by color and returns the color offsets.
+     */
+    private int[] color(Level level, int[] order, int[] batch) {
+        int n = level.n;
+        int[] colors = new int[n];
+        Arrays.fill(colors, -1);
+        int[] forbidden = new int[n + 1];
+        int colorCount = 0;
+        for (int i = 0; i < n; i++) {
+            int node = order[i];
+            for (int e = level.offsets[node]; e < level.offsets[node + 1]; e++) {
+                int neighborColor = colors[level.neighbors[e]];
+                if (neighborColor >= 0) {
+                    forbidden[neighborColor] = node + 1;
+                }
+            }
+            int c = 0;
+            while (forbidden[c] == node + 1) {
+                c++;
+            }
+            colors[node] = c;
+            colorCount = Math.max(colorCount, c + 1);
+        }
+        int[] colorOffsets = new int[colorCount + 1];
+        for (int i = 0; i < n; i++) {
+            colorOffsets[colors[i] + 1]++;
+        }
+        for (int c = 0; c < colorCount; c++) {
+            colorOffsets[c + 1] += colorOffsets[c];
+        }
+        int[] fill = Arrays.copyOf(colorOffsets, colorCount);
+        for (int i = 0; i < n; i++) {
+            int node = order[i];
+            batch[fill[colors[node]]++] = node;
+        }
+        return colorOffsets;
+    }
+
+    /**
+     * Leiden refinement: splits every community into well-connected
+     * subcommunities by merging singleton nodes, community by community.
+     */
+    private int[] refinePartition(final Level level, final int[] communities, int communityCount) {
+        final int n = level.n;
+        final int[] refined = identity(n);
+        final int[] subSizes = new int[n];
+        Arrays.fill(subSizes, 1);
+        final double[] subTotals = Arrays.copyOf(level.strength, n);
+        final double[] subExternals = new double[n];
+
+        //Members of each community, in visit order
+        int[] order = visitOrder(n);
+        final int[] memberOffsets = new int[communityCount + 1];
+        for (int i = 0; i < n; i++) {
+            memberOffsets[communities[i] + 1]++;
+        }
+        for (int c = 0; c < communityCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        final int[] members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, communityCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[communities[order[i]]]++] = order[i];
+        }
+
+        forEachRange(0, communityCount, new RangeBody() {
+            @Override
+            public void run(int from, int to, IntDoubleMap accumulator) {
+                for (int c = from; c < to; c++) {
+                    int start = memberOffsets[c];
+                    int end = memberOffsets[c + 1];
+                    double total = 0;
+                    for (int m = start; m < end; m++) {
+                        int v = members[m];
+                        total += level.strength[v];
+                        for (int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+                            if (communities[level.neighbors[e]] == c) {
+                                subExternals[v] += level.weights[e];
+                            }
+                        }
+                    }
+                    for (int m = start; m < end; m++) {
+                        int v = members[m];
+                        if (refined[v] != v || subSizes[v] != 1) {
+                            continue;
+                        }
+                        double nodeWeight = level.strength[v];
+                        if (resolution * subExternals[v] < nodeWeight * (total - nodeWeight) / totalWeight) {
+                            continue;
+                        }
+                        accumulator.clear();
+                        for (int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+                            int neighbor = level.neighbors[e];
+                            if (communities[neighbor] == c) {
+                                accumulator.add(refined[neighbor], level.weights[e]);
+                            }
+                        }
+                        int best = v;
+                        double bestGain = 0;
+                        double bestWeight = 0;
+                        for (int s = 0; s < accumulator.size(); s++) {
+                            int sub = accumulator.keyAt(s);
+                            double subTotal = subTotals[sub];
+                            if (resolution * subExternals[sub] < subTotal * (total - subTotal) / totalWeight) {
+                                continue;
+                            }
+                            double weight = accumulator.valueAt(s);
+                            double gain = resolution * weight - nodeWeight * subTotal / totalWeight;
+                            if (gain > bestGain) {
+                                bestGain = gain;
+                                best = sub;
+                                bestWeight = weight;
+                            }
+                        }
+                        if (best != v) {
+                            refined[v] = best;
+                            subSizes[v] = 0;
+                            subSizes[best]++;
+                            subTotals[best] += nodeWeight;
+                            subExternals[best] += subExternals[v] - 2 * bestWeight;
+                        }
+                    }
+                }
+            }
+        });
+        return refined;
+    }
+
+    /**
+     * Builds the graph whose nodes are the parts of <code>partition</code>.
+     * Edges inside a part become its self-loop weight.
+     */
+    private Level aggregate(final Level level, final int[] partition, int count) {
+        final int[] memberOffsets = new int[count + 1];
+        for (int i = 0; i < level.n; i++) {
+            memberOffsets[partition[i] + 1]++;
+        }
+        for (int p = 0; p < count; p++) {
+            memberOffsets[p + 1] += memberOffsets[p];
+        }
+        final int[] members = new int[level.n];
+        int[] fill = Arrays.copyOf(memberOffsets, count);
+        for (int i = 0; i < level.n; i++) {
+            members[fill[partition[i]]++] = i;
+        }
+
+        final int[] offsets = new int[count + 1];
+        final double[] loops = new double[count];
+        forEachRange(0, count, new RangeBody() {
+            @Override
+            public void run(int from, int to, IntDoubleMap accumulator) {
+                for (int p = from; p < to; p++) {
+                    loops[p] = collect(level, partition, members, memberOffsets, p, accumulator);
+                    offsets[p + 1] = accumulator.size();
+                }
+            }
+        });
+        for (int p = 0; p < count; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+
+        final int[] neighbors = new int[offsets[count]];
+        final double[] weights = new double[offsets[count]];
+        forEachRange(0, count, new RangeBody() {
+            @Override
+            public void run(int from, int to, IntDoubleMap accumulator) {
+                for (int p = from; p < to; p++) {
+                    collect(level, partition, members, memberOffsets, p, accumulator);
+                    for (int s = 0, e = offsets[p]; s < accumulator.size(); s++, e++) {
+                        neighbors[e] = accumulator.keyAt(s);
+                        weights[e] = accumulator.valueAt(s);
+                    }
+                }
+            }
+        });
+        return new Level(count, offsets, neighbors, weights, loops);
+    }
+
+    /**
+     * Sums the weights from part <code>p</code> to the other parts into
+     * <code>accumulator</code> and returns its self-loop weight.
+     */
+    private static double collect(Level level, int[] partition, int[] members, int[] memberOffsets, int p,
+            IntDoubleMap accumulator) {
+        accumulator.clear();
+        double loop = 0;
+        for (int m = memberOffsets[p]; m < memberOffsets[p + 1]; m++) {
+            int v = members[m];
+            loop += level.loops[v];
+            for (int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+                int q = partition[level.neighbors[e]];
+                if (q == p) {
+                    loop += level.weights[e];
+                } else {
+                    accumulator.add(q, level.weights[e]);
+                }
+            }
+        }
+        return loop;
+    }
+
+    private interface RangeBody {
+
+        void run(int from, int to, IntDoubleMap accumulator);
+    }
+
+    /**
+     * Splits <code>[from, to)</code> in one contiguous range per thread, each
+     * with its own accumulator.
+     */
+    private void forEachRange(int from, int to, final RangeBody body) {
+        int count = to - from;
+        if (pool == null || count < minParallelRange) {
+            body.run(from, to, accumulators[0]);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(accumulators.length);
+        for (int t = 0; t < accumulators.length; t++) {
+            final int start = from + (int) ((long) count * t / accumulators.length);
+            final int end = from + (int) ((long) count * (t + 1) / accumulators.length);
+            final IntDoubleMap accumulator = accumulators[t];
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    body.run(start, end, accumulator);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            canceled = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    private int[] visitOrder(int n) {
+        int[] order = identity(n);
+        if (randomized) {
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
+        return order;
+    }
+
+    private static int[] identity(int n) {
+        int[] array = new int[n];
+        for (int i = 0; i < n; i++) {
+            array[i] = i;
+        }
+        return array;
+    }
+
+    /**
+     * Renumbers the ids of <code>array</code> from <code>0</code>, in order of
+     * first occurrence, and returns the number of distinct ids.
+     */
+    private static int renumber(int[] array) {
+        int[] ids = new int[array.length];
+        Arrays.fill(ids, -1);
+        int count = 0;
+        for (int i = 0; i < array.length; i++) {
+            int id = ids[array[i]];
+            if (id < 0) {
+                id = count++;
+                ids[array[i]] = id;
+            }
+            array[i] = id;
+        }
+        return count;
+    }
+
+    private static final class Level {
+
+        final int n;
+        final int[] offsets;
+        final int[] neighbors;
+        final double[] weights;
+        //Weight of edges inside the node, both directions
+        final double[] loops;
+        final double[] strength;
+
+        Level(int n, int[] offsets, int[] neighbors, double[] weights, double[] loops) {
+            this.n = n;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.weights = weights;
+            this.loops = loops;
+            strength = new double[n];
+            for (int i = 0; i < n; i++) {
+                double sum = loops[i];
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    sum += weights[e];
+                }
+                strength[i] = sum;
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map from non-negative int keys to summed double values,
+     * iterated in insertion order and cleared in time proportional to its
+     * size.
+     */
+    static final class IntDoubleMap {
+
+        private static final int EMPTY = -1;
+        private int[] keys;
+        private double[] values;
+        private int[] slots;
+        private int size;
+
+        IntDoubleMap() {
+            keys = new int[16];
+            Arrays.fill(keys, EMPTY);
+            values = new double[16];
+            slots = new int[8];
+        }
+
+        void add(int key, double value) {
+            int slot = find(key);
+            if (keys[slot] == EMPTY) {
+                if (size == slots.length) {
+                    grow();
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                values[slot] = value;
+                slots[size++] = slot;
+            } else {
+                values[slot] += value;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        int keyAt(int index) {
+            return keys[slots[index]];
+        }
+
+        double valueAt(int index) {
+            return values[slots[index]];
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[slots[i]] = EMPTY;
+            }
+            size = 0;
+        }
+
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int h = key * 0x9E3779B9;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            int[] oldSlots = slots;
+            keys = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            values = new double[keys.length];
+            slots = new int[keys.length / 2];
+            for (int i = 0; i < size; i++) {
+                int key = oldKeys[oldSlots[i]];
+                int slot = find(key);
+                keys[slot] = key;
+                values[slot] = oldValues[oldSlots[i]];
+                slots[i] = slot;
+            }
+        }
+    }
+}
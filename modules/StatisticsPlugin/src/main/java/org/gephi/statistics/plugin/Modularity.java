@@ -68,13 +68,31 @@ public class Modularity implements Statistics, LongTask {
 
     public static final String MODULARITY_CLASS = "modularity_class";
     private ProgressTicket progress;
-    private boolean isCanceled;
+    private volatile boolean isCanceled;
     private CommunityStructure structure;
+    private Graph graph;
+    private int communityCount;
     private double modularity;
     private double modularityResolution;
     private boolean isRandomized = false;
     private boolean useWeight = true;
     private double resolution = 1.;
+    /**
+     * Run the original <code>CommunityStructure</code> implementation instead
+     * of the array-based <code>LouvainEngine</code>
+     */
+    private boolean useLegacyEngine = false;
+    /**
+     * Refine communities into well-connected subcommunities before each
+     * aggregation, as in the Leiden algorithm
+     */
+    private boolean useLeiden = false;
+    /**
+     * Number of worker threads for local moving and aggregation
+     */
+    private int threadCount = 1;
+    private int levelCount;
+    private volatile LouvainEngine engine;
 
     public void setRandom(boolean isRandomized) {
         this.isRandomized = isRandomized;
@@ -100,9 +118,37 @@ public class Modularity implements Statistics, LongTask {
         return resolution;
     }
 
+    public void setUseLegacyEngine(boolean useLegacyEngine) {
+        this.useLegacyEngine = useLegacyEngine;
+    }
+
+    public boolean getUseLegacyEngine() {
+        return useLegacyEngine;
+    }
+
+    public void setUseLeiden(boolean useLeiden) {
+        this.useLeiden = useLeiden;
+    }
+
+    public boolean getUseLeiden() {
+        return useLeiden;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
     @Override
     public boolean cancel() {
         this.isCanceled = true;
+        LouvainEngine current = engine;
+        if (current != null) {
+            current.cancel();
+        }
         return true;
     }
 
@@ -456,22 +502,97 @@ public class Modularity implements Statistics, LongTask {
 
     public void execute(Graph hgraph, AttributeModel attributeModel) {
         isCanceled = false;
+        graph = hgraph;
 
         hgraph.readLock();
 
-        structure = new Modularity.CommunityStructure(hgraph);
         int[] comStructure = new int[hgraph.getNodeCount()];
-
-        HashMap<String, Double> computedModularityMetrics = computeModularity(hgraph, structure, comStructure, resolution, isRandomized, useWeight);
+        HashMap<String, Double> computedModularityMetrics;
+        if (useLegacyEngine) {
+            structure = new Modularity.CommunityStructure(hgraph);
+            computedModularityMetrics = computeModularity(hgraph, structure, comStructure, resolution, isRandomized, useWeight);
+            communityCount = structure.communities.size();
+        } else {
+            structure = null;
+            computedModularityMetrics = computeLouvain(hgraph, comStructure, resolution, isRandomized, useWeight);
+        }
+        if (isCanceled) {
+            return;
+        }
 
         modularity = computedModularityMetrics.get("modularity");
         modularityResolution = computedModularityMetrics.get("modularityResolution");
 
-        saveValues(comStructure, hgraph, attributeModel, structure);
+        saveValues(comStructure, hgraph, attributeModel);
 
         hgraph.readUnlock();
     }
 
+    /**
+     * Runs <code>LouvainEngine</code> on the visible undirected graph. Self
+     * loops are ignored, like in <code>CommunityStructure</code>.
+     *
+     * @param hgraph the graph, read-locked by the caller
+     * @param comStructure filled with the community of each node, in
+     * iteration order
+     * @param currentResolution resolution parameter
+     * @param randomized visit nodes in random order
+     * @param weighted use edge weights
+     * @return the <code>modularity</code> and
+     * <code>modularityResolution</code> values, empty if canceled
+     */
+    protected HashMap<String, Double> computeLouvain(Graph hgraph, int[] comStructure,
+            double currentResolution, boolean randomized, boolean weighted) {
+        isCanceled = false;
+        Progress.start(progress);
+        HashMap<String, Double> results = new HashMap<String, Double>();
+
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, false, weighted);
+        int N = adjacency.getNodeCount();
+        int[] adjacencyOffsets = adjacency.getOutOffsets();
+        int[] adjacencyNeighbors = adjacency.getOutNeighbors();
+        double[] adjacencyWeights = adjacency.getOutWeights();
+        int[] offsets = new int[N + 1];
+        int[] neighbors = new int[adjacencyNeighbors.length];
+        double[] weights = new double[adjacencyNeighbors.length];
+        int size = 0;
+        for (int i = 0; i < N; i++) {
+            for (int e = adjacencyOffsets[i]; e < adjacencyOffsets[i + 1]; e++) {
+                int neighbor = adjacencyNeighbors[e];
+                if (neighbor == i) {
+                    continue;
+                }
+                neighbors[size] = neighbor;
+                weights[size] = weighted ? adjacencyWeights[e] : 1.;
+                size++;
+            }
+            offsets[i + 1] = size;
+        }
+
+        LouvainEngine louvain = new LouvainEngine(currentResolution, randomized, useLeiden, threadCount, new Random());
+        engine = louvain;
+        if (isCanceled) {
+            louvain.cancel();
+        }
+        int[] communities = louvain.run(offsets, neighbors, weights);
+        engine = null;
+        levelCount = louvain.getLevelCount();
+        if (communities == null || isCanceled) {
+            hgraph.readUnlockAll();
+            return results;
+        }
+
+        communityCount = 0;
+        for (int i = 0; i < N; i++) {
+            comStructure[i] = communities[i];
+            communityCount = Math.max(communityCount, communities[i] + 1);
+        }
+
+        results.put("modularity", LouvainEngine.modularity(offsets, neighbors, weights, communities, communityCount, 1.));
+        results.put("modularityResolution", LouvainEngine.modularity(offsets, neighbors, weights, communities, communityCount, currentResolution));
+        return results;
+    }
+
     protected HashMap<String, Double> computeModularity(Graph hgraph, CommunityStructure theStructure, int[] comStructure,
             double currentResolution, boolean randomized, boolean weighted) {
         isCanceled = false;
@@ -607,15 +728,15 @@ public class Modularity implements Statistics, LongTask {
         return res;
     }
 
-    private void saveValues(int[] struct, Graph hgraph, AttributeModel attributeModel, CommunityStructure theStructure) {
+    private void saveValues(int[] struct, Graph hgraph, AttributeModel attributeModel) {
         Table nodeTable = attributeModel.getNodeTable();
         Column modCol = nodeTable.getColumn(MODULARITY_CLASS);
         if (modCol == null) {
             modCol = nodeTable.addColumn(MODULARITY_CLASS, "Modularity Class", Integer.class, new Integer(0));
         }
+        int n_index = 0;
         for (Node n : hgraph.getNodes()) {
-            int n_index = theStructure.map.get(n);;
-            n.setAttribute(modCol, struct[n_index]);
+            n.setAttribute(modCol, struct[n_index++]);
         }
     }
 
@@ -627,7 +748,7 @@ public class Modularity implements Statistics, LongTask {
     public String getReport() {
         //Distribution series
         Map<Integer, Integer> sizeDist = new HashMap<Integer, Integer>();
-        for (Node n : structure.graph.getNodes()) {
+        for (Node n : graph.getNodes()) {
             Integer v = (Integer) n.getAttribute(MODULARITY_CLASS);
             if (!sizeDist.containsKey(v)) {
                 sizeDist.put(v, 0);
@@ -662,15 +783,20 @@ public class Modularity implements Statistics, LongTask {
                 + "Randomize:  " + (isRandomized ? "On" : "Off") + "<br>"
                 + "Use edge weights:  " + (useWeight ? "On" : "Off") + "<br>"
                 + "Resolution:  " + (resolution) + "<br>"
+                + "Engine:  " + (useLegacyEngine ? "Legacy" : (useLeiden ? "Leiden" : "Louvain")) + "<br>"
+                + (useLegacyEngine ? "" : "Threads:  " + threadCount + "<br>")
                 + "<br> <h2> Results: </h2>"
                 + "Modularity: " + f.format(modularity) + "<br>"
                 + "Modularity with resolution: " + f.format(modularityResolution) + "<br>"
-                + "Number of Communities: " + structure.communities.size()
+                + "Number of Communities: " + communityCount
+                + (useLegacyEngine ? "" : "<br>Number of Levels: " + levelCount)
                 + "<br /><br />" + imageFile
                 + "<br /><br />" + "<h2> Algorithm: </h2>"
                 + "Vincent D Blondel, Jean-Loup Guillaume, Renaud Lambiotte, Etienne Lefebvre, <i>Fast unfolding of communities in large networks</i>, in Journal of Statistical Mechanics: Theory and Experiment 2008 (10), P1000<br />"
                 + "<br /><br />" + "<h2> Resolution: </h2>"
                 + "R. Lambiotte, J.-C. Delvenne, M. Barahona <i>Laplacian Dynamics and Multiscale Modular Structure in Networks 2009<br />"
+                + (useLeiden && !useLegacyEngine ? "<br /><br />" + "<h2> Refinement: </h2>"
+                + "V.A. Traag, L. Waltman, N.J. van Eck, <i>From Louvain to Leiden: guaranteeing well-connected communities</i>, in Scientific Reports 9 (2019), 5233<br />" : "")
                 + "</BODY> </HTML>";
 
         return report;
@@ -41,19 +41,23 @@
  */
 package org.gephi.statistics.plugin;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
 import org.gephi.graph.api.DirectedGraph;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Node;
-import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.Progress;
@@ -82,7 +86,7 @@ public class PageRank implements Statistics, LongTask {
     /**
      *
      */
-    private boolean isCanceled;
+    private volatile boolean isCanceled;
     /**
      *
      */
@@ -92,6 +96,18 @@ public class PageRank implements Statistics, LongTask {
      */
     private double probability = 0.85;
     private boolean useEdgeWeight = false;
+    /**
+     * Number of worker threads each iteration is split across
+     */
+    private int threadCount = 1;
+    /**
+     * Nodes per task, also the granularity of the residual reduction
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * L1 norm of the rank change at every iteration of the last run
+     */
+    private List<Double> residuals;
     /**
      *
      */
@@ -138,11 +154,11 @@ public class PageRank implements Statistics, LongTask {
 
         hgraph.readLock();
 
-        HashMap<Node, Integer> indicies = createIndiciesMap(hgraph);
+        GraphAdjacency adjacency = GraphAdjacency.get(hgraph, isDirected, useEdgeWeight);
 
-        pageranks = calculatePagerank(hgraph, indicies, isDirected, useEdgeWeight, epsilon, probability);
+        pageranks = calculatePagerank(hgraph, adjacency, isDirected, useEdgeWeight, epsilon, probability);
 
-        saveCalculatedValues(hgraph, column, indicies, pageranks);
+        saveCalculatedValues(adjacency, column, pageranks);
 
         hgraph.readUnlockAll();
     }
@@ -158,112 +174,94 @@ public class PageRank implements Statistics, LongTask {
         return pagerankCol;
     }
 
-    private void saveCalculatedValues(Graph hgraph, Column attributeColumn, HashMap<Node, Integer> indicies,
-            double[] nodePagrank) {
-        for (Node s : hgraph.getNodes()) {
-            int s_index = indicies.get(s);
-
-            s.setAttribute(attributeColumn, nodePagrank[s_index]);
-        }
-    }
-
-    private void setInitialValues(Graph hgraph, double[] pagerankValues, double[] weights, boolean directed, boolean useWeights) {
-        int N = hgraph.getNodeCount();
-        int index = 0;
-        for (Node s : hgraph.getNodes()) {
-            pagerankValues[index] = 1.0f / N;
-            if (useWeights) {
-                double sum = 0;
-                EdgeIterable eIter;
-                if (directed) {
-                    eIter = ((DirectedGraph) hgraph).getOutEdges(s);
-                } else {
-                    eIter = ((UndirectedGraph) hgraph).getEdges(s);
-                }
-                for (Edge edge : eIter) {
-                    sum += edge.getWeight();
-                }
-                weights[index] = sum;
-            }
-            index++;
-        }
-    }
-
-    private double calculateR(Graph hgraph, double[] pagerankValues, HashMap<Node, Integer> indicies, boolean directed, double prob) {
-        int N = hgraph.getNodeCount();
-        double r = 0;
-        for (Node s : hgraph.getNodes()) {
-            int s_index = indicies.get(s);
-            boolean out;
-            if (directed) {
-                out = ((DirectedGraph) hgraph).getOutDegree(s) > 0;
-            } else {
-                out = hgraph.getDegree(s) > 0;
-            }
-
-            if (out) {
-                r += (1.0 - prob) * (pagerankValues[s_index] / N);
-            } else {
-                r += (pagerankValues[s_index] / N);
-            }
-            if (isCanceled) {
-                hgraph.readUnlockAll();
-                return r;
-            }
+    private void saveCalculatedValues(GraphAdjacency adjacency, Column attributeColumn, double[] nodePagrank) {
+        for (int i = 0; i < adjacency.getNodeCount(); i++) {
+            adjacency.getNode(i).setAttribute(attributeColumn, nodePagrank[i]);
         }
-        return r;
     }
 
-    private double updateValueForNode(Graph hgraph, Node s, double[] pagerankValues, double[] weights,
-            HashMap<Node, Integer> indicies, boolean directed, boolean useWeights, double r, double prob) {
-        double res = r;
-        EdgeIterable eIter;
-        if (directed) {
-            eIter = ((DirectedGraph) hgraph).getInEdges(s);
-        } else {
-            eIter = hgraph.getEdges(s);
-        }
-
-        for (Edge edge : eIter) {
-            Node neighbor = hgraph.getOpposite(s, edge);
-            int neigh_index = indicies.get(neighbor);
-            int normalize;
-            if (directed) {
-                normalize = ((DirectedGraph) hgraph).getOutDegree(neighbor);
-            } else {
-                normalize = hgraph.getDegree(neighbor);
-            }
-            if (useWeights) {
-                double weight = edge.getWeight() / weights[neigh_index];
-                res += prob * pagerankValues[neigh_index] * weight;
-            } else {
-                res += prob * (pagerankValues[neigh_index] / normalize);
-            }
-        }
-        return res;
+    double[] calculatePagerank(Graph hgraph, HashMap<Node, Integer> indicies,
+            boolean directed, boolean useWeights, double eps, double prob) {
+        GraphAdjacency adjacency = GraphAdjacency.build(hgraph, directed, useWeights, indicies);
+        return calculatePagerank(hgraph, adjacency, directed, useWeights, eps, prob);
     }
 
-    double[] calculatePagerank(Graph hgraph, HashMap<Node, Integer> indicies,
+    private double[] calculatePagerank(Graph hgraph, GraphAdjacency adjacency,
             boolean directed, boolean useWeights, double eps, double prob) {
-        int N = hgraph.getNodeCount();
+        int N = adjacency.getNodeCount();
         double[] pagerankValues = new double[N];
         double[] temp = new double[N];
 
         Progress.start(progress);
-        double[] weights = new double[N];
+        residuals = new ArrayList<Double>();
 
-        setInitialValues(hgraph, pagerankValues, weights, directed, useWeights);
+        //Share of its rank each node gives to the teleport term r
+        double[] teleport = new double[N];
+        //Inverse out-degree, or per-edge weight over the source's total out-weight
+        double[] inverseOutDegree = new double[N];
+        double[] weights = new double[N];
+        for (int i = 0; i < N; i++) {
+            Node s = adjacency.getNode(i);
+            int degree = directed ? ((DirectedGraph) hgraph).getOutDegree(s) : hgraph.getDegree(s);
+            teleport[i] = degree > 0 ? (1.0 - prob) / N : 1.0 / N;
+            inverseOutDegree[i] = 1.0 / degree;
+            pagerankValues[i] = 1.0f / N;
+        }
+        int[] offsets = adjacency.getInOffsets();
+        int[] neighbors = adjacency.getInNeighbors();
+        double[] edgeFactors = null;
+        if (useWeights) {
+            int[] outOffsets = adjacency.getOutOffsets();
+            double[] outWeights = adjacency.getOutWeights();
+            for (int i = 0; i < N; i++) {
+                double sum = 0;
+                for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                    sum += outWeights[e];
+                }
+                weights[i] = sum;
+            }
+            double[] inWeights = adjacency.getInWeights();
+            edgeFactors = new double[neighbors.length];
+            for (int e = 0; e < neighbors.length; e++) {
+                edgeFactors[e] = inWeights[e] / weights[neighbors[e]];
+            }
+        }
 
-        while (true) {
-            double r = calculateR(hgraph, pagerankValues, indicies, directed, prob);
+        //Fixed chunks, reduced in order, keep the result independent of the thread count
+        int chunkCount = Math.max(1, (N + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        List<PagerankChunk> chunks = new ArrayList<PagerankChunk>(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            chunks.add(new PagerankChunk(c * CHUNK_SIZE, Math.min(N, (c + 1) * CHUNK_SIZE),
+                    offsets, neighbors, edgeFactors, inverseOutDegree, teleport, prob, eps));
+        }
+        int threads = Math.max(1, Math.min(threadCount, chunkCount));
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
 
-            boolean done = true;
-            for (Node s : hgraph.getNodes()) {
-                int s_index = indicies.get(s);
-                temp[s_index] = updateValueForNode(hgraph, s, pagerankValues, weights, indicies, directed, useWeights, r, prob);
+        try {
+            double r = 0;
+            for (int i = 0; i < N; i++) {
+                r += teleport[i] * pagerankValues[i];
+            }
 
-                if ((temp[s_index] - pagerankValues[s_index]) / pagerankValues[s_index] >= eps) {
-                    done = false;
+            while (true) {
+                for (PagerankChunk chunk : chunks) {
+                    chunk.prepare(pagerankValues, temp, r);
+                }
+                if (pool != null) {
+                    try {
+                        for (Future<?> future : pool.invokeAll(chunks)) {
+                            future.get();
+                        }
+                    } catch (InterruptedException ex) {
+                        isCanceled = true;
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ex) {
+                        throw new RuntimeException(ex.getCause());
+                    }
+                } else {
+                    for (PagerankChunk chunk : chunks) {
+                        chunk.call();
+                    }
                 }
 
                 if (isCanceled) {
@@ -271,17 +269,110 @@ public class PageRank implements Statistics, LongTask {
                     return pagerankValues;
                 }
 
+                boolean done = true;
+                double residual = 0;
+                r = 0;
+                for (PagerankChunk chunk : chunks) {
+                    done &= chunk.done;
+                    residual += chunk.residual;
+                    r += chunk.teleport;
+                }
+                residuals.add(residual);
+                Progress.progress(progress);
+
+                double[] swap = pagerankValues;
+                pagerankValues = temp;
+                temp = swap;
+                if (done) {
+                    break;
+                }
             }
-            pagerankValues = temp;
-            temp = new double[N];
-            if ((done) || (isCanceled)) {
-                break;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
             }
-
         }
         return pagerankValues;
     }
 
+    /**
+     * Pulls the new rank of a range of nodes from their incoming neighbors,
+     * and reduces the residual and next teleport term over the range.
+     */
+    private class PagerankChunk implements Callable<Void> {
+
+        private final int from;
+        private final int to;
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final double[] edgeFactors;
+        private final double[] inverseOutDegree;
+        private final double[] teleportShares;
+        private final double prob;
+        private final double eps;
+        private double[] values;
+        private double[] newValues;
+        private double r;
+        //Results
+        private boolean done;
+        private double residual;
+        private double teleport;
+
+        public PagerankChunk(int from, int to, int[] offsets, int[] neighbors, double[] edgeFactors,
+                double[] inverseOutDegree, double[] teleportShares, double prob, double eps) {
+            this.from = from;
+            this.to = to;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.edgeFactors = edgeFactors;
+            this.inverseOutDegree = inverseOutDegree;
+            this.teleportShares = teleportShares;
+            this.prob = prob;
+            this.eps = eps;
+        }
+
+        public void prepare(double[] values, double[] newValues, double r) {
+            this.values = values;
+            this.newValues = newValues;
+            this.r = r;
+        }
+
+        @Override
+        public Void call() {
+            boolean chunkDone = true;
+            double chunkResidual = 0;
+            double chunkTeleport = 0;
+            for (int s = from; s < to; s++) {
+                double sum = 0;
+                if (edgeFactors != null) {
+                    for (int e = offsets[s]; e < offsets[s + 1]; e++) {
+                        sum += values[neighbors[e]] * edgeFactors[e];
+                    }
+                } else {
+                    for (int e = offsets[s]; e < offsets[s + 1]; e++) {
+                        int neighbor = neighbors[e];
+                        sum += values[neighbor] * inverseOutDegree[neighbor];
+                    }
+                }
+                double value = r + prob * sum;
+                newValues[s] = value;
+
+                if ((value - values[s]) / values[s] >= eps) {
+                    chunkDone = false;
+                }
+                chunkResidual += Math.abs(value - values[s]);
+                chunkTeleport += teleportShares[s] * value;
+                if (isCanceled) {
+                    break;
+                }
+            }
+            done = chunkDone;
+            residual = chunkResidual;
+            teleport = chunkTeleport;
+            return null;
+        }
+    }
+
     public HashMap<Node, Integer> createIndiciesMap(Graph hgraph) {
         HashMap<Node, Integer> newIndicies = new HashMap<Node, Integer>();
         int index = 0;
@@ -330,12 +421,38 @@ public class PageRank implements Statistics, LongTask {
         ChartUtils.scaleChart(chart, dSeries, true);
         String imageFile = ChartUtils.renderChart(chart, "pageranks.png");
 
+        //Convergence
+        String convergence = "";
+        if (residuals != null && !residuals.isEmpty()) {
+            XYSeries rSeries = new XYSeries("Residual");
+            for (int i = 0; i < residuals.size(); i++) {
+                rSeries.add((double) (i + 1), residuals.get(i).doubleValue());
+            }
+            XYSeriesCollection rDataset = new XYSeriesCollection();
+            rDataset.addSeries(rSeries);
+            JFreeChart rChart = ChartFactory.createXYLineChart(
+                    "Convergence",
+                    "Iteration",
+                    "Residual (L1)",
+                    rDataset,
+                    PlotOrientation.VERTICAL,
+                    true,
+                    false,
+                    false);
+            rChart.removeLegend();
+            ChartUtils.decorateChart(rChart);
+            convergence = "Iterations: " + residuals.size() + "<br>"
+                    + "Final residual: " + residuals.get(residuals.size() - 1) + "<br /><br />"
+                    + ChartUtils.renderChart(rChart, "pagerank-convergence.png") + "<br /><br />";
+        }
+
         String report = "<HTML> <BODY> <h1>PageRank Report </h1> "
                 + "<hr> <br />"
                 + "<h2> Parameters: </h2>"
                 + "Epsilon = " + epsilon + "<br>"
                 + "Probability = " + probability
                 + "<br> <h2> Results: </h2>"
+                + convergence
                 + imageFile
                 + "<br /><br />" + "<h2> Algorithm: </h2>"
                 + "Sergey Brin, Lawrence Page, <i>The Anatomy of a Large-Scale Hypertextual Web Search Engine</i>, in Proceedings of the seventh International Conference on the World Wide Web (WWW1998):107-117<br />"
@@ -403,4 +520,22 @@ public class PageRank implements Statistics, LongTask {
     public void setUseEdgeWeight(boolean useEdgeWeight) {
         this.useEdgeWeight = useEdgeWeight;
     }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Returns the L1 norm of the rank change at each iteration of the last
+     * run.
+     *
+     * @return the residuals, in iteration order
+     */
+    public List<Double> getResiduals() {
+        return residuals;
+    }
 }
@@ -54,6 +54,8 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service=StatisticsBuilder.class)
 public class ConnectedComponentsBuilder implements StatisticsBuilder {
 
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
     @Override
     public String getName() {
         return NbBundle.getMessage(ConnectedComponentsBuilder.class, "ConnectedComponents.name");
@@ -61,11 +63,27 @@ public class ConnectedComponentsBuilder implements StatisticsBuilder {
 
     @Override
     public Statistics getStatistics() {
-        return new ConnectedComponents();
+        ConnectedComponents connectedComponents = new ConnectedComponents();
+        connectedComponents.setThreadCount(threadCount);
+        return connectedComponents;
     }
 
     @Override
     public Class<? extends Statistics> getStatisticsClass() {
         return ConnectedComponents.class;
     }
+
+    /**
+     * Returns the number of threads new <code>ConnectedComponents</code>
+     * instances split the weakly connected search across.
+     *
+     * @return the thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
 }
@@ -54,6 +54,11 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service=StatisticsBuilder.class)
 public class GraphDistanceBuilder implements StatisticsBuilder {
 
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private boolean approximate = false;
+    private double errorBound = 0.05;
+    private double confidence = 0.95;
+
     @Override
     public String getName() {
         return NbBundle.getMessage(GraphDistanceBuilder.class, "GraphDistance.name");
@@ -61,11 +66,61 @@ public class GraphDistanceBuilder implements StatisticsBuilder {
 
     @Override
     public Statistics getStatistics() {
-        return new GraphDistance();
+        GraphDistance graphDistance = new GraphDistance();
+        graphDistance.setThreadCount(threadCount);
+        graphDistance.setApproximate(approximate);
+        graphDistance.setErrorBound(errorBound);
+        graphDistance.setConfidence(confidence);
+        return graphDistance;
     }
 
     @Override
     public Class<? extends Statistics> getStatisticsClass() {
         return GraphDistance.class;
     }
+
+    /**
+     * Returns the number of threads new <code>GraphDistance</code> instances
+     * split their shortest path searches across.
+     *
+     * @return the thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Returns whether new <code>GraphDistance</code> instances estimate the
+     * metrics from sampled pivot sources, within <code>errorBound</code> with
+     * probability <code>confidence</code>.
+     *
+     * @return <code>true</code> if approximate mode is on
+     */
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    public void setApproximate(boolean approximate) {
+        this.approximate = approximate;
+    }
+
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    public void setErrorBound(double errorBound) {
+        this.errorBound = errorBound;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
 }
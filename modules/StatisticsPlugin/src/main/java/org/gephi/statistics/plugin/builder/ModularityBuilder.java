@@ -54,6 +54,8 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = StatisticsBuilder.class)
 public class ModularityBuilder implements StatisticsBuilder {
 
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
     @Override
     public String getName() {
         return NbBundle.getMessage(ModularityBuilder.class, "Modularity.name");
@@ -61,11 +63,27 @@ public class ModularityBuilder implements StatisticsBuilder {
 
     @Override
     public Statistics getStatistics() {
-        return new Modularity();
+        Modularity modularity = new Modularity();
+        modularity.setThreadCount(threadCount);
+        return modularity;
     }
 
     @Override
     public Class<? extends Statistics> getStatisticsClass() {
         return Modularity.class;
     }
+
+    /**
+     * Returns the number of threads new <code>Modularity</code> instances
+     * split local moving and aggregation across.
+     *
+     * @return the thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
 }
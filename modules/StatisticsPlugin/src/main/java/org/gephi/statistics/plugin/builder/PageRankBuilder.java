@@ -54,6 +54,8 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = StatisticsBuilder.class)
 public class PageRankBuilder implements StatisticsBuilder {
 
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
     @Override
     public String getName() {
         return NbBundle.getMessage(PageRankBuilder.class, "PageRank.name");
@@ -61,11 +63,27 @@ public class PageRankBuilder implements StatisticsBuilder {
 
     @Override
     public Statistics getStatistics() {
-        return new PageRank();
+        PageRank pageRank = new PageRank();
+        pageRank.setThreadCount(threadCount);
+        return pageRank;
     }
 
     @Override
     public Class<? extends Statistics> getStatisticsClass() {
         return PageRank.class;
     }
+
+    /**
+     * Returns the number of threads new <code>PageRank</code> instances split
+     * their iterations across.
+     *
+     * @return the thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
 }
@@ -41,8 +41,11 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.statistics.plugin.dynamic;
 
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.gephi.attribute.api.AttributeModel;
@@ -50,6 +53,7 @@ import org.gephi.attribute.api.Column;
 import org.gephi.attribute.api.Table;
 import org.gephi.attribute.time.Interval;
 import org.gephi.attribute.time.TimestampDoubleSet;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -57,7 +61,8 @@ import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.statistics.plugin.ChartUtils;
 import org.gephi.statistics.plugin.ClusteringCoefficient;
-import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
+import org.gephi.statistics.spi.ParallelDynamicStatistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.ProgressTicket;
 import org.jfree.chart.ChartFactory;
@@ -72,7 +77,7 @@ import org.openide.util.NbBundle;
  *
  * @author Mathieu Bastian
  */
-public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask {
+public class DynamicClusteringCoefficient implements IncrementalDynamicStatistics, ParallelDynamicStatistics, LongTask {
 
     public static final String DYNAMIC_AVG_CLUSTERING_COEFFICIENT = "dynamic_avg_clustering";
     public static final String DYNAMIC_CLUSTERING_COEFFICIENT = "dynamic_clustering";
@@ -84,12 +89,17 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
     private boolean isDirected;
     private boolean averageOnly;
     private boolean cancel = false;
-    private ClusteringCoefficient clusteringCoefficientStat;
+    private int threadCount = 1;
     //Cols
     private Column dynamicCoefficientColumn;
     //Average
     private Column dynamicAverageCoefficientColumn;
     private Map<Double, Double> averages;
+    //Incremental, undirected only, by node store id. Neighbors map each
+    //distinct neighbor to the number of parallel edges to it
+    private boolean incremental;
+    private Int2IntOpenHashMap[] neighbors;
+    private int[] triangles;
 
     public DynamicClusteringCoefficient() {
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
@@ -103,6 +113,9 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
         this.graphModel = graphModel;
         this.isDirected = graphModel.isDirected();
         this.averages = new HashMap<Double, Double>();
+        this.incremental = false;
+        this.neighbors = new Int2IntOpenHashMap[0];
+        this.triangles = new int[0];
 
         //Attributes cols
         if (!averageOnly) {
@@ -156,7 +169,16 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
 
     @Override
     public void loop(GraphView window, Interval interval) {
-        Graph graph = null;
+        if (incremental) {
+            loopIncremental(graphModel.getUndirectedGraph(window), interval);
+        } else {
+            compute(window, interval).run();
+        }
+    }
+
+    @Override
+    public Runnable compute(GraphView window, final Interval interval) {
+        final Graph graph;
         if (isDirected) {
             graph = graphModel.getDirectedGraph(window);
         } else {
@@ -165,30 +187,79 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
 
         graph.readLock();
 
-        clusteringCoefficientStat = new ClusteringCoefficient();
+        ClusteringCoefficient clusteringCoefficientStat = new ClusteringCoefficient();
         clusteringCoefficientStat.setDirected(isDirected);
         clusteringCoefficientStat.triangles(graph);
 
-        //Columns
-        if (!averageOnly) {
-            double[] coefficients = clusteringCoefficientStat.getCoefficientReuslts();
-            int i = 0;
-            for (Node n : graph.getNodes()) {
-                double coef = coefficients[i++];
-                
+        final Node[] nodes = clusteringCoefficientStat.getResultNodes();
+        final double[] coefficients = clusteringCoefficientStat.getCoefficientReuslts();
+        final double avg = clusteringCoefficientStat.getAverageClusteringCoefficient();
+
+        graph.readUnlockAll();
+
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                //Columns
+                if (!averageOnly) {
+                    for (int i = 0; i < nodes.length; i++) {
+                        double coef = coefficients[i];
+
+                        nodes[i].setAttribute(dynamicCoefficientColumn, coef, interval.getLow());
+                        nodes[i].setAttribute(dynamicCoefficientColumn, coef, interval.getHigh());
+
+                        if (cancel) {
+                            break;
+                        }
+                    }
+                }
+
+                //Average
+                writeAverage(graph, avg, interval);
+            }
+        };
+    }
+
+    private void loopIncremental(Graph graph, Interval interval) {
+        double sum = 0;
+        int count = 0;
+        for (Node n : graph.getNodes().toArray()) {
+            double coef = 0;
+            if (neighbors[n.getStoreId()].size() > 1) {
+                coef = coefficient(n);
+                sum += coef;
+                count++;
+            }
+
+            if (!averageOnly) {
                 n.setAttribute(dynamicCoefficientColumn, coef, interval.getLow());
                 n.setAttribute(dynamicCoefficientColumn, coef, interval.getHigh());
-                
-                if (cancel) {
-                    break;
-                }
             }
-        }
 
-        graph.readUnlockAll();
+            if (cancel) {
+                break;
+            }
+        }
 
         //Average
-        double avg = clusteringCoefficientStat.getAverageClusteringCoefficient();
+        writeAverage(graph, sum / count, interval);
+    }
+
+    /**
+     * Returns the clustering coefficient of <code>node</code> from the
+     * incremental triangle counts, zero if it has less than two neighbors.
+     */
+    double coefficient(Node node) {
+        int id = node.getStoreId();
+        int degree = neighbors[id].size();
+        if (degree < 2) {
+            return 0;
+        }
+        return 2.0 * triangles[id] / (degree * (degree - 1.0));
+    }
+
+    private void writeAverage(Graph graph, double avg, Interval interval) {
         graph.setAttribute(DYNAMIC_AVG_CLUSTERING_COEFFICIENT, avg, interval.getLow());
         graph.setAttribute(DYNAMIC_AVG_CLUSTERING_COEFFICIENT, avg, interval.getHigh());
 
@@ -196,9 +267,95 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
         averages.put(interval.getHigh(), avg);
     }
 
+    @Override
+    public void nodeAdded(Graph window, Node node) {
+        if (isDirected) {
+            return;
+        }
+        incremental = true;
+        int id = node.getStoreId();
+        if (id >= triangles.length) {
+            int capacity = Math.max(id + 1, triangles.length + (triangles.length >> 1));
+            neighbors = Arrays.copyOf(neighbors, capacity);
+            triangles = Arrays.copyOf(triangles, capacity);
+        }
+        neighbors[id] = new Int2IntOpenHashMap();
+        triangles[id] = 0;
+    }
+
+    @Override
+    public void nodeRemoved(Graph window, Node node) {
+        if (isDirected) {
+            return;
+        }
+        incremental = true;
+        neighbors[node.getStoreId()] = null;
+    }
+
+    /**
+     * Counts the triangles closed by a new link. As in the full path, whose
+     * undirected neighbor tables give every neighbor a count of one, a
+     * triangle is counted once whatever the number of parallel edges between
+     * its nodes: only the first edge of a pair changes the counts.
+     */
+    @Override
+    public void edgeAdded(Graph window, Edge edge) {
+        if (isDirected || edge.isSelfLoop()) {
+            return;
+        }
+        incremental = true;
+        int source = edge.getSource().getStoreId();
+        int target = edge.getTarget().getStoreId();
+        int multiplicity = neighbors[source].get(target);
+        if (multiplicity == 0) {
+            //New link, closes a triangle with every common neighbor
+            updateTriangles(source, target, 1);
+        }
+        neighbors[source].put(target, multiplicity + 1);
+        neighbors[target].put(source, multiplicity + 1);
+    }
+
+    /**
+     * Opens the triangles of a link when its last parallel edge is removed.
+     */
+    @Override
+    public void edgeRemoved(Graph window, Edge edge) {
+        if (isDirected || edge.isSelfLoop()) {
+            return;
+        }
+        incremental = true;
+        int source = edge.getSource().getStoreId();
+        int target = edge.getTarget().getStoreId();
+        int multiplicity = neighbors[source].get(target);
+        if (multiplicity == 1) {
+            neighbors[source].remove(target);
+            neighbors[target].remove(source);
+            updateTriangles(source, target, -1);
+        } else if (multiplicity > 1) {
+            neighbors[source].put(target, multiplicity - 1);
+            neighbors[target].put(source, multiplicity - 1);
+        }
+    }
+
+    private void updateTriangles(int source, int target, int delta) {
+        Int2IntOpenHashMap smaller = neighbors[source];
+        Int2IntOpenHashMap larger = neighbors[target];
+        if (smaller.size() > larger.size()) {
+            smaller = neighbors[target];
+            larger = neighbors[source];
+        }
+        for (IntIterator itr = smaller.keySet().iterator(); itr.hasNext();) {
+            int neighbor = itr.nextInt();
+            if (larger.containsKey(neighbor)) {
+                triangles[source] += delta;
+                triangles[target] += delta;
+                triangles[neighbor] += delta;
+            }
+        }
+    }
+
     @Override
     public void end() {
-        clusteringCoefficientStat = null;
     }
 
     @Override
@@ -247,6 +404,16 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
         return averageOnly;
     }
 
+    @Override
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    @Override
+    public int getThreadCount() {
+        return threadCount;
+    }
+
     @Override
     public boolean cancel() {
         cancel = true;
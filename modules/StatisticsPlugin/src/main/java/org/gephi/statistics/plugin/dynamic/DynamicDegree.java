@@ -43,6 +43,7 @@ package org.gephi.statistics.plugin.dynamic;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.gephi.attribute.api.AttributeModel;
@@ -52,13 +53,15 @@ import org.gephi.attribute.time.Interval;
 import org.gephi.attribute.time.TimestampDoubleSet;
 import org.gephi.attribute.time.TimestampIntegerSet;
 import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.statistics.plugin.ChartUtils;
-import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
+import org.gephi.statistics.spi.ParallelDynamicStatistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.ProgressTicket;
 import org.jfree.chart.ChartFactory;
@@ -73,7 +76,7 @@ import org.openide.util.NbBundle;
  *
  * @author Mathieu Bastian
  */
-public class DynamicDegree implements DynamicStatistics, LongTask {
+public class DynamicDegree implements IncrementalDynamicStatistics, ParallelDynamicStatistics, LongTask {
 
     public static final String DYNAMIC_AVGDEGREE = "dynamic_avgdegree";
     public static final String DYNAMIC_INDEGREE = "dynamic_indegree";
@@ -87,12 +90,20 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
     private boolean isDirected;
     private boolean averageOnly;
     private boolean cancel = false;
+    private int threadCount = 1;
     //Cols
     private Column dynamicInDegreeColumn;
     private Column dynamicOutDegreeColumn;
     private Column dynamicDegreeColumn;
     //Average
     private Map<Double, Double> averages;
+    //Incremental, by node store id
+    private boolean incremental;
+    private int[] degrees;
+    private int[] inDegrees;
+    private int[] outDegrees;
+    private int nodeCount;
+    private long degreeSum;
 
     public DynamicDegree() {
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
@@ -106,6 +117,12 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         this.graphModel = graphModel;
         this.isDirected = graphModel.isDirected();
         this.averages = new HashMap<Double, Double>();
+        this.incremental = false;
+        this.degrees = new int[0];
+        this.inDegrees = new int[0];
+        this.outDegrees = new int[0];
+        this.nodeCount = 0;
+        this.degreeSum = 0;
 
         //Attributes cols
         if (!averageOnly) {
@@ -169,41 +186,135 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
 
     @Override
     public void loop(GraphView window, Interval interval) {
-        Graph graph = graphModel.getGraph(window);
+        if (incremental) {
+            loopIncremental(graphModel.getGraph(window), interval);
+        } else {
+            compute(window, interval).run();
+        }
+    }
+
+    @Override
+    public Runnable compute(GraphView window, final Interval interval) {
+        final Graph graph = graphModel.getGraph(window);
+        final boolean directed = isDirected;
         DirectedGraph directedGraph = null;
-        if (isDirected) {
+        if (directed) {
             directedGraph = graphModel.getDirectedGraph(window);
         }
 
+        final Node[] nodes = graph.getNodes().toArray();
+        final int[] nodeDegrees = new int[nodes.length];
+        final int[] nodeInDegrees = new int[directed ? nodes.length : 0];
+        final int[] nodeOutDegrees = new int[directed ? nodes.length : 0];
         long sum = 0;
-        for (Node n : graph.getNodes().toArray()) {
-            int degree = graph.getDegree(n);
-
-            if (!averageOnly) {
-                n.setAttribute(dynamicDegreeColumn, degree, interval.getLow());
-
-                if (isDirected) {
-                    int indegree = directedGraph.getInDegree(n);
-                    n.setAttribute(dynamicInDegreeColumn, indegree, interval.getLow());
-
-                    int outdegree = directedGraph.getOutDegree(n);
-                    n.setAttribute(dynamicOutDegreeColumn, outdegree, interval.getLow());
-                }
+        for (int i = 0; i < nodes.length; i++) {
+            Node n = nodes[i];
+            nodeDegrees[i] = graph.getDegree(n);
+            if (directed && !averageOnly) {
+                nodeInDegrees[i] = directedGraph.getInDegree(n);
+                nodeOutDegrees[i] = directedGraph.getOutDegree(n);
             }
-            sum += degree;
+            sum += nodeDegrees[i];
             if (cancel) {
                 break;
             }
         }
+        final double avg = sum / (double) graph.getNodeCount();
+
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                if (!averageOnly) {
+                    for (int i = 0; i < nodes.length; i++) {
+                        Node n = nodes[i];
+                        n.setAttribute(dynamicDegreeColumn, nodeDegrees[i], interval.getLow());
+                        if (directed) {
+                            n.setAttribute(dynamicInDegreeColumn, nodeInDegrees[i], interval.getLow());
+                            n.setAttribute(dynamicOutDegreeColumn, nodeOutDegrees[i], interval.getLow());
+                        }
+                        if (cancel) {
+                            break;
+                        }
+                    }
+                }
+                writeAverage(graph, avg, interval);
+            }
+        };
+    }
+
+    private void loopIncremental(Graph graph, Interval interval) {
+        if (!averageOnly) {
+            for (Node n : graph.getNodes().toArray()) {
+                int id = n.getStoreId();
+                n.setAttribute(dynamicDegreeColumn, degrees[id], interval.getLow());
+                if (isDirected) {
+                    n.setAttribute(dynamicInDegreeColumn, inDegrees[id], interval.getLow());
+                    n.setAttribute(dynamicOutDegreeColumn, outDegrees[id], interval.getLow());
+                }
+                if (cancel) {
+                    break;
+                }
+            }
+        }
+
+        writeAverage(graph, degreeSum / (double) nodeCount, interval);
+    }
 
-        double avg = sum / (double) graph.getNodeCount();
+    private void writeAverage(Graph graph, double avg, Interval interval) {
         averages.put(interval.getLow(), avg);
         averages.put(interval.getHigh(), avg);
-        
+
         graph.setAttribute(DYNAMIC_AVGDEGREE, avg, interval.getLow());
         graph.setAttribute(DYNAMIC_AVGDEGREE, avg, interval.getHigh());
     }
 
+    @Override
+    public void nodeAdded(Graph window, Node node) {
+        incremental = true;
+        int id = node.getStoreId();
+        if (id >= degrees.length) {
+            int capacity = Math.max(id + 1, degrees.length + (degrees.length >> 1));
+            degrees = Arrays.copyOf(degrees, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+        }
+        degrees[id] = 0;
+        inDegrees[id] = 0;
+        outDegrees[id] = 0;
+        nodeCount++;
+    }
+
+    @Override
+    public void nodeRemoved(Graph window, Node node) {
+        incremental = true;
+        nodeCount--;
+    }
+
+    @Override
+    public void edgeAdded(Graph window, Edge edge) {
+        incremental = true;
+        int source = edge.getSource().getStoreId();
+        int target = edge.getTarget().getStoreId();
+        outDegrees[source]++;
+        inDegrees[target]++;
+        degrees[source]++;
+        degrees[target]++;
+        degreeSum += 2;
+    }
+
+    @Override
+    public void edgeRemoved(Graph window, Edge edge) {
+        incremental = true;
+        int source = edge.getSource().getStoreId();
+        int target = edge.getTarget().getStoreId();
+        outDegrees[source]--;
+        inDegrees[target]--;
+        degrees[source]--;
+        degrees[target]--;
+        degreeSum -= 2;
+    }
+
     @Override
     public void end() {
     }
@@ -254,6 +365,16 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         return averageOnly;
     }
 
+    @Override
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    @Override
+    public int getThreadCount() {
+        return threadCount;
+    }
+
     @Override
     public boolean cancel() {
         cancel = true;
@@ -47,11 +47,14 @@ import java.util.HashMap;
 import java.util.Map;
 import org.gephi.attribute.api.AttributeModel;
 import org.gephi.attribute.time.Interval;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
 import org.gephi.statistics.plugin.ChartUtils;
-import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
+import org.gephi.statistics.spi.ParallelDynamicStatistics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
@@ -62,7 +65,7 @@ import org.jfree.data.xy.XYSeriesCollection;
  *
  * @author Sébastien Heymann
  */
-public class DynamicNbEdges implements DynamicStatistics {
+public class DynamicNbEdges implements IncrementalDynamicStatistics, ParallelDynamicStatistics {
 
     public static final String NB_EDGES = "dynamic nbedges";
     //Data
@@ -70,6 +73,10 @@ public class DynamicNbEdges implements DynamicStatistics {
     private double window;
     private double tick;
     private Interval bounds;
+    private int threadCount = 1;
+    //Incremental
+    private boolean incremental;
+    private int count;
     //Average
     private Map<Double, Integer> counts;
 
@@ -77,6 +84,8 @@ public class DynamicNbEdges implements DynamicStatistics {
     public void execute(GraphModel graphModel, AttributeModel attributeModel) {
         this.graphModel = graphModel;
         this.counts = new HashMap<Double, Integer>();
+        this.incremental = false;
+        this.count = 0;
     }
 
     @Override
@@ -123,8 +132,25 @@ public class DynamicNbEdges implements DynamicStatistics {
     public void loop(GraphView window, Interval interval) {
         Graph graph = graphModel.getGraph(window);
 
-        int count = graph.getEdgeCount();
-        
+        int count = incremental ? this.count : graph.getEdgeCount();
+        write(graph, count, interval);
+    }
+
+    @Override
+    public Runnable compute(GraphView window, final Interval interval) {
+        final Graph graph = graphModel.getGraph(window);
+
+        final int count = graph.getEdgeCount();
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                write(graph, count, interval);
+            }
+        };
+    }
+
+    private void write(Graph graph, int count, Interval interval) {
         graph.setAttribute(NB_EDGES, count, interval.getLow());
         graph.setAttribute(NB_EDGES, count, interval.getHigh());
 
@@ -136,6 +162,28 @@ public class DynamicNbEdges implements DynamicStatistics {
     public void end() {
     }
 
+    @Override
+    public void nodeAdded(Graph window, Node node) {
+        incremental = true;
+    }
+
+    @Override
+    public void nodeRemoved(Graph window, Node node) {
+        incremental = true;
+    }
+
+    @Override
+    public void edgeAdded(Graph window, Edge edge) {
+        incremental = true;
+        count++;
+    }
+
+    @Override
+    public void edgeRemoved(Graph window, Edge edge) {
+        incremental = true;
+        count--;
+    }
+
     public void setBounds(Interval bounds) {
         this.bounds = bounds;
     }
@@ -164,4 +212,14 @@ public class DynamicNbEdges implements DynamicStatistics {
     public Interval getBounds() {
         return bounds;
     }
+
+    @Override
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    @Override
+    public int getThreadCount() {
+        return threadCount;
+    }
 }
@@ -448,4 +448,36 @@ public class ConnectedComponentsNGTest {
 
         assertEquals(giantComponent, componentNumber5);
     }
+
+    @Test
+    public void testDeepDirectedCyclicGraphStronglyConnectedComponents() {
+        GraphModel graphModel = GraphGenerator.generateCyclicDirectedGraph(100000);
+        DirectedGraph graph = graphModel.getDirectedGraph();
+
+        ConnectedComponents c = new ConnectedComponents();
+        int[] componentId = c.computeStronglyConnectedComponents(graph);
+
+        assertEquals(componentId.length, 100000);
+        assertEquals(c.getStronglyConnectedComponentsCount(), 1);
+        assertEquals(c.getStrongComponentsSize()[c.getStrongGiantComponent()], 100000);
+    }
+
+    @Test
+    public void testMultiThreadedPathGraphWeaklyConnectedComponents() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(200000);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+        Node node = graphModel.factory().newNode("isolated");
+        graph.addNode(node);
+
+        ConnectedComponents c = new ConnectedComponents();
+        c.setThreadCount(4);
+        int[] componentId = c.computeWeaklyConnectedComponents(graph);
+
+        assertEquals(c.getConnectedComponentsCount(), 2);
+        assertEquals(c.getGiantComponent(), 0);
+        assertEquals(c.getComponentsSize()[0], 200000);
+        assertEquals(c.getComponentsSize()[1], 1);
+        assertEquals(componentId[0], componentId[199999]);
+        assertEquals(componentId[200000], 1);
+    }
 }
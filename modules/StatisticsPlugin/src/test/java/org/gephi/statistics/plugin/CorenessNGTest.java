@@ -0,0 +1,112 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.statistics.plugin;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class CorenessNGTest {
+
+    private ProjectController pc;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    private int getCoreness(GraphAdjacency adjacency, int[] coreness, UndirectedGraph graph, String id) {
+        return coreness[adjacency.getIndex(graph.getNode(id))];
+    }
+
+    @Test
+    public void testNullGraphCoreness() {
+        GraphModel graphModel = GraphGenerator.generateNullUndirectedGraph(3);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        int[] coreness = Coreness.computeCoreness(GraphAdjacency.build(graph, false, false));
+
+        assertEquals(coreness, new int[]{0, 0, 0});
+    }
+
+    @Test
+    public void testPathGraphCoreness() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(5);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        int[] coreness = Coreness.computeCoreness(GraphAdjacency.build(graph, false, false));
+
+        assertEquals(coreness, new int[]{1, 1, 1, 1, 1});
+    }
+
+    @Test
+    public void testCompleteGraphCoreness() {
+        GraphModel graphModel = GraphGenerator.generateCompleteUndirectedGraph(5);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        int[] coreness = Coreness.computeCoreness(GraphAdjacency.build(graph, false, false));
+
+        assertEquals(coreness, new int[]{4, 4, 4, 4, 4});
+    }
+
+    @Test
+    public void testCliqueWithTailCoreness() {
+        GraphModel graphModel = GraphGenerator.generateCompleteUndirectedGraph(4);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+        Node node4 = graphModel.factory().newNode("4");
+        Node node5 = graphModel.factory().newNode("5");
+        graph.addNode(node4);
+        graph.addNode(node5);
+        Edge edge1 = graphModel.factory().newEdge(graph.getNode("0"), node4, false);
+        Edge edge2 = graphModel.factory().newEdge(node4, node5, false);
+        Edge edge3 = graphModel.factory().newEdge(graph.getNode("1"), node5, false);
+        graph.addEdge(edge1);
+        graph.addEdge(edge2);
+        graph.addEdge(edge3);
+
+        GraphAdjacency adjacency = GraphAdjacency.build(graph, false, false);
+        int[] coreness = Coreness.computeCoreness(adjacency);
+
+        assertEquals(getCoreness(adjacency, coreness, graph, "0"), 3);
+        assertEquals(getCoreness(adjacency, coreness, graph, "3"), 3);
+        assertEquals(getCoreness(adjacency, coreness, graph, "4"), 2);
+        assertEquals(getCoreness(adjacency, coreness, graph, "5"), 2);
+    }
+
+    @Test
+    public void testStarGraphCoreness() {
+        GraphModel graphModel = GraphGenerator.generateStarUndirectedGraph(5);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        int[] coreness = Coreness.computeCoreness(GraphAdjacency.build(graph, false, false));
+
+        for (int core : coreness) {
+            assertEquals(core, 1);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.statistics.plugin;
+
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class GraphAdjacencyNGTest {
+
+    private ProjectController pc;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testPathUndirectedGraphAdjacency() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(3);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        GraphAdjacency adjacency = GraphAdjacency.build(graph, false, false);
+
+        assertEquals(adjacency.getNodeCount(), 3);
+        assertEquals(adjacency.getOutOffsets()[3], 4);
+        int middle = adjacency.getIndex(graph.getNode("1"));
+        assertEquals(adjacency.getOutDegree(middle), 2);
+        assertSame(adjacency.getInNeighbors(), adjacency.getOutNeighbors());
+        assertNull(adjacency.getOutWeights());
+    }
+
+    @Test
+    public void testPathDirectedGraphAdjacency() {
+        GraphModel graphModel = GraphGenerator.generatePathDirectedGraph(3);
+        DirectedGraph graph = graphModel.getDirectedGraph();
+
+        GraphAdjacency adjacency = GraphAdjacency.build(graph, true, true);
+
+        int first = adjacency.getIndex(graph.getNode("0"));
+        int last = adjacency.getIndex(graph.getNode("2"));
+        assertEquals(adjacency.getOutDegree(first), 1);
+        assertEquals(adjacency.getInDegree(first), 0);
+        assertEquals(adjacency.getOutDegree(last), 0);
+        assertEquals(adjacency.getInDegree(last), 1);
+        assertEquals(adjacency.getOutWeights().length, 2);
+        assertEquals(adjacency.getOutWeights()[0], 1.0);
+    }
+
+    @Test
+    public void testSnapshotIsNotShared() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(3);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        graph.readLock();
+        GraphAdjacency first = GraphAdjacency.build(graph, false, false);
+        GraphAdjacency second = GraphAdjacency.build(graph, false, false);
+        graph.readUnlock();
+        assertNotSame(second, first);
+
+        Node node = graphModel.factory().newNode("3");
+        graph.addNode(node);
+        Edge edge = graphModel.factory().newEdge(graph.getNode("2"), node, false);
+        graph.addEdge(edge);
+
+        graph.readLock();
+        GraphAdjacency third = GraphAdjacency.build(graph, false, false);
+        graph.readUnlock();
+        assertEquals(first.getNodeCount(), 3);
+        assertEquals(third.getNodeCount(), 4);
+        assertEquals(third.getOutOffsets()[4], 6);
+    }
+
+    @Test
+    public void testSharedWithinBatch() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(3);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        GraphAdjacency.startBatch();
+        try {
+            graph.readLock();
+            GraphAdjacency first = GraphAdjacency.get(graph, false, false);
+            GraphAdjacency second = GraphAdjacency.get(graphModel.getUndirectedGraph(), false, false);
+            GraphAdjacency weighted = GraphAdjacency.get(graph, false, true);
+            graph.readUnlock();
+            assertSame(second, first);
+            assertNotSame(weighted, first);
+            assertSame(weighted.getOutNeighbors(), first.getOutNeighbors());
+            assertNotNull(weighted.getOutWeights());
+
+            Node node = graphModel.factory().newNode("3");
+            graph.addNode(node);
+            graph.addEdge(graphModel.factory().newEdge(graph.getNode("2"), node, false));
+
+            graph.readLock();
+            GraphAdjacency third = GraphAdjacency.get(graph, false, false);
+            graph.readUnlock();
+            assertNotSame(third, first);
+            assertEquals(third.getNodeCount(), 4);
+            assertEquals(third.getIndex(node), 3);
+            assertEquals(first.getIndex(node), -1);
+        } finally {
+            GraphAdjacency.endBatch();
+        }
+
+        graph.readLock();
+        GraphAdjacency first = GraphAdjacency.get(graph, false, false);
+        GraphAdjacency second = GraphAdjacency.get(graph, false, false);
+        graph.readUnlock();
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void testNotSharedForOtherViews() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(3);
+        GraphView view = graphModel.copyView(graphModel.getVisibleView());
+        UndirectedGraph graph = graphModel.getUndirectedGraph(view);
+
+        GraphAdjacency.startBatch();
+        try {
+            graph.readLock();
+            GraphAdjacency first = GraphAdjacency.get(graph, false, false);
+            GraphAdjacency second = GraphAdjacency.get(graph, false, false);
+            graph.readUnlock();
+            assertNotSame(second, first);
+            assertEquals(first.getNodeCount(), 3);
+        } finally {
+            GraphAdjacency.endBatch();
+            graphModel.destroyView(view);
+        }
+    }
+}
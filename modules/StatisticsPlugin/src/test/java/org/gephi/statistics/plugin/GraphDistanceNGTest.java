@@ -4,6 +4,7 @@
  */
 package org.gephi.statistics.plugin;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.UndirectedGraph;
@@ -1613,4 +1614,94 @@ public class GraphDistanceNGTest {
         assertEquals(closeness[index1], 1.5);
         assertEquals(closeness[index4], 1.);
     }
+
+    @Test
+    public void testMultiThreadedCyclicGraphMatchesSequential() {
+        GraphModel graphModel = GraphGenerator.generateCyclicUndirectedGraph(9);
+
+        GraphDistance sequential = new GraphDistance();
+        sequential.initializeStartValues();
+        UndirectedGraph undirectedGraph = graphModel.getUndirectedGraph();
+        HashMap<Node, Integer> indicies = sequential.createIndiciesMap(undirectedGraph);
+        HashMap<String, double[]> expected = (HashMap) sequential.calculateDistanceMetrics(graphModel.getGraph(), indicies, false, true);
+
+        GraphDistance parallel = new GraphDistance();
+        parallel.setThreadCount(4);
+        parallel.initializeStartValues();
+        HashMap<String, double[]> actual = (HashMap) parallel.calculateDistanceMetrics(graphModel.getGraph(), indicies, false, true);
+
+        assertTrue(Arrays.equals(expected.get(GraphDistance.BETWEENNESS), actual.get(GraphDistance.BETWEENNESS)));
+        assertTrue(Arrays.equals(expected.get(GraphDistance.CLOSENESS), actual.get(GraphDistance.CLOSENESS)));
+        assertTrue(Arrays.equals(expected.get(GraphDistance.ECCENTRICITY), actual.get(GraphDistance.ECCENTRICITY)));
+        assertEquals(parallel.getPathLength(), sequential.getPathLength());
+        assertEquals(parallel.getDiameter(), sequential.getDiameter());
+    }
+
+    @Test
+    public void testApproximateCompleteGraphCloseness() {
+        GraphModel graphModel = GraphGenerator.generateCompleteUndirectedGraph(20);
+
+        GraphDistance d = new GraphDistance();
+        d.setApproximate(true);
+        d.setErrorBound(0.5);
+        d.initializeStartValues();
+        UndirectedGraph undirectedGraph = graphModel.getUndirectedGraph();
+        HashMap<Node, Integer> indicies = d.createIndiciesMap(undirectedGraph);
+
+        HashMap<String, double[]> metricsMap = (HashMap) d.calculateDistanceMetrics(graphModel.getGraph(), indicies, false, false);
+        double[] closeness = metricsMap.get(GraphDistance.CLOSENESS);
+        double[] betweenness = metricsMap.get(GraphDistance.BETWEENNESS);
+
+        assertTrue(GraphDistance.getSampleSize(0.5, 0.95) < 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(closeness[i], 1.0);
+            assertEquals(betweenness[i], 0.0);
+        }
+        assertEquals(d.getPathLength(), 1.0);
+        assertEquals(d.getDiameter(), 1.0);
+    }
+
+    @Test
+    public void testApproximatePathGraphWithinErrorBound() {
+        GraphModel graphModel = GraphGenerator.generatePathUndirectedGraph(100);
+        UndirectedGraph undirectedGraph = graphModel.getUndirectedGraph();
+
+        GraphDistance exact = new GraphDistance();
+        exact.initializeStartValues();
+        HashMap<Node, Integer> indicies = exact.createIndiciesMap(undirectedGraph);
+        HashMap<String, double[]> expected = (HashMap) exact.calculateDistanceMetrics(graphModel.getGraph(), indicies, false, false);
+
+        double errorBound = 0.2;
+        GraphDistance d = new GraphDistance();
+        d.setApproximate(true);
+        d.setErrorBound(errorBound);
+        d.setSeed(42L);
+        d.initializeStartValues();
+        HashMap<String, double[]> actual = (HashMap) d.calculateDistanceMetrics(graphModel.getGraph(), indicies, false, false);
+
+        //Pivots are sampled, and the same seed samples the same pivots
+        assertTrue(GraphDistance.getSampleSize(errorBound, 0.95) < 100);
+        GraphDistance again = new GraphDistance();
+        again.setApproximate(true);
+        again.setErrorBound(errorBound);
+        again.setSeed(42L);
+        again.initializeStartValues();
+        HashMap<String, double[]> repeated = (HashMap) again.calculateDistanceMetrics(graphModel.getGraph(), indicies, false, false);
+        assertTrue(Arrays.equals(repeated.get(GraphDistance.BETWEENNESS), actual.get(GraphDistance.BETWEENNESS)));
+        assertTrue(Arrays.equals(repeated.get(GraphDistance.CLOSENESS), actual.get(GraphDistance.CLOSENESS)));
+
+        double[] betweenness = actual.get(GraphDistance.BETWEENNESS);
+        double[] closeness = actual.get(GraphDistance.CLOSENESS);
+        double[] exactBetweenness = expected.get(GraphDistance.BETWEENNESS);
+        double[] exactCloseness = expected.get(GraphDistance.CLOSENESS);
+        double diameter = exact.getDiameter();
+        boolean estimated = false;
+        for (int i = 0; i < 100; i++) {
+            assertEquals(betweenness[i], exactBetweenness[i], errorBound * 100 * 98, "Betweenness " + i);
+            assertEquals(closeness[i], exactCloseness[i], errorBound * diameter, "Closeness " + i);
+            estimated |= closeness[i] != exactCloseness[i];
+        }
+        assertTrue(estimated);
+        assertEquals(d.getPathLength(), exact.getPathLength(), errorBound * diameter);
+    }
 }
@@ -4,7 +4,11 @@
  */
 package org.gephi.statistics.plugin;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -251,4 +255,126 @@ public class ModularityNGTest {
         assertEquals(class7, class8);
         assertNotEquals(class4, class5);
     }
+
+    @Test
+    public void testLouvainBarbellGraphModularity() {
+        GraphModel graphModel = GraphGenerator.generateCompleteUndirectedGraph(4);
+        UndirectedGraph undirectedGraph = graphModel.getUndirectedGraph();
+        Node[] nodes = new Node[4];
+        for (int i = 0; i < 4; i++) {
+            Node currentNode = graphModel.factory().newNode(((Integer) (i + 4)).toString());
+            nodes[i] = currentNode;
+            undirectedGraph.addNode(currentNode);
+        }
+        for (int i = 0; i < 3; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                Edge currentEdge = graphModel.factory().newEdge(nodes[i], nodes[j], false);
+                undirectedGraph.addEdge(currentEdge);
+            }
+        }
+        Edge currentEdge = graphModel.factory().newEdge(undirectedGraph.getNode("0"), undirectedGraph.getNode("5"), false);
+        undirectedGraph.addEdge(currentEdge);
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+
+        Modularity mod = new Modularity();
+        int[] comStructure = new int[graph.getNodeCount()];
+
+        HashMap<String, Double> modularityValues = mod.computeLouvain(graph, comStructure, 1., false, false);
+
+        double modValue = modularityValues.get("modularity");
+
+        assertEquals(comStructure[0], comStructure[3]);
+        assertEquals(comStructure[4], comStructure[7]);
+        assertNotEquals(comStructure[0], comStructure[4]);
+        assertEquals(modValue, 12. / 13. - 0.5, 0.00001);
+    }
+
+    @Test
+    public void testLeidenMultiThreadedCyclicWithWeightsGraphModularity() {
+        GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        UndirectedGraph hgraph = graphModel.getUndirectedGraph();
+        Node[] nodes = new Node[8];
+        for (int i = 0; i < 8; i++) {
+            nodes[i] = graphModel.factory().newNode(((Integer) i).toString());
+            hgraph.addNode(nodes[i]);
+        }
+        for (int i = 0; i < 8; i++) {
+            float weight = i % 2 == 0 ? 10.f : 1.f;
+            Edge currentEdge = graphModel.factory().newEdge(nodes[i], nodes[(i + 1) % 8], 0, weight, false);
+            hgraph.addEdge(currentEdge);
+        }
+
+        Modularity mod = new Modularity();
+        mod.setUseLeiden(true);
+        mod.setThreadCount(4);
+        int[] comStructure = new int[hgraph.getNodeCount()];
+
+        mod.computeLouvain(hgraph, comStructure, 1., false, true);
+
+        Modularity sequential = new Modularity();
+        sequential.setUseLeiden(true);
+        int[] sequentialStructure = new int[hgraph.getNodeCount()];
+
+        sequential.computeLouvain(hgraph, sequentialStructure, 1., false, true);
+
+        int communities = 0;
+        for (int c : comStructure) {
+            communities = Math.max(communities, c + 1);
+        }
+        assertEquals(communities, 4);
+        assertEquals(comStructure, sequentialStructure);
+    }
+
+    @Test
+    public void testParallelRangesSameAsCallingThread() {
+        //Ring of 8 cliques of 5 nodes, each clique linked to the next one
+        int cliques = 8;
+        int size = 5;
+        int n = cliques * size;
+        List<int[]> edges = new ArrayList<int[]>();
+        for (int c = 0; c < cliques; c++) {
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    edges.add(new int[]{c * size + i, c * size + j});
+                }
+            }
+            edges.add(new int[]{c * size, ((c + 1) % cliques) * size + 1});
+        }
+        int[] offsets = new int[n + 1];
+        for (int[] edge : edges) {
+            offsets[edge[0] + 1]++;
+            offsets[edge[1] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] neighbors = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int[] edge : edges) {
+            neighbors[fill[edge[0]]] = edge[1];
+            weights[fill[edge[0]]++] = 1.0;
+            neighbors[fill[edge[1]]] = edge[0];
+            weights[fill[edge[1]]++] = 1.0;
+        }
+
+        //Below the default range threshold, the ranges stay on the calling thread
+        for (boolean refine : new boolean[]{false, true}) {
+            LouvainEngine callingThread = new LouvainEngine(1.0, false, refine, 4, new Random(42));
+            int[] expected = callingThread.run(offsets, neighbors, weights);
+
+            LouvainEngine parallel = new LouvainEngine(1.0, false, refine, 4, new Random(42));
+            parallel.setMinParallelRange(1);
+            int[] communities = parallel.run(offsets, neighbors, weights);
+
+            assertEquals(communities, expected);
+            assertEquals(parallel.getLevelCount(), callingThread.getLevelCount());
+            for (int c = 0; c < cliques; c++) {
+                for (int i = 1; i < size; i++) {
+                    assertEquals(communities[c * size + i], communities[c * size]);
+                }
+                assertFalse(communities[c * size] == communities[((c + 1) % cliques) * size]);
+            }
+        }
+    }
 }
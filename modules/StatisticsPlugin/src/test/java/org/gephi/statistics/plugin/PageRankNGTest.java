@@ -4,6 +4,7 @@
  */
 package org.gephi.statistics.plugin;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.UndirectedGraph;
@@ -447,4 +448,24 @@ public class PageRankNGTest {
         assertTrue(pr1 < pr2);
         assertTrue(pr1 < pr6);
     }
+
+    @Test
+    public void testMultiThreadedCyclicDirectedGraphPageRank() {
+        pc.newProject();
+        GraphModel graphModel = GraphGenerator.generateCyclicDirectedGraph(10000);
+        DirectedGraph hgraph = graphModel.getDirectedGraph();
+
+        PageRank sequential = new PageRank();
+        HashMap<Node, Integer> indicies = sequential.createIndiciesMap(hgraph);
+        double[] expected = sequential.calculatePagerank(hgraph, indicies, true, false, 0.001, 0.85);
+
+        PageRank parallel = new PageRank();
+        parallel.setThreadCount(4);
+        double[] pageRank = parallel.calculatePagerank(hgraph, indicies, true, false, 0.001, 0.85);
+
+        assertTrue(Arrays.equals(expected, pageRank));
+        assertFalse(parallel.getResiduals().isEmpty());
+        double diff = Math.abs(pageRank[0] - 0.0001);
+        assertTrue(diff < 0.000001);
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.statistics.plugin.dynamic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.gephi.statistics.plugin.ClusteringCoefficient;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class DynamicClusteringCoefficientNGTest {
+
+    private ProjectController pc;
+    private GraphModel graphModel;
+    private UndirectedGraph graph;
+    private DynamicClusteringCoefficient stat;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+        graphModel = Lookup.getDefault().lookup(GraphController.class).getGraphModel();
+        graph = graphModel.getUndirectedGraph();
+        stat = new DynamicClusteringCoefficient();
+        stat.setAverageOnly(true);
+        stat.execute(graphModel, null);
+        stat.setDirected(false);
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testParallelEdgesTriangle() {
+        Node[] nodes = addNodes(4);
+        addEdge(nodes[0], nodes[1], 0);
+        addEdge(nodes[0], nodes[1], 1);
+        addEdge(nodes[0], nodes[1], 2);
+        addEdge(nodes[1], nodes[2], 0);
+        addEdge(nodes[2], nodes[0], 0);
+        addEdge(nodes[2], nodes[0], 1);
+        Edge open = addEdge(nodes[2], nodes[3], 0);
+
+        assertEquals(stat.coefficient(nodes[0]), 1.0);
+        assertEquals(stat.coefficient(nodes[1]), 1.0);
+        assertEquals(stat.coefficient(nodes[2]), 1.0 / 3.0, 1e-9);
+        assertEquals(stat.coefficient(nodes[3]), 0.0);
+        assertSameAsFullPath();
+
+        removeEdge(open);
+        assertEquals(stat.coefficient(nodes[2]), 1.0);
+        assertSameAsFullPath();
+    }
+
+    @Test
+    public void testRandomMultigraph() {
+        Random random = new Random(42);
+        Node[] nodes = addNodes(40);
+        List<Edge> edges = new ArrayList<Edge>();
+        for (int i = 0; i < 300; i++) {
+            int s = random.nextInt(nodes.length);
+            int t = random.nextInt(nodes.length);
+            if (s != t) {
+                //Up to three parallel edges per pair, one per type
+                edges.add(addEdge(nodes[s], nodes[t], random.nextInt(3)));
+            }
+        }
+        assertSameAsFullPath();
+
+        //Remove one edge of some pairs and every edge of others
+        for (int i = 0; i < 120; i++) {
+            removeEdge(edges.remove(random.nextInt(edges.size())));
+        }
+        assertSameAsFullPath();
+    }
+
+    private void assertSameAsFullPath() {
+        ClusteringCoefficient full = new ClusteringCoefficient();
+        full.setDirected(false);
+        full.triangles(graph);
+        Node[] nodes = full.getResultNodes();
+        double[] coefficients = full.getCoefficientReuslts();
+        assertEquals(nodes.length, graph.getNodeCount());
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(stat.coefficient(nodes[i]), coefficients[i], 1e-9, nodes[i].getId().toString());
+        }
+    }
+
+    private Node[] addNodes(int count) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+            stat.nodeAdded(graph, nodes[i]);
+        }
+        return nodes;
+    }
+
+    private Edge addEdge(Node source, Node target, int type) {
+        Edge edge = graph.getEdge(source, target, type);
+        if (edge == null) {
+            edge = graphModel.factory().newEdge(source.getId() + "-" + target.getId() + "-" + type, source, target, type, 1.0, false);
+            graph.addEdge(edge);
+            stat.edgeAdded(graph, edge);
+        }
+        return edge;
+    }
+
+    private void removeEdge(Edge edge) {
+        if (graph.contains(edge)) {
+            graph.removeEdge(edge);
+            stat.edgeRemoved(graph, edge);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.gephi.statistics.plugin.dynamic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.gephi.attribute.api.AttributeModel;
+import org.gephi.attribute.api.Column;
+import org.gephi.attribute.time.Interval;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.project.api.ProjectController;
+import org.gephi.project.impl.ProjectControllerImpl;
+import org.gephi.statistics.api.StatisticsController;
+import org.gephi.statistics.spi.ParallelDynamicStatistics;
+import org.openide.util.Lookup;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Mathieu Bastian
+ */
+public class ParallelDynamicStatisticsNGTest {
+
+    private static final int TIMESTAMPS = 10;
+    private static final double WINDOW = 2.0;
+    private static final double TICK = 1.0;
+    private ProjectController pc;
+    private StatisticsController statisticsController;
+    private GraphModel graphModel;
+    private AttributeModel attributeModel;
+
+    @BeforeClass
+    public void setUp() {
+        pc = Lookup.getDefault().lookup(ProjectControllerImpl.class);
+        statisticsController = Lookup.getDefault().lookup(StatisticsController.class);
+    }
+
+    @BeforeMethod
+    public void initialize() {
+        pc.newProject();
+        generateDynamicGraph();
+    }
+
+    @AfterMethod
+    public void clean() {
+        pc.closeCurrentProject();
+    }
+
+    @Test
+    public void testNbNodes() {
+        assertParallelSameAsSequential(new DynamicNbNodes(), new DynamicNbNodes(), DynamicNbNodes.NB_NODES);
+    }
+
+    @Test
+    public void testNbEdges() {
+        assertParallelSameAsSequential(new DynamicNbEdges(), new DynamicNbEdges(), DynamicNbEdges.NB_EDGES);
+    }
+
+    @Test
+    public void testDegree() {
+        assertParallelSameAsSequential(new DynamicDegree(), new DynamicDegree(), DynamicDegree.DYNAMIC_AVGDEGREE,
+                DynamicDegree.DYNAMIC_DEGREE, DynamicDegree.DYNAMIC_INDEGREE, DynamicDegree.DYNAMIC_OUTDEGREE);
+    }
+
+    @Test
+    public void testClusteringCoefficient() {
+        assertParallelSameAsSequential(new DynamicClusteringCoefficient(), new DynamicClusteringCoefficient(),
+                DynamicClusteringCoefficient.DYNAMIC_AVG_CLUSTERING_COEFFICIENT, DynamicClusteringCoefficient.DYNAMIC_CLUSTERING_COEFFICIENT);
+    }
+
+    /**
+     * Runs <code>sequential</code> with the incremental loop, then
+     * <code>parallel</code> with three threads on the same graph in a new
+     * project, and compares the graph attribute <code>graphKey</code> and the
+     * node columns <code>nodeColumns</code> at each window.
+     */
+    private void assertParallelSameAsSequential(ParallelDynamicStatistics sequential, ParallelDynamicStatistics parallel, String graphKey, String... nodeColumns) {
+        sequential.setThreadCount(1);
+        List<String> expected = execute(sequential, graphKey, nodeColumns);
+
+        pc.closeCurrentProject();
+        pc.newProject();
+        generateDynamicGraph();
+        parallel.setThreadCount(3);
+        List<String> actual = execute(parallel, graphKey, nodeColumns);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(actual, expected);
+    }
+
+    private List<String> execute(ParallelDynamicStatistics statistics, String graphKey, String... nodeColumns) {
+        statistics.setBounds(new Interval(0, TIMESTAMPS - 1));
+        statistics.setWindow(WINDOW);
+        statistics.setTick(TICK);
+        statisticsController.execute(statistics);
+
+        //Results are written at the lower bound of each window
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        List<String> results = new ArrayList<String>();
+        for (double low = 0; low <= TIMESTAMPS - 1 - WINDOW; low += TICK) {
+            results.add(low + " " + graphKey + "=" + graph.getAttribute(graphKey, low));
+            for (String id : nodeColumns) {
+                Column column = attributeModel.getNodeTable().getColumn(id);
+                for (Node node : graph.getNodes()) {
+                    results.add(low + " " + node.getId() + " " + id + "=" + node.getAttribute(column, low));
+                }
+            }
+        }
+        return results;
+    }
+
+    private void generateDynamicGraph() {
+        GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
+        graphModel = graphController.getGraphModel();
+        attributeModel = graphController.getAttributeModel();
+
+        Random random = new Random(42);
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Node[] nodes = new Node[30];
+        boolean[][] present = new boolean[nodes.length][TIMESTAMPS];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            for (int t = 0; t < TIMESTAMPS; t++) {
+                if (random.nextDouble() < 0.7) {
+                    nodes[i].addTimestamp(t);
+                    present[i][t] = true;
+                }
+            }
+            graph.addNode(nodes[i]);
+        }
+        for (int i = 0; i < 120; i++) {
+            int s = random.nextInt(nodes.length);
+            int t = random.nextInt(nodes.length);
+            if (s != t && graph.getEdge(nodes[s], nodes[t]) == null) {
+                Edge edge = graphModel.factory().newEdge(nodes[s], nodes[t]);
+                for (int time = 0; time < TIMESTAMPS; time++) {
+                    if (present[s][time] && present[t][time] && random.nextDouble() < 0.6) {
+                        edge.addTimestamp(time);
+                    }
+                }
+                graph.addEdge(edge);
+            }
+        }
+    }
+}
@@ -78,6 +78,53 @@ public class GraphDistancePanel extends javax.swing.JPanel {
         this.normalizeButton.setSelected(pNormalize);
     }
 
+    public boolean isApproximate() {
+        return approximateCheckBox.isSelected();
+    }
+
+    public void setApproximate(boolean approximate) {
+        approximateCheckBox.setSelected(approximate);
+        refreshApproximate();
+    }
+
+    public double getErrorBound() {
+        try {
+            double errorBound = Double.parseDouble(errorBoundTextField.getText());
+            if (errorBound > 0 && errorBound < 1) {
+                return errorBound;
+            }
+        } catch (Exception e) {
+        }
+        return 0.05;
+    }
+
+    public void setErrorBound(double errorBound) {
+        errorBoundTextField.setText(Double.toString(errorBound));
+    }
+
+    public double getConfidence() {
+        try {
+            double confidence = Double.parseDouble(confidenceTextField.getText());
+            if (confidence > 0 && confidence < 1) {
+                return confidence;
+            }
+        } catch (Exception e) {
+        }
+        return 0.95;
+    }
+
+    public void setConfidence(double confidence) {
+        confidenceTextField.setText(Double.toString(confidence));
+    }
+
+    private void refreshApproximate() {
+        boolean approximate = approximateCheckBox.isSelected();
+        errorBoundLabel.setEnabled(approximate);
+        errorBoundTextField.setEnabled(approximate);
+        confidenceLabel.setEnabled(approximate);
+        confidenceTextField.setEnabled(approximate);
+    }
+
 
     /** This method is called from within the constructor to
      * initialize the form.
@@ -100,6 +147,11 @@ public class GraphDistancePanel extends javax.swing.JPanel {
         jLabel2 = new javax.swing.JLabel();
         jLabel3 = new javax.swing.JLabel();
         normalizeButton = new javax.swing.JCheckBox();
+        approximateCheckBox = new javax.swing.JCheckBox();
+        errorBoundLabel = new javax.swing.JLabel();
+        errorBoundTextField = new javax.swing.JTextField();
+        confidenceLabel = new javax.swing.JLabel();
+        confidenceTextField = new javax.swing.JTextField();
 
         directedButtonGroup.add(directedRadioButton);
         directedRadioButton.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.directedRadioButton.text")); // NOI18N
@@ -142,6 +194,26 @@ public class GraphDistancePanel extends javax.swing.JPanel {
 
         normalizeButton.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.normalizeButton.text")); // NOI18N
 
+        approximateCheckBox.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.approximateCheckBox.text")); // NOI18N
+        approximateCheckBox.setToolTipText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.approximateCheckBox.toolTipText")); // NOI18N
+        approximateCheckBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                approximateCheckBoxActionPerformed(evt);
+            }
+        });
+
+        errorBoundLabel.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.errorBoundLabel.text")); // NOI18N
+        errorBoundLabel.setEnabled(false);
+
+        errorBoundTextField.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.errorBoundTextField.text")); // NOI18N
+        errorBoundTextField.setEnabled(false);
+
+        confidenceLabel.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.confidenceLabel.text")); // NOI18N
+        confidenceLabel.setEnabled(false);
+
+        confidenceTextField.setText(org.openide.util.NbBundle.getMessage(GraphDistancePanel.class, "GraphDistancePanel.confidenceTextField.text")); // NOI18N
+        confidenceTextField.setEnabled(false);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -165,6 +237,17 @@ public class GraphDistancePanel extends javax.swing.JPanel {
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(undirectedRadioButton)
                         .addGap(0, 0, Short.MAX_VALUE))
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(approximateCheckBox)
+                        .addGap(18, 18, 18)
+                        .addComponent(errorBoundLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(errorBoundTextField, javax.swing.GroupLayout.PREFERRED_SIZE, 59, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addGap(18, 18, 18)
+                        .addComponent(confidenceLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(confidenceTextField, javax.swing.GroupLayout.PREFERRED_SIZE, 59, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addGap(0, 0, Short.MAX_VALUE))
                     .addGroup(layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(jLabel2)
@@ -187,6 +270,13 @@ public class GraphDistancePanel extends javax.swing.JPanel {
                     .addComponent(normalizeButton))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(undirectedRadioButton)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(approximateCheckBox)
+                    .addComponent(errorBoundLabel)
+                    .addComponent(errorBoundTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(confidenceLabel)
+                    .addComponent(confidenceTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addGap(18, 18, 18)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(jLabel1)
@@ -208,10 +298,19 @@ public class GraphDistancePanel extends javax.swing.JPanel {
     private void directedRadioButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_directedRadioButtonActionPerformed
         // TODO add your handling code here:
 }//GEN-LAST:event_directedRadioButtonActionPerformed
+
+    private void approximateCheckBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_approximateCheckBoxActionPerformed
+        refreshApproximate();
+    }//GEN-LAST:event_approximateCheckBoxActionPerformed
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBox approximateCheckBox;
+    private javax.swing.JLabel confidenceLabel;
+    private javax.swing.JTextField confidenceTextField;
     private org.jdesktop.swingx.JXLabel descriptionLabel;
     private javax.swing.ButtonGroup directedButtonGroup;
     protected javax.swing.JRadioButton directedRadioButton;
+    private javax.swing.JLabel errorBoundLabel;
+    private javax.swing.JTextField errorBoundTextField;
     private org.jdesktop.swingx.JXHeader header;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
@@ -51,7 +51,7 @@ import javax.swing.ImageIcon;
 import javax.swing.JPanel;
 import org.gephi.algorithms.shortestpath.AbstractShortestPathAlgorithm;
 import org.gephi.algorithms.shortestpath.BellmanFordShortestPathAlgorithm;
-import org.gephi.algorithms.shortestpath.DijkstraShortestPathAlgorithm;
+import org.gephi.algorithms.shortestpath.IndexedDijkstraShortestPathAlgorithm;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
@@ -126,7 +126,7 @@ public class HeatMap implements Tool {
                         algorithm.compute();
                     } else {
                         Graph graph = gc.getGraphModel().getGraphVisible();
-                        algorithm = new DijkstraShortestPathAlgorithm(graph, n);
+                        algorithm = new IndexedDijkstraShortestPathAlgorithm(graph, n);
                         algorithm.compute();
                     }
 
@@ -47,7 +47,7 @@ import javax.swing.ImageIcon;
 import javax.swing.JPanel;
 import org.gephi.algorithms.shortestpath.AbstractShortestPathAlgorithm;
 import org.gephi.algorithms.shortestpath.BellmanFordShortestPathAlgorithm;
-import org.gephi.algorithms.shortestpath.DijkstraShortestPathAlgorithm;
+import org.gephi.algorithms.shortestpath.IndexedDijkstraShortestPathAlgorithm;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
@@ -122,7 +122,7 @@ public class ShortestPath implements Tool {
                     if (gm.isDirected()) {
                         algorithm = new BellmanFordShortestPathAlgorithm(gm.getDirectedGraphVisible(), sourceNode);
                     } else {
-                        algorithm = new DijkstraShortestPathAlgorithm(gm.getGraphVisible(), sourceNode);
+                        algorithm = new IndexedDijkstraShortestPathAlgorithm(gm.getGraphVisible(), sourceNode);
                     }
                     algorithm.compute();
 